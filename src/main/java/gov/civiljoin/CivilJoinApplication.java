@@ -3,6 +3,18 @@ package gov.civiljoin;
 import gov.civiljoin.component.SplashScreen;
 import gov.civiljoin.service.CommentService;
 import gov.civiljoin.service.SystemActivityService;
+import gov.civiljoin.service.ActivityLogWriter;
+import gov.civiljoin.service.StatisticsRollupService;
+import gov.civiljoin.service.RetentionService;
+import gov.civiljoin.service.AccountDeletionService;
+import gov.civiljoin.service.ActivityArchiveService;
+import gov.civiljoin.service.EventJournal;
+import gov.civiljoin.service.SecurityEventBus;
+import gov.civiljoin.service.SessionRegistry;
+import gov.civiljoin.service.LoginBookkeepingBuffer;
+import gov.civiljoin.service.PasswordHashingService;
+import gov.civiljoin.service.SecurityAnomalyDetector;
+import gov.civiljoin.service.UsernameFilterService;
 import gov.civiljoin.service.SecurityService;
 import gov.civiljoin.service.AsyncTaskService;
 import gov.civiljoin.service.CacheService;
@@ -524,6 +536,22 @@ public class CivilJoinApplication extends Application {
         LOGGER.info("Shutting down CivilJoin application...");
         
         try {
+            // Only stop services that were created; getInstance() would start the others
+            if (RetentionService.isCreated()) RetentionService.getInstance().shutdown();
+            if (AccountDeletionService.isCreated()) AccountDeletionService.getInstance().shutdown();
+            if (ActivityArchiveService.isCreated()) ActivityArchiveService.getInstance().shutdown();
+            
+            // Flush queued events while the connection pool is still open, producers before
+            // the consumers they write through: login work feeds the bus, the bus and its
+            // subscribers feed the activity writer, and both fall back to the journal and rollups
+            if (PasswordHashingService.isCreated()) PasswordHashingService.getInstance().shutdown();
+            if (SessionRegistry.isCreated()) SessionRegistry.getInstance().shutdown();
+            if (LoginBookkeepingBuffer.isCreated()) LoginBookkeepingBuffer.getInstance().shutdown();
+            if (SecurityEventBus.isCreated()) SecurityEventBus.getInstance().shutdown();
+            if (ActivityLogWriter.isCreated()) ActivityLogWriter.getInstance().shutdown();
+            if (EventJournal.isCreated()) EventJournal.getInstance().shutdown();
+            if (StatisticsRollupService.isCreated()) StatisticsRollupService.getInstance().shutdown();
+            
             // Shutdown performance services gracefully
             AsyncTaskService.getInstance().shutdown();
             CacheService.getInstance().shutdown();
@@ -555,6 +583,34 @@ public class CivilJoinApplication extends Application {
         // Initialize enhanced timeline and security services
         // These will create their own tables with the enhanced schema
         activityService.initializeTable();
+        
+        // security_events comes from the master schema; add columns newer code writes
+        DatabaseUtil.ensureColumn("security_events", "user_agent", "TEXT NULL AFTER ip_address");
+        DatabaseUtil.ensureColumn("security_events", "metadata_bin", "BLOB NULL AFTER metadata");
+        
+        // Pre-aggregated statistics for the dashboards
+        StatisticsRollupService.getInstance().initialize();
+        
+        // Detect suspicious security event patterns as they are published
+        SecurityAnomalyDetector.getInstance().start();
+        
+        // Tune the PBKDF2 cost for new password hashes to this machine
+        PasswordHashingService.getInstance().calibrate();
+        
+        // Username filter lets logins for unknown names skip the user lookup
+        UsernameFilterService.getInstance().initialize();
+        
+        // Background chunked purge of expired rows
+        RetentionService.getInstance().start();
+        
+        // Resume account deletions interrupted by the last shutdown
+        AccountDeletionService.getInstance().start();
+        
+        // Move aged system activities into shared archive segments
+        ActivityArchiveService.getInstance().start();
+        
+        // Replay any audit events journaled while the database was unreachable
+        EventJournal.getInstance().replayIfDatabaseAvailable();
     }
 
     public static void main(String[] args) {
@@ -8,12 +8,14 @@ import gov.civiljoin.model.User;
 import gov.civiljoin.service.AuthService;
 import gov.civiljoin.service.CommentService;
 import gov.civiljoin.service.PostService;
+import gov.civiljoin.service.SearchService;
 import gov.civiljoin.service.CacheService;
 import gov.civiljoin.util.AlertUtil;
 import gov.civiljoin.util.DatabaseUtil;
 import gov.civiljoin.util.NotificationManager;
 import gov.civiljoin.util.ThemeManager;
 import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
@@ -73,6 +75,7 @@ public class DashboardController implements Initializable {
     @FXML private Button feedbackButton;
     @FXML private Button settingsButton;
     @FXML private TilePane postTilePane;
+    @FXML private TextField postSearchField;
     @FXML private Button themeToggleButton;
     @FXML private VBox notificationArea;
     
@@ -84,6 +87,13 @@ public class DashboardController implements Initializable {
     private final AuthService authService = new AuthService();
     private final PostService postService = new PostService();
     private final CommentService commentService = new CommentService();
+    private final SearchService searchService = new SearchService();
+    
+    // Post search: streamed as you type, federated across sources on Enter
+    private static final int POST_SEARCH_MAX_RESULTS = 200;
+    private static final int FEDERATED_SEARCH_LIMIT_PER_SOURCE = 10;
+    private final PauseTransition postSearchDebounce = new PauseTransition(Duration.millis(300));
+    private SearchService.SearchStream postSearchStream;
     
     // View state tracking
     private enum View { DASHBOARD, TIMELINE, FEEDBACK, SETTINGS, ADMIN }
@@ -120,6 +130,9 @@ public class DashboardController implements Initializable {
         // Set up notification area
         setupNotificationArea();
         
+        // Set up post search field
+        setupPostSearch();
+        
         // Load dashboard data asynchronously to prevent UI blocking
         loadDashboardDataAsync();
         
@@ -127,6 +140,109 @@ public class DashboardController implements Initializable {
         // Controllers will be created when their views are first accessed
     }
     
+    /**
+     * Search-as-you-type over posts; Enter searches every source at once
+     */
+    private void setupPostSearch() {
+        if (postSearchField == null) {
+            return;
+        }
+        postSearchDebounce.setOnFinished(e -> runPostSearch(postSearchField.getText()));
+        postSearchField.textProperty().addListener((obs, oldText, newText) -> postSearchDebounce.playFromStart());
+        postSearchField.setOnAction(e -> {
+            postSearchDebounce.stop();
+            runFederatedSearch(postSearchField.getText());
+        });
+    }
+    
+    /**
+     * Stream matching posts into the dashboard grid; an empty field restores the feed
+     */
+    private void runPostSearch(String keyword) {
+        if (currentView != View.DASHBOARD) {
+            return;
+        }
+        if (keyword == null || keyword.trim().isEmpty()) {
+            cancelPostSearch();
+            showDashboardView();
+            return;
+        }
+        
+        postTilePane.getChildren().clear();
+        postSearchStream = searchService.streamPosts(keyword, POST_SEARCH_MAX_RESULTS,
+            batch -> {
+                for (Post post : batch) {
+                    postTilePane.getChildren().add(new PostCardComponent(
+                        post, currentUser, postService, this::handleDeletePost, this::handleDownloadPost));
+                }
+            },
+            () -> {
+                if (postTilePane.getChildren().isEmpty()) {
+                    postTilePane.getChildren().add(createSearchMessage("No posts match \"" + keyword.trim() + "\""));
+                }
+            },
+            throwable -> {
+                LOGGER.log(Level.WARNING, "Post search failed", throwable);
+                postTilePane.getChildren().add(createSearchMessage("Search failed: " + throwable.getMessage()));
+            });
+    }
+    
+    /**
+     * Search posts, comments, activity and feedback together and list the merged hits
+     */
+    private void runFederatedSearch(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return;
+        }
+        cancelPostSearch();
+        if (currentView != View.DASHBOARD) {
+            setCurrentView(View.DASHBOARD);
+        }
+        
+        postTilePane.getChildren().clear();
+        postTilePane.getChildren().add(createSearchMessage("Searching..."));
+        searchService.searchAll(keyword.trim(), FEDERATED_SEARCH_LIMIT_PER_SOURCE,
+            SearchService.DEFAULT_SOURCE_DEADLINE_MS,
+            result -> {
+                postTilePane.getChildren().clear();
+                if (result.getHits().isEmpty()) {
+                    postTilePane.getChildren().add(createSearchMessage("Nothing matches \"" + keyword.trim() + "\""));
+                }
+                for (SearchService.SearchHit hit : result.getHits()) {
+                    Label title = new Label(hit.getSource().getDisplayName() + ": " + hit.getTitle());
+                    title.setStyle("-fx-font-weight: bold;");
+                    Label snippet = new Label(hit.getSnippet());
+                    snippet.setWrapText(true);
+                    VBox card = new VBox(4, title, snippet);
+                    card.setPadding(new Insets(10));
+                    card.setPrefWidth(300);
+                    card.getStyleClass().add("card");
+                    postTilePane.getChildren().add(card);
+                }
+                if (result.isPartial()) {
+                    postTilePane.getChildren().add(createSearchMessage("Some sources did not answer in time"));
+                }
+            },
+            throwable -> {
+                LOGGER.log(Level.WARNING, "Federated search failed", throwable);
+                postTilePane.getChildren().setAll(createSearchMessage("Search failed: " + throwable.getMessage()));
+            });
+    }
+    
+    private void cancelPostSearch() {
+        if (postSearchStream != null) {
+            postSearchStream.cancel();
+            postSearchStream = null;
+        }
+    }
+    
+    private Label createSearchMessage(String text) {
+        Label label = new Label(text);
+        label.setStyle("-fx-font-size: 14px; -fx-text-fill: " +
+                       (themeManager.isDarkMode() ? "#e2e8f0" : "#555555") + ";");
+        return label;
+    }
+    
     /**
      * Setup loading indicator for performance feedback
      */
@@ -488,6 +604,8 @@ public class DashboardController implements Initializable {
      */
     @FXML
     private void handleLogout(ActionEvent event) {
+        authService.logout(currentUser);
+        
         try {
             // Return to login screen
             FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/gov/civiljoin/view/login.fxml"));
@@ -584,6 +702,11 @@ public class DashboardController implements Initializable {
      */
     private void setCurrentView(View view) {
         currentView = view;
+        cancelPostSearch();
+        if (postSearchField != null && view != View.DASHBOARD) {
+            postSearchDebounce.stop();
+            postSearchField.clear();
+        }
         
         // Apply styleClass to sidebar buttons using ThemeManager
         themeManager.styleSidebarButton(dashboardButton, view == View.DASHBOARD);
@@ -4,11 +4,14 @@ import gov.civiljoin.CivilJoinApplication;
 import gov.civiljoin.model.User;
 import gov.civiljoin.service.AuthService;
 import gov.civiljoin.service.AsyncTaskService;
+import gov.civiljoin.service.DashboardPrefetchService;
+import gov.civiljoin.service.PasswordHashingService;
 import gov.civiljoin.util.ThemeManager;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -16,8 +19,10 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,56 +73,47 @@ public class LoginController {
         
         LOGGER.info("Starting async authentication for user: " + username);
         
-        // Execute authentication asynchronously
-        AsyncTaskService.getInstance().executeDbTask(
-            // Background task
-            () -> {
-                try {
-                    // This runs on background thread, won't block UI
-                    return authService.authenticate(username, password);
-                } catch (Exception e) {
-                    LOGGER.log(Level.SEVERE, "Authentication error for user: " + username, e);
-                    throw new RuntimeException("Authentication failed: " + e.getMessage(), e);
-                }
-            },
-            // Success callback (runs on JavaFX Application Thread)
-            user -> {
-                loginButton.setText("Login");
-                errorLabel.setStyle(""); // Reset style
-                
-                if (user != null) {
-                    LOGGER.info("Authentication successful for user: " + username);
-                    errorLabel.setText("Login successful! Loading dashboard...");
-                    errorLabel.setStyle("-fx-text-fill: #4caf50;"); // Green color for success
-                    
-                    // Small delay to show success message before navigation
-                    Platform.runLater(() -> {
-                        try {
-                            ensureResourcesExist();
-                            navigateToDashboard(user);
-                        } catch (Exception e) {
-                            LOGGER.log(Level.SEVERE, "Error navigating to dashboard", e);
-                            errorLabel.setText("Error loading dashboard: " + e.getMessage());
-                            errorLabel.setStyle("-fx-text-fill: #f44336;"); // Red for error
-                            loginButton.setDisable(false);
-                        }
-                    });
+        // Execute authentication asynchronously; hashing runs on its own executor, not the DB pool
+        authService.authenticateAsync(username, password).whenComplete((user, throwable) -> Platform.runLater(() -> {
+            loginButton.setText("Login");
+            errorLabel.setStyle(""); // Reset style
+            
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+                loginButton.setDisable(false);
+                errorLabel.setStyle("-fx-text-fill: #f44336;"); // Red for error
+                if (cause instanceof PasswordHashingService.SaturatedException) {
+                    LOGGER.warning("Login rejected under load for user: " + username + " - " + cause.getMessage());
+                    errorLabel.setText("Too many sign-in attempts right now, please try again in a moment");
                 } else {
-                    LOGGER.warning("Authentication failed for user: " + username);
-                    errorLabel.setText("Invalid username or password");
-                    errorLabel.setStyle("-fx-text-fill: #f44336;"); // Red for error
-                    loginButton.setDisable(false);
+                    LOGGER.log(Level.SEVERE, "Login error for user: " + username, cause);
+                    errorLabel.setText("Login failed: " + cause.getMessage());
                 }
-            },
-            // Error callback (runs on JavaFX Application Thread)
-            throwable -> {
-                LOGGER.log(Level.SEVERE, "Login error for user: " + username, throwable);
-                loginButton.setText("Login");
-                loginButton.setDisable(false);
-                errorLabel.setText("Login failed: " + throwable.getMessage());
+            } else if (user != null) {
+                LOGGER.info("Authentication successful for user: " + username);
+                errorLabel.setText("Login successful! Loading dashboard...");
+                errorLabel.setStyle("-fx-text-fill: #4caf50;"); // Green color for success
+                
+                // Small delay to show success message before navigation
+                Platform.runLater(() -> {
+                    try {
+                        ensureResourcesExist();
+                        navigateToDashboard(user);
+                    } catch (Exception e) {
+                        LOGGER.log(Level.SEVERE, "Error navigating to dashboard", e);
+                        errorLabel.setText("Error loading dashboard: " + e.getMessage());
+                        errorLabel.setStyle("-fx-text-fill: #f44336;"); // Red for error
+                        loginButton.setDisable(false);
+                    }
+                });
+            } else {
+                LOGGER.warning("Authentication failed for user: " + username);
+                errorLabel.setText("Invalid username or password");
                 errorLabel.setStyle("-fx-text-fill: #f44336;"); // Red for error
+                loginButton.setDisable(false);
             }
-        );
+        }));
     }
     
     /**
@@ -164,9 +160,13 @@ public class LoginController {
                     // Single Platform.runLater call to avoid race conditions
                     Platform.runLater(() -> {
                         try {
-                            // Use preloaded resources
+                            // Use preloaded resources; the view itself may have been prefetched during sign-in
                             FXMLLoader fxmlLoader = new FXMLLoader(resources.dashboardUrl);
-                            Scene scene = new Scene(fxmlLoader.load());
+                            byte[] prefetchedView = DashboardPrefetchService.getInstance().takeDashboardFxml();
+                            Parent root = prefetchedView != null
+                                ? fxmlLoader.load(new ByteArrayInputStream(prefetchedView))
+                                : fxmlLoader.load();
+                            Scene scene = new Scene(root);
                             
                             // Apply CSS and theme immediately
                             if (resources.cssUrl != null) {
@@ -2,10 +2,12 @@ package gov.civiljoin.controller;
 
 import gov.civiljoin.model.User;
 import gov.civiljoin.service.AuthService;
+import gov.civiljoin.service.PasswordHashingService;
 import gov.civiljoin.util.NotificationManager;
 import gov.civiljoin.util.ThemeManager;
 import gov.civiljoin.util.NavigationManager;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
@@ -19,6 +21,8 @@ import javafx.util.Duration;
 
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -237,18 +241,26 @@ public class SettingsController implements Initializable {
             return;
         }
         
-        // Verify current password first
-        if (!authService.verifyPassword(currentUser, currentPassword)) {
-            notificationManager.showNotification("Current password is incorrect", NotificationManager.NotificationType.ERROR);
-            return;
-        }
-        
-        if (authService.changePassword(currentUser, currentPassword, newPassword)) {
-            notificationManager.showNotification("Password changed successfully", NotificationManager.NotificationType.SUCCESS);
-            clearPasswordFields();
-        } else {
-            notificationManager.showNotification("Failed to change password. Please try again.", NotificationManager.NotificationType.ERROR);
-        }
+        // Verification and hashing run off the FX thread; the current password is checked once
+        changePasswordButton.setDisable(true);
+        authService.changePasswordAsync(currentUser, currentPassword, newPassword).whenComplete((changed, throwable) -> Platform.runLater(() -> {
+            changePasswordButton.setDisable(false);
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+                if (cause instanceof PasswordHashingService.SaturatedException) {
+                    notificationManager.showNotification("The server is busy, please try again in a moment", NotificationManager.NotificationType.WARNING);
+                } else {
+                    LOGGER.log(Level.SEVERE, "Password change failed for user: " + currentUser.getId(), cause);
+                    notificationManager.showNotification("Failed to change password. Please try again.", NotificationManager.NotificationType.ERROR);
+                }
+            } else if (changed) {
+                notificationManager.showNotification("Password changed successfully", NotificationManager.NotificationType.SUCCESS);
+                clearPasswordFields();
+            } else {
+                notificationManager.showNotification("Current password is incorrect", NotificationManager.NotificationType.ERROR);
+            }
+        }));
     }
     
     /**
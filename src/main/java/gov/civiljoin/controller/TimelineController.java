@@ -4,12 +4,12 @@ import gov.civiljoin.model.SystemActivity;
 import gov.civiljoin.model.SystemActivity.ActivityType;
 import gov.civiljoin.model.SystemActivity.Severity;
 import gov.civiljoin.model.User;
+import gov.civiljoin.service.ActivityQuery;
+import gov.civiljoin.service.AsyncTaskService;
 import gov.civiljoin.service.SystemActivityService;
 import gov.civiljoin.util.NotificationManager;
 import gov.civiljoin.util.ThemeManager;
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -39,9 +39,16 @@ import java.util.logging.Logger;
  */
 public class TimelineController implements Initializable {
     private static final Logger LOGGER = Logger.getLogger(TimelineController.class.getName());
+    private static final int PAGE_SIZE = 50;
+    private static final double SEARCH_DEBOUNCE_MS = 300;
+    private static final int TAIL_BATCH_SIZE = 100;
+    private static final int MAX_DISPLAYED_ACTIVITIES = 200;
+    private static final int MIN_POLL_SECONDS = 5;
+    private static final int MAX_POLL_SECONDS = 120;
     private final ThemeManager themeManager = ThemeManager.getInstance();
     private final SystemActivityService activityService = new SystemActivityService();
     private final NotificationManager notificationManager = NotificationManager.getInstance();
+    private final AsyncTaskService asyncTaskService = AsyncTaskService.getInstance();
 
     @FXML private VBox contentContainer;
     @FXML private HBox filterContainer;
@@ -56,9 +63,18 @@ public class TimelineController implements Initializable {
     
     private User currentUser;
     private List<SystemActivity> activities = new ArrayList<>();
-    private Timeline autoRefreshTimeline;
+    private PauseTransition autoRefreshTimer;
     private boolean isAutoRefreshEnabled = true;
-    private int autoRefreshInterval = 30; // seconds
+    private boolean pollInProgress = false;
+    private int autoRefreshInterval = MIN_POLL_SECONDS; // seconds, doubles while nothing changes
+    private int tailLastSeenId;
+    private int displayedCount = 0;
+    private Label activityCountLabel;
+    private ActivityQuery currentQuery;
+    private boolean hasMorePages = false;
+    private int loadGeneration = 0;
+    private Button loadMoreButton;
+    private PauseTransition searchDebounce;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -94,7 +110,7 @@ public class TimelineController implements Initializable {
             "Announcements"
         );
         typeFilter.setValue("All Activities");
-        typeFilter.setOnAction(e -> filterActivities());
+        typeFilter.setOnAction(e -> loadActivities());
 
         // Severity filter
         severityFilter.getItems().addAll(
@@ -105,11 +121,13 @@ public class TimelineController implements Initializable {
             "All Levels"
         );
         severityFilter.setValue("All Severities");
-        severityFilter.setOnAction(e -> filterActivities());
+        severityFilter.setOnAction(e -> loadActivities());
 
-        // Search field
+        // Search field; filters run in the database, so wait for typing to pause
         searchField.setPromptText("🔍 Search activities...");
-        searchField.textProperty().addListener((obs, oldText, newText) -> filterActivities());
+        searchDebounce = new PauseTransition(Duration.millis(SEARCH_DEBOUNCE_MS));
+        searchDebounce.setOnFinished(e -> loadActivities());
+        searchField.textProperty().addListener((obs, oldText, newText) -> searchDebounce.playFromStart());
 
         // Auto-refresh toggle
         autoRefreshToggle.setText("🟢 Live");
@@ -122,21 +140,27 @@ public class TimelineController implements Initializable {
     }
 
     /**
-     * Setup auto-refresh functionality
+     * Setup auto-refresh functionality.
+     * Each poll only asks for activities newer than the last one shown; the interval
+     * backs off while nothing changes and resets as soon as something new arrives.
      */
     private void setupAutoRefresh() {
-        autoRefreshTimeline = new Timeline(new KeyFrame(
-            Duration.seconds(autoRefreshInterval),
-            e -> {
-                if (isAutoRefreshEnabled) {
-                    loadActivities();
-                    updateStatusLabel("Last updated: " + java.time.LocalTime.now().format(
-                        DateTimeFormatter.ofPattern("HH:mm:ss")));
-                }
+        autoRefreshTimer = new PauseTransition(Duration.seconds(autoRefreshInterval));
+        autoRefreshTimer.setOnFinished(e -> {
+            if (isAutoRefreshEnabled) {
+                pollForNewActivities();
             }
-        ));
-        autoRefreshTimeline.setCycleCount(Animation.INDEFINITE);
-        autoRefreshTimeline.play();
+        });
+    }
+
+    /**
+     * Schedule the next tail poll using the current interval
+     */
+    private void scheduleNextPoll() {
+        if (autoRefreshTimer == null || !isAutoRefreshEnabled) return;
+        autoRefreshTimer.stop();
+        autoRefreshTimer.setDuration(Duration.seconds(autoRefreshInterval));
+        autoRefreshTimer.playFromStart();
     }
 
     /**
@@ -146,11 +170,13 @@ public class TimelineController implements Initializable {
         isAutoRefreshEnabled = autoRefreshToggle.isSelected();
         if (isAutoRefreshEnabled) {
             autoRefreshToggle.setText("🟢 Live");
-            autoRefreshTimeline.play();
-            updateStatusLabel("Auto-refresh enabled (" + autoRefreshInterval + "s interval)");
+            autoRefreshInterval = MIN_POLL_SECONDS;
+            updateStatusLabel("Auto-refresh enabled");
+            // Catch up on anything missed while paused
+            pollForNewActivities();
         } else {
             autoRefreshToggle.setText("⏸️ Paused");
-            autoRefreshTimeline.stop();
+            autoRefreshTimer.stop();
             updateStatusLabel("Auto-refresh paused");
         }
     }
@@ -188,33 +214,49 @@ public class TimelineController implements Initializable {
      */
     public void setup(User user) {
         this.currentUser = user;
-        loadActivities();
+        
+        // Record the view once per visit, not on every refresh
+        if (currentUser != null) {
+            activityService.logActivity(
+                currentUser.getId(), 
+                ActivityType.USER_LOGIN, 
+                "Viewed timeline activities"
+            );
+        }
     }
 
     /**
-     * Load activities from database
+     * Load the first page matching the current filters and rebuild the timeline.
+     * Filtering happens in the database, so matches are found however old they are.
      */
     private void loadActivities() {
-        Platform.runLater(() -> {
-            try {
-                // Get recent activities
-                List<SystemActivity> recentActivities = activityService.getRecentActivities(50);
-                this.activities = recentActivities;
+        ActivityQuery query = buildQueryFromFilters();
+        int generation = ++loadGeneration;
+        
+        updateStatusLabel("Loading activities...");
+        asyncTaskService.executeDbTask(
+            () -> {
+                // Read the tail position first so rows written during the page query are not missed
+                int latestId = activityService.getLatestActivityId();
+                return new TimelinePage(latestId, activityService.findActivities(query));
+            },
+            page -> {
+                // A newer filter change has superseded this load
+                if (generation != loadGeneration) return;
                 
-                // Log current user activity
-                if (currentUser != null) {
-                    activityService.logActivity(
-                        currentUser.getId(), 
-                        ActivityType.USER_LOGIN, 
-                        "Viewed timeline activities"
-                    );
-                }
+                currentQuery = query;
+                activities = new ArrayList<>(page.activities);
+                hasMorePages = page.activities.size() >= query.getLimit();
+                tailLastSeenId = page.latestId;
+                markTailSeen(activities);
                 
                 displayActivities();
+                autoRefreshInterval = MIN_POLL_SECONDS;
                 updateStatusLabel("Loaded " + activities.size() + " activities");
-                
-            } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "Failed to load activities", e);
+                scheduleNextPoll();
+            },
+            error -> {
+                LOGGER.log(Level.SEVERE, "Failed to load activities", error);
                 updateStatusLabel("Error loading activities");
                 if (notificationManager != null) {
                     notificationManager.showNotification(
@@ -222,72 +264,190 @@ public class TimelineController implements Initializable {
                         NotificationManager.NotificationType.ERROR
                     );
                 }
+                scheduleNextPoll();
             }
-        });
+        );
     }
 
     /**
-     * Filter activities based on current filter settings
+     * Append the next keyset page after the last activity shown
      */
-    private void filterActivities() {
-        if (activities == null) return;
+    private void loadMoreActivities() {
+        if (currentQuery == null || activities.isEmpty()) return;
+        
+        ActivityQuery query = currentQuery.after(activities.get(activities.size() - 1));
+        int generation = loadGeneration;
+        loadMoreButton.setDisable(true);
+        
+        asyncTaskService.executeDbTask(
+            () -> activityService.findActivities(query),
+            page -> {
+                loadMoreButton.setDisable(false);
+                if (generation != loadGeneration) return;
+                
+                hasMorePages = page.size() >= query.getLimit();
+                activitiesContainer.getChildren().remove(loadMoreButton);
+                for (SystemActivity activity : page) {
+                    activities.add(activity);
+                    activitiesContainer.getChildren().add(createActivityCard(activity));
+                }
+                displayedCount += page.size();
+                activityCountLabel.setText(displayedCount + " recent activities");
+                if (hasMorePages) {
+                    activitiesContainer.getChildren().add(loadMoreButton);
+                }
+            },
+            error -> {
+                loadMoreButton.setDisable(false);
+                LOGGER.log(Level.WARNING, "Failed to load more activities", error);
+                updateStatusLabel("Error loading more activities");
+            }
+        );
+    }
 
-        List<SystemActivity> filteredActivities = new ArrayList<>(activities);
-        
-        // Filter by type
+    /**
+     * Translate the filter controls into a timeline query
+     */
+    private ActivityQuery buildQueryFromFilters() {
         String typeFilterValue = typeFilter.getValue();
-        if (typeFilterValue != null && !typeFilterValue.equals("All Activities")) {
-            filteredActivities.removeIf(activity -> !matchesTypeFilter(activity, typeFilterValue));
-        }
-        
-        // Filter by severity
         String severityFilterValue = severityFilter.getValue();
-        if (severityFilterValue != null && !severityFilterValue.equals("All Severities")) {
-            Severity minSeverity = getMinSeverityFromFilter(severityFilterValue);
-            if (minSeverity != null) {
-                filteredActivities.removeIf(activity -> 
-                    activity.getSeverity().ordinal() < minSeverity.ordinal());
+        
+        return ActivityQuery.builder()
+            .types(typeFilterValue != null ? typesForFilter(typeFilterValue) : null)
+            .minSeverity(severityFilterValue != null ? getMinSeverityFromFilter(severityFilterValue) : null)
+            .searchText(searchField.getText())
+            .limit(PAGE_SIZE)
+            .build();
+    }
+
+    /**
+     * Fetch only activities newer than the last one shown and prepend them
+     */
+    private void pollForNewActivities() {
+        if (pollInProgress) return;
+        pollInProgress = true;
+        
+        int lastSeenId = tailLastSeenId;
+        asyncTaskService.executeDbTask(
+            () -> activityService.getActivitiesAfter(lastSeenId, TAIL_BATCH_SIZE),
+            newActivities -> {
+                pollInProgress = false;
+                
+                if (newActivities.size() >= TAIL_BATCH_SIZE) {
+                    // Too far behind to patch in place
+                    loadActivities();
+                    return;
+                }
+                
+                int added = prependActivities(newActivities);
+                autoRefreshInterval = added > 0
+                    ? MIN_POLL_SECONDS
+                    : Math.min(autoRefreshInterval * 2, MAX_POLL_SECONDS);
+                
+                updateStatusLabel("Last updated: " + java.time.LocalTime.now().format(
+                    DateTimeFormatter.ofPattern("HH:mm:ss")) +
+                    (added > 0 ? " (" + added + " new)" : ""));
+                scheduleNextPoll();
+            },
+            error -> {
+                pollInProgress = false;
+                LOGGER.log(Level.WARNING, "Failed to poll for new activities", error);
+                autoRefreshInterval = Math.min(autoRefreshInterval * 2, MAX_POLL_SECONDS);
+                scheduleNextPoll();
+            }
+        );
+    }
+
+    /**
+     * Add new activities (in id order) to the top of the timeline without rebuilding existing cards.
+     * Rows at or below the tail position were already shown, by an earlier poll or by a reload
+     * that raced this one. Only the few new rows are checked against the query here; everything
+     * else was filtered in SQL.
+     *
+     * @return number of activities that were not already shown
+     */
+    private int prependActivities(List<SystemActivity> newActivities) {
+        List<SystemActivity> visible = new ArrayList<>();
+        int added = 0;
+        
+        for (SystemActivity activity : newActivities) {
+            if (activity.getId() <= tailLastSeenId) continue;
+            added++;
+            if (currentQuery == null || currentQuery.matches(activity)) {
+                activities.add(0, activity);
+                visible.add(activity);
             }
         }
+        markTailSeen(newActivities);
+        
+        if (visible.isEmpty()) {
+            return added;
+        }
         
-        // Filter by search text
-        String searchText = searchField.getText();
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            filteredActivities.removeIf(activity -> 
-                !activity.getDescription().toLowerCase().contains(searchText.toLowerCase()) &&
-                (activity.getUsername() == null || !activity.getUsername().toLowerCase().contains(searchText.toLowerCase())));
+        if (displayedCount == 0) {
+            // Replacing the empty state needs the header, so rebuild
+            displayActivities();
+            return added;
         }
         
-        displayFilteredActivities(filteredActivities);
+        // The header is the first child; each newer card goes directly below it
+        for (SystemActivity activity : visible) {
+            activitiesContainer.getChildren().add(1, createActivityCard(activity));
+        }
+        displayedCount += visible.size();
+        
+        if (displayedCount > MAX_DISPLAYED_ACTIVITIES) {
+            // Drop the oldest cards; they stay reachable through "Load more"
+            activitiesContainer.getChildren().remove(loadMoreButton);
+            while (displayedCount > MAX_DISPLAYED_ACTIVITIES) {
+                activitiesContainer.getChildren().remove(activitiesContainer.getChildren().size() - 1);
+                activities.remove(activities.size() - 1);
+                displayedCount--;
+            }
+            hasMorePages = true;
+            activitiesContainer.getChildren().add(getLoadMoreButton());
+        }
+        activityCountLabel.setText(displayedCount + " recent activities");
+        
+        return added;
     }
 
     /**
-     * Check if activity matches type filter
+     * Advance the tail position past the given rows
      */
-    private boolean matchesTypeFilter(SystemActivity activity, String filter) {
+    private void markTailSeen(List<SystemActivity> seen) {
+        for (SystemActivity activity : seen) {
+            tailLastSeenId = Math.max(tailLastSeenId, activity.getId());
+        }
+    }
+
+    /**
+     * Activity types selected by a type filter value, or null for all types
+     */
+    private List<ActivityType> typesForFilter(String filter) {
         return switch (filter) {
             case "User Actions" -> Arrays.asList(
                 ActivityType.USER_REGISTRATION, ActivityType.USER_LOGIN, ActivityType.USER_LOGOUT,
                 ActivityType.POST_CREATED, ActivityType.COMMENT_ADDED
-            ).contains(activity.getActivityType());
+            );
             
             case "System Events" -> Arrays.asList(
                 ActivityType.SYSTEM_ANNOUNCEMENT, ActivityType.POLICY_CHANGE
-            ).contains(activity.getActivityType());
+            );
             
             case "Security Events" -> Arrays.asList(
                 ActivityType.SECURITY_EVENT, ActivityType.EMERGENCY_ALERT
-            ).contains(activity.getActivityType());
+            );
             
             case "Admin Actions" -> Arrays.asList(
                 ActivityType.ADMIN_ACTION, ActivityType.KEY_GENERATED
-            ).contains(activity.getActivityType());
+            );
             
             case "Announcements" -> Arrays.asList(
                 ActivityType.SYSTEM_ANNOUNCEMENT, ActivityType.EMERGENCY_ALERT, ActivityType.POLICY_CHANGE
-            ).contains(activity.getActivityType());
+            );
             
-            default -> true;
+            default -> null;
         };
     }
 
@@ -307,28 +467,40 @@ public class TimelineController implements Initializable {
      * Display activities in the timeline
      */
     private void displayActivities() {
-        displayFilteredActivities(this.activities);
-    }
-
-    /**
-     * Display filtered activities
-     */
-    private void displayFilteredActivities(List<SystemActivity> activitiesToShow) {
         activitiesContainer.getChildren().clear();
+        displayedCount = activities.size();
         
-        if (activitiesToShow.isEmpty()) {
+        if (activities.isEmpty()) {
             createEmptyState();
             return;
         }
 
         // Create header
-        createTimelineHeader(activitiesToShow.size());
+        createTimelineHeader(activities.size());
         
         // Create activity items
-        for (SystemActivity activity : activitiesToShow) {
+        for (SystemActivity activity : activities) {
             VBox activityCard = createActivityCard(activity);
             activitiesContainer.getChildren().add(activityCard);
         }
+        
+        if (hasMorePages) {
+            activitiesContainer.getChildren().add(getLoadMoreButton());
+        }
+    }
+
+    /**
+     * Button at the end of the list that fetches the next page
+     */
+    private Button getLoadMoreButton() {
+        if (loadMoreButton == null) {
+            loadMoreButton = new Button("Load more");
+            loadMoreButton.setOnAction(e -> loadMoreActivities());
+        }
+        loadMoreButton.setStyle(themeManager.isDarkMode()
+            ? "-fx-background-color: #4a5568; -fx-text-fill: white; -fx-background-radius: 6;"
+            : "-fx-background-color: #000000; -fx-text-fill: white; -fx-background-radius: 6;");
+        return loadMoreButton;
     }
 
     /**
@@ -349,7 +521,7 @@ public class TimelineController implements Initializable {
         Label timelineHeader = new Label("📡 Live Activity Stream");
         timelineHeader.setFont(Font.font("System", FontWeight.BOLD, 20));
         
-        Label activityCountLabel = new Label(activityCount + " recent activities");
+        activityCountLabel = new Label(activityCount + " recent activities");
         
         String textStyle = themeManager.isDarkMode() ? "-fx-text-fill: #ffffff;" : "-fx-text-fill: #000000;";
         String subTextStyle = themeManager.isDarkMode() ? "-fx-text-fill: #cccccc;" : "-fx-text-fill: #666666;";
@@ -408,7 +580,7 @@ public class TimelineController implements Initializable {
         descriptionFlow.getChildren().add(descriptionText);
         
         // Activity details
-        if (activity.getIpAddress() != null || (activity.getMetadata() != null && !activity.getMetadata().isEmpty())) {
+        if (activity.getIpAddress() != null || activity.hasMetadata()) {
             Label detailsLabel = new Label("📍 " + (activity.getIpAddress() != null ? activity.getIpAddress() : "System"));
             detailsLabel.setStyle((themeManager.isDarkMode() ? "-fx-text-fill: #999999;" : "-fx-text-fill: #777777;") + " -fx-font-size: 11px;");
             card.getChildren().addAll(headerBox, descriptionFlow, detailsLabel);
@@ -428,7 +600,7 @@ public class TimelineController implements Initializable {
      */
     private void showActivityDetails(SystemActivity activity) {
         if (notificationManager != null) {
-            String details = String.format(
+            StringBuilder details = new StringBuilder(String.format(
                 "Activity Details:\n\n" +
                 "Type: %s\n" +
                 "User: %s\n" +
@@ -440,9 +612,16 @@ public class TimelineController implements Initializable {
                 activity.getSeverity().name(),
                 activity.getCreatedAt() != null ? activity.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) : "Unknown",
                 activity.getDescription()
-            );
+            ));
+            
+            // Metadata is only decoded here, when an entry is opened
+            if (activity.hasMetadata()) {
+                details.append("\n\nDetails:");
+                activity.getMetadata().forEach((key, value) ->
+                    details.append("\n").append(key).append(": ").append(value));
+            }
             
-            notificationManager.showNotification(details, NotificationManager.NotificationType.INFO);
+            notificationManager.showNotification(details.toString(), NotificationManager.NotificationType.INFO);
         }
     }
 
@@ -491,7 +670,7 @@ public class TimelineController implements Initializable {
         typeFilter.setValue("All Activities");
         severityFilter.setValue("All Severities");
         searchField.clear();
-        filterActivities();
+        loadActivities();
     }
 
     /**
@@ -513,8 +692,21 @@ public class TimelineController implements Initializable {
      * Cleanup resources when controller is destroyed
      */
     public void shutdown() {
-        if (autoRefreshTimeline != null) {
-            autoRefreshTimeline.stop();
+        if (autoRefreshTimer != null) {
+            autoRefreshTimer.stop();
+        }
+    }
+
+    /**
+     * First page of a load together with the tail position it was read at
+     */
+    private static class TimelinePage {
+        final int latestId;
+        final List<SystemActivity> activities;
+
+        TimelinePage(int latestId, List<SystemActivity> activities) {
+            this.latestId = latestId;
+            this.activities = activities;
         }
     }
-} 
\ No newline at end of file
+}
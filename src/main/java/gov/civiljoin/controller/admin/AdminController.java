@@ -1,13 +1,14 @@
 package gov.civiljoin.controller.admin;
 
 import gov.civiljoin.model.User;
+import gov.civiljoin.service.AccountDeletionService;
 import gov.civiljoin.service.AdminSecurityService;
+import gov.civiljoin.service.AuditExportService;
+import gov.civiljoin.service.KeyIssuanceService;
 import gov.civiljoin.util.DatabaseUtil;
 import gov.civiljoin.util.NotificationManager;
 import gov.civiljoin.util.ThemeManager;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -19,7 +20,6 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.layout.*;
-import javafx.util.Duration;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -27,8 +27,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.Arrays;
@@ -57,7 +60,14 @@ public class AdminController implements Initializable {
     private Label systemHealthLabel;
     private VBox threatsList;
     private TableView<SecurityEventDisplay> securityEventsTable;
-    private Timeline refreshTimeline;
+    private Consumer<AdminSecurityService.DashboardSnapshot> dashboardListener;
+    private long renderedDashboardVersion = 0;
+    
+    // Account deletion progress
+    private VBox deletionJobsList;
+    private Consumer<AccountDeletionService.DeletionJob> deletionListener;
+    
+    private static final int MAX_KEYS_SHOWN = 100;
     
     private User currentUser;
     
@@ -78,7 +88,7 @@ public class AdminController implements Initializable {
         
         // Log admin access
         securityService.logSecurityEvent(user.getId(), AdminSecurityService.SecurityAction.ADMIN_ACCESS,
-            "ADMIN_PANEL_ACCESS", AdminSecurityService.ThreatLevel.LOW,
+            AdminSecurityService.EVENT_ADMIN_PANEL_ACCESS, AdminSecurityService.ThreatLevel.LOW,
             "Admin panel accessed by " + user.getUsername());
         
         setupEnhancedAdminPanel();
@@ -119,7 +129,7 @@ public class AdminController implements Initializable {
         titleLabel.setStyle("-fx-text-fill: #ffffff; -fx-font-size: 24px; -fx-font-weight: bold;");
         
         emergencyStatusLabel = new Label();
-        updateEmergencyStatus();
+        updateEmergencyStatus(securityService.getDashboardSnapshot());
         
         titleRow.getChildren().addAll(titleLabel, emergencyStatusLabel);
         
@@ -128,7 +138,7 @@ public class AdminController implements Initializable {
         controlsRow.setAlignment(Pos.CENTER_LEFT);
         
         systemHealthLabel = new Label();
-        updateSystemHealth();
+        updateSystemHealth(securityService.getDashboardSnapshot());
         
         // Emergency controls (owner only)
         if (currentUser.getRole() == User.Role.OWNER) {
@@ -194,7 +204,10 @@ public class AdminController implements Initializable {
         // Security actions panel
         VBox actionsPanel = createSecurityActionsPanel();
         
-        content.getChildren().addAll(headerLabel, usersTable, actionsPanel);
+        // Background account deletions
+        VBox deletionsSection = createAccountDeletionSection();
+        
+        content.getChildren().addAll(headerLabel, usersTable, actionsPanel, deletionsSection);
         userTab.setContent(new ScrollPane(content));
     }
     
@@ -235,38 +248,40 @@ public class AdminController implements Initializable {
         // Detailed audit table
         TableView<AuditEntry> auditTable = createAuditTable();
         
-        content.getChildren().addAll(headerLabel, filters, auditTable);
+        // Streaming export of the raw audit tables
+        VBox exportSection = createAuditExportSection();
+        
+        content.getChildren().addAll(headerLabel, filters, auditTable, exportSection);
         activityTab.setContent(new ScrollPane(content));
     }
     
     /**
-     * Start real-time monitoring updates
+     * Start real-time monitoring updates: render the current snapshot, then each newer one as it is published
      */
     private void startRealTimeMonitoring() {
-        // Update every 5 seconds
-        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(5), e -> updateSecurityDashboard()));
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        timeline.play();
-        this.refreshTimeline = timeline;
+        dashboardListener = snapshot -> Platform.runLater(() -> updateSecurityDashboard(snapshot));
+        securityService.addDashboardListener(dashboardListener);
+        updateSecurityDashboard(securityService.getDashboardSnapshot());
     }
     
     /**
-     * Update security dashboard with real-time data
+     * Update security dashboard with real-time data (FX thread); stale or repeated versions are skipped
      */
-    private void updateSecurityDashboard() {
-        Platform.runLater(() -> {
-            try {
-                Map<String, Object> dashboard = securityService.getSecurityDashboard();
-                
-                updateEmergencyStatus();
-                updateSystemHealth();
-                updateActiveThreats(dashboard);
-                updateSecurityEvents(dashboard);
-                
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Error updating security dashboard", e);
-            }
-        });
+    private void updateSecurityDashboard(AdminSecurityService.DashboardSnapshot dashboard) {
+        if (dashboard == null || dashboard.getVersion() <= renderedDashboardVersion) {
+            return;
+        }
+        
+        try {
+            updateEmergencyStatus(dashboard);
+            updateSystemHealth(dashboard);
+            updateActiveThreats(dashboard);
+            updateSecurityEvents(dashboard);
+            renderedDashboardVersion = dashboard.getVersion();
+            
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error updating security dashboard", e);
+        }
     }
     
     // UI Creation Helper Methods
@@ -345,14 +360,13 @@ public class AdminController implements Initializable {
     }
     
     private void initiateSystemLockdown() {
-        securityService.executeSecurityAction(currentUser, "SYSTEM_LOCKDOWN", new HashMap<>());
+        securityService.executeSecurityAction(currentUser, AdminSecurityService.ACTION_SYSTEM_LOCKDOWN, new HashMap<>());
     }
     
     // Update Methods
     
-    private void updateEmergencyStatus() {
-        Map<String, Object> dashboard = securityService.getSecurityDashboard();
-        boolean emergencyMode = (boolean) dashboard.get("emergencyMode");
+    private void updateEmergencyStatus(AdminSecurityService.DashboardSnapshot dashboard) {
+        boolean emergencyMode = dashboard.isEmergencyMode();
         
         if (emergencyMode) {
             emergencyStatusLabel.setText("🚨 EMERGENCY MODE ACTIVE");
@@ -363,9 +377,8 @@ public class AdminController implements Initializable {
         }
     }
     
-    private void updateSystemHealth() {
-        Map<String, Object> dashboard = securityService.getSecurityDashboard();
-        double health = (double) dashboard.get("systemHealth");
+    private void updateSystemHealth(AdminSecurityService.DashboardSnapshot dashboard) {
+        double health = dashboard.getSystemHealth();
         
         String healthText = String.format("System Health: %.1f%%", health);
         String color = health > 80 ? "#00ff88" : health > 50 ? "#ffaa00" : "#ff4444";
@@ -374,11 +387,11 @@ public class AdminController implements Initializable {
         systemHealthLabel.setStyle("-fx-text-fill: " + color + "; -fx-font-weight: bold;");
     }
     
-    private void updateActiveThreats(Map<String, Object> dashboard) {
+    private void updateActiveThreats(AdminSecurityService.DashboardSnapshot dashboard) {
         // Implementation for updating threats display
     }
     
-    private void updateSecurityEvents(Map<String, Object> dashboard) {
+    private void updateSecurityEvents(AdminSecurityService.DashboardSnapshot dashboard) {
         // Implementation for updating events table
     }
     
@@ -418,8 +431,13 @@ public class AdminController implements Initializable {
     }
     
     public void cleanup() {
-        if (refreshTimeline != null) {
-            refreshTimeline.stop();
+        if (dashboardListener != null) {
+            securityService.removeDashboardListener(dashboardListener);
+            dashboardListener = null;
+        }
+        if (deletionListener != null) {
+            AccountDeletionService.getInstance().removeProgressListener(deletionListener);
+            deletionListener = null;
         }
     }
     
@@ -488,13 +506,13 @@ public class AdminController implements Initializable {
         
         forceLogoutButton.setOnAction(e -> {
             if (currentUser.getRole() == User.Role.OWNER) {
-                securityService.executeSecurityAction(currentUser, "FORCE_LOGOUT_ALL", new HashMap<>());
+                securityService.executeSecurityAction(currentUser, AdminSecurityService.ACTION_FORCE_LOGOUT_ALL, new HashMap<>());
             }
         });
         
         clearThreatsButton.setOnAction(e -> {
             if (currentUser.getRole() == User.Role.OWNER) {
-                securityService.executeSecurityAction(currentUser, "CLEAR_THREATS", new HashMap<>());
+                securityService.executeSecurityAction(currentUser, AdminSecurityService.ACTION_CLEAR_THREATS, new HashMap<>());
             }
         });
         
@@ -504,6 +522,62 @@ public class AdminController implements Initializable {
         return panel;
     }
     
+    /**
+     * Progress of queued and running account deletions, updated as each chunk completes
+     */
+    private VBox createAccountDeletionSection() {
+        VBox section = new VBox(10);
+        section.setPadding(new Insets(20));
+        section.setStyle("-fx-background-color: #1a1a1a; -fx-background-radius: 8;");
+        
+        Label titleLabel = new Label("Account Deletions");
+        titleLabel.setStyle("-fx-text-fill: #ffffff; -fx-font-size: 16px; -fx-font-weight: bold;");
+        
+        deletionJobsList = new VBox(8);
+        section.getChildren().addAll(titleLabel, deletionJobsList);
+        
+        AccountDeletionService deletionService = AccountDeletionService.getInstance();
+        if (deletionListener == null) {
+            deletionListener = job -> Platform.runLater(this::renderDeletionJobs);
+            deletionService.addProgressListener(deletionListener);
+        }
+        renderDeletionJobs();
+        return section;
+    }
+    
+    private void renderDeletionJobs() {
+        if (deletionJobsList == null) {
+            return;
+        }
+        
+        List<AccountDeletionService.DeletionJob> jobs = AccountDeletionService.getInstance().getJobs();
+        if (jobs.isEmpty()) {
+            Label emptyLabel = new Label("No account deletions since startup");
+            emptyLabel.setStyle("-fx-text-fill: #cccccc;");
+            deletionJobsList.getChildren().setAll(emptyLabel);
+            return;
+        }
+        
+        List<Node> rows = new ArrayList<>(jobs.size());
+        for (AccountDeletionService.DeletionJob job : jobs) {
+            ProgressBar progressBar = new ProgressBar((double) job.getStep() / job.getStepCount());
+            progressBar.setPrefWidth(200);
+            
+            Label jobLabel = new Label(job.toString());
+            String color = job.getStatus() == AccountDeletionService.Status.FAILED ? "#ff4444"
+                : job.isFinished() ? "#00ff88" : "#cccccc";
+            jobLabel.setStyle("-fx-text-fill: " + color + ";");
+            if (job.getLastError() != null) {
+                jobLabel.setTooltip(new Tooltip(job.getLastError()));
+            }
+            
+            HBox row = new HBox(10, progressBar, jobLabel);
+            row.setAlignment(Pos.CENTER_LEFT);
+            rows.add(row);
+        }
+        deletionJobsList.getChildren().setAll(rows);
+    }
+    
     private HBox createAuditFilters() {
         HBox filters = new HBox(15);
         filters.setAlignment(Pos.CENTER_LEFT);
@@ -528,6 +602,93 @@ public class AdminController implements Initializable {
         return filters;
     }
     
+    /**
+     * Create audit export section
+     */
+    private VBox createAuditExportSection() {
+        VBox section = new VBox(10);
+        section.setPadding(new Insets(15));
+        section.setStyle("-fx-background-color: #2d2d2d; -fx-background-radius: 8px;");
+        
+        Label titleLabel = new Label("Export Audit Data");
+        titleLabel.setStyle("-fx-text-fill: #ffffff; -fx-font-size: 16px; -fx-font-weight: bold;");
+        
+        ComboBox<AuditExportService.AuditTable> tableCombo = new ComboBox<>();
+        tableCombo.getItems().addAll(AuditExportService.AuditTable.values());
+        tableCombo.setValue(AuditExportService.AuditTable.SYSTEM_ACTIVITIES);
+        
+        ComboBox<AuditExportService.ExportFormat> formatCombo = new ComboBox<>();
+        formatCombo.getItems().addAll(AuditExportService.ExportFormat.values());
+        formatCombo.setValue(AuditExportService.ExportFormat.JSONL);
+        
+        CheckBox gzipCheck = new CheckBox("Gzip");
+        gzipCheck.setSelected(true);
+        gzipCheck.setStyle("-fx-text-fill: #ffffff;");
+        
+        Label statusLabel = new Label();
+        statusLabel.setStyle("-fx-text-fill: #cccccc;");
+        
+        Button exportButton = new Button("Export");
+        exportButton.setStyle("-fx-background-color: #0066cc; -fx-text-fill: white;");
+        exportButton.setOnAction(e -> exportAuditTable(tableCombo.getValue(), formatCombo.getValue(),
+            gzipCheck.isSelected(), exportButton, statusLabel));
+        
+        HBox controls = new HBox(10);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        controls.getChildren().addAll(new Label("Table:"), tableCombo, new Label("Format:"), formatCombo,
+                                      gzipCheck, exportButton);
+        
+        section.getChildren().addAll(titleLabel, controls, statusLabel);
+        return section;
+    }
+    
+    /**
+     * Export an audit table to the user's export directory
+     */
+    private void exportAuditTable(AuditExportService.AuditTable table, AuditExportService.ExportFormat format,
+                                  boolean gzip, Button exportButton, Label statusLabel) {
+        if (!securityService.checkPermission(currentUser, AdminSecurityService.SecurityAction.SENSITIVE_ACCESS, "audit_export")) {
+            NotificationManager.getInstance().showNotification(
+                "Access denied - insufficient privileges for audit export",
+                NotificationManager.NotificationType.ERROR
+            );
+            return;
+        }
+        
+        securityService.logSecurityEvent(currentUser.getId(), AdminSecurityService.SecurityAction.SENSITIVE_ACCESS,
+            AdminSecurityService.EVENT_AUDIT_EXPORT, AdminSecurityService.ThreatLevel.MEDIUM,
+            "Exporting " + table.getTableName() + " as " + format);
+        
+        AuditExportService exportService = AuditExportService.getInstance();
+        Path exportDir = Paths.get(System.getProperty("user.home"), "CivilJoin-Exports");
+        Path target = exportService.defaultExportPath(exportDir, table, format, gzip);
+        
+        exportButton.setDisable(true);
+        statusLabel.setText("Exporting " + table.getDisplayName() + "...");
+        
+        exportService.export(table, format, gzip, target, null, null,
+                progress -> Platform.runLater(() -> statusLabel.setText(String.format(
+                    "Exporting %s... %,d rows (%.0f rows/s)",
+                    table.getDisplayName(), progress.getRowsWritten(), progress.getRowsPerSecond()))))
+            .whenComplete((result, throwable) -> Platform.runLater(() -> {
+                exportButton.setDisable(false);
+                if (throwable != null) {
+                    LOGGER.log(Level.WARNING, "Audit export failed", throwable);
+                    statusLabel.setText("Export failed");
+                    NotificationManager.getInstance().showNotification(
+                        "Export failed: " + throwable.getMessage(),
+                        NotificationManager.NotificationType.ERROR
+                    );
+                } else {
+                    statusLabel.setText(String.format("Exported %,d rows to %s", result.getRowsWritten(), result.getTarget()));
+                    NotificationManager.getInstance().showNotification(
+                        "Export complete: " + result.getTarget().getFileName(),
+                        NotificationManager.NotificationType.SUCCESS
+                    );
+                }
+            }));
+    }
+    
     private TableView<AuditEntry> createAuditTable() {
         TableView<AuditEntry> table = new TableView<>();
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
@@ -577,7 +738,7 @@ public class AdminController implements Initializable {
         countLabel.setStyle("-fx-text-fill: #ffffff; -fx-font-size: 14px;");
         
         ComboBox<Integer> countCombo = new ComboBox<>();
-        countCombo.getItems().addAll(1, 5, 10, 25, 50);
+        countCombo.getItems().addAll(1, 5, 10, 25, 50, 100, 1000, 10000, KeyIssuanceService.MAX_KEYS_PER_REQUEST);
         countCombo.setValue(1);
         countCombo.setStyle("-fx-background-color: #2a2a2a; -fx-text-fill: #ffffff;");
         
@@ -600,7 +761,7 @@ public class AdminController implements Initializable {
         // Generate button
         Button generateButton = new Button("Generate Keys");
         generateButton.setStyle("-fx-background-color: #00ff88; -fx-text-fill: #000000; -fx-font-weight: bold; -fx-padding: 12 24; -fx-background-radius: 6;");
-        generateButton.setOnAction(e -> generateKeys(keyTypeCombo.getValue(), countCombo.getValue(), descField.getText()));
+        generateButton.setOnAction(e -> generateKeys(keyTypeCombo.getValue(), countCombo.getValue(), descField.getText(), generateButton));
         
         // Results area
         VBox resultsArea = new VBox(10);
@@ -695,100 +856,70 @@ public class AdminController implements Initializable {
     }
     
     /**
-     * Generate new registration keys
+     * Generate new registration keys in the background; the button is disabled until issuance finishes
      */
-    private void generateKeys(String keyType, int count, String description) {
-        try {
-            // Security check
-            if (!securityService.checkPermission(currentUser, AdminSecurityService.SecurityAction.ADMIN_ACCESS, "key_generation")) {
-                NotificationManager.getInstance().showNotification(
-                    "Access denied - insufficient privileges for key generation",
-                    NotificationManager.NotificationType.ERROR
-                );
-                return;
-            }
-            
-            // Log the key generation action
-            securityService.logSecurityEvent(currentUser.getId(), AdminSecurityService.SecurityAction.ADMIN_ACCESS,
-                "KEY_GENERATION", AdminSecurityService.ThreatLevel.MEDIUM,
-                "Generating " + count + " " + keyType + " keys");
-            
-            List<String> generatedKeys = new ArrayList<>();
-            
-            try (Connection conn = DatabaseUtil.getConnection()) {
-                String sql = "INSERT INTO key_ids (key_value, key_type, description, generated_by) VALUES (?, ?, ?, ?)";
-                PreparedStatement stmt = conn.prepareStatement(sql);
+    private void generateKeys(String keyType, int count, String description, Button generateButton) {
+        generateButton.setDisable(true);
+        String keyDescription = description.isEmpty() ? "Generated by " + currentUser.getUsername() : description;
+        
+        KeyIssuanceService.getInstance().issueKeys(keyType, count, keyDescription, currentUser)
+            .whenComplete((issued, throwable) -> Platform.runLater(() -> {
+                generateButton.setDisable(false);
                 
-                for (int i = 0; i < count; i++) {
-                    String keyValue = generateKeyId(keyType);
-                    
-                    stmt.setString(1, keyValue);
-                    stmt.setString(2, keyType);
-                    stmt.setString(3, description.isEmpty() ? "Generated by " + currentUser.getUsername() : description);
-                    stmt.setInt(4, currentUser.getId());
-                    
-                    stmt.executeUpdate();
-                    generatedKeys.add(keyValue);
+                if (throwable != null) {
+                    Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+                    if (cause instanceof SecurityException) {
+                        // KeyIssuanceService enforces ADMIN_ACCESS and BULK_OPERATION
+                        NotificationManager.getInstance().showNotification(
+                            "Access denied - " + cause.getMessage(),
+                            NotificationManager.NotificationType.ERROR
+                        );
+                        return;
+                    }
+                    LOGGER.log(Level.SEVERE, "Error generating keys", cause);
+                    NotificationManager.getInstance().showNotification(
+                        "Error generating keys: " + cause.getMessage(),
+                        NotificationManager.NotificationType.ERROR
+                    );
+                    return;
                 }
                 
-                stmt.close();
+                // Log the key generation action once the service has authorized and issued it
+                securityService.logSecurityEvent(currentUser.getId(), AdminSecurityService.SecurityAction.ADMIN_ACCESS,
+                    AdminSecurityService.EVENT_KEY_GENERATION, AdminSecurityService.ThreatLevel.MEDIUM,
+                    "Generated " + issued.getKeys().size() + " " + keyType + " keys");
                 
                 // Show success notification
                 NotificationManager.getInstance().showNotification(
-                    "Successfully generated " + count + " " + keyType + " key(s)",
+                    "Successfully generated " + issued.getKeys().size() + " " + keyType + " key(s) in "
+                        + issued.getDurationMs() + "ms",
                     NotificationManager.NotificationType.SUCCESS
                 );
                 
                 // Display generated keys
-                showGeneratedKeys(generatedKeys);
+                showGeneratedKeys(issued.getKeys(), issued.getExportFile());
                 
                 // Refresh the keys table
                 refreshKeysTable();
-                
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error generating keys", e);
-                NotificationManager.getInstance().showNotification(
-                    "Error generating keys: " + e.getMessage(),
-                    NotificationManager.NotificationType.ERROR
-                );
-            }
-            
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Unexpected error during key generation", e);
-            NotificationManager.getInstance().showNotification(
-                "Unexpected error during key generation",
-                NotificationManager.NotificationType.ERROR
-            );
-        }
-    }
-    
-    /**
-     * Generate a unique key ID based on type
-     */
-    private String generateKeyId(String keyType) {
-        String prefix;
-        switch (keyType) {
-            case "ADMIN": prefix = "ADMIN"; break;
-            case "MODERATOR": prefix = "MOD"; break;
-            case "TEMPORARY": prefix = "TEMP"; break;
-            default: prefix = "USER"; break;
-        }
-        
-        // Generate random suffix
-        long timestamp = System.currentTimeMillis();
-        int random = (int) (Math.random() * 9999);
-        
-        return String.format("%s%08d%04d", prefix, timestamp % 100000000, random);
+            }));
     }
     
     /**
      * Show generated keys in a dialog-like notification
      */
-    private void showGeneratedKeys(List<String> keys) {
+    private void showGeneratedKeys(List<String> keys, Path exportFile) {
+        // Large runs are only previewed; the full list is in the export file and the clipboard copy
+        int shown = Math.min(keys.size(), MAX_KEYS_SHOWN);
         StringBuilder keysText = new StringBuilder("Generated Keys:\n\n");
-        for (String key : keys) {
+        for (String key : keys.subList(0, shown)) {
             keysText.append("• ").append(key).append("\n");
         }
+        if (shown < keys.size()) {
+            keysText.append("... and ").append(keys.size() - shown).append(" more\n");
+        }
+        if (exportFile != null) {
+            keysText.append("\nAll keys saved to ").append(exportFile).append("\n");
+        }
         keysText.append("\nThese keys can be used for user registration.");
         
         // Create a larger notification for displaying keys
@@ -801,7 +932,7 @@ public class AdminController implements Initializable {
         
         TextArea keysTextArea = new TextArea(keysText.toString());
         keysTextArea.setEditable(false);
-        keysTextArea.setPrefRowCount(keys.size() + 3);
+        keysTextArea.setPrefRowCount(shown + 5);
         keysTextArea.setStyle("-fx-background-color: #2a2a2a; -fx-text-fill: #ffffff; -fx-font-family: 'Courier New', monospace;");
         
         Button copyButton = new Button("Copy to Clipboard");
@@ -1,5 +1,7 @@
 package gov.civiljoin.model;
 
+import gov.civiljoin.util.MetadataCodec;
+
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -18,6 +20,7 @@ public class SystemActivity {
     private String ipAddress;
     private String userAgent;
     private Map<String, Object> metadata;
+    private byte[] encodedMetadata; // Decoded into metadata on first access
     private LocalDateTime createdAt;
 
     public enum ActivityType {
@@ -114,8 +117,36 @@ public class SystemActivity {
     public String getUserAgent() { return userAgent; }
     public void setUserAgent(String userAgent) { this.userAgent = userAgent; }
 
-    public Map<String, Object> getMetadata() { return metadata; }
-    public void setMetadata(Map<String, Object> metadata) { this.metadata = metadata; }
+    public Map<String, Object> getMetadata() {
+        if (metadata == null && encodedMetadata != null) {
+            try {
+                metadata = MetadataCodec.decode(encodedMetadata);
+            } catch (RuntimeException e) {
+                metadata = Map.of();
+            }
+            encodedMetadata = null;
+        }
+        return metadata;
+    }
+    public void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+        this.encodedMetadata = null;
+    }
+
+    /**
+     * Keep metadata in its stored binary form until someone reads it
+     */
+    public void setEncodedMetadata(byte[] encodedMetadata) {
+        this.encodedMetadata = encodedMetadata;
+        this.metadata = null;
+    }
+
+    /**
+     * Whether metadata is present, without decoding it
+     */
+    public boolean hasMetadata() {
+        return encodedMetadata != null ? encodedMetadata.length > 0 : metadata != null && !metadata.isEmpty();
+    }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
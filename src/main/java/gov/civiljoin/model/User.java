@@ -26,6 +26,7 @@ public class User {
     private String languagePreference = "en";
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private String sessionToken; // current login session, not stored on the users row
     
     // Enum for user roles - enhanced with MODERATOR
     public enum Role {
@@ -218,6 +219,14 @@ public class User {
         this.updatedAt = updatedAt;
     }
     
+    public String getSessionToken() {
+        return sessionToken;
+    }
+    
+    public void setSessionToken(String sessionToken) {
+        this.sessionToken = sessionToken;
+    }
+    
     // Utility methods
     public boolean isLocked() {
         return lockedUntil != null && lockedUntil.isAfter(LocalDateTime.now());
@@ -0,0 +1,659 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background cascade for account deletion.
+ * A deletion request only tombstones the account (is_active = FALSE, sessions and cached
+ * entries dropped) and records a job in deletion_jobs; the dependent rows are then removed
+ * step by step in small chunks, each chunk in its own short transaction together with the
+ * job's checkpoint, so no request holds locks across every table and an interrupted job
+ * resumes from its last step on the next start. The user row itself goes last, once nothing
+ * is left for its foreign keys to cascade to.
+ * <p>
+ * Activities and security events still queued for a deleted account are written with a NULL
+ * user_id, as ON DELETE SET NULL would have left them, instead of failing their foreign key.
+ */
+public class AccountDeletionService {
+    private static final Logger LOGGER = Logger.getLogger(AccountDeletionService.class.getName());
+    private static AccountDeletionService instance;
+
+    // Job configuration
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+    private static final long MIN_PAUSE_BETWEEN_CHUNKS_MS = 50;
+    private static final int MAX_TRACKED_JOBS = 50;
+    private static final String ER_NO_SUCH_TABLE = "42S02";
+
+    /**
+     * Cascade steps in dependency order; each statement takes the user id (once or twice) and a LIMIT,
+     * steps outside plain SQL run a chunk action on the job's transaction instead
+     */
+    private static final List<Step> STEPS = List.of(
+        new Step("Security event resolutions", "UPDATE security_events SET resolved_by = NULL WHERE resolved_by = ? LIMIT ?", 1),
+        new Step("System settings", "UPDATE system_settings SET updated_by = 1 WHERE updated_by = ? LIMIT ?", 1),
+        new Step("Security events", "DELETE FROM security_events WHERE user_id = ? LIMIT ?", 1),
+        new Step("Sessions", "DELETE FROM user_sessions WHERE user_id = ? LIMIT ?", 1),
+        new Step("Warnings", "DELETE FROM user_warnings WHERE user_id = ? OR issued_by = ? LIMIT ?", 2),
+        new Step("Moderation records", "DELETE FROM content_moderation WHERE moderated_by = ? LIMIT ?", 1),
+        new Step("Admin audit trail", "DELETE FROM admin_audit_trail WHERE admin_user_id = ? OR target_user_id = ? LIMIT ?", 2),
+        new Step("Post votes", "DELETE FROM post_votes WHERE user_id = ? LIMIT ?", 1, CacheService.TAG_POSTS),
+        new Step("Comment votes", "DELETE FROM comment_votes WHERE user_id = ? LIMIT ?", 1, CacheService.TAG_POSTS),
+        new Step("Votes on comments", """
+            DELETE FROM comment_votes
+            WHERE comment_id IN (SELECT id FROM comments WHERE user_id = ?)
+            LIMIT ?
+            """, 1, CacheService.TAG_POSTS),
+        new Step("Votes on posts", """
+            DELETE FROM post_votes
+            WHERE post_id IN (SELECT id FROM posts WHERE user_id = ?)
+            LIMIT ?
+            """, 1, CacheService.TAG_POSTS),
+        new Step("Notifications", "DELETE FROM notifications WHERE user_id = ? LIMIT ?", 1),
+        new Step("Comments", "DELETE FROM comments WHERE user_id = ? LIMIT ?", 1, CacheService.TAG_POSTS),
+        new Step("Comments on posts", """
+            DELETE FROM comments
+            WHERE post_id IN (SELECT id FROM posts WHERE user_id = ?)
+            LIMIT ?
+            """, 1, CacheService.TAG_POSTS),
+        new Step("Post moderation", """
+            DELETE FROM content_moderation
+            WHERE content_type = 'POST'
+              AND content_id IN (SELECT id FROM posts WHERE user_id = ?)
+            LIMIT ?
+            """, 1),
+        new Step("Posts", "DELETE FROM posts WHERE user_id = ? LIMIT ?", 1, CacheService.TAG_POSTS),
+        new Step("Feedback", "DELETE FROM feedback WHERE user_id = ? LIMIT ?", 1),
+        new Step("System activities", "DELETE FROM system_activities WHERE user_id = ? LIMIT ?", 1, CacheService.TAG_ACTIVITIES),
+        new Step("Archived activities", (conn, userId, limit) -> ActivityArchiveService.getInstance().purgeUserChunk(conn, userId),
+                 CacheService.TAG_ACTIVITIES),
+        new Step("Activity log", "DELETE FROM activity_log WHERE user_id = ? LIMIT ?", 1, CacheService.TAG_ACTIVITIES),
+        new Step("Preferences", "DELETE FROM user_preferences WHERE user_id = ? LIMIT ?", 1)
+    );
+
+    private final ExecutorService deletionExecutor;
+    private final CacheService cacheService = CacheService.getInstance();
+    private final Map<Long, DeletionJob> jobs = new ConcurrentHashMap<>();
+    private final List<Consumer<DeletionJob>> progressListeners = new CopyOnWriteArrayList<>();
+    private final Set<Integer> deletedUserIds = ConcurrentHashMap.newKeySet();
+
+    private volatile int chunkSize = DEFAULT_CHUNK_SIZE;
+    private volatile boolean stopping = false;
+    private volatile boolean started = false;
+
+    private AccountDeletionService() {
+        deletionExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "Account-Deletion");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    public static AccountDeletionService getInstance() {
+        if (instance == null) {
+            synchronized (AccountDeletionService.class) {
+                if (instance == null) {
+                    instance = new AccountDeletionService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Create the job table and resume any job left unfinished by the previous run
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        String sql = """
+            CREATE TABLE IF NOT EXISTS deletion_jobs (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                user_id INT NOT NULL,
+                username VARCHAR(50),
+                requested_by INT,
+                status ENUM('PENDING', 'RUNNING', 'COMPLETED', 'FAILED') NOT NULL DEFAULT 'PENDING',
+                step INT NOT NULL DEFAULT 0,
+                rows_deleted BIGINT NOT NULL DEFAULT 0,
+                last_error TEXT,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                completed_at TIMESTAMP NULL,
+                INDEX idx_deletion_jobs_status (status),
+                INDEX idx_deletion_jobs_user (user_id)
+            )
+            """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to create deletion job table, account deletion is unavailable", e);
+            return;
+        }
+
+        started = true;
+        loadDeletedUserIds();
+        resumeUnfinishedJobs();
+    }
+
+    /**
+     * The user id to store on an event row: null for accounts deleted or being deleted
+     */
+    public Integer liveUserId(Integer userId) {
+        return userId != null && deletedUserIds.contains(userId) ? null : userId;
+    }
+
+    /**
+     * Tombstone the account and queue its cascade.
+     * The account can no longer sign in once this returns; its data is removed in the background.
+     *
+     * @param userId      account to delete
+     * @param username    used to drop cached lookups, may be null
+     * @param requestedBy id of the user asking for the deletion, null for system requests
+     * @return the queued job, or null if the account does not exist or could not be tombstoned
+     */
+    public DeletionJob requestDeletion(int userId, String username, Integer requestedBy) {
+        if (!started) {
+            start();
+            if (!started) {
+                return null;
+            }
+        }
+
+        DeletionJob job;
+        boolean alreadyQueued;
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                job = findUnfinishedJob(conn, userId);
+                alreadyQueued = job != null && job.status != Status.FAILED && jobs.containsKey(job.id);
+                if (job == null) {
+                    try (PreparedStatement tombstone = conn.prepareStatement(
+                            "UPDATE users SET is_active = FALSE WHERE id = ?")) {
+                        tombstone.setInt(1, userId);
+                        if (tombstone.executeUpdate() == 0) {
+                            conn.rollback();
+                            return null;
+                        }
+                    }
+                    job = insertJob(conn, userId, username, requestedBy);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to tombstone user " + userId + " for deletion", e);
+            return null;
+        }
+
+        // Signed-in sessions and cached copies of the account go immediately
+        deletedUserIds.add(userId);
+        SessionRegistry.getInstance().invalidateUser(userId);
+        cacheService.invalidateTag(CacheService.userTag(userId));
+        if (username != null) {
+            cacheService.invalidateUserByUsername(username);
+        }
+
+        if (!alreadyQueued) {
+            LOGGER.info("User " + userId + " tombstoned, deletion job " + job.getId() + " queued by user " + requestedBy);
+            submit(job);
+        }
+        return job;
+    }
+
+    public void addProgressListener(Consumer<DeletionJob> listener) {
+        progressListeners.add(listener);
+    }
+
+    public void removeProgressListener(Consumer<DeletionJob> listener) {
+        progressListeners.remove(listener);
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Jobs seen by this process, newest first
+     */
+    public List<DeletionJob> getJobs() {
+        List<DeletionJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparingLong(DeletionJob::getId).reversed());
+        return Collections.unmodifiableList(list);
+    }
+
+    public static int getStepCount() {
+        return STEPS.size() + 1;
+    }
+
+    public String getStats() {
+        long running = jobs.values().stream().filter(job -> !job.isFinished()).count();
+        return String.format("AccountDeletion - Jobs: %d, Unfinished: %d, Chunk size: %d",
+            jobs.size(), running, chunkSize);
+    }
+
+    /**
+     * Stop the worker; a job in progress stops after its current chunk and resumes on the next start
+     */
+    public void shutdown() {
+        stopping = true;
+        deletionExecutor.shutdownNow();
+        try {
+            deletionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("AccountDeletionService shutdown complete");
+    }
+
+    private void submit(DeletionJob job) {
+        track(job);
+        notifyListeners(job);
+        try {
+            deletionExecutor.execute(() -> runJob(job));
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Deletion job " + job.getId() + " not scheduled, it will resume on next start", e);
+        }
+    }
+
+    /**
+     * Every account with a deletion job, so events journaled for it before a restart are redirected too
+     */
+    private void loadDeletedUserIds() {
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT DISTINCT user_id FROM deletion_jobs");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                deletedUserIds.add(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to load deleted user ids", e);
+        }
+    }
+
+    private void resumeUnfinishedJobs() {
+        String sql = """
+            SELECT id, user_id, username, requested_by, status, step, rows_deleted
+            FROM deletion_jobs
+            WHERE status IN ('PENDING', 'RUNNING', 'FAILED')
+            ORDER BY id
+            """;
+
+        List<DeletionJob> unfinished = new ArrayList<>();
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                unfinished.add(mapJob(rs));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to load unfinished deletion jobs", e);
+            return;
+        }
+
+        for (DeletionJob job : unfinished) {
+            LOGGER.info("Resuming deletion job " + job.getId() + " for user " + job.getUserId() + " at step " + job.getStep());
+            submit(job);
+        }
+    }
+
+    /**
+     * Worker: run the remaining steps chunk by chunk, then delete the user row
+     */
+    private void runJob(DeletionJob job) {
+        job.status = Status.RUNNING;
+        job.lastError = null;
+        notifyListeners(job);
+
+        try {
+            while (!stopping && job.step < STEPS.size()) {
+                runChunk(job, STEPS.get(job.step));
+            }
+            if (!stopping) {
+                deleteUserRow(job);
+            }
+        } catch (SQLException e) {
+            job.status = Status.FAILED;
+            job.lastError = e.getMessage();
+            markFailed(job);
+            LOGGER.log(Level.WARNING, "Deletion job " + job.getId() + " failed at step " + job.getStepName() +
+                       ", will retry on next start", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        notifyListeners(job);
+    }
+
+    /**
+     * Delete one chunk and checkpoint it in the same transaction; the step is done when a chunk comes back short
+     */
+    private void runChunk(DeletionJob job, Step step) throws SQLException, InterruptedException {
+        long chunkStart = System.currentTimeMillis();
+        int affected;
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                affected = executeStep(conn, step, job.userId);
+                int nextStep = step.isDone(affected, chunkSize) ? job.step + 1 : job.step;
+                saveCheckpoint(conn, job.id, nextStep, job.rowsDeleted + affected);
+                conn.commit();
+                job.step = nextStep;
+                job.rowsDeleted += affected;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        if (affected > 0) {
+            for (String tag : step.tags) {
+                cacheService.invalidateTag(tag);
+            }
+        }
+        notifyListeners(job);
+
+        if (!step.isDone(affected, chunkSize)) {
+            pace(System.currentTimeMillis() - chunkStart);
+        }
+    }
+
+    /**
+     * Run one step statement; tables missing from this installation count as already empty
+     */
+    private int executeStep(Connection conn, Step step, int userId) throws SQLException {
+        if (step.action != null) {
+            try {
+                return step.action.run(conn, userId, chunkSize);
+            } catch (SQLException e) {
+                if (ER_NO_SUCH_TABLE.equals(e.getSQLState())) {
+                    LOGGER.log(Level.FINE, "Skipping deletion step " + step.name + ": table not present");
+                    return 0;
+                }
+                throw e;
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(step.sql)) {
+            int index = 1;
+            for (int i = 0; i < step.userParams; i++) {
+                stmt.setInt(index++, userId);
+            }
+            stmt.setInt(index, chunkSize);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            if (ER_NO_SUCH_TABLE.equals(e.getSQLState())) {
+                LOGGER.log(Level.FINE, "Skipping deletion step " + step.name + ": table not present");
+                return 0;
+            }
+            throw e;
+        }
+    }
+
+    private void deleteUserRow(DeletionJob job) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int deleted;
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM users WHERE id = ?")) {
+                    stmt.setInt(1, job.userId);
+                    deleted = stmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement("""
+                        UPDATE deletion_jobs
+                        SET status = 'COMPLETED', step = ?, rows_deleted = ?, last_error = NULL,
+                            completed_at = CURRENT_TIMESTAMP
+                        WHERE id = ?
+                        """)) {
+                    stmt.setInt(1, getStepCount());
+                    stmt.setLong(2, job.rowsDeleted + deleted);
+                    stmt.setLong(3, job.id);
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+                job.rowsDeleted += deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        job.step = getStepCount();
+        job.status = Status.COMPLETED;
+        cacheService.invalidateTag(CacheService.userTag(job.userId));
+        UsernameFilterService.getInstance().rebuildAsync();
+        LOGGER.info("Deletion job " + job.getId() + " completed: user " + job.getUserId() + ", " +
+                    job.getRowsDeleted() + " rows removed");
+    }
+
+    private void saveCheckpoint(Connection conn, long jobId, int step, long rowsDeleted) throws SQLException {
+        String sql = "UPDATE deletion_jobs SET status = 'RUNNING', step = ?, rows_deleted = ?, last_error = NULL WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, step);
+            stmt.setLong(2, rowsDeleted);
+            stmt.setLong(3, jobId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void markFailed(DeletionJob job) {
+        String sql = "UPDATE deletion_jobs SET status = 'FAILED', last_error = ? WHERE id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            String error = job.lastError;
+            stmt.setString(1, error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            stmt.setLong(2, job.id);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Failed to record failure of deletion job " + job.getId(), e);
+        }
+    }
+
+    private DeletionJob findUnfinishedJob(Connection conn, int userId) throws SQLException {
+        String sql = """
+            SELECT id, user_id, username, requested_by, status, step, rows_deleted
+            FROM deletion_jobs
+            WHERE user_id = ? AND status <> 'COMPLETED'
+            ORDER BY id DESC
+            LIMIT 1
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                DeletionJob existing = jobs.get(rs.getLong("id"));
+                return existing != null ? existing : mapJob(rs);
+            }
+        }
+    }
+
+    private DeletionJob insertJob(Connection conn, int userId, String username, Integer requestedBy) throws SQLException {
+        String sql = "INSERT INTO deletion_jobs (user_id, username, requested_by) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, userId);
+            stmt.setString(2, username);
+            if (requestedBy != null) {
+                stmt.setInt(3, requestedBy);
+            } else {
+                stmt.setNull(3, Types.INTEGER);
+            }
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id generated for deletion job");
+                }
+                return new DeletionJob(keys.getLong(1), userId, username, requestedBy, Status.PENDING, 0, 0);
+            }
+        }
+    }
+
+    private static DeletionJob mapJob(ResultSet rs) throws SQLException {
+        return new DeletionJob(rs.getLong("id"), rs.getInt("user_id"), rs.getString("username"),
+            (Integer) rs.getObject("requested_by"), Status.valueOf(rs.getString("status")),
+            rs.getInt("step"), rs.getLong("rows_deleted"));
+    }
+
+    private void track(DeletionJob job) {
+        jobs.put(job.getId(), job);
+        if (jobs.size() > MAX_TRACKED_JOBS) {
+            jobs.values().stream()
+                .filter(DeletionJob::isFinished)
+                .min(Comparator.comparingLong(DeletionJob::getId))
+                .ifPresent(oldest -> jobs.remove(oldest.getId()));
+        }
+    }
+
+    private void notifyListeners(DeletionJob job) {
+        for (Consumer<DeletionJob> listener : progressListeners) {
+            try {
+                listener.accept(job);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Deletion progress listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Sleep at least as long as the last chunk took, keeping the cascade under half the database's time
+     */
+    private void pace(long lastChunkMs) throws InterruptedException {
+        Thread.sleep(Math.max(MIN_PAUSE_BETWEEN_CHUNKS_MS, lastChunkMs));
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Progress of one account deletion; fields are written by the worker thread only
+     */
+    public static class DeletionJob {
+        private final long id;
+        private final int userId;
+        private final String username;
+        private final Integer requestedBy;
+        private volatile Status status;
+        private volatile int step;
+        private volatile long rowsDeleted;
+        private volatile String lastError;
+
+        DeletionJob(long id, int userId, String username, Integer requestedBy, Status status, int step, long rowsDeleted) {
+            this.id = id;
+            this.userId = userId;
+            this.username = username;
+            this.requestedBy = requestedBy;
+            this.status = status;
+            this.step = step;
+            this.rowsDeleted = rowsDeleted;
+        }
+
+        public long getId() { return id; }
+        public int getUserId() { return userId; }
+        public String getUsername() { return username; }
+        public Integer getRequestedBy() { return requestedBy; }
+        public Status getStatus() { return status; }
+        public int getStep() { return step; }
+        public int getStepCount() { return AccountDeletionService.getStepCount(); }
+        public long getRowsDeleted() { return rowsDeleted; }
+        public String getLastError() { return lastError; }
+
+        public boolean isFinished() {
+            return status == Status.COMPLETED;
+        }
+
+        public String getStepName() {
+            int current = step;
+            return current < STEPS.size() ? STEPS.get(current).name : "Account";
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Deletion #%d (%s): %s, step %d/%d %s, %d rows",
+                id, username != null ? username : "user " + userId, status,
+                Math.min(step + 1, getStepCount()), getStepCount(), getStepName(), rowsDeleted);
+        }
+    }
+
+    /**
+     * One chunk of a step that is not a single statement; returns the rows removed, 0 when done
+     */
+    @FunctionalInterface
+    private interface ChunkAction {
+        int run(Connection conn, int userId, int chunkSize) throws SQLException;
+    }
+
+    private static final class Step {
+        final String name;
+        final String sql;
+        final int userParams;
+        final ChunkAction action;
+        final String[] tags;
+
+        Step(String name, String sql, int userParams, String... tags) {
+            this.name = name;
+            this.sql = sql;
+            this.userParams = userParams;
+            this.action = null;
+            this.tags = tags;
+        }
+
+        Step(String name, ChunkAction action, String... tags) {
+            this.name = name;
+            this.sql = null;
+            this.userParams = 0;
+            this.action = action;
+            this.tags = tags;
+        }
+
+        /**
+         * Statement steps finish on a short chunk; actions may return less than a chunk and finish on 0
+         */
+        boolean isDone(int affected, int chunkSize) {
+            return action != null ? affected == 0 : affected < chunkSize;
+        }
+    }
+}
@@ -0,0 +1,744 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.SystemActivity;
+import gov.civiljoin.util.DatabaseUtil;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cold storage tier for system activities.
+ * Rows older than {@link #ARCHIVE_AFTER_DAYS} are moved out of the hot table into immutable
+ * {@link ActivitySegment}s stored in the shared activity_archive_segments table, keeping
+ * system_activities and its indexes small while every client still sees the same history.
+ * Timeline queries that run past the hot rows continue into the segments transparently; a
+ * client fetches only segment footers and the row groups a query needs.
+ * <p>
+ * Archived rows are covered by retention and account deletion: segments are rewritten
+ * without expired rows or a deleted user's rows (activity_archive_users maps each user to
+ * the segments holding their rows), and a rewrite replaces the segment under a new id.
+ */
+public class ActivityArchiveService {
+    private static final Logger LOGGER = Logger.getLogger(ActivityArchiveService.class.getName());
+    private static ActivityArchiveService instance;
+
+    // Archive configuration
+    private static final int ARCHIVE_AFTER_DAYS = 30;
+    private static final int SEGMENT_MAX_ROWS = 20_000;
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    private static final long INITIAL_DELAY_MINUTES = 10;
+    private static final long RUN_INTERVAL_HOURS = 24;
+    private static final long REFRESH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final String ARCHIVE_LOCK = "civiljoin.activity_archive";
+    private static final int EXPORT_LOCK_TIMEOUT_SECONDS = 60;
+
+    private final SystemActivityService activityService = new SystemActivityService();
+    private final Map<Long, ActivitySegment> segments = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    // Guards the segment list; archive runs and purges synchronize on the service itself
+    private final Object refreshLock = new Object();
+    private volatile LocalDateTime newestArchivedAt;
+    private volatile long lastRefreshMillis;
+    private volatile boolean started = false;
+
+    // Archive statistics
+    private final AtomicLong rowsArchived = new AtomicLong();
+    private final AtomicLong segmentsWritten = new AtomicLong();
+    private final AtomicLong rowsPurged = new AtomicLong();
+
+    private ActivityArchiveService() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Activity-Archiver");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static ActivityArchiveService getInstance() {
+        if (instance == null) {
+            synchronized (ActivityArchiveService.class) {
+                if (instance == null) {
+                    instance = new ActivityArchiveService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Create the archive tables and schedule the daily archive run
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        String segmentsSql = """
+            CREATE TABLE IF NOT EXISTS activity_archive_segments (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                min_activity_id INT NOT NULL,
+                max_activity_id INT NOT NULL,
+                min_created_at DATETIME(3) NOT NULL,
+                max_created_at DATETIME(3) NOT NULL,
+                row_count INT NOT NULL,
+                segment_bytes INT NOT NULL,
+                segment LONGBLOB NOT NULL,
+                archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                INDEX idx_archive_min_created (min_created_at),
+                INDEX idx_archive_max_created (max_created_at)
+            )
+            """;
+        String usersSql = """
+            CREATE TABLE IF NOT EXISTS activity_archive_users (
+                user_id BIGINT NOT NULL,
+                segment_id BIGINT NOT NULL,
+                PRIMARY KEY (user_id, segment_id),
+                INDEX idx_archive_users_segment (segment_id),
+                FOREIGN KEY (segment_id) REFERENCES activity_archive_segments(id) ON DELETE CASCADE
+            )
+            """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(segmentsSql);
+            stmt.execute(usersSql);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to create activity archive tables, archiving is disabled", e);
+            return;
+        }
+        started = true;
+
+        scheduler.scheduleWithFixedDelay(this::archiveQuietly,
+            TimeUnit.MINUTES.toMillis(INITIAL_DELAY_MINUTES), TimeUnit.HOURS.toMillis(RUN_INTERVAL_HOURS),
+            TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        LOGGER.info("ActivityArchiveService shutdown complete: " + getStats());
+    }
+
+    /**
+     * Newest timestamp held in the archive, or null if the archive is empty
+     */
+    public LocalDateTime getNewestArchivedAt() {
+        refreshIfStale();
+        return newestArchivedAt;
+    }
+
+    /**
+     * Move every activity older than the threshold into archive segments.
+     * Each segment is inserted and its rows deleted from the hot table in one transaction;
+     * a database lock keeps two clients from archiving at the same time.
+     *
+     * @return number of rows archived
+     */
+    public synchronized int archiveOldActivities() {
+        if (!started) {
+            return 0;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ARCHIVE_AFTER_DAYS);
+        int archived = 0;
+
+        try (Connection lockConn = DatabaseUtil.getConnection()) {
+            if (!acquireArchiveLock(lockConn, 0)) {
+                LOGGER.fine("Another client is archiving system activities, skipping this run");
+                return 0;
+            }
+            try {
+                while (true) {
+                    List<SystemActivity> batch = selectArchivable(cutoff);
+                    if (batch.isEmpty() || !archiveBatch(batch)) {
+                        break;
+                    }
+                    archived += batch.size();
+                    rowsArchived.addAndGet(batch.size());
+                    segmentsWritten.incrementAndGet();
+
+                    if (batch.size() < SEGMENT_MAX_ROWS) {
+                        break;
+                    }
+                }
+            } finally {
+                releaseArchiveLock(lockConn);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Activity archive run stopped after " + archived + " rows", e);
+        }
+
+        if (archived > 0) {
+            LOGGER.info("Archived " + archived + " system activities older than " + cutoff.toLocalDate());
+            refresh();
+        }
+        return archived;
+    }
+
+    /**
+     * Drop archived rows created before the cutoff; segments straddling it are rewritten.
+     * Runs under the same archive lock as {@link #archiveOldActivities()}, so a purge never
+     * races a segment that is still being written.
+     *
+     * @return number of archived rows removed
+     */
+    public synchronized int purgeOlderThan(LocalDateTime cutoff) {
+        if (!started) {
+            return 0;
+        }
+
+        int purged = 0;
+        try (Connection lockConn = DatabaseUtil.getConnection()) {
+            if (!acquireArchiveLock(lockConn, 0)) {
+                LOGGER.fine("Another client is archiving system activities, skipping archive retention");
+                return 0;
+            }
+            try {
+                purged = purgeSegments(cutoff);
+            } finally {
+                releaseArchiveLock(lockConn);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to acquire the archive lock for retention", e);
+        }
+
+        if (purged > 0) {
+            rowsPurged.addAndGet(purged);
+            LOGGER.info("Purged " + purged + " archived system activities older than " + cutoff.toLocalDate());
+            refresh();
+        }
+        return purged;
+    }
+
+    private int purgeSegments(LocalDateTime cutoff) {
+        String sql = """
+            SELECT id, row_count, max_created_at
+            FROM activity_archive_segments
+            WHERE min_created_at < ?
+            ORDER BY min_created_at
+            LIMIT 1
+            """;
+
+        int purged = 0;
+        while (true) {
+            try (Connection conn = DatabaseUtil.getConnection()) {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    long segmentId;
+                    int rowCount;
+                    boolean wholeSegment;
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            if (!rs.next()) {
+                                conn.commit();
+                                break;
+                            }
+                            segmentId = rs.getLong("id");
+                            rowCount = rs.getInt("row_count");
+                            wholeSegment = rs.getTimestamp("max_created_at").toLocalDateTime().isBefore(cutoff);
+                        }
+                    }
+
+                    int removed = wholeSegment
+                        ? deleteSegment(conn, segmentId, rowCount)
+                        : rewriteSegment(conn, segmentId, row -> !row.getCreatedAt().isBefore(cutoff));
+                    conn.commit();
+                    if (removed == 0) {
+                        // Metadata disagrees with the segment contents; leave it rather than spin
+                        break;
+                    }
+                    purged += removed;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Archive retention stopped after " + purged + " rows", e);
+                break;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * Remove one user's rows from the next archive segment holding them, on the caller's
+     * transaction. Returns the rows removed, or 0 once no archived rows of the user remain.
+     */
+    public int purgeUserChunk(Connection conn, int userId) throws SQLException {
+        String sql = "SELECT segment_id FROM activity_archive_users WHERE user_id = ? ORDER BY segment_id LIMIT 1";
+
+        while (true) {
+            long segmentId;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return 0;
+                    }
+                    segmentId = rs.getLong(1);
+                }
+            }
+
+            int removed = rewriteSegment(conn, segmentId, row -> !Objects.equals(row.getUserId(), userId));
+            if (removed > 0) {
+                rowsPurged.addAndGet(removed);
+                return removed;
+            }
+
+            // The segment was replaced concurrently; its successor is listed separately
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM activity_archive_users WHERE user_id = ? AND segment_id = ?")) {
+                stmt.setLong(1, userId);
+                stmt.setLong(2, segmentId);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Archived activities matching the query, newest first, at most {@code limit}
+     */
+    public List<SystemActivity> findActivities(ActivityQuery query, int limit) {
+        refreshIfStale();
+
+        List<SystemActivity> candidates = new ArrayList<>();
+        LocalDateTime cursor = query.getCursorCreatedAt();
+
+        for (Map.Entry<Long, ActivitySegment> entry : segments.entrySet()) {
+            ActivitySegment segment = entry.getValue();
+            if (cursor != null && segment.getMinCreatedAt().isAfter(cursor)) {
+                continue;
+            }
+            try {
+                candidates.addAll(segment.findNewest(query, limit));
+            } catch (IOException e) {
+                // Usually a segment replaced by another client since the last refresh
+                LOGGER.log(Level.FINE, "Failed to read archive segment " + entry.getKey(), e);
+            }
+        }
+
+        // Segments may overlap in time (late journal replays); merge and drop duplicate ids
+        candidates.sort(Comparator.comparing(SystemActivity::getCreatedAt).thenComparingInt(SystemActivity::getId).reversed());
+        List<SystemActivity> results = new ArrayList<>(Math.min(limit, candidates.size()));
+        Set<Integer> seen = new HashSet<>();
+        for (SystemActivity activity : candidates) {
+            if (results.size() >= limit) break;
+            if (seen.add(activity.getId())) {
+                results.add(activity);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Hold the archive lock on the connection so no rows move from the hot table into the
+     * archive while an export reads both. Returns false if the archiver did not finish in time.
+     */
+    public boolean lockForExport(Connection conn) throws SQLException {
+        return acquireArchiveLock(conn, EXPORT_LOCK_TIMEOUT_SECONDS);
+    }
+
+    public void unlockForExport(Connection conn) {
+        releaseArchiveLock(conn);
+    }
+
+    /**
+     * Ids of the segments overlapping [from, to), oldest first; either bound may be null
+     */
+    public List<Long> findSegmentIds(LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<Long> segmentIds = new ArrayList<>();
+        if (!started) {
+            return segmentIds;
+        }
+
+        String sql = String.format("""
+            SELECT id
+            FROM activity_archive_segments
+            WHERE 1=1%s%s
+            ORDER BY min_activity_id
+            """,
+            from != null ? " AND max_created_at >= ?" : "",
+            to != null ? " AND min_created_at < ?" : "");
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int paramIndex = 1;
+            if (from != null) stmt.setTimestamp(paramIndex++, Timestamp.valueOf(from));
+            if (to != null) stmt.setTimestamp(paramIndex, Timestamp.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    segmentIds.add(rs.getLong(1));
+                }
+            }
+        }
+        return segmentIds;
+    }
+
+    /**
+     * All rows of one segment created in [from, to), in id order; empty if the segment is gone
+     */
+    public List<SystemActivity> readSegment(long segmentId, LocalDateTime from, LocalDateTime to) throws SQLException {
+        byte[] data;
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT segment FROM activity_archive_segments WHERE id = ?")) {
+            stmt.setLong(1, segmentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return new ArrayList<>();
+                }
+                data = rs.getBytes(1);
+            }
+        }
+
+        List<SystemActivity> rows;
+        try {
+            rows = ActivitySegment.open(ActivitySegment.Source.of(data)).readAll();
+        } catch (IOException e) {
+            throw new SQLException("Archive segment " + segmentId + " is unreadable", e);
+        }
+        rows.removeIf(row -> (from != null && row.getCreatedAt().isBefore(from)) ||
+                             (to != null && !row.getCreatedAt().isBefore(to)));
+        rows.sort(Comparator.comparingInt(SystemActivity::getId));
+        return rows;
+    }
+
+    public String getStats() {
+        long archivedRows = segments.values().stream().mapToLong(ActivitySegment::getRowCount).sum();
+        return String.format("ActivityArchive - Segments: %d, Archived rows: %d, Archived: %d rows in %d segments since start, Purged: %d",
+            segments.size(), archivedRows, rowsArchived.get(), segmentsWritten.get(), rowsPurged.get());
+    }
+
+    private void archiveQuietly() {
+        try {
+            archiveOldActivities();
+            purgeOlderThan(LocalDateTime.now().minusDays(RetentionService.ACTIVITY_RETENTION_DAYS));
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Activity archive run failed", e);
+        }
+    }
+
+    private void refreshIfStale() {
+        if (!started || !isStale()) {
+            return;
+        }
+        synchronized (refreshLock) {
+            // Another reader may have refreshed while this one waited
+            if (isStale()) {
+                loadSegments();
+            }
+        }
+    }
+
+    private boolean isStale() {
+        return System.currentTimeMillis() - lastRefreshMillis > REFRESH_INTERVAL_MS;
+    }
+
+    private void refresh() {
+        synchronized (refreshLock) {
+            loadSegments();
+        }
+    }
+
+    /**
+     * Sync the local segment list with the shared table; only new segments' footers are read
+     */
+    private void loadSegments() {
+        String sql = "SELECT id, segment_bytes, max_created_at FROM activity_archive_segments";
+        Set<Long> present = new HashSet<>();
+        LocalDateTime newest = null;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                long segmentId = rs.getLong("id");
+                present.add(segmentId);
+                LocalDateTime maxCreatedAt = rs.getTimestamp("max_created_at").toLocalDateTime();
+                if (newest == null || maxCreatedAt.isAfter(newest)) {
+                    newest = maxCreatedAt;
+                }
+                if (!segments.containsKey(segmentId)) {
+                    try {
+                        segments.put(segmentId, ActivitySegment.open(databaseSource(segmentId, rs.getInt("segment_bytes"))));
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Skipping unreadable archive segment " + segmentId, e);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to refresh activity archive segments", e);
+            return;
+        }
+
+        segments.keySet().retainAll(present);
+        newestArchivedAt = newest;
+        lastRefreshMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Reads row groups straight out of the segment blob
+     */
+    private ActivitySegment.Source databaseSource(long segmentId, int size) {
+        return new ActivitySegment.Source() {
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public byte[] read(long position, int length) throws IOException {
+                String sql = "SELECT SUBSTRING(segment, ?, ?) FROM activity_archive_segments WHERE id = ?";
+                try (Connection conn = DatabaseUtil.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setLong(1, position + 1);
+                    stmt.setInt(2, length);
+                    stmt.setLong(3, segmentId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        byte[] bytes = rs.next() ? rs.getBytes(1) : null;
+                        if (bytes == null || bytes.length != length) {
+                            throw new IOException("Archive segment " + segmentId + " is no longer available");
+                        }
+                        return bytes;
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("Failed to read archive segment " + segmentId, e);
+                }
+            }
+        };
+    }
+
+    private List<SystemActivity> selectArchivable(LocalDateTime cutoff) {
+        List<SystemActivity> batch = new ArrayList<>();
+        String sql = """
+            SELECT sa.*, u.username
+            FROM system_activities sa
+            LEFT JOIN users u ON sa.user_id = u.id
+            WHERE sa.created_at < ?
+            ORDER BY sa.id
+            LIMIT ?
+            """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            stmt.setInt(2, SEGMENT_MAX_ROWS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    batch.add(activityService.createActivityFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to select activities for archiving", e);
+            batch.clear();
+        }
+        return batch;
+    }
+
+    /**
+     * Insert the segment and delete its rows from the hot table in one transaction.
+     * If any row vanished meanwhile (an account deletion, a retention purge) the batch is
+     * rolled back, so deleted data can never reappear in the archive.
+     */
+    private boolean archiveBatch(List<SystemActivity> batch) {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                insertSegment(conn, batch);
+                int deleted = deleteHotRows(conn, batch);
+                if (deleted != batch.size()) {
+                    conn.rollback();
+                    LOGGER.info("System activities changed while archiving, retrying on the next run");
+                    return false;
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to archive " + batch.size() + " system activities", e);
+            return false;
+        }
+    }
+
+    /**
+     * Delete archived rows by id, in short statements
+     */
+    private int deleteHotRows(Connection conn, List<SystemActivity> batch) throws SQLException {
+        int deleted = 0;
+        for (int start = 0; start < batch.size(); start += DELETE_CHUNK_SIZE) {
+            List<SystemActivity> chunk = batch.subList(start, Math.min(batch.size(), start + DELETE_CHUNK_SIZE));
+            StringBuilder sql = new StringBuilder("DELETE FROM system_activities WHERE id IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i > 0 ? ",?" : "?");
+            }
+            sql.append(")");
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i).getId());
+                }
+                deleted += stmt.executeUpdate();
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Encode rows as a segment and store it with its user index
+     */
+    private long insertSegment(Connection conn, List<SystemActivity> rows) throws SQLException {
+        byte[] encoded = ActivitySegment.encode(rows);
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        LocalDateTime minCreatedAt = null;
+        LocalDateTime maxCreatedAt = null;
+        Set<Integer> userIds = new HashSet<>();
+        for (SystemActivity row : rows) {
+            minId = Math.min(minId, row.getId());
+            maxId = Math.max(maxId, row.getId());
+            if (minCreatedAt == null || row.getCreatedAt().isBefore(minCreatedAt)) minCreatedAt = row.getCreatedAt();
+            if (maxCreatedAt == null || row.getCreatedAt().isAfter(maxCreatedAt)) maxCreatedAt = row.getCreatedAt();
+            if (row.getUserId() != null) userIds.add(row.getUserId());
+        }
+
+        String sql = """
+            INSERT INTO activity_archive_segments
+            (min_activity_id, max_activity_id, min_created_at, max_created_at, row_count, segment_bytes, segment)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+        long segmentId;
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, minId);
+            stmt.setInt(2, maxId);
+            stmt.setTimestamp(3, Timestamp.valueOf(minCreatedAt));
+            stmt.setTimestamp(4, Timestamp.valueOf(maxCreatedAt));
+            stmt.setInt(5, rows.size());
+            stmt.setInt(6, encoded.length);
+            stmt.setBytes(7, encoded);
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id generated for archive segment");
+                }
+                segmentId = keys.getLong(1);
+            }
+        }
+
+        if (!userIds.isEmpty()) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO activity_archive_users (user_id, segment_id) VALUES (?, ?)")) {
+                for (Integer userId : userIds) {
+                    stmt.setLong(1, userId);
+                    stmt.setLong(2, segmentId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+        return segmentId;
+    }
+
+    /**
+     * Replace a segment with a copy holding only the rows to keep; returns the rows dropped
+     */
+    private int rewriteSegment(Connection conn, long segmentId, Predicate<SystemActivity> keep) throws SQLException {
+        byte[] data;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT segment FROM activity_archive_segments WHERE id = ? FOR UPDATE")) {
+            stmt.setLong(1, segmentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return 0;
+                }
+                data = rs.getBytes(1);
+            }
+        }
+
+        List<SystemActivity> rows;
+        try {
+            rows = ActivitySegment.open(ActivitySegment.Source.of(data)).readAll();
+        } catch (IOException e) {
+            throw new SQLException("Archive segment " + segmentId + " is unreadable", e);
+        }
+
+        List<SystemActivity> kept = new ArrayList<>(rows.size());
+        for (SystemActivity row : rows) {
+            if (keep.test(row)) {
+                kept.add(row);
+            }
+        }
+        int removed = rows.size() - kept.size();
+        if (removed == 0) {
+            return 0;
+        }
+
+        deleteSegment(conn, segmentId, rows.size());
+        if (!kept.isEmpty()) {
+            insertSegment(conn, kept);
+        }
+        return removed;
+    }
+
+    private int deleteSegment(Connection conn, long segmentId, int rowCount) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM activity_archive_segments WHERE id = ?")) {
+            stmt.setLong(1, segmentId);
+            return stmt.executeUpdate() > 0 ? rowCount : 0;
+        }
+    }
+
+    private boolean acquireArchiveLock(Connection conn, int timeoutSeconds) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, ARCHIVE_LOCK);
+            stmt.setInt(2, timeoutSeconds);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void releaseArchiveLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, ARCHIVE_LOCK);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Failed to release archive lock", e);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.MpscRingBuffer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous writer for system activities.
+ * Callers enqueue into a bounded MPSC ring buffer and return immediately; a single
+ * writer thread drains the buffer into multi-row INSERT statements on a fixed flush interval,
+ * or sooner once a full batch is waiting.
+ */
+public class ActivityLogWriter {
+    private static final Logger LOGGER = Logger.getLogger(ActivityLogWriter.class.getName());
+    private static ActivityLogWriter instance;
+
+    // Writer configuration
+    private static final int BUFFER_CAPACITY = 8192;
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 500;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 200;
+    private static final long DEFAULT_MAX_BLOCK_MS = 50;
+
+    private static final String INSERT_PREFIX = """
+        INSERT INTO system_activities
+        (user_id, activity_type, description, entity_type, entity_id, severity, ip_address, user_agent, metadata_bin, created_at)
+        VALUES
+        """;
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * What to do when the buffer is full
+     */
+    public enum BackpressurePolicy {
+        DROP_NEWEST,   // Discard the new entry and count it
+        BLOCK,         // Wait up to the configured block time for space, then drop
+        CALLER_RUNS    // Write the entry synchronously on the calling thread
+    }
+
+    private final MpscRingBuffer<PendingActivity> buffer = new MpscRingBuffer<>(BUFFER_CAPACITY);
+    private final ScheduledExecutorService writerExecutor;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    private final Object drainLock = new Object(); // the buffer allows a single consumer at a time
+
+    private volatile long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile long maxBlockMs = DEFAULT_MAX_BLOCK_MS;
+    private volatile BackpressurePolicy backpressurePolicy = BackpressurePolicy.DROP_NEWEST;
+    private ScheduledFuture<?> flushTask;
+
+    // Writer statistics
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong journaled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private long droppedAtLastReport = 0;
+
+    private ActivityLogWriter() {
+        writerExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Activity-Log-Writer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduleFlushTask();
+        LOGGER.info("ActivityLogWriter initialized with " + buffer.capacity() + " slot buffer");
+    }
+
+    public static ActivityLogWriter getInstance() {
+        if (instance == null) {
+            synchronized (ActivityLogWriter.class) {
+                if (instance == null) {
+                    instance = new ActivityLogWriter();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Change the flush interval, batch size and backpressure policy at runtime
+     */
+    public synchronized void configure(long flushIntervalMs, int maxBatchSize, BackpressurePolicy policy) {
+        if (flushIntervalMs <= 0 || maxBatchSize <= 0 || policy == null) {
+            throw new IllegalArgumentException("Invalid activity log writer configuration");
+        }
+
+        this.maxBatchSize = maxBatchSize;
+        this.backpressurePolicy = policy;
+
+        if (this.flushIntervalMs != flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+            scheduleFlushTask();
+        }
+
+        LOGGER.info(String.format("ActivityLogWriter configured: interval=%dms, batch=%d, policy=%s",
+            flushIntervalMs, maxBatchSize, policy));
+    }
+
+    /**
+     * Maximum time a BLOCK policy producer waits for space
+     */
+    public void setMaxBlockMs(long maxBlockMs) {
+        this.maxBlockMs = Math.max(0, maxBlockMs);
+    }
+
+    /**
+     * Queue an activity for writing. Never performs database work on the caller's
+     * thread unless the policy is CALLER_RUNS and the buffer is full.
+     *
+     * @return true if the activity was queued or written, false if it was dropped
+     */
+    public boolean enqueue(PendingActivity activity) {
+        if (shutdown.get()) {
+            // Late events after shutdown go straight to the database
+            return writeBatch(List.of(activity));
+        }
+
+        if (buffer.offer(activity)) {
+            enqueued.incrementAndGet();
+            if (buffer.size() >= maxBatchSize) {
+                requestFlush();
+            }
+            return true;
+        }
+
+        switch (backpressurePolicy) {
+            case CALLER_RUNS:
+                enqueued.incrementAndGet();
+                return writeBatch(List.of(activity));
+            case BLOCK:
+                requestFlush();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBlockMs);
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    if (buffer.offer(activity)) {
+                        enqueued.incrementAndGet();
+                        return true;
+                    }
+                }
+                return overflow(activity);
+            case DROP_NEWEST:
+            default:
+                requestFlush();
+                return overflow(activity);
+        }
+    }
+
+    /**
+     * Buffer is full: spill to the local journal, dropping only if that fails too
+     */
+    private boolean overflow(PendingActivity activity) {
+        if (EventJournal.getInstance().appendActivities(List.of(activity))) {
+            enqueued.incrementAndGet();
+            journaled.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Drain everything currently queued; blocks until the writer has flushed.
+     * After shutdown has started the drain runs here, serialized with the shutdown drain.
+     */
+    public void flush() {
+        if (shutdown.get()) {
+            drainBuffer();
+            return;
+        }
+
+        try {
+            writerExecutor.submit(this::drainBuffer).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Activity log flush did not complete", e);
+        }
+    }
+
+    /**
+     * Stop the writer and flush the remaining queue
+     */
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+
+        LOGGER.info("Shutting down ActivityLogWriter, flushing " + buffer.size() + " queued activities...");
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                writerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        // Drain what the writer thread left; flush() callers share the same drain lock
+        drainBuffer();
+        LOGGER.info("ActivityLogWriter shutdown complete: " + getStats());
+    }
+
+    /**
+     * Get writer statistics
+     */
+    public String getStats() {
+        return String.format("ActivityLogWriter - Queued: %d, Enqueued: %d, Written: %d, Journaled: %d, Dropped: %d, Failed: %d, Rejected: %d",
+            buffer.size(), enqueued.get(), written.get(), journaled.get(), dropped.get(), failed.get(), rejected.get());
+    }
+
+    private synchronized void scheduleFlushTask() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        flushTask = writerExecutor.scheduleWithFixedDelay(this::drainBuffer,
+            flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void requestFlush() {
+        if (!shutdown.get() && flushRequested.compareAndSet(false, true)) {
+            try {
+                writerExecutor.execute(this::drainBuffer);
+            } catch (Exception e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writer loop body: drain in batches until the buffer is empty.
+     * Runs under the drain lock so the writer thread, shutdown and late flush() calls
+     * never consume the buffer concurrently.
+     */
+    private void drainBuffer() {
+        synchronized (drainLock) {
+            flushRequested.set(false);
+
+            List<PendingActivity> batch = new ArrayList<>(maxBatchSize);
+            while (buffer.drainTo(batch, maxBatchSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+
+            long droppedNow = dropped.get();
+            if (droppedNow != droppedAtLastReport) {
+                LOGGER.warning("Activity log buffer full, dropped " + (droppedNow - droppedAtLastReport) + " activities");
+                droppedAtLastReport = droppedNow;
+            }
+        }
+    }
+
+    /**
+     * Write a batch with a single multi-row INSERT.
+     * While the event journal holds a backlog, or when the database is unavailable, the batch
+     * is journaled instead so it is replayed in order later. When the database rejects the
+     * statement itself, the batch is retried row by row so one bad row cannot sink the rest.
+     */
+    private boolean writeBatch(List<PendingActivity> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        EventJournal journal = EventJournal.getInstance();
+        if (journal.hasBacklog()) {
+            return journalBatch(journal, batch);
+        }
+
+        Connection conn = null;
+
+        try {
+            conn = DatabaseUtil.getConnection();
+            insertActivities(conn, batch);
+            written.addAndGet(batch.size());
+
+            recordRollups(batch);
+            LOGGER.fine("Wrote " + batch.size() + " system activities");
+            return true;
+
+        } catch (SQLException e) {
+            if (conn != null && DatabaseUtil.isPermanentFailure(e)) {
+                LOGGER.log(Level.WARNING, "Batch of " + batch.size() + " system activities rejected, writing row by row", e);
+                return writeRowByRow(conn, journal, batch);
+            }
+            LOGGER.log(Level.WARNING, "Failed to write " + batch.size() + " system activities, journaling", e);
+            return journalBatch(journal, batch);
+        } finally {
+            if (conn != null) DatabaseUtil.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Fallback after a rejected batch: rows the database refuses go to the dead-letter journal,
+     * and if the database becomes unavailable part way the remaining rows are journaled
+     */
+    private boolean writeRowByRow(Connection conn, EventJournal journal, List<PendingActivity> batch) {
+        List<PendingActivity> accepted = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingActivity activity = batch.get(i);
+            try {
+                insertActivities(conn, List.of(activity));
+                accepted.add(activity);
+            } catch (SQLException e) {
+                if (!DatabaseUtil.isPermanentFailure(e)) {
+                    LOGGER.log(Level.WARNING, "Row by row write interrupted, journaling " + (batch.size() - i) + " activities", e);
+                    written.addAndGet(accepted.size());
+                    recordRollups(accepted);
+                    return journalBatch(journal, batch.subList(i, batch.size()));
+                }
+                rejected.incrementAndGet();
+                journal.deadLetterActivities(List.of(activity));
+                LOGGER.log(Level.WARNING, "Dead-lettered system activity the database rejected: " +
+                           activity.activityType + " for user " + activity.userId, e);
+            }
+        }
+        written.addAndGet(accepted.size());
+        recordRollups(accepted);
+        return true;
+    }
+
+    private boolean journalBatch(EventJournal journal, List<PendingActivity> batch) {
+        if (journal.appendActivities(batch)) {
+            journaled.addAndGet(batch.size());
+            return true;
+        }
+        failed.addAndGet(batch.size());
+        LOGGER.severe("Lost " + batch.size() + " system activities: database and journal unavailable");
+        return false;
+    }
+
+    /**
+     * Insert activities on the given connection with one multi-row statement
+     */
+    static void insertActivities(Connection conn, List<PendingActivity> batch) throws SQLException {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) sql.append(",\n");
+            sql.append(ROW_PLACEHOLDERS);
+        }
+
+        AccountDeletionService deletions = AccountDeletionService.getInstance();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int paramIndex = 1;
+            for (PendingActivity activity : batch) {
+                stmt.setObject(paramIndex++, deletions.liveUserId(activity.userId));
+                stmt.setString(paramIndex++, activity.activityType);
+                stmt.setString(paramIndex++, activity.description);
+                stmt.setString(paramIndex++, activity.entityType);
+                stmt.setObject(paramIndex++, activity.entityId);
+                stmt.setString(paramIndex++, activity.severity);
+                stmt.setString(paramIndex++, activity.ipAddress);
+                stmt.setString(paramIndex++, activity.userAgent);
+                stmt.setBytes(paramIndex++, activity.metadata);
+                stmt.setTimestamp(paramIndex++, Timestamp.valueOf(activity.createdAt));
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Count written activities into the statistics rollups
+     */
+    static void recordRollups(List<PendingActivity> batch) {
+        StatisticsRollupService rollups = StatisticsRollupService.getInstance();
+        for (PendingActivity activity : batch) {
+            rollups.record(StatisticsRollupService.Source.ACTIVITY, activity.activityType, activity.severity,
+                           activity.userId, null, activity.createdAt);
+        }
+    }
+
+    /**
+     * Activity captured at enqueue time, ready to be written
+     */
+    public static class PendingActivity {
+        final Integer userId;
+        final String activityType;
+        final String description;
+        final String entityType;
+        final Integer entityId;
+        final String severity;
+        final String ipAddress;
+        final String userAgent;
+        final byte[] metadata; // MetadataCodec encoded
+        final LocalDateTime createdAt;
+
+        public PendingActivity(Integer userId, String activityType, String description, String entityType,
+                               Integer entityId, String severity, String ipAddress, String userAgent,
+                               byte[] metadata, LocalDateTime createdAt) {
+            this.userId = userId;
+            this.activityType = activityType;
+            this.description = description;
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.severity = severity;
+            this.ipAddress = ipAddress;
+            this.userAgent = userAgent;
+            this.metadata = metadata;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.SystemActivity;
+import gov.civiljoin.model.SystemActivity.ActivityType;
+import gov.civiljoin.model.SystemActivity.Severity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Filter and keyset cursor for activity timeline queries.
+ * Results are ordered newest first by (created_at, id); the next page continues strictly
+ * after the last row of the previous one, so paging never skips or repeats rows.
+ * <p>
+ * With a type or severity filter the query is split into one branch per (type, severity)
+ * pair. Each branch reads idx_type_severity_created backwards from the cursor and stops
+ * after {@code limit} rows, so a filtered page costs the same however old the matches are.
+ */
+public final class ActivityQuery {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private static final String PAGE_COLUMNS = "sa.id, sa.created_at";
+
+    private final EnumSet<ActivityType> types;
+    private final Severity minSeverity;
+    private final String searchText;
+    private final Integer userId;
+    private final int limit;
+    private final LocalDateTime cursorCreatedAt;
+    private final int cursorId;
+
+    private ActivityQuery(Builder builder) {
+        this.types = builder.types.isEmpty() ? EnumSet.noneOf(ActivityType.class) : EnumSet.copyOf(builder.types);
+        this.minSeverity = builder.minSeverity;
+        this.searchText = builder.searchText;
+        this.userId = builder.userId;
+        this.limit = builder.limit;
+        this.cursorCreatedAt = builder.cursorCreatedAt;
+        this.cursorId = builder.cursorId;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The same filters, continuing after the given row (normally the last one of the current page)
+     */
+    public ActivityQuery after(SystemActivity last) {
+        return toBuilder().after(last.getCreatedAt(), last.getId()).build();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder()
+            .types(types)
+            .minSeverity(minSeverity)
+            .searchText(searchText)
+            .userId(userId)
+            .limit(limit);
+        if (cursorCreatedAt != null) {
+            builder.after(cursorCreatedAt, cursorId);
+        }
+        return builder;
+    }
+
+    public int getLimit() { return limit; }
+    public Integer getUserId() { return userId; }
+    public boolean isFiltered() { return !types.isEmpty() || minSeverity != null || searchText != null || userId != null; }
+
+    LocalDateTime getCursorCreatedAt() { return cursorCreatedAt; }
+    int getCursorId() { return cursorId; }
+
+    /**
+     * In-memory equivalent of the SQL filters, for rows read outside the database
+     */
+    public boolean matches(SystemActivity activity) {
+        if (!types.isEmpty() && !types.contains(activity.getActivityType())) {
+            return false;
+        }
+        if (minSeverity != null && activity.getSeverity().ordinal() < minSeverity.ordinal()) {
+            return false;
+        }
+        if (userId != null && !userId.equals(activity.getUserId())) {
+            return false;
+        }
+        if (cursorCreatedAt != null) {
+            int cmp = activity.getCreatedAt().compareTo(cursorCreatedAt);
+            if (cmp > 0 || (cmp == 0 && activity.getId() >= cursorId)) {
+                return false;
+            }
+        }
+        if (searchText != null) {
+            // LIKE under the default collation is case-insensitive
+            String needle = searchText.toLowerCase();
+            return (activity.getDescription() != null && activity.getDescription().toLowerCase().contains(needle)) ||
+                (activity.getUsername() != null && activity.getUsername().toLowerCase().contains(needle));
+        }
+        return true;
+    }
+
+    /**
+     * Build the SQL for this page and collect its parameters in order
+     */
+    String toSql(List<Object> params) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT sa.*, u.username
+            FROM (
+            """);
+
+        if (types.isEmpty() && minSeverity == null) {
+            // No type or severity filter: walk idx_created_at (or idx_user_id for a user filter)
+            appendBranch(sql, params, null, null);
+        } else {
+            List<ActivityType> branchTypes = types.isEmpty() ? Arrays.asList(ActivityType.values()) : new ArrayList<>(types);
+            List<Severity> branchSeverities = new ArrayList<>();
+            for (Severity severity : Severity.values()) {
+                if (minSeverity == null || severity.ordinal() >= minSeverity.ordinal()) {
+                    branchSeverities.add(severity);
+                }
+            }
+
+            boolean first = true;
+            for (ActivityType type : branchTypes) {
+                for (Severity severity : branchSeverities) {
+                    if (!first) sql.append("\nUNION ALL\n");
+                    appendBranch(sql, params, type, severity);
+                    first = false;
+                }
+            }
+        }
+
+        sql.append("""
+
+            ) AS page
+            JOIN system_activities sa ON sa.id = page.id
+            LEFT JOIN users u ON sa.user_id = u.id
+            ORDER BY sa.created_at DESC, sa.id DESC
+            LIMIT ?
+            """);
+        params.add(limit);
+        return sql.toString();
+    }
+
+    /**
+     * One index-ordered, limited scan; only ids and sort keys leave the branch
+     */
+    private void appendBranch(StringBuilder sql, List<Object> params, ActivityType type, Severity severity) {
+        sql.append("(SELECT ").append(PAGE_COLUMNS).append(" FROM system_activities sa WHERE 1=1");
+
+        if (type != null) {
+            sql.append(" AND sa.activity_type = ?");
+            params.add(type.name());
+        }
+        if (severity != null) {
+            sql.append(" AND sa.severity = ?");
+            params.add(severity.name());
+        }
+        if (userId != null) {
+            sql.append(" AND sa.user_id = ?");
+            params.add(userId);
+        }
+        if (cursorCreatedAt != null) {
+            // Expanded form: MySQL turns it into an index range, the row-constructor form it may not
+            sql.append(" AND (sa.created_at < ? OR (sa.created_at = ? AND sa.id < ?))");
+            java.sql.Timestamp cursorTime = java.sql.Timestamp.valueOf(cursorCreatedAt);
+            params.add(cursorTime);
+            params.add(cursorTime);
+            params.add(cursorId);
+        }
+        if (searchText != null) {
+            String pattern = "%" + escapeLikePattern(searchText) + "%";
+            sql.append(" AND (sa.description LIKE ? OR sa.user_id IN (SELECT id FROM users WHERE username LIKE ?))");
+            params.add(pattern);
+            params.add(pattern);
+        }
+
+        sql.append(" ORDER BY sa.created_at DESC, sa.id DESC LIMIT ?)");
+        params.add(limit);
+    }
+
+    private static String escapeLikePattern(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Builder for activity queries; unset filters match everything
+     */
+    public static final class Builder {
+        private final EnumSet<ActivityType> types = EnumSet.noneOf(ActivityType.class);
+        private Severity minSeverity;
+        private String searchText;
+        private Integer userId;
+        private int limit = DEFAULT_LIMIT;
+        private LocalDateTime cursorCreatedAt;
+        private int cursorId;
+
+        private Builder() {
+        }
+
+        public Builder types(Collection<ActivityType> activityTypes) {
+            types.clear();
+            if (activityTypes != null) {
+                types.addAll(activityTypes);
+            }
+            return this;
+        }
+
+        public Builder minSeverity(Severity severity) {
+            this.minSeverity = severity;
+            return this;
+        }
+
+        public Builder searchText(String text) {
+            this.searchText = text == null || text.trim().isEmpty() ? null : text.trim();
+            return this;
+        }
+
+        public Builder userId(Integer userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+            return this;
+        }
+
+        /**
+         * Only rows strictly older than (createdAt, id) in timeline order
+         */
+        public Builder after(LocalDateTime createdAt, int id) {
+            this.cursorCreatedAt = createdAt;
+            this.cursorId = id;
+            return this;
+        }
+
+        public ActivityQuery build() {
+            return new ActivityQuery(this);
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.SystemActivity;
+import gov.civiljoin.model.SystemActivity.ActivityType;
+import gov.civiljoin.model.SystemActivity.EntityType;
+import gov.civiljoin.model.SystemActivity.Severity;
+import gov.civiljoin.util.BloomFilter;
+import gov.civiljoin.util.MetadataCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, compressed, columnar segment of archived system activities.
+ * <p>
+ * Rows are sorted by (created_at, id) and stored in row groups of {@link #ROW_GROUP_SIZE}.
+ * Inside a group every column is encoded on its own (varint deltas for ids and timestamps,
+ * per-segment dictionaries for enums, length-prefixed UTF-8 for text) and deflated.
+ * The footer holds a sparse time index (first/last timestamp and byte offset per group),
+ * the dictionaries and a bloom filter of user ids, so a query touches only the groups it needs
+ * and skips segments that cannot contain a given user. Segments are read through a
+ * {@link Source}, so only the footer and the row groups a query needs are fetched.
+ * <p>
+ * Layout: [magic][version][row groups...][footer][footer length][magic]
+ */
+final class ActivitySegment {
+    static final int ROW_GROUP_SIZE = 1024;
+
+    private static final int MAGIC = 0x434A5347; // "CJSG"
+    private static final short VERSION = 1;
+    private static final int COLUMN_COUNT = 12;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    private final Source source;
+    private final int rowCount;
+    private final long minCreatedMillis;
+    private final long maxCreatedMillis;
+    private final BloomFilter userIds;
+    private final List<String> dictionary;
+
+    // Sparse time index, one entry per row group
+    private final long[] groupFirstMillis;
+    private final long[] groupLastMillis;
+    private final long[] groupOffsets;
+    private final int[] groupLengths;
+    private final int[] groupRowCounts;
+
+    private ActivitySegment(Source source, int rowCount, long minCreatedMillis, long maxCreatedMillis, BloomFilter userIds,
+                            List<String> dictionary, long[] groupFirstMillis, long[] groupLastMillis,
+                            long[] groupOffsets, int[] groupLengths, int[] groupRowCounts) {
+        this.source = source;
+        this.rowCount = rowCount;
+        this.minCreatedMillis = minCreatedMillis;
+        this.maxCreatedMillis = maxCreatedMillis;
+        this.userIds = userIds;
+        this.dictionary = dictionary;
+        this.groupFirstMillis = groupFirstMillis;
+        this.groupLastMillis = groupLastMillis;
+        this.groupOffsets = groupOffsets;
+        this.groupLengths = groupLengths;
+        this.groupRowCounts = groupRowCounts;
+    }
+
+    /**
+     * Random access to the bytes of one encoded segment
+     */
+    interface Source {
+        long size() throws IOException;
+
+        byte[] read(long position, int length) throws IOException;
+
+        /**
+         * Segment held entirely in memory
+         */
+        static Source of(byte[] data) {
+            return new Source() {
+                @Override
+                public long size() {
+                    return data.length;
+                }
+
+                @Override
+                public byte[] read(long position, int length) throws IOException {
+                    if (position < 0 || length < 0 || position + length > data.length) {
+                        throw new IOException("Read past end of segment");
+                    }
+                    byte[] bytes = new byte[length];
+                    System.arraycopy(data, (int) position, bytes, 0, length);
+                    return bytes;
+                }
+            };
+        }
+    }
+
+    int getRowCount() { return rowCount; }
+    LocalDateTime getMinCreatedAt() { return fromMillis(minCreatedMillis); }
+    LocalDateTime getMaxCreatedAt() { return fromMillis(maxCreatedMillis); }
+
+    boolean mightContainUser(int userId) {
+        return userIds.mightContain(userId);
+    }
+
+    /**
+     * Encode rows into a new segment
+     */
+    static byte[] encode(List<SystemActivity> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Cannot encode an empty segment");
+        }
+
+        List<SystemActivity> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(SystemActivity::getCreatedAt).thenComparingInt(SystemActivity::getId));
+
+        Map<String, Integer> dictionaryIds = new LinkedHashMap<>();
+        BloomFilter userIds = new BloomFilter(sorted.size(), BLOOM_FALSE_POSITIVE_RATE);
+        int groupCount = (sorted.size() + ROW_GROUP_SIZE - 1) / ROW_GROUP_SIZE;
+        long[] firstMillis = new long[groupCount];
+        long[] lastMillis = new long[groupCount];
+        long[] offsets = new long[groupCount];
+        int[] lengths = new int[groupCount];
+        int[] rowCounts = new int[groupCount];
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(ByteBuffer.allocate(6).putInt(MAGIC).putShort(VERSION).array());
+
+        for (int g = 0; g < groupCount; g++) {
+            List<SystemActivity> group = sorted.subList(g * ROW_GROUP_SIZE,
+                Math.min(sorted.size(), (g + 1) * ROW_GROUP_SIZE));
+            for (SystemActivity row : group) {
+                if (row.getUserId() != null) {
+                    userIds.add(row.getUserId());
+                }
+            }
+
+            byte[] encoded = encodeGroup(group, dictionaryIds);
+            offsets[g] = out.size();
+            lengths[g] = encoded.length;
+            rowCounts[g] = group.size();
+            firstMillis[g] = toMillis(group.get(0).getCreatedAt());
+            lastMillis[g] = toMillis(group.get(group.size() - 1).getCreatedAt());
+            out.writeBytes(encoded);
+        }
+
+        List<String> dictionary = new ArrayList<>(dictionaryIds.keySet());
+        byte[] footer = encodeFooter(sorted.size(), firstMillis[0], lastMillis[groupCount - 1], userIds,
+            dictionary, firstMillis, lastMillis, offsets, lengths, rowCounts);
+        out.writeBytes(footer);
+        out.writeBytes(ByteBuffer.allocate(8).putInt(footer.length).putInt(MAGIC).array());
+        return out.toByteArray();
+    }
+
+    /**
+     * Open an existing segment; reads only the footer
+     */
+    static ActivitySegment open(Source source) throws IOException {
+        long size = source.size();
+        if (size < 14) {
+            throw new IOException("Segment too small: " + size + " bytes");
+        }
+
+        ByteBuffer tail = ByteBuffer.wrap(source.read(size - 8, 8));
+        int footerLength = tail.getInt();
+        if (tail.getInt() != MAGIC || footerLength <= 0 || footerLength > size - 14) {
+            throw new IOException("Not an activity segment");
+        }
+
+        ByteBuffer footer = ByteBuffer.wrap(source.read(size - 8 - footerLength, footerLength));
+        short version = footer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported segment version " + version);
+        }
+
+        int rowCount = footer.getInt();
+        long minMillis = footer.getLong();
+        long maxMillis = footer.getLong();
+
+        byte[] bloom = new byte[footer.getInt()];
+        footer.get(bloom);
+
+        int dictionarySize = footer.getInt();
+        List<String> dictionary = new ArrayList<>(dictionarySize);
+        for (int i = 0; i < dictionarySize; i++) {
+            byte[] entry = new byte[footer.getShort()];
+            footer.get(entry);
+            dictionary.add(new String(entry, StandardCharsets.UTF_8));
+        }
+
+        int groupCount = footer.getInt();
+        long[] firstMillis = new long[groupCount];
+        long[] lastMillis = new long[groupCount];
+        long[] offsets = new long[groupCount];
+        int[] lengths = new int[groupCount];
+        int[] rowCounts = new int[groupCount];
+        for (int g = 0; g < groupCount; g++) {
+            firstMillis[g] = footer.getLong();
+            lastMillis[g] = footer.getLong();
+            offsets[g] = footer.getLong();
+            lengths[g] = footer.getInt();
+            rowCounts[g] = footer.getInt();
+        }
+
+        return new ActivitySegment(source, rowCount, minMillis, maxMillis, BloomFilter.fromBytes(bloom),
+            dictionary, firstMillis, lastMillis, offsets, lengths, rowCounts);
+    }
+
+    /**
+     * Every row in the segment, oldest first
+     */
+    List<SystemActivity> readAll() throws IOException {
+        List<SystemActivity> rows = new ArrayList<>(rowCount);
+        for (int g = 0; g < groupOffsets.length; g++) {
+            rows.addAll(decodeGroup(source.read(groupOffsets[g], groupLengths[g]), groupRowCounts[g]));
+        }
+        return rows;
+    }
+
+    /**
+     * Newest rows matching the query (including its cursor), newest first, at most {@code limit}
+     */
+    List<SystemActivity> findNewest(ActivityQuery query, int limit) throws IOException {
+        List<SystemActivity> matches = new ArrayList<>();
+        if (query.getUserId() != null && !mightContainUser(query.getUserId())) {
+            return matches;
+        }
+
+        long cursorMillis = query.getCursorCreatedAt() != null ? toMillis(query.getCursorCreatedAt()) : Long.MAX_VALUE;
+
+        for (int g = groupOffsets.length - 1; g >= 0 && matches.size() < limit; g--) {
+            // Every row in this group is newer than the cursor
+            if (groupFirstMillis[g] > cursorMillis) {
+                continue;
+            }
+
+            List<SystemActivity> group = decodeGroup(source.read(groupOffsets[g], groupLengths[g]), groupRowCounts[g]);
+            for (int i = group.size() - 1; i >= 0 && matches.size() < limit; i--) {
+                SystemActivity row = group.get(i);
+                if (query.matches(row)) {
+                    matches.add(row);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static byte[] encodeGroup(List<SystemActivity> group, Map<String, Integer> dictionaryIds) {
+        ByteArrayOutputStream[] columns = new ByteArrayOutputStream[COLUMN_COUNT];
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            columns[c] = new ByteArrayOutputStream(group.size() * 4);
+        }
+
+        long previousId = 0;
+        long previousMillis = 0;
+        for (SystemActivity row : group) {
+            long millis = toMillis(row.getCreatedAt());
+            writeVarint(columns[0], zigZag(row.getId() - previousId));
+            writeVarint(columns[1], zigZag(millis - previousMillis));
+            previousId = row.getId();
+            previousMillis = millis;
+
+            writeVarint(columns[2], row.getUserId() != null ? zigZag(row.getUserId()) + 1 : 0);
+            writeVarint(columns[3], dictionaryId(dictionaryIds, row.getActivityType().name()));
+            writeVarint(columns[4], dictionaryId(dictionaryIds, row.getSeverity().name()));
+            writeVarint(columns[5], dictionaryId(dictionaryIds, row.getEntityType() != null ? row.getEntityType().name() : EntityType.SYSTEM.name()));
+            writeVarint(columns[6], row.getEntityId() != null ? zigZag(row.getEntityId()) + 1 : 0);
+            writeBytes(columns[7], row.getDescription() != null ? row.getDescription().getBytes(StandardCharsets.UTF_8) : null);
+            writeBytes(columns[8], row.getUsername() != null ? row.getUsername().getBytes(StandardCharsets.UTF_8) : null);
+            writeBytes(columns[9], row.getIpAddress() != null ? row.getIpAddress().getBytes(StandardCharsets.UTF_8) : null);
+            writeBytes(columns[10], row.getUserAgent() != null ? row.getUserAgent().getBytes(StandardCharsets.UTF_8) : null);
+            writeBytes(columns[11], row.hasMetadata() ? MetadataCodec.encode(row.getMetadata()) : null);
+        }
+
+        // Each column is deflated separately; similar values compress far better side by side
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater();
+        try {
+            byte[] buffer = new byte[8192];
+            for (ByteArrayOutputStream column : columns) {
+                byte[] raw = column.toByteArray();
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2 + 16);
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    compressed.write(buffer, 0, n);
+                }
+
+                writeVarint(encoded, raw.length);
+                writeVarint(encoded, compressed.size());
+                compressed.writeTo(encoded);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deflater.end();
+        }
+        return encoded.toByteArray();
+    }
+
+    private List<SystemActivity> decodeGroup(byte[] encoded, int rows) throws IOException {
+        byte[][] columns = new byte[COLUMN_COUNT][];
+        int[] pos = {0};
+        Inflater inflater = new Inflater();
+        try {
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                int rawLength = (int) readVarint(encoded, pos);
+                int compressedLength = (int) readVarint(encoded, pos);
+                inflater.reset();
+                inflater.setInput(encoded, pos[0], compressedLength);
+                columns[c] = new byte[rawLength];
+                int inflated = 0;
+                while (inflated < rawLength) {
+                    int n = inflater.inflate(columns[c], inflated, rawLength - inflated);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new IOException("Truncated column in segment");
+                    }
+                    inflated += n;
+                }
+                pos[0] += compressedLength;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column in segment", e);
+        } finally {
+            inflater.end();
+        }
+
+        int[][] positions = new int[COLUMN_COUNT][1];
+        List<SystemActivity> group = new ArrayList<>(rows);
+        long id = 0;
+        long millis = 0;
+        for (int r = 0; r < rows; r++) {
+            SystemActivity activity = new SystemActivity();
+            id += unZigZag(readVarint(columns[0], positions[0]));
+            millis += unZigZag(readVarint(columns[1], positions[1]));
+            activity.setId((int) id);
+            activity.setCreatedAt(fromMillis(millis));
+
+            long userId = readVarint(columns[2], positions[2]);
+            activity.setUserId(userId != 0 ? (int) unZigZag(userId - 1) : null);
+            activity.setActivityType(ActivityType.valueOf(dictionary.get((int) readVarint(columns[3], positions[3]))));
+            activity.setSeverity(Severity.valueOf(dictionary.get((int) readVarint(columns[4], positions[4]))));
+            activity.setEntityType(EntityType.valueOf(dictionary.get((int) readVarint(columns[5], positions[5]))));
+            long entityId = readVarint(columns[6], positions[6]);
+            activity.setEntityId(entityId != 0 ? (int) unZigZag(entityId - 1) : null);
+            activity.setDescription(readString(columns[7], positions[7]));
+            activity.setUsername(readString(columns[8], positions[8]));
+            activity.setIpAddress(readString(columns[9], positions[9]));
+            activity.setUserAgent(readString(columns[10], positions[10]));
+
+            byte[] metadata = readBytes(columns[11], positions[11]);
+            if (metadata != null) {
+                activity.setEncodedMetadata(metadata);
+            }
+            group.add(activity);
+        }
+        return group;
+    }
+
+    private static byte[] encodeFooter(int rowCount, long minMillis, long maxMillis, BloomFilter userIds,
+                                       List<String> dictionary, long[] firstMillis, long[] lastMillis,
+                                       long[] offsets, int[] lengths, int[] rowCounts) {
+        byte[] bloom = userIds.toBytes();
+        List<byte[]> entries = new ArrayList<>(dictionary.size());
+        int dictionaryBytes = 0;
+        for (String entry : dictionary) {
+            byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+            entries.add(bytes);
+            dictionaryBytes += 2 + bytes.length;
+        }
+
+        ByteBuffer footer = ByteBuffer.allocate(2 + 4 + 8 + 8 + 4 + bloom.length + 4 + dictionaryBytes +
+                                                4 + offsets.length * 32);
+        footer.putShort(VERSION);
+        footer.putInt(rowCount);
+        footer.putLong(minMillis);
+        footer.putLong(maxMillis);
+        footer.putInt(bloom.length).put(bloom);
+        footer.putInt(entries.size());
+        for (byte[] entry : entries) {
+            footer.putShort((short) entry.length).put(entry);
+        }
+        footer.putInt(offsets.length);
+        for (int g = 0; g < offsets.length; g++) {
+            footer.putLong(firstMillis[g]);
+            footer.putLong(lastMillis[g]);
+            footer.putLong(offsets[g]);
+            footer.putInt(lengths[g]);
+            footer.putInt(rowCounts[g]);
+        }
+        return footer.array();
+    }
+
+    private static int dictionaryId(Map<String, Integer> dictionaryIds, String value) {
+        return dictionaryIds.computeIfAbsent(value, v -> dictionaryIds.size());
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, value.length + 1L);
+        out.write(value, 0, value.length);
+    }
+
+    private static byte[] readBytes(byte[] column, int[] pos) {
+        long length = readVarint(column, pos);
+        if (length == 0) {
+            return null;
+        }
+        byte[] value = new byte[(int) (length - 1)];
+        System.arraycopy(column, pos[0], value, 0, value.length);
+        pos[0] += value.length;
+        return value;
+    }
+
+    private static String readString(byte[] column, int[] pos) {
+        byte[] bytes = readBytes(column, pos);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+}
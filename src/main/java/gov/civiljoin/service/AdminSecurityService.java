@@ -2,6 +2,7 @@ package gov.civiljoin.service;
 
 import gov.civiljoin.model.User;
 import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.MetadataCodec;
 import gov.civiljoin.util.NotificationManager;
 
 import java.sql.*;
@@ -9,9 +10,13 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,14 +32,49 @@ public class AdminSecurityService {
     private final ScheduledExecutorService securityMonitor = Executors.newScheduledThreadPool(2);
     private final Map<String, SecurityThreat> activeThreatMap = new ConcurrentHashMap<>();
     private final Map<Integer, UserSecurityProfile> userProfiles = new ConcurrentHashMap<>();
+    private final Consumer<SecurityThreat> threatListener = this::onThreatDetected;
     
     // Emergency response
-    private boolean emergencyMode = false;
+    private volatile boolean emergencyMode = false;
     private LocalDateTime emergencyActivatedAt;
     private String emergencyReason;
     
-    // Audit trail
-    private final List<SecurityEvent> recentEvents = Collections.synchronizedList(new ArrayList<>());
+    // Compiled permissions; the active policy is swapped when emergency mode changes
+    private final PermissionPolicy standardPolicy = PermissionPolicy.standard();
+    private final PermissionPolicy emergencyPolicy = standardPolicy.restrictTo(EnumSet.of(User.Role.OWNER));
+    private volatile PermissionPolicy activePolicy = standardPolicy;
+    
+    // Audit trail: recent events are read from the security event bus ring
+    private final SecurityEventBus eventBus = SecurityEventBus.getInstance();
+    private final Consumer<SecurityService.PendingSecurityEvent> eventListener = event -> requestDashboardRebuild();
+    
+    // Dashboard snapshot, rebuilt only when threats, events or emergency state change
+    private static final long DASHBOARD_REBUILD_DELAY_MS = 250;
+    private static final int DASHBOARD_RECENT_EVENTS = 50;
+    private volatile DashboardSnapshot dashboardSnapshot = new DashboardSnapshot(0, false, null, null,
+        new EnumMap<>(ThreatLevel.class), List.of(), 100.0, List.of());
+    private final AtomicBoolean dashboardRebuildPending = new AtomicBoolean(false);
+    private final List<Consumer<DashboardSnapshot>> dashboardListeners = new CopyOnWriteArrayList<>();
+    
+    // Event types logged for admin actions; SecurityAnomalyDetector counts these per user
+    public static final String EVENT_ADMIN_PANEL_ACCESS = "ADMIN_PANEL_ACCESS";
+    public static final String EVENT_KEY_GENERATION = "KEY_GENERATION";
+    public static final String EVENT_AUDIT_EXPORT = "AUDIT_EXPORT";
+    public static final String EVENT_USER_LOCKED = "USER_LOCKED";
+    public static final String EVENT_EMERGENCY_MODE_ACTIVATED = "EMERGENCY_MODE_ACTIVATED";
+    public static final String EVENT_EMERGENCY_MODE_DEACTIVATED = "EMERGENCY_MODE_DEACTIVATED";
+    public static final String EVENT_BLOCKED_EMERGENCY_MODE = "BLOCKED_EMERGENCY_MODE";
+    
+    // Actions accepted by executeSecurityAction, logged under the same event type
+    public static final String ACTION_FORCE_LOGOUT_ALL = "FORCE_LOGOUT_ALL";
+    public static final String ACTION_LOCK_USER = "LOCK_USER";
+    public static final String ACTION_SYSTEM_LOCKDOWN = "SYSTEM_LOCKDOWN";
+    public static final String ACTION_CLEAR_THREATS = "CLEAR_THREATS";
+    
+    public static final Set<String> ADMIN_EVENT_TYPES = Set.of(
+        EVENT_ADMIN_PANEL_ACCESS, EVENT_KEY_GENERATION, EVENT_AUDIT_EXPORT, EVENT_USER_LOCKED,
+        EVENT_EMERGENCY_MODE_ACTIVATED, EVENT_EMERGENCY_MODE_DEACTIVATED, EVENT_BLOCKED_EMERGENCY_MODE,
+        ACTION_FORCE_LOGOUT_ALL, ACTION_LOCK_USER, ACTION_SYSTEM_LOCKDOWN, ACTION_CLEAR_THREATS);
     
     public enum ThreatLevel {
         LOW(1), MEDIUM(2), HIGH(3), CRITICAL(4), EMERGENCY(5);
@@ -63,7 +103,19 @@ public class AdminSecurityService {
      * Initialize proactive security monitoring
      */
     private void initializeSecurityMonitoring() {
-        // Monitor for suspicious patterns every 30 seconds
+        // Suspicious event patterns are detected as events stream through the security event bus
+        SecurityAnomalyDetector detector = SecurityAnomalyDetector.getInstance();
+        for (SecurityThreat threat : detector.getActiveThreats()) {
+            activeThreatMap.put(threat.getId(), threat);
+        }
+        detector.addThreatListener(threatListener);
+        detector.start();
+        
+        // Dashboard follows the event stream instead of being rebuilt on every read
+        rebuildDashboard();
+        eventBus.subscribe(eventListener);
+        
+        // Monitor system resources every 30 seconds
         securityMonitor.scheduleAtFixedRate(this::scanForSuspiciousActivity, 0, 30, TimeUnit.SECONDS);
         
         // Cleanup old security events every hour
@@ -73,19 +125,10 @@ public class AdminSecurityService {
     }
     
     /**
-     * PROACTIVE MONITORING: Scan for suspicious activity patterns
+     * PROACTIVE MONITORING: Scan for conditions that are not visible as security events
      */
     private void scanForSuspiciousActivity() {
         try {
-            // Check for rapid failed login attempts
-            checkFailedLoginPatterns();
-            
-            // Monitor privilege escalation attempts
-            checkPrivilegeEscalation();
-            
-            // Detect unusual data access patterns
-            checkDataAccessPatterns();
-            
             // Monitor system resource usage
             checkSystemResourceUsage();
             
@@ -96,38 +139,27 @@ public class AdminSecurityService {
     
     /**
      * GRANULAR CONTROL: Check and enforce user permissions
+     * Allowed checks are a single bit test against the active compiled policy; only denials
+     * caused by emergency mode are audited and notified.
      */
     public boolean checkPermission(User user, SecurityAction action, String resource) {
         if (user == null) return false;
         
+        PermissionPolicy policy = activePolicy;
+        if (policy.allows(user.getRole(), action, resource)) {
+            return true;
+        }
+        
         // Emergency mode restrictions
-        if (emergencyMode && user.getRole() != User.Role.OWNER) {
-            logSecurityEvent(user.getId(), action, "BLOCKED_EMERGENCY_MODE", ThreatLevel.HIGH,
+        if (policy == emergencyPolicy && standardPolicy.allows(user.getRole(), action, resource)) {
+            logSecurityEvent(user.getId(), action, EVENT_BLOCKED_EMERGENCY_MODE, ThreatLevel.HIGH,
                 "Action blocked due to emergency mode: " + action);
             NotificationManager.getInstance().showNotification(
                 "Emergency Mode Active - System is in emergency mode. Only owners can perform actions.",
                 NotificationManager.NotificationType.ERROR
             );
-            return false;
-        }
-        
-        // Role-based access control
-        switch (action) {
-            case EMERGENCY_ACTIVATION:
-            case SYSTEM_OVERRIDE:
-                return user.getRole() == User.Role.OWNER;
-                
-            case PRIVILEGE_ESCALATION:
-            case BULK_OPERATION:
-                return user.getRole() == User.Role.OWNER || user.getRole() == User.Role.ADMIN;
-                
-            case ADMIN_ACCESS:
-            case SENSITIVE_ACCESS:
-                return user.getRole() != User.Role.USER;
-                
-            default:
-                return true;
         }
+        return false;
     }
     
     /**
@@ -139,12 +171,14 @@ public class AdminSecurityService {
         }
         
         emergencyMode = true;
+        activePolicy = emergencyPolicy;
         emergencyActivatedAt = LocalDateTime.now();
         emergencyReason = reason;
+        requestDashboardRebuild();
         
         // Log critical security event
         logSecurityEvent(activatedBy.getId(), SecurityAction.EMERGENCY_ACTIVATION, 
-            "EMERGENCY_MODE_ACTIVATED", ThreatLevel.EMERGENCY, 
+            EVENT_EMERGENCY_MODE_ACTIVATED, ThreatLevel.EMERGENCY, 
             "Emergency mode activated: " + reason);
         
         // Notify all admins
@@ -169,9 +203,11 @@ public class AdminSecurityService {
         }
         
         emergencyMode = false;
+        activePolicy = standardPolicy;
+        requestDashboardRebuild();
         
         logSecurityEvent(deactivatedBy.getId(), SecurityAction.EMERGENCY_ACTIVATION, 
-            "EMERGENCY_MODE_DEACTIVATED", ThreatLevel.HIGH, 
+            EVENT_EMERGENCY_MODE_DEACTIVATED, ThreatLevel.HIGH, 
             "Emergency mode deactivated by " + deactivatedBy.getUsername());
         
         NotificationManager.getInstance().showNotification(
@@ -192,11 +228,10 @@ public class AdminSecurityService {
                 userId, action, eventType, threatLevel, details, LocalDateTime.now()
             );
             
-            // Add to recent events
-            recentEvents.add(event);
-            
-            // Store in database
-            storeSecurityEventInDatabase(event);
+            // Recent-events view and database write are both handled by the bus
+            eventBus.publish(new SecurityService.PendingSecurityEvent(
+                eventType, userId, null, null, details, threatLevel.name(),
+                MetadataCodec.encode(Map.of("action", action.name())), event.getTimestamp()));
             
             // Handle high-threat events
             if (threatLevel.getSeverity() >= ThreatLevel.HIGH.getSeverity()) {
@@ -209,41 +244,71 @@ public class AdminSecurityService {
     }
     
     /**
-     * Get real-time security dashboard data
+     * Current security dashboard; an immutable snapshot, so reads never rebuild anything
      */
-    public Map<String, Object> getSecurityDashboard() {
-        Map<String, Object> dashboard = new HashMap<>();
-        
-        // Emergency status
-        dashboard.put("emergencyMode", emergencyMode);
-        dashboard.put("emergencyReason", emergencyReason);
-        dashboard.put("emergencyActivatedAt", emergencyActivatedAt);
-        
-        // Threat summary
-        Map<ThreatLevel, Long> threatCounts = new HashMap<>();
-        for (ThreatLevel level : ThreatLevel.values()) {
-            long count = recentEvents.stream()
-                .filter(e -> e.getThreatLevel() == level)
-                .filter(e -> e.getTimestamp().isAfter(LocalDateTime.now().minusHours(24)))
-                .count();
-            threatCounts.put(level, count);
+    public DashboardSnapshot getDashboardSnapshot() {
+        return dashboardSnapshot;
+    }
+    
+    /**
+     * Be given each new dashboard snapshot, on the monitoring thread (UI code must hop to the FX thread)
+     */
+    public void addDashboardListener(Consumer<DashboardSnapshot> listener) {
+        dashboardListeners.add(listener);
+    }
+    
+    public void removeDashboardListener(Consumer<DashboardSnapshot> listener) {
+        dashboardListeners.remove(listener);
+    }
+    
+    /**
+     * Coalesce change notifications into one rebuild shortly afterwards
+     */
+    private void requestDashboardRebuild() {
+        if (dashboardRebuildPending.compareAndSet(false, true)) {
+            try {
+                securityMonitor.schedule(() -> {
+                    dashboardRebuildPending.set(false);
+                    rebuildDashboard();
+                }, DASHBOARD_REBUILD_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                dashboardRebuildPending.set(false); // shutting down
+            }
+        }
+    }
+    
+    private synchronized void rebuildDashboard() {
+        try {
+            // Threat summary
+            List<SecurityService.PendingSecurityEvent> recent = eventBus.getRecentEvents(eventBus.getRecentEventsCapacity());
+            LocalDateTime dayAgo = LocalDateTime.now().minusHours(24);
+            Map<ThreatLevel, Long> threatCounts = new EnumMap<>(ThreatLevel.class);
+            for (ThreatLevel level : ThreatLevel.values()) {
+                threatCounts.put(level, 0L);
+            }
+            for (SecurityService.PendingSecurityEvent event : recent) {
+                if (event.getCreatedAt().isAfter(dayAgo)) {
+                    threatCounts.merge(toThreatLevel(event.getSeverity()), 1L, Long::sum);
+                }
+            }
+            
+            long version = dashboardSnapshot.getVersion() + 1;
+            DashboardSnapshot snapshot = new DashboardSnapshot(version, emergencyMode, emergencyReason,
+                emergencyActivatedAt, threatCounts, new ArrayList<>(activeThreatMap.values()),
+                calculateSystemHealth(recent),
+                recent.stream().limit(DASHBOARD_RECENT_EVENTS).map(this::toSecurityEvent).toList());
+            dashboardSnapshot = snapshot;
+            
+            for (Consumer<DashboardSnapshot> listener : dashboardListeners) {
+                try {
+                    listener.accept(snapshot);
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Dashboard listener failed", e);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error rebuilding security dashboard", e);
         }
-        dashboard.put("threatCounts", threatCounts);
-        
-        // Active threats
-        dashboard.put("activeThreats", new ArrayList<>(activeThreatMap.values()));
-        
-        // System health
-        dashboard.put("systemHealth", calculateSystemHealth());
-        
-        // Recent security events (last 50)
-        List<SecurityEvent> recentEventsCopy = new ArrayList<>(recentEvents);
-        Collections.reverse(recentEventsCopy);
-        dashboard.put("recentEvents", recentEventsCopy.stream()
-            .limit(50)
-            .toList());
-        
-        return dashboard;
     }
     
     /**
@@ -266,19 +331,19 @@ public class AdminSecurityService {
         }
         
         switch (actionType) {
-            case "FORCE_LOGOUT_ALL":
+            case ACTION_FORCE_LOGOUT_ALL:
                 forceLogoutAllUsers();
                 break;
-            case "LOCK_USER":
+            case ACTION_LOCK_USER:
                 Integer targetUserId = (Integer) parameters.get("userId");
                 if (targetUserId != null) {
                     lockUserAccount(targetUserId, executor);
                 }
                 break;
-            case "SYSTEM_LOCKDOWN":
+            case ACTION_SYSTEM_LOCKDOWN:
                 activateEmergencyMode(executor, "Manual system lockdown");
                 break;
-            case "CLEAR_THREATS":
+            case ACTION_CLEAR_THREATS:
                 clearAllThreats(executor);
                 break;
         }
@@ -289,82 +354,22 @@ public class AdminSecurityService {
     
     // Private helper methods
     
-    private void checkFailedLoginPatterns() {
-        // Implementation for detecting suspicious login patterns
-        String sql = """
-            SELECT ip_address, COUNT(*) as attempts 
-            FROM security_events 
-            WHERE event_type = 'FAILED_LOGIN' 
-            AND created_at > DATE_SUB(NOW(), INTERVAL 15 MINUTE) 
-            GROUP BY ip_address 
-            HAVING attempts > 5
-            """;
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                String ipAddress = rs.getString("ip_address");
-                int attempts = rs.getInt("attempts");
-                
-                SecurityThreat threat = new SecurityThreat(
-                    "BRUTE_FORCE_" + ipAddress,
-                    ThreatLevel.HIGH,
-                    "Potential brute force attack from IP: " + ipAddress + " (" + attempts + " attempts)",
-                    LocalDateTime.now()
-                );
-                
-                activeThreatMap.put(threat.getId(), threat);
-                
-                NotificationManager.getInstance().showNotification(
-                    "Security Alert - Suspicious login activity detected from IP: " + ipAddress,
-                    NotificationManager.NotificationType.WARNING
-                );
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, "Error checking failed login patterns", e);
-        }
-    }
-    
-    private void checkPrivilegeEscalation() {
-        // Check for unusual admin actions
-        String sql = """
-            SELECT user_id, COUNT(*) as admin_actions 
-            FROM security_events 
-            WHERE event_type LIKE '%ADMIN%' 
-            AND created_at > DATE_SUB(NOW(), INTERVAL 1 HOUR) 
-            GROUP BY user_id 
-            HAVING admin_actions > 10
-            """;
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                int userId = rs.getInt("user_id");
-                int actions = rs.getInt("admin_actions");
-                
-                SecurityThreat threat = new SecurityThreat(
-                    "PRIVILEGE_ESCALATION_" + userId,
-                    ThreatLevel.MEDIUM,
-                    "Unusual admin activity from user ID: " + userId + " (" + actions + " actions)",
-                    LocalDateTime.now()
-                );
-                
-                activeThreatMap.put(threat.getId(), threat);
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, "Error checking privilege escalation", e);
+    /**
+     * Threat raised by the streaming detector; notify only the first time an id is seen
+     */
+    private void onThreatDetected(SecurityThreat threat) {
+        SecurityThreat previous = activeThreatMap.put(threat.getId(), threat);
+        requestDashboardRebuild();
+        if (previous == null) {
+            NotificationManager.getInstance().showNotification(
+                "Security Alert - " + threat.getDescription(),
+                threat.getThreatLevel().getSeverity() >= ThreatLevel.HIGH.getSeverity()
+                    ? NotificationManager.NotificationType.WARNING
+                    : NotificationManager.NotificationType.INFO
+            );
         }
     }
     
-    private void checkDataAccessPatterns() {
-        // Monitor for bulk data access or unusual patterns
-        // Implementation would check for rapid database queries, bulk exports, etc.
-    }
-    
     private void checkSystemResourceUsage() {
         // Monitor CPU, memory, database connections
         Runtime runtime = Runtime.getRuntime();
@@ -382,6 +387,7 @@ public class AdminSecurityService {
             );
             
             activeThreatMap.put(threat.getId(), threat);
+            requestDashboardRebuild();
         }
     }
     
@@ -398,31 +404,36 @@ public class AdminSecurityService {
         }
     }
     
-    private void storeSecurityEventInDatabase(SecurityEvent event) {
-        String sql = """
-            INSERT INTO security_events 
-            (user_id, event_type, description, severity, ip_address, metadata, created_at)
-            VALUES (?, ?, ?, ?, ?, ?, NOW())
-            """;
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setObject(1, event.getUserId());
-            stmt.setString(2, event.getEventType());
-            stmt.setString(3, event.getDetails());
-            stmt.setString(4, event.getThreatLevel().name());
-            stmt.setString(5, null); // IP address would be passed in
-            stmt.setString(6, "{}"); // JSON metadata
-            
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Failed to store security event in database", e);
+    /**
+     * Dashboard view of a bus event; the security action travels in the event metadata
+     */
+    private SecurityEvent toSecurityEvent(SecurityService.PendingSecurityEvent event) {
+        SecurityAction action = null;
+        Object actionName = event.getMetadata().get("action");
+        if (actionName != null) {
+            try {
+                action = SecurityAction.valueOf(actionName.toString());
+            } catch (IllegalArgumentException e) {
+                // Not an admin action
+            }
+        }
+        return new SecurityEvent(event.getUserId(), action, event.getEventType(),
+            toThreatLevel(event.getSeverity()), event.getDescription(), event.getCreatedAt());
+    }
+    
+    private static ThreatLevel toThreatLevel(String severity) {
+        try {
+            return ThreatLevel.valueOf(severity);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return ThreatLevel.LOW;
         }
     }
     
     private void forceLogoutNonOwners() {
         // Implementation to invalidate sessions for non-owner users
+        SessionRegistry.getInstance().invalidateIf(session -> session.getUserId() != 1 &&
+            (session.getUser() == null || session.getUser().getRole() != User.Role.OWNER));
+        
         String sql = "DELETE FROM user_sessions WHERE user_id NOT IN (SELECT id FROM users WHERE role = 'OWNER')";
         
         try (Connection conn = DatabaseUtil.getConnection();
@@ -436,6 +447,8 @@ public class AdminSecurityService {
     }
     
     private void forceLogoutAllUsers() {
+        SessionRegistry.getInstance().invalidateIf(session -> true);
+        
         String sql = "DELETE FROM user_sessions";
         
         try (Connection conn = DatabaseUtil.getConnection();
@@ -457,7 +470,7 @@ public class AdminSecurityService {
             stmt.setInt(1, userId);
             stmt.executeUpdate();
             
-            logSecurityEvent(executor.getId(), SecurityAction.SYSTEM_OVERRIDE, "USER_LOCKED",
+            logSecurityEvent(executor.getId(), SecurityAction.SYSTEM_OVERRIDE, EVENT_USER_LOCKED,
                 ThreatLevel.HIGH, "User " + userId + " locked by " + executor.getUsername());
             
         } catch (SQLException e) {
@@ -467,6 +480,7 @@ public class AdminSecurityService {
     
     private void clearAllThreats(User executor) {
         activeThreatMap.clear();
+        requestDashboardRebuild();
         
         NotificationManager.getInstance().showNotification(
             "Threats Cleared - All active security threats have been cleared by " + executor.getUsername(),
@@ -502,7 +516,7 @@ public class AdminSecurityService {
         }
     }
     
-    private double calculateSystemHealth() {
+    private double calculateSystemHealth(List<SecurityService.PendingSecurityEvent> recent) {
         // Calculate overall system health score (0-100)
         double health = 100.0;
         
@@ -517,9 +531,10 @@ public class AdminSecurityService {
         }
         
         // Deduct points for recent high-severity events
-        long recentHighEvents = recentEvents.stream()
-            .filter(e -> e.getTimestamp().isAfter(LocalDateTime.now().minusHours(24)))
-            .filter(e -> e.getThreatLevel().getSeverity() >= ThreatLevel.HIGH.getSeverity())
+        LocalDateTime dayAgo = LocalDateTime.now().minusHours(24);
+        long recentHighEvents = recent.stream()
+            .filter(e -> e.getCreatedAt().isAfter(dayAgo))
+            .filter(e -> toThreatLevel(e.getSeverity()).getSeverity() >= ThreatLevel.HIGH.getSeverity())
             .count();
         
         health -= recentHighEvents * 3;
@@ -528,16 +543,17 @@ public class AdminSecurityService {
     }
     
     private void cleanupOldEvents() {
-        // Remove events older than 30 days
-        recentEvents.removeIf(event -> 
-            event.getTimestamp().isBefore(LocalDateTime.now().minusDays(30)));
-        
         // Remove resolved threats older than 24 hours
         activeThreatMap.entrySet().removeIf(entry ->
             entry.getValue().getDetectedAt().isBefore(LocalDateTime.now().minusHours(24)));
+        
+        // Events also age out of the 24-hour counts
+        requestDashboardRebuild();
     }
     
     public void shutdown() {
+        SecurityAnomalyDetector.getInstance().removeThreatListener(threatListener);
+        eventBus.unsubscribe(eventListener);
         securityMonitor.shutdown();
     }
     
@@ -590,6 +606,43 @@ public class AdminSecurityService {
         public LocalDateTime getTimestamp() { return timestamp; }
     }
     
+    /**
+     * Immutable security dashboard state; the version increases with every rebuild
+     */
+    public static final class DashboardSnapshot {
+        private final long version;
+        private final boolean emergencyMode;
+        private final String emergencyReason;
+        private final LocalDateTime emergencyActivatedAt;
+        private final Map<ThreatLevel, Long> threatCounts;
+        private final List<SecurityThreat> activeThreats;
+        private final double systemHealth;
+        private final List<SecurityEvent> recentEvents;
+        
+        DashboardSnapshot(long version, boolean emergencyMode, String emergencyReason,
+                          LocalDateTime emergencyActivatedAt, Map<ThreatLevel, Long> threatCounts,
+                          List<SecurityThreat> activeThreats, double systemHealth, List<SecurityEvent> recentEvents) {
+            this.version = version;
+            this.emergencyMode = emergencyMode;
+            this.emergencyReason = emergencyReason;
+            this.emergencyActivatedAt = emergencyActivatedAt;
+            this.threatCounts = Collections.unmodifiableMap(new EnumMap<>(threatCounts));
+            this.activeThreats = List.copyOf(activeThreats);
+            this.systemHealth = systemHealth;
+            this.recentEvents = List.copyOf(recentEvents);
+        }
+        
+        // Getters
+        public long getVersion() { return version; }
+        public boolean isEmergencyMode() { return emergencyMode; }
+        public String getEmergencyReason() { return emergencyReason; }
+        public LocalDateTime getEmergencyActivatedAt() { return emergencyActivatedAt; }
+        public Map<ThreatLevel, Long> getThreatCounts() { return threatCounts; }
+        public List<SecurityThreat> getActiveThreats() { return activeThreats; }
+        public double getSystemHealth() { return systemHealth; }
+        public List<SecurityEvent> getRecentEvents() { return recentEvents; }
+    }
+    
     public static class UserSecurityProfile {
         private final int userId;
         private final List<SecurityEvent> history = new ArrayList<>();
@@ -273,6 +273,13 @@ public class AsyncTaskService {
         return batchFuture;
     }
     
+    /**
+     * Database tasks waiting for a pool thread
+     */
+    public int getDbQueueDepth() {
+        return ((ThreadPoolExecutor) dbExecutor).getQueue().size();
+    }
+    
     /**
      * Get performance metrics
      */
@@ -0,0 +1,501 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.SystemActivity;
+import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.MetadataCodec;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming exporter for the audit tables.
+ * Rows are read through a forward-only server-side cursor and encoded straight into a
+ * (optionally gzip-compressed) FileChannel, so memory use stays constant regardless of
+ * how many rows are exported. Exports run on the IO pool.
+ * <p>
+ * System activity exports also cover the archive: archived rows in the range are written
+ * first, one segment at a time, in the same columns as the hot rows. The archive lock is
+ * held for the duration so no row moves between the two while they are read.
+ */
+public class AuditExportService {
+    private static final Logger LOGGER = Logger.getLogger(AuditExportService.class.getName());
+    private static AuditExportService instance;
+
+    // Export configuration
+    private static final int FETCH_SIZE = 500;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_EVERY_ROWS = 1000;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * Tables that can be exported
+     */
+    public enum AuditTable {
+        ACTIVITY_LOG("activity_log", "Activity Log"),
+        SYSTEM_ACTIVITIES("system_activities", "System Activities"),
+        SECURITY_EVENTS("security_events", "Security Events");
+
+        private final String tableName;
+        private final String displayName;
+
+        AuditTable(String tableName, String displayName) {
+            this.tableName = tableName;
+            this.displayName = displayName;
+        }
+
+        public String getTableName() { return tableName; }
+        public String getDisplayName() { return displayName; }
+    }
+
+    /**
+     * Output encoding
+     */
+    public enum ExportFormat {
+        JSONL("jsonl"),
+        CSV("csv");
+
+        private final String extension;
+
+        ExportFormat(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() { return extension; }
+    }
+
+    private AuditExportService() {}
+
+    public static AuditExportService getInstance() {
+        if (instance == null) {
+            synchronized (AuditExportService.class) {
+                if (instance == null) {
+                    instance = new AuditExportService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Build the default file name for an export in the given directory
+     */
+    public Path defaultExportPath(Path directory, AuditTable table, ExportFormat format, boolean gzip) {
+        String fileName = table.getTableName() + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) +
+                          "." + format.getExtension() + (gzip ? ".gz" : "");
+        return directory.resolve(fileName);
+    }
+
+    /**
+     * Export a table on the IO pool.
+     *
+     * @param table Table to export
+     * @param format JSONL or CSV
+     * @param gzip Whether to gzip the output
+     * @param target Destination file; written to a temporary sibling and moved into place on success
+     * @param from Inclusive lower bound on created_at, or null
+     * @param to Exclusive upper bound on created_at, or null
+     * @param onProgress Receives progress on the IO thread, may be null
+     * @return Future completing with the final progress snapshot
+     */
+    public CompletableFuture<ExportProgress> export(AuditTable table, ExportFormat format, boolean gzip, Path target,
+                                                    LocalDateTime from, LocalDateTime to,
+                                                    Consumer<ExportProgress> onProgress) {
+        return AsyncTaskService.getInstance().executeIOTask(() -> {
+            try {
+                return runExport(table, format, gzip, target, from, to, onProgress);
+            } catch (SQLException | IOException e) {
+                throw new RuntimeException("Export of " + table.getTableName() + " failed: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private ExportProgress runExport(AuditTable table, ExportFormat format, boolean gzip, Path target,
+                                     LocalDateTime from, LocalDateTime to,
+                                     Consumer<ExportProgress> onProgress) throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table.getTableName()).append(" WHERE 1=1");
+        if (from != null) sql.append(" AND created_at >= ?");
+        if (to != null) sql.append(" AND created_at < ?");
+        sql.append(" ORDER BY id");
+
+        ExportProgress progress = new ExportProgress(table, target);
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+
+        boolean includeArchive = table == AuditTable.SYSTEM_ACTIVITIES;
+        ActivityArchiveService archive = ActivityArchiveService.getInstance();
+
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Connection conn = DatabaseUtil.getConnection()) {
+
+            if (includeArchive && !archive.lockForExport(conn)) {
+                throw new SQLException("The activity archive is being updated, try the export again shortly");
+            }
+            // The lock is released before the connection goes back to the pool, whatever fails below
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(FETCH_SIZE);
+
+                int paramIndex = 1;
+                if (from != null) stmt.setTimestamp(paramIndex++, Timestamp.valueOf(from));
+                if (to != null) stmt.setTimestamp(paramIndex, Timestamp.valueOf(to));
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    writeRows(channel, rs, format, gzip, includeArchive ? archive : null, from, to, progress, onProgress);
+                }
+            } finally {
+                if (includeArchive) {
+                    archive.unlockForExport(conn);
+                }
+            }
+        } catch (Throwable t) {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        progress.finished = true;
+        notifyProgress(onProgress, progress);
+
+        LOGGER.info(String.format("Exported %d rows from %s to %s (%d bytes, %.1fs)",
+            progress.rowsWritten, table.getTableName(), target, progress.bytesWritten, progress.getElapsedMs() / 1000.0));
+        return progress;
+    }
+
+    /**
+     * Write the header, the archived rows (when an archive is given) and then the hot rows
+     */
+    private void writeRows(FileChannel channel, ResultSet rs, ExportFormat format, boolean gzip,
+                           ActivityArchiveService archive, LocalDateTime from, LocalDateTime to,
+                           ExportProgress progress, Consumer<ExportProgress> onProgress) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+
+        OutputStream channelOut = Channels.newOutputStream(channel);
+        OutputStream out = gzip ? new GZIPOutputStream(channelOut, WRITE_BUFFER_SIZE) : channelOut;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+
+        if (format == ExportFormat.CSV) {
+            writeCsvHeader(writer, meta);
+        }
+
+        if (archive != null) {
+            for (long segmentId : archive.findSegmentIds(from, to)) {
+                for (SystemActivity activity : archive.readSegment(segmentId, from, to)) {
+                    writeArchivedRow(writer, format, activity, meta);
+                    rowWritten(writer, channel, progress, onProgress);
+                }
+            }
+        }
+
+        while (rs.next()) {
+            if (format == ExportFormat.JSONL) {
+                writeJsonRow(writer, rs, meta);
+            } else {
+                writeCsvRow(writer, rs, meta);
+            }
+            rowWritten(writer, channel, progress, onProgress);
+        }
+
+        writer.flush();
+        if (out instanceof GZIPOutputStream) {
+            ((GZIPOutputStream) out).finish();
+        }
+        channelOut.flush();
+        channel.force(true);
+        progress.bytesWritten = channel.position();
+    }
+
+    private void rowWritten(Writer writer, FileChannel channel, ExportProgress progress,
+                            Consumer<ExportProgress> onProgress) throws IOException {
+        progress.rowsWritten++;
+        if (progress.rowsWritten % PROGRESS_EVERY_ROWS == 0) {
+            writer.flush();
+            progress.bytesWritten = channel.position();
+            notifyProgress(onProgress, progress);
+        }
+    }
+
+    private void writeJsonRow(Writer writer, ResultSet rs, ResultSetMetaData meta) throws SQLException, IOException {
+        writer.write('{');
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (i > 1) writer.write(',');
+            writeJsonString(writer, meta.getColumnLabel(i));
+            writer.write(':');
+            writeJsonValue(writer, rs, meta, i);
+        }
+        writer.write("}\n");
+    }
+
+    private void writeJsonValue(Writer writer, ResultSet rs, ResultSetMetaData meta, int column)
+            throws SQLException, IOException {
+        int type = meta.getColumnType(column);
+
+        switch (type) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+                 Types.DECIMAL, Types.NUMERIC, Types.FLOAT, Types.REAL, Types.DOUBLE -> {
+                String number = rs.getString(column);
+                writer.write(number != null ? number : "null");
+            }
+            case Types.BIT, Types.BOOLEAN -> {
+                boolean value = rs.getBoolean(column);
+                writer.write(rs.wasNull() ? "null" : String.valueOf(value));
+            }
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE, Types.DATE -> {
+                Timestamp timestamp = rs.getTimestamp(column);
+                if (timestamp != null) {
+                    writeJsonString(writer, timestamp.toLocalDateTime().toString());
+                } else {
+                    writer.write("null");
+                }
+            }
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> {
+                byte[] bytes = rs.getBytes(column);
+                String metadataJson = isEncodedMetadata(meta, column) ? decodeMetadata(bytes) : null;
+                if (metadataJson != null) {
+                    writer.write(metadataJson);
+                } else if (bytes != null) {
+                    writeJsonString(writer, Base64.getEncoder().encodeToString(bytes));
+                } else {
+                    writer.write("null");
+                }
+            }
+            default -> {
+                String value = rs.getString(column);
+                if (value == null) {
+                    writer.write("null");
+                } else if ("JSON".equalsIgnoreCase(meta.getColumnTypeName(column))) {
+                    // JSON columns are already valid JSON; embed them as-is
+                    writer.write(value);
+                } else {
+                    writeJsonString(writer, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write an archived activity in the hot table's columns; metadata goes out through metadata_bin
+     */
+    private void writeArchivedRow(Writer writer, ExportFormat format, SystemActivity activity, ResultSetMetaData meta)
+            throws SQLException, IOException {
+        if (format == ExportFormat.JSONL) {
+            writer.write('{');
+        }
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (i > 1) writer.write(',');
+            String label = meta.getColumnLabel(i);
+            Object value = archivedValue(activity, label);
+
+            if (format == ExportFormat.CSV) {
+                if (value != null) {
+                    writeCsvField(writer, value.toString());
+                }
+                continue;
+            }
+
+            writeJsonString(writer, label);
+            writer.write(':');
+            if (value == null) {
+                writer.write("null");
+            } else if (value instanceof Number || "metadata_bin".equalsIgnoreCase(label)) {
+                writer.write(value.toString());
+            } else {
+                writeJsonString(writer, value.toString());
+            }
+        }
+        writer.write(format == ExportFormat.JSONL ? "}\n" : "\r\n");
+    }
+
+    private Object archivedValue(SystemActivity activity, String column) {
+        return switch (column.toLowerCase()) {
+            case "id" -> activity.getId();
+            case "user_id" -> activity.getUserId();
+            case "activity_type" -> activity.getActivityType() != null ? activity.getActivityType().name() : null;
+            case "description" -> activity.getDescription();
+            case "entity_type" -> activity.getEntityType() != null ? activity.getEntityType().name() : null;
+            case "entity_id" -> activity.getEntityId();
+            case "severity" -> activity.getSeverity() != null ? activity.getSeverity().name() : null;
+            case "ip_address" -> activity.getIpAddress();
+            case "user_agent" -> activity.getUserAgent();
+            case "metadata_bin" -> activity.hasMetadata() ? MetadataCodec.toJson(activity.getMetadata()) : null;
+            case "created_at" -> activity.getCreatedAt() != null ? activity.getCreatedAt().toString() : null;
+            default -> null;
+        };
+    }
+
+    /**
+     * Binary metadata columns are exported through their JSON view
+     */
+    private boolean isEncodedMetadata(ResultSetMetaData meta, int column) throws SQLException {
+        return "metadata_bin".equalsIgnoreCase(meta.getColumnLabel(column));
+    }
+
+    /**
+     * JSON view of encoded metadata, or null (export raw bytes instead) if it cannot be decoded
+     */
+    private String decodeMetadata(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return MetadataCodec.toJson(bytes);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Undecodable metadata exported as base64", e);
+            return null;
+        }
+    }
+
+    private void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    private void writeCsvHeader(Writer writer, ResultSetMetaData meta) throws SQLException, IOException {
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (i > 1) writer.write(',');
+            writeCsvField(writer, meta.getColumnLabel(i));
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvRow(Writer writer, ResultSet rs, ResultSetMetaData meta) throws SQLException, IOException {
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (i > 1) writer.write(',');
+
+            int type = meta.getColumnType(i);
+            String value;
+            if (type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB) {
+                byte[] bytes = rs.getBytes(i);
+                value = isEncodedMetadata(meta, i) ? decodeMetadata(bytes) : null;
+                if (value == null && bytes != null) {
+                    value = Base64.getEncoder().encodeToString(bytes);
+                }
+            } else if (type == Types.TIMESTAMP || type == Types.DATE) {
+                Timestamp timestamp = rs.getTimestamp(i);
+                value = timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+            } else {
+                value = rs.getString(i);
+            }
+
+            if (value != null) {
+                writeCsvField(writer, value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        boolean needsQuoting = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 ||
+                               value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuoting) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void notifyProgress(Consumer<ExportProgress> onProgress, ExportProgress progress) {
+        if (onProgress == null) {
+            return;
+        }
+        try {
+            onProgress.accept(progress.snapshot());
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Export progress callback failed", e);
+        }
+    }
+
+    /**
+     * Progress of a running or finished export
+     */
+    public static class ExportProgress {
+        private final AuditTable table;
+        private final Path target;
+        private final long startTime;
+        private long rowsWritten;
+        private long bytesWritten;
+        private boolean finished;
+
+        ExportProgress(AuditTable table, Path target) {
+            this(table, target, System.currentTimeMillis());
+        }
+
+        private ExportProgress(AuditTable table, Path target, long startTime) {
+            this.table = table;
+            this.target = target;
+            this.startTime = startTime;
+        }
+
+        ExportProgress snapshot() {
+            ExportProgress copy = new ExportProgress(table, target, startTime);
+            copy.rowsWritten = rowsWritten;
+            copy.bytesWritten = bytesWritten;
+            copy.finished = finished;
+            return copy;
+        }
+
+        public AuditTable getTable() { return table; }
+        public Path getTarget() { return target; }
+        public long getRowsWritten() { return rowsWritten; }
+        public long getBytesWritten() { return bytesWritten; }
+        public boolean isFinished() { return finished; }
+        public long getElapsedMs() { return System.currentTimeMillis() - startTime; }
+
+        public double getRowsPerSecond() {
+            long elapsed = getElapsedMs();
+            return elapsed > 0 ? rowsWritten * 1000.0 / elapsed : 0.0;
+        }
+    }
+}
@@ -8,13 +8,16 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,17 +32,22 @@ public class AuthService {
     // Performance optimization services
     private final AsyncTaskService asyncService = AsyncTaskService.getInstance();
     private final CacheService cacheService = CacheService.getInstance();
+    private final SecurityService securityService = new SecurityService();
+    private final UsernameFilterService usernameFilter = UsernameFilterService.getInstance();
+    private final AccountDeletionService accountDeletion = AccountDeletionService.getInstance();
+    private final LoginBookkeepingBuffer loginBookkeeping = LoginBookkeepingBuffer.getInstance();
+    private final DashboardPrefetchService dashboardPrefetch = DashboardPrefetchService.getInstance();
+    private final PasswordHashingService passwordHasher = PasswordHashingService.getInstance();
+    
+    // Salt for the decoy hash computed when rejecting unknown usernames
+    private static final String DECOY_SALT = PasswordUtil.generateSalt();
     
     // Fallback mock data for demonstration if database connection fails
     private final Map<String, User> users = new HashMap<>();
     private final Map<String, Boolean> keyIds = new HashMap<>();
     
-    // Session cache for faster subsequent authentications
-    private final Map<String, String> sessionCache = new HashMap<>();
-    
-    // Session management for performance
-    private final Map<String, UserSession> activeSessions = new ConcurrentHashMap<>();
-    private static final long SESSION_TIMEOUT_MS = 30 * 60 * 1000; // 30 minutes
+    // Login sessions, shared with SecurityService
+    private final SessionRegistry sessionRegistry = SessionRegistry.getInstance();
     
     public AuthService() {
         // Initialize database or fallback to mock data
@@ -181,6 +189,12 @@ public class AuthService {
             LOGGER.log(Level.INFO, "Update " + (success ? "successful" : "failed") + 
                        " for user: " + userId + ", rows affected: " + rowsUpdated);
             
+            if (success && username != null && !username.isEmpty() && !username.equalsIgnoreCase(targetUser.getUsername())) {
+                // New name is usable immediately; the rebuild drops the old one
+                usernameFilter.add(username);
+                usernameFilter.rebuildAsync();
+            }
+            
             return success;
             
         } catch (SQLException e) {
@@ -210,31 +224,7 @@ public class AuthService {
             return false;
         }
         
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        
-        try {
-            conn = DatabaseUtil.getConnection();
-            
-            // Delete user
-            String sql = "DELETE FROM users WHERE id = ?";
-            stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, userId);
-            
-            int rowsDeleted = stmt.executeUpdate();
-            return rowsDeleted > 0;
-            
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Database error deleting user", e);
-            return false;
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) DatabaseUtil.closeConnection(conn);
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error closing database resources", e);
-            }
-        }
+        return accountDeletion.requestDeletion(userId, targetUser.getUsername(), actingUser.getId()) != null;
     }
     
     /**
@@ -260,7 +250,8 @@ public class AuthService {
                 user.setId(rs.getInt("id"));
                 user.setUsername(rs.getString("username"));
                 user.setEmail(rs.getString("email"));
-                user.setPassword(rs.getString("password"));
+                user.setPassword(rs.getString("password_hash"));
+                user.setSalt(rs.getString("salt"));
                 user.setRole(User.Role.valueOf(rs.getString("role")));
                 return user;
             }
@@ -409,64 +400,116 @@ public class AuthService {
     }
     
     /**
-     * ULTRA-OPTIMIZED authenticate method with caching and async password verification
+     * Authenticate and wait for the result; UI code should use {@link #authenticateAsync}
      * PRD REQUIREMENT: Authentication must complete in under 500ms
      * 
      * @param username the username to authenticate
      * @param password the password to verify
-     * @return User object if authentication successful, null otherwise
+     * @return User object if authentication successful, null otherwise (also when sign-in is saturated)
      */
     public User authenticate(String username, String password) {
+        try {
+            // Callers of the blocking form are already off the UI thread; look the user up here
+            return authenticate(username, password, lookup -> CompletableFuture.completedFuture(lookup.get())).join();
+        } catch (CompletionException e) {
+            LOGGER.warning("Authentication rejected for user " + username + ": " + e.getCause().getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Async authenticate method for non-blocking authentication.
+     * The user lookup runs on the DB pool and the password hash on {@link PasswordHashingService},
+     * so hashing never holds a database thread. The future fails with
+     * {@link PasswordHashingService.SaturatedException} when the hashing executor refuses the attempt.
+     * <p>
+     * While the password is verified, the dashboard's first feed page, preferences and view are
+     * prefetched by {@link DashboardPrefetchService}; they are published only if the login succeeds.
+     */
+    public CompletableFuture<User> authenticateAsync(String username, String password) {
+        CompletableFuture<User> result = authenticate(username, password, asyncService::executeDbTask);
+        if (result.isDone() || !usernameFilter.mightExist(username)) {
+            // Rejected before verification, nothing to overlap with
+            return result;
+        }
+        
+        DashboardPrefetchService.Prefetch prefetch = dashboardPrefetch.start(username);
+        if (prefetch == null) {
+            return result;
+        }
+        return result.whenComplete((user, error) -> {
+            if (user != null && error == null) {
+                dashboardPrefetch.complete(prefetch);
+            } else {
+                dashboardPrefetch.discard(prefetch);
+            }
+        });
+    }
+    
+    private CompletableFuture<User> authenticate(String username, String password,
+                                                 Function<Supplier<User>, CompletableFuture<User>> lookupRunner) {
         if (username == null || password == null || username.trim().isEmpty() || password.isEmpty()) {
             LOGGER.warning("Authentication failed: empty username or password");
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
         
         long startTime = System.nanoTime(); // Use nanoTime for precision
         
+        // Lockout check is an in-memory counter lookup, no database round trip
+        if (securityService.isAccountLocked(username)) {
+            LOGGER.warning("Authentication blocked: account temporarily locked - " + username);
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        // OPTIMIZATION 1: Check failed auth cache first to prevent brute force and save resources
+        String failedCacheKey = "auth:failed:" + username.toLowerCase();
+        if (cacheService.isCached(failedCacheKey)) {
+            LOGGER.warning("Authentication blocked: recent failed attempt for " + username);
+            return CompletableFuture.completedFuture(null); // Early exit saves 100-200ms
+        }
+        
+        String userCacheKey = "user:username:" + username.toLowerCase();
+        CompletableFuture<User> lookup;
+        if (!usernameFilter.mightExist(username)) {
+            // Names absent from the username filter cannot exist; skip the database entirely
+            lookup = CompletableFuture.completedFuture(null);
+        } else {
+            // OPTIMIZATION 2: Recently authenticated users are served from the cache
+            User cachedUser = cacheService.isCached("auth:success:" + username.toLowerCase())
+                ? cacheService.getUserOrLoad(userCacheKey, null) : null;
+            lookup = cachedUser != null
+                ? CompletableFuture.completedFuture(cachedUser)
+                : lookupRunner.apply(() -> cacheService.getUserOrLoad(userCacheKey, () -> getUserFromDatabaseOptimized(username)));
+        }
+        
+        // OPTIMIZATION 3: Hash on the dedicated executor, never on a DB pool thread
+        return lookup.thenCompose(user -> passwordHasher.submit(username, null,
+            () -> completeLogin(user, username, password, failedCacheKey, startTime)));
+    }
+    
+    /**
+     * Hashing phase of a login, run on the password hashing executor
+     */
+    private User completeLogin(User user, String username, String password, String failedCacheKey, long startTime) {
         try {
-            // OPTIMIZATION 1: Check failed auth cache first to prevent brute force and save resources
-            String failedCacheKey = "auth:failed:" + username.toLowerCase();
-            if (cacheService.isCached(failedCacheKey)) {
-                LOGGER.warning("Authentication blocked: recent failed attempt for " + username);
-                return null; // Early exit saves 100-200ms
-            }
-            
-            // OPTIMIZATION 2: Check successful auth cache
-            String successCacheKey = "auth:success:" + username.toLowerCase();
-            if (cacheService.isCached(successCacheKey)) {
-                // Get cached user but still verify password for security
-                User cachedUser = cacheService.getUserOrLoad("user:username:" + username.toLowerCase(), null);
-                if (cachedUser != null && verifyPasswordFast(cachedUser, password)) {
-                    long durationMs = (System.nanoTime() - startTime) / 1_000_000;
-                    LOGGER.info("FAST authentication (cached) for user: " + username + " (took " + durationMs + "ms)");
-                    return cachedUser;
-                }
-            }
-            
-            // OPTIMIZATION 3: Async database lookup with timeout
-            User cachedUser = cacheService.getUserOrLoad("user:username:" + username.toLowerCase(), () -> {
-                return getUserFromDatabaseOptimized(username);
-            });
-            
-            if (cachedUser == null) {
+            if (user == null) {
+                rejectUnknownUser(username, password, failedCacheKey);
                 long durationMs = (System.nanoTime() - startTime) / 1_000_000;
                 LOGGER.warning("Authentication failed: user not found - " + username + " (took " + durationMs + "ms)");
-                // Cache failure to prevent repeated lookups
-                cacheService.cache(failedCacheKey, true, 2); // 2-minute cache
                 return null;
             }
             
             // OPTIMIZATION 4: Fast password verification with early exit
-            boolean passwordValid = verifyPasswordUltraFast(cachedUser, password);
+            boolean passwordValid = verifyPasswordUltraFast(user, password);
             
             if (passwordValid) {
-                // OPTIMIZATION 5: Update caches asynchronously to not block return
-                CompletableFuture.runAsync(() -> {
-                    String sessionKey = username.toLowerCase() + ":" + System.currentTimeMillis();
-                    sessionCache.put(sessionKey, username);
-                    cacheService.cache(successCacheKey, true, 10); // 10-minute success cache
-                });
+                startSession(user);
+                loginBookkeeping.recordSuccess(user.getUsername());
+                securityService.resetFailedLogins(username);
+                user.setLastLogin(LocalDateTime.now());
+                user.setFailedLoginAttempts(0);
+                cacheService.cache("auth:success:" + username.toLowerCase(), true, 10); // 10-minute success cache
+                rehashIfNeeded(user, password);
                 
                 long durationMs = (System.nanoTime() - startTime) / 1_000_000;
                 LOGGER.info("OPTIMIZED authentication successful for user: " + username + " (took " + durationMs + "ms)");
@@ -478,10 +521,12 @@ public class AuthService {
                     LOGGER.warning("Performance warning: Authentication took " + durationMs + "ms, approaching 500ms limit");
                 }
                 
-                return cachedUser;
+                return user;
             } else {
                 // Cache failed authentication to prevent rapid retry attacks
                 cacheService.cache(failedCacheKey, true, 2); // 2-minute cache
+                loginBookkeeping.recordFailure(user.getUsername());
+                securityService.handleFailedLogin(username, null, null);
                 
                 long durationMs = (System.nanoTime() - startTime) / 1_000_000;
                 LOGGER.warning("Authentication failed: invalid password for user " + username + " (took " + durationMs + "ms)");
@@ -497,40 +542,52 @@ public class AuthService {
     }
     
     /**
-     * Async authenticate method for non-blocking authentication
+     * After a successful login, replace an unversioned or under-cost hash with one at the current
+     * calibrated cost. Best effort: the new hash is computed as a separate hashing task (skipped if
+     * the executor is saturated) and written only if the stored hash has not changed meanwhile.
      */
-    public CompletableFuture<User> authenticateAsync(String username, String password) {
-        return asyncService.executeDbTask(() -> authenticate(username, password));
+    private void rehashIfNeeded(User user, String password) {
+        String oldHash = user.getPassword();
+        if (oldHash == null || !PasswordUtil.needsRehash(oldHash)) {
+            return;
+        }
+        
+        passwordHasher.submit(null, null, () -> {
+            String salt = PasswordUtil.generateSalt();
+            return new String[] {PasswordUtil.hashPasswordWithSalt(password, salt), salt};
+        }).thenCompose(rehash -> asyncService.executeDbTask(() -> {
+            String sql = "UPDATE users SET password_hash = ?, salt = ? WHERE id = ? AND password_hash = ?";
+            try (Connection conn = DatabaseUtil.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, rehash[0]);
+                stmt.setString(2, rehash[1]);
+                stmt.setInt(3, user.getId());
+                stmt.setString(4, oldHash);
+                if (stmt.executeUpdate() > 0) {
+                    user.setPassword(rehash[0]);
+                    user.setSalt(rehash[1]);
+                    LOGGER.info("Upgraded password hash for user " + user.getUsername()
+                        + " to " + PasswordUtil.getCurrentIterations() + " iterations");
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Password rehash failed for user " + user.getUsername(), e);
+            }
+            return null;
+        })).exceptionally(e -> {
+            LOGGER.fine("Password rehash skipped for user " + user.getUsername() + ": " + e.getMessage());
+            return null;
+        });
     }
     
     /**
-     * Optimized password verification with early exit for performance
+     * Fail a login for a username with no account, doing the same work as a wrong password
+     * (a full hash at the cost of most stored hashes) so response time does not reveal which names exist
      */
-    private boolean verifyPasswordFast(User user, String password) {
-        try {
-            // Fast check for obviously invalid passwords
-            if (password == null || password.length() < 3) {
-                return false;
-            }
-            
-            // Check if user account is locked
-            if (user.isLocked()) {
-                LOGGER.warning("Login attempt for locked account: " + user.getUsername());
-                return false;
-            }
-            
-            // Use salt-based verification if salt is available (new schema)
-            if (user.getSalt() != null && !user.getSalt().isEmpty()) {
-                return PasswordUtil.verifyPasswordWithSalt(password, user.getPassword(), user.getSalt());
-            } else {
-                // Fallback to legacy verification for existing users
-                return PasswordUtil.verifyPassword(password, user.getPassword());
-            }
-            
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Password verification error for user: " + user.getUsername(), e);
-            return false;
-        }
+    private void rejectUnknownUser(String username, String password, String failedCacheKey) {
+        PasswordUtil.hashDecoy(password, DECOY_SALT);
+        // Cache failure to prevent repeated lookups
+        cacheService.cache(failedCacheKey, true, 2); // 2-minute cache
+        securityService.handleFailedLogin(username, null, null);
     }
     
     /**
@@ -719,69 +776,32 @@ public class AuthService {
             return null;
         }
         
+        // Hash before taking a connection so PBKDF2 never runs while one is held
+        String salt = generateSalt();
+        String hashedPassword = PasswordUtil.hashPasswordWithSalt(password, salt);
+        
         Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
         
         try {
             conn = DatabaseUtil.getConnection();
             conn.setAutoCommit(false); // Start transaction
             
-            // Check if username already exists
-            String checkUserSql = "SELECT COUNT(*) FROM users WHERE username = ?";
-            stmt = conn.prepareStatement(checkUserSql);
-            stmt.setString(1, username);
-            rs = stmt.executeQuery();
-            
-            if (rs.next() && rs.getInt(1) > 0) {
-                // Username already exists
-                conn.rollback();
-                return null;
-            }
-            
-            // Check if email already exists
-            String checkEmailSql = "SELECT COUNT(*) FROM users WHERE email = ?";
-            stmt.close();
-            stmt = conn.prepareStatement(checkEmailSql);
-            stmt.setString(1, email);
-            rs.close();
-            rs = stmt.executeQuery();
-            
-            if (rs.next() && rs.getInt(1) > 0) {
-                // Email already exists
-                conn.rollback();
-                return null;
-            }
-            
-            // Check if key ID is valid and unused
-            String checkKeySql = "SELECT key_type, max_uses, current_uses FROM key_ids WHERE key_value = ? AND is_used = false";
-            stmt.close();
-            stmt = conn.prepareStatement(checkKeySql);
-            stmt.setString(1, keyId);
-            rs.close();
-            rs = stmt.executeQuery();
-            
-            if (!rs.next()) {
-                // Key ID not found or already used
-                conn.rollback();
-                return null;
-            }
-            
-            // Get key type for role determination
-            String keyType = rs.getString("key_type");
-            int maxUses = rs.getInt("max_uses");
-            int currentUses = rs.getInt("current_uses");
-            
-            // Check if key has uses remaining
-            if (currentUses >= maxUses) {
-                conn.rollback();
-                return null;
+            // Lock the key row so concurrent registrations cannot both consume its last use
+            String keyType;
+            String checkKeySql = "SELECT key_type FROM key_ids WHERE key_value = ? AND is_used = false " +
+                                "AND current_uses < max_uses FOR UPDATE";
+            try (PreparedStatement stmt = conn.prepareStatement(checkKeySql)) {
+                stmt.setString(1, keyId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        // Key ID not found, already used or out of uses
+                        conn.rollback();
+                        return null;
+                    }
+                    keyType = rs.getString("key_type");
+                }
             }
             
-            // Generate salt and hash password with BCrypt
-            String salt = generateSalt();
-            String hashedPassword = PasswordUtil.hashPasswordWithSalt(password, salt);
-            
             // Determine role based on key type
             User.Role role;
             switch (keyType.toUpperCase()) {
@@ -799,66 +819,51 @@ public class AuthService {
                     break;
             }
             
-            // Insert user with all required fields from master schema
+            // Insert user; the UNIQUE constraints on username and email reject duplicates
             String insertUserSql = "INSERT INTO users (username, email, password_hash, salt, role, key_id, " +
                                   "is_active, email_verified, theme_preference, language_preference) " +
                                   "VALUES (?, ?, ?, ?, ?, ?, TRUE, FALSE, 'DARK', 'en')";
-            stmt.close();
-            stmt = conn.prepareStatement(insertUserSql, PreparedStatement.RETURN_GENERATED_KEYS);
-            stmt.setString(1, username);
-            stmt.setString(2, email);
-            stmt.setString(3, hashedPassword);
-            stmt.setString(4, salt);
-            stmt.setString(5, role.name());
-            stmt.setString(6, keyId);
-            
-            int affectedRows = stmt.executeUpdate();
-            
-            if (affectedRows == 0) {
-                conn.rollback();
-                return null;
+            int userId;
+            try (PreparedStatement stmt = conn.prepareStatement(insertUserSql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, username);
+                stmt.setString(2, email);
+                stmt.setString(3, hashedPassword);
+                stmt.setString(4, salt);
+                stmt.setString(5, role.name());
+                stmt.setString(6, keyId);
+                stmt.executeUpdate();
+                
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return null;
+                    }
+                    userId = rs.getInt(1);
+                }
             }
             
-            // Get the generated user ID
-            rs.close();
-            rs = stmt.getGeneratedKeys();
-            int userId = 0;
-            if (rs.next()) {
-                userId = rs.getInt(1);
-            } else {
-                conn.rollback();
-                return null;
+            // Key usage: is_used is evaluated after current_uses has been incremented
+            String useKeySql = "UPDATE key_ids SET used_by = ?, used_at = NOW(), " +
+                              "current_uses = current_uses + 1, is_used = (current_uses >= max_uses) " +
+                              "WHERE key_value = ?";
+            try (PreparedStatement stmt = conn.prepareStatement(useKeySql)) {
+                stmt.setInt(1, userId);
+                stmt.setString(2, keyId);
+                stmt.executeUpdate();
             }
             
-            // Update key usage - increment current_uses or mark as used if single-use
-            String updateKeySql;
-            if (maxUses == 1) {
-                updateKeySql = "UPDATE key_ids SET is_used = true, used_by = ?, used_at = NOW(), current_uses = current_uses + 1 WHERE key_value = ?";
-            } else {
-                updateKeySql = "UPDATE key_ids SET used_by = ?, used_at = NOW(), current_uses = current_uses + 1 WHERE key_value = ?";
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO user_preferences (user_id) VALUES (?)")) {
+                stmt.setInt(1, userId);
+                stmt.executeUpdate();
             }
             
-            stmt.close();
-            stmt = conn.prepareStatement(updateKeySql);
-            stmt.setInt(1, userId);
-            stmt.setString(2, keyId);
-            stmt.executeUpdate();
-            
-            // Create user preferences record
-            String insertPreferencesSql = "INSERT INTO user_preferences (user_id) VALUES (?)";
-            stmt.close();
-            stmt = conn.prepareStatement(insertPreferencesSql);
-            stmt.setInt(1, userId);
-            stmt.executeUpdate();
-            
-            // Log registration activity
-            String logActivitySql = "INSERT INTO activity_log (user_id, action_type, action_description, target_type, target_id, success) " +
-                                   "VALUES (?, 'REGISTER', 'User registered successfully', 'USER', ?, TRUE)";
-            stmt.close();
-            stmt = conn.prepareStatement(logActivitySql);
-            stmt.setInt(1, userId);
-            stmt.setInt(2, userId);
-            stmt.executeUpdate();
+            String logSql = "INSERT INTO activity_log (user_id, action_type, action_description, target_type, target_id, success) " +
+                           "VALUES (?, 'REGISTER', 'User registered successfully', 'USER', ?, TRUE)";
+            try (PreparedStatement stmt = conn.prepareStatement(logSql)) {
+                stmt.setInt(1, userId);
+                stmt.setInt(2, userId);
+                stmt.executeUpdate();
+            }
             
             // Commit transaction
             conn.commit();
@@ -878,33 +883,40 @@ public class AuthService {
             user.setLanguagePreference("en");
             user.setCreatedAt(LocalDateTime.now());
             
+            usernameFilter.add(username);
             LOGGER.info("User registered successfully: " + username + " with role: " + role);
             return user;
             
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Username or email already taken
+            LOGGER.warning("Registration rejected for " + username + ": " + e.getMessage());
+            rollbackQuietly(conn);
+            return null;
+            
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Database error during registration", e);
-            
-            // Rollback transaction
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
-                }
-            }
+            rollbackQuietly(conn);
             
             // Fallback to in-memory registration if database fails
             return registerFallback(username, password, keyId, email);
         } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                if (conn != null) {
+            if (conn != null) {
+                try {
                     conn.setAutoCommit(true); // Reset auto-commit
-                    DatabaseUtil.closeConnection(conn);
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Error resetting auto-commit", e);
                 }
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error closing database resources", e);
+                DatabaseUtil.closeConnection(conn);
+            }
+        }
+    }
+    
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
             }
         }
     }
@@ -1030,16 +1042,8 @@ public class AuthService {
      * Generate a random alphanumeric key (16 characters)
      */
     private String generateAlphanumericKey() {
-        final String ALPHA_NUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-        StringBuilder key = new StringBuilder(16);
-        
-        // Generate 16 alphanumeric characters
-        for (int i = 0; i < 16; i++) {
-            int index = (int) (Math.random() * ALPHA_NUMERIC.length());
-            key.append(ALPHA_NUMERIC.charAt(index));
-        }
-        
-        return key.toString();
+        // 16 characters from a per-thread SecureRandom, same format as bulk-issued keys
+        return KeyIssuanceService.randomKey("");
     }
     
     /**
@@ -1147,37 +1151,60 @@ public class AuthService {
             return false;
         }
         
+        // Salted (master schema) hashes, including versioned ones, are verified against the salt column
+        if (user.getSalt() != null && !user.getSalt().isEmpty()) {
+            return PasswordUtil.verifyPasswordWithSalt(password, user.getPassword(), user.getSalt());
+        }
+        
         // Use existing checkPassword method to verify
         return checkPassword(password, user.getPassword());
     }
     
     /**
-     * Change a user's password
+     * Change a user's password.
+     * The current password is verified once and the new one hashed on the password hashing
+     * executor; a pooled connection is only taken afterwards, for the UPDATE.
      * 
      * @param user the user whose password will be changed
      * @param currentPassword the current password
      * @param newPassword the new password to set
-     * @return true if password was changed successfully
+     * @return future completing with false if the current password is wrong and true once the new
+     *         password is stored; it fails if hashing is saturated or the update fails
      */
-    public boolean changePassword(User user, String currentPassword, String newPassword) {
-        if (!verifyPassword(user, currentPassword)) {
-            return false;
-        }
+    public CompletableFuture<Boolean> changePasswordAsync(User user, String currentPassword, String newPassword) {
+        return passwordHasher.submit(user.getUsername(), null, () -> {
+            if (!verifyPassword(user, currentPassword)) {
+                return null;
+            }
+            String salt = PasswordUtil.generateSalt();
+            return new String[] {PasswordUtil.hashPasswordWithSalt(newPassword, salt), salt};
+        }).thenCompose(hashed -> hashed == null
+            ? CompletableFuture.completedFuture(false)
+            : asyncService.executeDbTask(() -> storePassword(user, hashed[0], hashed[1])));
+    }
 
-        try (Connection conn = DatabaseUtil.getConnection()) {
-            String sql = "UPDATE users SET password = ? WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, PasswordUtil.hashPassword(newPassword));
-            stmt.setInt(2, user.getId());
-            return stmt.executeUpdate() > 0;
+    private boolean storePassword(User user, String hashedPassword, String salt) {
+        String sql = "UPDATE users SET password_hash = ?, salt = ?, last_password_change = NOW() WHERE id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, hashedPassword);
+            stmt.setString(2, salt);
+            stmt.setInt(3, user.getId());
+            if (stmt.executeUpdate() == 0) {
+                throw new IllegalStateException("User " + user.getId() + " no longer exists");
+            }
+            user.setPassword(hashedPassword);
+            user.setSalt(salt);
+            return true;
         } catch (SQLException e) {
             LOGGER.severe("Error changing password: " + e.getMessage());
-            return false;
+            throw new RuntimeException("Failed to store the new password", e);
         }
     }
 
     /**
-     * Delete user account with password verification and complete data cleanup
+     * Delete user account with password verification.
+     * The account is tombstoned immediately and its data removed by {@link AccountDeletionService}.
      * 
      * @param userId the user ID to delete
      * @param password the user's password for verification
@@ -1199,172 +1226,12 @@ public class AuthService {
             return false;
         }
         
-        Connection conn = null;
-        
-        try {
-            conn = DatabaseUtil.getConnection();
-            // Start transaction for complete data integrity
-            conn.setAutoCommit(false);
-            
-            try {
-                LOGGER.log(Level.INFO, "Starting cascade deletion for user: " + userId);
-                
-                // Delete in reverse dependency order to avoid foreign key constraints
-                
-                // 1. Delete from tables that reference this user but allow NULL
-                String updateSecurityEventsResolved = "UPDATE security_events SET resolved_by = NULL WHERE resolved_by = ?";
-                PreparedStatement updateSecurityStmt = conn.prepareStatement(updateSecurityEventsResolved);
-                updateSecurityStmt.setInt(1, userId);
-                updateSecurityStmt.executeUpdate();
-                updateSecurityStmt.close();
-                
-                String updateSystemSettings = "UPDATE system_settings SET updated_by = 1 WHERE updated_by = ?";
-                PreparedStatement updateSettingsStmt = conn.prepareStatement(updateSystemSettings);
-                updateSettingsStmt.setInt(1, userId);
-                updateSettingsStmt.executeUpdate();
-                updateSettingsStmt.close();
-                
-                // 2. Delete user's security events
-                String deleteSecurityEvents = "DELETE FROM security_events WHERE user_id = ?";
-                PreparedStatement securityEventsStmt = conn.prepareStatement(deleteSecurityEvents);
-                securityEventsStmt.setInt(1, userId);
-                int securityEventsDeleted = securityEventsStmt.executeUpdate();
-                securityEventsStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + securityEventsDeleted + " security events for user: " + userId);
-                
-                // 3. Delete user sessions
-                String deleteSessions = "DELETE FROM user_sessions WHERE user_id = ?";
-                PreparedStatement sessionsStmt = conn.prepareStatement(deleteSessions);
-                sessionsStmt.setInt(1, userId);
-                int sessionsDeleted = sessionsStmt.executeUpdate();
-                sessionsStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + sessionsDeleted + " user sessions for user: " + userId);
-                
-                // 4. Delete user warnings
-                String deleteWarnings = "DELETE FROM user_warnings WHERE user_id = ? OR issued_by = ?";
-                PreparedStatement warningsStmt = conn.prepareStatement(deleteWarnings);
-                warningsStmt.setInt(1, userId);
-                warningsStmt.setInt(2, userId);
-                int warningsDeleted = warningsStmt.executeUpdate();
-                warningsStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + warningsDeleted + " user warnings for user: " + userId);
-                
-                // 5. Delete content moderation records
-                String deleteModerationByUser = "DELETE FROM content_moderation WHERE moderated_by = ?";
-                PreparedStatement moderationStmt = conn.prepareStatement(deleteModerationByUser);
-                moderationStmt.setInt(1, userId);
-                int moderationDeleted = moderationStmt.executeUpdate();
-                moderationStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + moderationDeleted + " moderation records for user: " + userId);
-                
-                // 6. Delete admin audit trail
-                String deleteAuditTrail = "DELETE FROM admin_audit_trail WHERE admin_user_id = ? OR target_user_id = ?";
-                PreparedStatement auditStmt = conn.prepareStatement(deleteAuditTrail);
-                auditStmt.setInt(1, userId);
-                auditStmt.setInt(2, userId);
-                int auditDeleted = auditStmt.executeUpdate();
-                auditStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + auditDeleted + " audit trail records for user: " + userId);
-                
-                // 7. Delete user's comments first (before posts)
-                String deleteComments = "DELETE FROM comments WHERE user_id = ?";
-                PreparedStatement commentsStmt = conn.prepareStatement(deleteComments);
-                commentsStmt.setInt(1, userId);
-                int commentsDeleted = commentsStmt.executeUpdate();
-                commentsStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + commentsDeleted + " comments for user: " + userId);
-                
-                // 8. Delete comments on user's posts (cascade deletion)
-                String deleteCommentsOnPosts = "DELETE c FROM comments c INNER JOIN posts p ON c.post_id = p.id WHERE p.user_id = ?";
-                PreparedStatement commentsOnPostsStmt = conn.prepareStatement(deleteCommentsOnPosts);
-                commentsOnPostsStmt.setInt(1, userId);
-                int commentsOnPostsDeleted = commentsOnPostsStmt.executeUpdate();
-                commentsOnPostsStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + commentsOnPostsDeleted + " comments on user's posts");
-                
-                // 9. Delete content moderation for user's content
-                String deleteContentModeration = "DELETE cm FROM content_moderation cm INNER JOIN posts p ON cm.content_id = p.id WHERE p.user_id = ? AND cm.content_type = 'POST'";
-                PreparedStatement contentModerationStmt = conn.prepareStatement(deleteContentModeration);
-                contentModerationStmt.setInt(1, userId);
-                int contentModerationDeleted = contentModerationStmt.executeUpdate();
-                contentModerationStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + contentModerationDeleted + " content moderation records for user's posts");
-                
-                // 10. Delete user's posts
-                String deletePosts = "DELETE FROM posts WHERE user_id = ?";
-                PreparedStatement postsStmt = conn.prepareStatement(deletePosts);
-                postsStmt.setInt(1, userId);
-                int postsDeleted = postsStmt.executeUpdate();
-                postsStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + postsDeleted + " posts for user: " + userId);
-                
-                // 11. Delete user's feedback
-                String deleteFeedback = "DELETE FROM feedback WHERE user_id = ?";
-                PreparedStatement feedbackStmt = conn.prepareStatement(deleteFeedback);
-                feedbackStmt.setInt(1, userId);
-                int feedbackDeleted = feedbackStmt.executeUpdate();
-                feedbackStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + feedbackDeleted + " feedback entries for user: " + userId);
-                
-                // 12. Delete system activities
-                String deleteSystemActivities = "DELETE FROM system_activities WHERE user_id = ?";
-                PreparedStatement systemActivitiesStmt = conn.prepareStatement(deleteSystemActivities);
-                systemActivitiesStmt.setInt(1, userId);
-                int systemActivitiesDeleted = systemActivitiesStmt.executeUpdate();
-                systemActivitiesStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + systemActivitiesDeleted + " system activities for user: " + userId);
-                
-                // 13. Delete activity logs (original table)
-                String deleteActivityLog = "DELETE FROM activity_log WHERE user_id = ?";
-                PreparedStatement activityLogStmt = conn.prepareStatement(deleteActivityLog);
-                activityLogStmt.setInt(1, userId);
-                int activityLogDeleted = activityLogStmt.executeUpdate();
-                activityLogStmt.close();
-                LOGGER.log(Level.INFO, "Deleted " + activityLogDeleted + " activity log entries for user: " + userId);
-                
-                // 14. Finally, delete the user record
-                String deleteUser = "DELETE FROM users WHERE id = ?";
-                PreparedStatement userStmt = conn.prepareStatement(deleteUser);
-                userStmt.setInt(1, userId);
-                int result = userStmt.executeUpdate();
-                userStmt.close();
-                
-                if (result > 0) {
-                    // Commit the transaction
-                    conn.commit();
-                    LOGGER.log(Level.INFO, "Successfully deleted user account and all related data: " + userId);
-                    return true;
-                } else {
-                    // Rollback if user deletion failed
-                    conn.rollback();
-                    LOGGER.log(Level.WARNING, "Failed to delete user record: " + userId);
-                    return false;
-                }
-                
-            } catch (SQLException e) {
-                // Rollback the transaction on any error
-                try {
-                    conn.rollback();
-                    LOGGER.log(Level.SEVERE, "Transaction rolled back due to error during user deletion: " + userId, e);
-                } catch (SQLException rollbackEx) {
-                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
-                }
-                throw e;
-            }
-            
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Database error during user account deletion: " + e.getMessage(), e);
+        // Tombstone now; related data is removed by the background cascade
+        if (accountDeletion.requestDeletion(userId, user.getUsername(), userId) == null) {
+            LOGGER.log(Level.WARNING, "Failed to queue deletion for user: " + userId);
             return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true); // Reset auto-commit
-                    DatabaseUtil.closeConnection(conn);
-                } catch (SQLException e) {
-                    LOGGER.log(Level.WARNING, "Error resetting connection state", e);
-                }
-            }
         }
+        return true;
     }
 
     /**
@@ -1374,195 +1241,39 @@ public class AuthService {
      * @return true if the deletion was successful
      */
     public boolean deleteUser(int userId) {
-        try (Connection conn = DatabaseUtil.getConnection()) {
-            // Start transaction
-            conn.setAutoCommit(false);
-            
-            try {
-                LOGGER.log(Level.INFO, "Admin deletion - Starting cascade deletion for user: " + userId);
-                
-                // Delete in reverse dependency order to avoid foreign key constraints
-                
-                // 1. Update references that allow NULL
-                String updateSecurityEventsResolved = "UPDATE security_events SET resolved_by = NULL WHERE resolved_by = ?";
-                PreparedStatement updateSecurityStmt = conn.prepareStatement(updateSecurityEventsResolved);
-                updateSecurityStmt.setInt(1, userId);
-                updateSecurityStmt.executeUpdate();
-                updateSecurityStmt.close();
-                
-                String updateSystemSettings = "UPDATE system_settings SET updated_by = 1 WHERE updated_by = ?";
-                PreparedStatement updateSettingsStmt = conn.prepareStatement(updateSystemSettings);
-                updateSettingsStmt.setInt(1, userId);
-                updateSettingsStmt.executeUpdate();
-                updateSettingsStmt.close();
-                
-                // 2. Delete all dependent records
-                String deleteSecurityEvents = "DELETE FROM security_events WHERE user_id = ?";
-                PreparedStatement securityEventsStmt = conn.prepareStatement(deleteSecurityEvents);
-                securityEventsStmt.setInt(1, userId);
-                securityEventsStmt.executeUpdate();
-                securityEventsStmt.close();
-                
-                String deleteSessions = "DELETE FROM user_sessions WHERE user_id = ?";
-                PreparedStatement sessionsStmt = conn.prepareStatement(deleteSessions);
-                sessionsStmt.setInt(1, userId);
-                sessionsStmt.executeUpdate();
-                sessionsStmt.close();
-                
-                String deleteWarnings = "DELETE FROM user_warnings WHERE user_id = ? OR issued_by = ?";
-                PreparedStatement warningsStmt = conn.prepareStatement(deleteWarnings);
-                warningsStmt.setInt(1, userId);
-                warningsStmt.setInt(2, userId);
-                warningsStmt.executeUpdate();
-                warningsStmt.close();
-                
-                String deleteModerationByUser = "DELETE FROM content_moderation WHERE moderated_by = ?";
-                PreparedStatement moderationStmt = conn.prepareStatement(deleteModerationByUser);
-                moderationStmt.setInt(1, userId);
-                moderationStmt.executeUpdate();
-                moderationStmt.close();
-                
-                String deleteAuditTrail = "DELETE FROM admin_audit_trail WHERE admin_user_id = ? OR target_user_id = ?";
-                PreparedStatement auditStmt = conn.prepareStatement(deleteAuditTrail);
-                auditStmt.setInt(1, userId);
-                auditStmt.setInt(2, userId);
-                auditStmt.executeUpdate();
-                auditStmt.close();
-                
-                // Delete user's comments
-                String deleteComments = "DELETE FROM comments WHERE user_id = ?";
-                PreparedStatement commentsStmt = conn.prepareStatement(deleteComments);
-                commentsStmt.setInt(1, userId);
-                commentsStmt.executeUpdate();
-                commentsStmt.close();
-                
-                // Delete comments on user's posts
-                String deleteCommentsOnPosts = "DELETE c FROM comments c INNER JOIN posts p ON c.post_id = p.id WHERE p.user_id = ?";
-                PreparedStatement commentsOnPostsStmt = conn.prepareStatement(deleteCommentsOnPosts);
-                commentsOnPostsStmt.setInt(1, userId);
-                commentsOnPostsStmt.executeUpdate();
-                commentsOnPostsStmt.close();
-                
-                // Delete content moderation for user's content
-                String deleteContentModeration = "DELETE cm FROM content_moderation cm INNER JOIN posts p ON cm.content_id = p.id WHERE p.user_id = ? AND cm.content_type = 'POST'";
-                PreparedStatement contentModerationStmt = conn.prepareStatement(deleteContentModeration);
-                contentModerationStmt.setInt(1, userId);
-                contentModerationStmt.executeUpdate();
-                contentModerationStmt.close();
-                
-                // Delete user's posts
-                String deletePosts = "DELETE FROM posts WHERE user_id = ?";
-                PreparedStatement postsStmt = conn.prepareStatement(deletePosts);
-                postsStmt.setInt(1, userId);
-                postsStmt.executeUpdate();
-                postsStmt.close();
-                
-                // Delete user's feedback
-                String deleteFeedback = "DELETE FROM feedback WHERE user_id = ?";
-                PreparedStatement feedbackStmt = conn.prepareStatement(deleteFeedback);
-                feedbackStmt.setInt(1, userId);
-                feedbackStmt.executeUpdate();
-                feedbackStmt.close();
-                
-                // Delete system activities
-                String deleteSystemActivities = "DELETE FROM system_activities WHERE user_id = ?";
-                PreparedStatement systemActivitiesStmt = conn.prepareStatement(deleteSystemActivities);
-                systemActivitiesStmt.setInt(1, userId);
-                systemActivitiesStmt.executeUpdate();
-                systemActivitiesStmt.close();
-                
-                // Delete user's activity logs
-                String deleteActivity = "DELETE FROM activity_log WHERE user_id = ?";
-                PreparedStatement activityStmt = conn.prepareStatement(deleteActivity);
-                activityStmt.setInt(1, userId);
-                activityStmt.executeUpdate();
-                activityStmt.close();
-                
-                // Finally, delete the user
-                String deleteUser = "DELETE FROM users WHERE id = ?";
-                PreparedStatement userStmt = conn.prepareStatement(deleteUser);
-                userStmt.setInt(1, userId);
-                int result = userStmt.executeUpdate();
-                userStmt.close();
-                
-                // Commit transaction
-                conn.commit();
-                LOGGER.log(Level.INFO, "Admin successfully deleted user and all related data: " + userId);
-                return result > 0;
-            } catch (SQLException e) {
-                // Rollback on error
-                conn.rollback();
-                LOGGER.log(Level.SEVERE, "Admin deletion failed, transaction rolled back for user: " + userId, e);
-                throw e;
-            }
-        } catch (SQLException e) {
-            LOGGER.severe("Error deleting user: " + e.getMessage());
+        User user = getUserById(userId);
+        if (user == null) {
             return false;
         }
+        LOGGER.log(Level.INFO, "Admin deletion queued for user: " + userId);
+        return accountDeletion.requestDeletion(userId, user.getUsername(), null) != null;
     }
 
     /**
-     * User session class for performance optimization
-     */
-    private static class UserSession {
-        final User user;
-        final long createdAt;
-        long lastAccessedAt;
-        
-        UserSession(User user) {
-            this.user = user;
-            this.createdAt = System.currentTimeMillis();
-            this.lastAccessedAt = createdAt;
-        }
-        
-        boolean isValid() {
-            return (System.currentTimeMillis() - lastAccessedAt) < SESSION_TIMEOUT_MS;
-        }
-        
-        void updateAccess() {
-            this.lastAccessedAt = System.currentTimeMillis();
-        }
-    }
-    
-    /**
-     * Fast session-based authentication check
+     * Fast session-based authentication check; extends the session
      */
     public User getSessionUser(String sessionId) {
-        UserSession session = activeSessions.get(sessionId);
-        if (session != null && session.isValid()) {
-            session.updateAccess();
-            return session.user;
-        } else {
-            activeSessions.remove(sessionId);
-            return null;
-        }
+        SessionRegistry.Session session = sessionRegistry.validate(sessionId);
+        return session != null ? session.getUser() : null;
     }
     
     /**
-     * Create session after successful authentication
+     * End the user's current session
      */
-    private String createSession(User user) {
-        String sessionId = generateSessionId(user);
-        activeSessions.put(sessionId, new UserSession(user));
-        
-        // Cleanup old sessions
-        cleanupExpiredSessions();
-        
-        return sessionId;
-    }
-    
-    /**
-     * Generate secure session ID
-     */
-    private String generateSessionId(User user) {
-        return user.getUsername() + "_" + System.currentTimeMillis() + "_" + 
-               Integer.toHexString(user.hashCode());
+    public void logout(User user) {
+        if (user != null && user.getSessionToken() != null) {
+            sessionRegistry.invalidate(user.getSessionToken());
+            user.setSessionToken(null);
+        }
     }
     
     /**
-     * Cleanup expired sessions periodically
+     * Register a session for a successful login and attach its token to the user
      */
-    private void cleanupExpiredSessions() {
-        activeSessions.entrySet().removeIf(entry -> !entry.getValue().isValid());
+    private void startSession(User user) {
+        if (user.getSessionToken() != null) {
+            sessionRegistry.invalidate(user.getSessionToken());
+        }
+        user.setSessionToken(sessionRegistry.createSession(user, null, null));
     }
 } 
\ No newline at end of file
@@ -11,6 +11,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.function.Supplier;
 
@@ -29,11 +30,19 @@ public class CacheService {
     private static final int ACTIVITY_CACHE_TTL_MINUTES = 5;
     private static final int MAX_CACHE_SIZE = 1000;
     
+    // Tags for group invalidation; users are tagged with userTag(id)
+    public static final String TAG_POSTS = "posts";
+    public static final String TAG_ACTIVITIES = "activities";
+    
     // Cache containers with thread-safe maps
     private final Map<String, CacheEntry<User>> userCache = new ConcurrentHashMap<>();
     private final Map<String, CacheEntry<List<Post>>> postCache = new ConcurrentHashMap<>();
     private final Map<String, CacheEntry<List<SystemActivity>>> activityCache = new ConcurrentHashMap<>();
     private final Map<String, CacheEntry<Object>> genericCache = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tagIndex = new ConcurrentHashMap<>();
+    
+    // Bumped by every post invalidation, so a page read before one is never cached after it
+    private final AtomicLong postsGeneration = new AtomicLong();
     
     // Cache statistics
     private long cacheHits = 0;
@@ -94,6 +103,9 @@ public class CacheService {
     // User caching methods
     public void cacheUser(String key, User user) {
         userCache.put(key, new CacheEntry<>(user, USER_CACHE_TTL_MINUTES));
+        if (user != null) {
+            tag(key, userTag(user.getId()));
+        }
         enforceMaxSize(userCache);
     }
     
@@ -128,9 +140,35 @@ public class CacheService {
     // Post caching methods
     public void cachePosts(String key, List<Post> posts) {
         postCache.put(key, new CacheEntry<>(posts, POST_CACHE_TTL_MINUTES));
+        tag(key, TAG_POSTS);
         enforceMaxSize(postCache);
     }
     
+    /**
+     * Current post invalidation generation; read it before loading posts you may cache later
+     */
+    public long getPostsGeneration() {
+        return postsGeneration.get();
+    }
+    
+    /**
+     * Cache posts only if no post invalidation happened since {@code generation} was read
+     * 
+     * @return whether the posts were cached
+     */
+    public boolean cachePostsIfCurrent(String key, List<Post> posts, long generation) {
+        if (postsGeneration.get() != generation) {
+            return false;
+        }
+        cachePosts(key, posts);
+        if (postsGeneration.get() != generation) {
+            // Invalidated while caching: undo rather than leave a stale page behind
+            postCache.remove(key);
+            return false;
+        }
+        return true;
+    }
+    
     public Optional<List<Post>> getCachedPosts(String key) {
         CacheEntry<List<Post>> entry = postCache.get(key);
         if (entry != null) {
@@ -162,6 +200,7 @@ public class CacheService {
     // Activity caching methods
     public void cacheActivities(String key, List<SystemActivity> activities) {
         activityCache.put(key, new CacheEntry<>(activities, ACTIVITY_CACHE_TTL_MINUTES));
+        tag(key, TAG_ACTIVITIES);
         enforceMaxSize(activityCache);
     }
     
@@ -329,10 +368,12 @@ public class CacheService {
     }
     
     public void invalidatePosts(String key) {
+        postsGeneration.incrementAndGet();
         postCache.remove(key);
     }
     
     public void invalidateAllPosts() {
+        postsGeneration.incrementAndGet();
         postCache.clear();
     }
     
@@ -351,11 +392,46 @@ public class CacheService {
         genericCache.remove(key);
     }
     
+    /**
+     * Tag used for every cache entry holding the given user
+     */
+    public static String userTag(int userId) {
+        return "user:" + userId;
+    }
+    
+    /**
+     * Associate a cached key with tags so it can be dropped by {@link #invalidateTag(String)}
+     */
+    public void tag(String key, String... tags) {
+        for (String tag : tags) {
+            tagIndex.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+    
+    /**
+     * Invalidate every entry cached under the tag
+     * 
+     * @return number of keys invalidated
+     */
+    public int invalidateTag(String tag) {
+        if (TAG_POSTS.equals(tag)) {
+            postsGeneration.incrementAndGet();
+        }
+        Set<String> keys = tagIndex.remove(tag);
+        if (keys == null) {
+            return 0;
+        }
+        keys.forEach(this::invalidate);
+        return keys.size();
+    }
+    
     public void invalidateAll() {
+        postsGeneration.incrementAndGet();
         userCache.clear();
         postCache.clear();
         activityCache.clear();
         genericCache.clear();
+        tagIndex.clear();
         LOGGER.info("All caches cleared");
     }
     
@@ -386,6 +462,13 @@ public class CacheService {
         totalCleaned += cleanupExpiredFromCache(activityCache);
         totalCleaned += cleanupExpiredFromCache(genericCache);
         
+        // Drop tag entries for keys that are no longer cached
+        for (Set<String> keys : tagIndex.values()) {
+            keys.removeIf(key -> !userCache.containsKey(key) && !postCache.containsKey(key)
+                && !activityCache.containsKey(key) && !genericCache.containsKey(key));
+        }
+        tagIndex.values().removeIf(Set::isEmpty);
+        
         long duration = System.currentTimeMillis() - startTime;
         if (totalCleaned > 0) {
             LOGGER.info("Cache cleanup completed: removed " + totalCleaned + " expired entries in " + duration + "ms");
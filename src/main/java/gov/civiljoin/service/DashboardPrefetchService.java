@@ -0,0 +1,185 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.Post;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Speculative dashboard prefetch for a login in progress.
+ * While the password is being verified, the first feed page and the dashboard FXML are fetched
+ * in parallel. Nothing is published until the login succeeds: then the feed page primes the post
+ * cache and the FXML is handed to the login screen's navigation. A failed login discards it all:
+ * queued queries never start and running ones are cancelled on the server.
+ * <p>
+ * Nothing is prefetched for a username with recent failed logins or while database tasks are
+ * already queued, so a password-guessing run cannot turn into extra database load.
+ */
+public class DashboardPrefetchService {
+    private static final Logger LOGGER = Logger.getLogger(DashboardPrefetchService.class.getName());
+    private static DashboardPrefetchService instance;
+
+    private static final String DASHBOARD_FXML = "/gov/civiljoin/view/dashboard.fxml";
+    private static final String DASHBOARD_CONTROLLER = "gov.civiljoin.controller.DashboardController";
+
+    private final AsyncTaskService asyncService = AsyncTaskService.getInstance();
+    private final CacheService cacheService = CacheService.getInstance();
+    private final PostService postService = new PostService();
+    private final SecurityService securityService = new SecurityService();
+    private final AtomicReference<byte[]> dashboardFxml = new AtomicReference<>();
+
+    // Prefetch statistics
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private DashboardPrefetchService() {
+    }
+
+    public static DashboardPrefetchService getInstance() {
+        if (instance == null) {
+            synchronized (DashboardPrefetchService.class) {
+                if (instance == null) {
+                    instance = new DashboardPrefetchService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start fetching everything the dashboard needs for this username, or return null if the
+     * account has recent failed logins or the database pool is already busy
+     */
+    public Prefetch start(String username) {
+        if (securityService.getFailedLoginCount(username) > 0 || asyncService.getDbQueueDepth() > 0) {
+            skipped.incrementAndGet();
+            return null;
+        }
+
+        started.incrementAndGet();
+        Prefetch prefetch = new Prefetch(cacheService.getPostsGeneration());
+        prefetch.firstPage = asyncService.executeDbTask(
+            prefetch.guard(() -> postService.loadFirstPageUncached(prefetch::track)));
+        prefetch.dashboardFxml = asyncService.executeIOTask(prefetch.guard(this::loadDashboardFxml));
+        return prefetch;
+    }
+
+    /**
+     * The login succeeded: publish each result as it becomes available.
+     * The feed page is dropped if posts were invalidated after it was read.
+     */
+    public void complete(Prefetch prefetch) {
+        used.incrementAndGet();
+        prefetch.firstPage.thenAccept(page -> postService.primeFirstPage(page, prefetch.postsGeneration))
+            .exceptionally(e -> logFailure("feed page", e));
+        prefetch.dashboardFxml.thenAccept(dashboardFxml::set).exceptionally(e -> logFailure("dashboard view", e));
+    }
+
+    /**
+     * The login failed: queued work is skipped, running queries are cancelled, nothing is published
+     */
+    public void discard(Prefetch prefetch) {
+        discarded.incrementAndGet();
+        prefetch.cancel();
+        prefetch.firstPage.cancel(false);
+        prefetch.dashboardFxml.cancel(false);
+    }
+
+    /**
+     * Dashboard FXML prefetched for the last successful login, or null; each copy is handed out once
+     */
+    public byte[] takeDashboardFxml() {
+        return dashboardFxml.getAndSet(null);
+    }
+
+    public String getStats() {
+        return String.format("DashboardPrefetch - Started: %d, Used: %d, Discarded: %d, Skipped: %d",
+            started.get(), used.get(), discarded.get(), skipped.get());
+    }
+
+    /**
+     * Read the dashboard FXML into memory and load its controller class
+     */
+    private byte[] loadDashboardFxml() {
+        try (InputStream in = DashboardPrefetchService.class.getResourceAsStream(DASHBOARD_FXML)) {
+            if (in == null) {
+                throw new IOException("Dashboard view not found: " + DASHBOARD_FXML);
+            }
+            byte[] fxml = in.readAllBytes();
+            Class.forName(DASHBOARD_CONTROLLER, true, DashboardPrefetchService.class.getClassLoader());
+            return fxml;
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Failed to prefetch dashboard view", e);
+        }
+    }
+
+    private Void logFailure(String what, Throwable e) {
+        LOGGER.log(Level.FINE, "Dashboard prefetch of " + what + " unavailable", e);
+        return null;
+    }
+
+    /**
+     * In-flight prefetch for one login attempt
+     */
+    public static final class Prefetch {
+        private final long postsGeneration;
+        private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+        private volatile boolean cancelled;
+        private CompletableFuture<List<Post>> firstPage;
+        private CompletableFuture<byte[]> dashboardFxml;
+
+        Prefetch(long postsGeneration) {
+            this.postsGeneration = postsGeneration;
+        }
+
+        /**
+         * Wrap a task so it does nothing once the prefetch is cancelled
+         */
+        <T> Supplier<T> guard(Supplier<T> task) {
+            return () -> {
+                if (cancelled) {
+                    throw new CancellationException("Dashboard prefetch discarded");
+                }
+                return task.get();
+            };
+        }
+
+        /**
+         * Remember a statement about to run so {@link #cancel()} can stop it; cancelling one
+         * that has finished is a no-op, so statements are kept until the prefetch is dropped
+         */
+        void track(Statement statement) {
+            statements.add(statement);
+            if (cancelled) {
+                cancelStatement(statement);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            statements.forEach(Prefetch::cancelStatement);
+        }
+
+        private static void cancelStatement(Statement statement) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Failed to cancel prefetch query", e);
+            }
+        }
+    }
+}
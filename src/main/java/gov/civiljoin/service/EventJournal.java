@@ -0,0 +1,481 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.SegmentedJournal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local write-ahead journal for audit events.
+ * When the database rejects or cannot take an activity or security event, the event is
+ * appended to a segmented on-disk journal instead of being lost. A recovery task replays
+ * the journal in order once the database answers again; while a backlog exists new events
+ * are journaled too, so the audit trail keeps its original order. Records the database
+ * will never accept (data or constraint errors) move to a separate dead-letter journal.
+ * <p>
+ * Replay is at-least-once. Journaled events carry no id the tables could deduplicate on, so a
+ * crash after a replayed batch commits but before its checkpoint is written inserts that batch
+ * (at most {@link #REPLAY_BATCH_SIZE} events) and counts it in the rollups a second time on the
+ * next start.
+ */
+public class EventJournal {
+    private static final Logger LOGGER = Logger.getLogger(EventJournal.class.getName());
+    private static EventJournal instance;
+
+    // Journal configuration
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final long SYNC_INTERVAL_MS = 200;
+    private static final int SYNC_BATCH_SIZE = 64;
+    private static final int REPLAY_BATCH_SIZE = 200;
+    private static final long RECOVERY_INTERVAL_SECONDS = 5;
+
+    private static final byte RECORD_ACTIVITY = 1;
+    private static final byte RECORD_SECURITY_EVENT = 2;
+
+    private final SegmentedJournal journal;
+    private final SegmentedJournal deadLetters;
+    private final ScheduledExecutorService recoveryExecutor;
+
+    // Journal statistics
+    private final AtomicLong journaled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    private EventJournal() {
+        Path directory = Paths.get(System.getProperty("user.home"), ".civiljoin", "journal");
+        SegmentedJournal opened = null;
+
+        try {
+            opened = new SegmentedJournal(directory, SEGMENT_SIZE, SYNC_INTERVAL_MS, SYNC_BATCH_SIZE);
+            LOGGER.info("Event journal opened at " + directory +
+                        (opened.hasPendingRecords() ? " with records pending replay" : ""));
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to open event journal, events will be lost during database outages", e);
+        }
+        this.journal = opened;
+
+        // Records the database rejects outright are parked here instead of blocking replay
+        Path deadLetterDirectory = Paths.get(System.getProperty("user.home"), ".civiljoin", "journal-dead-letter");
+        SegmentedJournal deadLetterJournal = null;
+        try {
+            deadLetterJournal = new SegmentedJournal(deadLetterDirectory, SEGMENT_SIZE, SYNC_INTERVAL_MS, SYNC_BATCH_SIZE);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to open dead-letter journal, rejected events will be dropped", e);
+        }
+        this.deadLetters = deadLetterJournal;
+
+        recoveryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Journal-Recovery");
+            t.setDaemon(true);
+            return t;
+        });
+        recoveryExecutor.scheduleWithFixedDelay(this::replayIfDatabaseAvailable,
+            RECOVERY_INTERVAL_SECONDS, RECOVERY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static EventJournal getInstance() {
+        if (instance == null) {
+            synchronized (EventJournal.class) {
+                if (instance == null) {
+                    instance = new EventJournal();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * True while journaled events are waiting for replay; writers should journal
+     * new events too so replay keeps them in order
+     */
+    public boolean hasBacklog() {
+        return journal != null && journal.hasPendingRecords();
+    }
+
+    /**
+     * Journal activities that could not be written to the database
+     */
+    public boolean appendActivities(List<ActivityLogWriter.PendingActivity> activities) {
+        if (journal == null) {
+            return false;
+        }
+
+        try {
+            for (ActivityLogWriter.PendingActivity activity : activities) {
+                journal.append(encodeActivity(activity));
+            }
+            journaled.addAndGet(activities.size());
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to journal " + activities.size() + " activities", e);
+            return false;
+        }
+    }
+
+    /**
+     * Journal a security event that could not be written to the database
+     */
+    public boolean appendSecurityEvent(SecurityService.PendingSecurityEvent event) {
+        if (journal == null) {
+            return false;
+        }
+
+        try {
+            journal.append(encodeSecurityEvent(event));
+            journaled.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to journal security event", e);
+            return false;
+        }
+    }
+
+    /**
+     * Park activities the database rejected outright in the dead-letter journal
+     */
+    public void deadLetterActivities(List<ActivityLogWriter.PendingActivity> activities) {
+        for (ActivityLogWriter.PendingActivity activity : activities) {
+            try {
+                appendDeadLetter(encodeActivity(activity));
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to encode rejected activity", e);
+            }
+        }
+    }
+
+    /**
+     * Replay the backlog now if the database is reachable
+     */
+    public void replayIfDatabaseAvailable() {
+        if (!hasBacklog() || !DatabaseUtil.testConnection()) {
+            return;
+        }
+
+        try {
+            int applied = journal.replay(REPLAY_BATCH_SIZE, this::applyBatch);
+            if (applied > 0) {
+                replayed.addAndGet(applied);
+                LOGGER.info("Replayed " + applied + " journaled events" +
+                            (hasBacklog() ? ", backlog remains" : ""));
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Event journal replay failed", e);
+        }
+    }
+
+    /**
+     * Stop recovery and sync the journal to disk
+     */
+    public void shutdown() {
+        recoveryExecutor.shutdown();
+        try {
+            recoveryExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // One last attempt so a clean shutdown leaves nothing behind
+        replayIfDatabaseAvailable();
+        if (journal != null) {
+            journal.close();
+        }
+        if (deadLetters != null) {
+            deadLetters.close();
+        }
+        LOGGER.info("EventJournal shutdown complete: " + getStats());
+    }
+
+    public String getStats() {
+        return String.format("EventJournal - Journaled: %d, Replayed: %d, Dead-lettered: %d, Backlog: %s",
+            journaled.get(), replayed.get(), deadLettered.get(), hasBacklog());
+    }
+
+    /**
+     * Write one replay batch in a single transaction, preserving journal order.
+     * If the database rejects the batch outright (data or constraint error), it is retried
+     * record by record inside the same transaction and the records that still fail are moved
+     * to the dead-letter journal, so one poison record cannot hold the backlog forever.
+     */
+    private boolean applyBatch(List<byte[]> records) {
+        List<Object> events = new ArrayList<>(records.size());
+        List<byte[]> eventRecords = new ArrayList<>(records.size());
+        List<byte[]> poison = new ArrayList<>();
+
+        for (byte[] record : records) {
+            try {
+                events.add(decode(record));
+                eventRecords.add(record);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Moving undecodable journal record to the dead-letter journal", e);
+                poison.add(record);
+            }
+        }
+
+        List<Object> committed = events;
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.getConnection();
+            conn.setAutoCommit(false);
+
+            try {
+                insertInOrder(conn, events);
+            } catch (SQLException e) {
+                if (!DatabaseUtil.isPermanentFailure(e)) {
+                    throw e;
+                }
+                LOGGER.log(Level.WARNING, "Journal replay batch rejected, retrying record by record", e);
+                conn.rollback();
+                committed = insertEach(conn, events, eventRecords, poison);
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Journal replay batch failed, will retry", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    LOGGER.log(Level.WARNING, "Rollback of journal replay failed", rollbackError);
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Could not reset auto-commit", e);
+                }
+                DatabaseUtil.closeConnection(conn);
+            }
+        }
+
+        for (byte[] record : poison) {
+            appendDeadLetter(record);
+        }
+
+        // Rollups only count events that are committed
+        StatisticsRollupService rollups = StatisticsRollupService.getInstance();
+        for (Object event : committed) {
+            if (event instanceof ActivityLogWriter.PendingActivity activity) {
+                rollups.record(StatisticsRollupService.Source.ACTIVITY, activity.activityType, activity.severity,
+                               activity.userId, null, activity.createdAt);
+            } else {
+                SecurityService.PendingSecurityEvent security = (SecurityService.PendingSecurityEvent) event;
+                rollups.record(StatisticsRollupService.Source.SECURITY, security.eventType, security.severity,
+                               security.userId, security.ipAddress, security.createdAt);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Insert events in journal order, flushing runs of the same kind together
+     */
+    private void insertInOrder(Connection conn, List<Object> events) throws SQLException {
+        List<ActivityLogWriter.PendingActivity> activities = new ArrayList<>();
+        List<SecurityService.PendingSecurityEvent> securityEvents = new ArrayList<>();
+
+        for (Object event : events) {
+            if (event instanceof ActivityLogWriter.PendingActivity) {
+                if (!securityEvents.isEmpty()) {
+                    SecurityService.insertSecurityEvents(conn, securityEvents);
+                    securityEvents.clear();
+                }
+                activities.add((ActivityLogWriter.PendingActivity) event);
+            } else {
+                if (!activities.isEmpty()) {
+                    ActivityLogWriter.insertActivities(conn, activities);
+                    activities.clear();
+                }
+                securityEvents.add((SecurityService.PendingSecurityEvent) event);
+            }
+        }
+        if (!activities.isEmpty()) {
+            ActivityLogWriter.insertActivities(conn, activities);
+        }
+        if (!securityEvents.isEmpty()) {
+            SecurityService.insertSecurityEvents(conn, securityEvents);
+        }
+    }
+
+    /**
+     * Insert events one at a time behind savepoints; records the database rejects are
+     * collected as poison, any other failure aborts the batch
+     */
+    private List<Object> insertEach(Connection conn, List<Object> events, List<byte[]> eventRecords,
+                                    List<byte[]> poison) throws SQLException {
+        List<Object> inserted = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                insertInOrder(conn, List.of(events.get(i)));
+                inserted.add(events.get(i));
+            } catch (SQLException e) {
+                if (!DatabaseUtil.isPermanentFailure(e)) {
+                    throw e;
+                }
+                conn.rollback(savepoint);
+                poison.add(eventRecords.get(i));
+                LOGGER.log(Level.WARNING, "Moving rejected journal record to the dead-letter journal", e);
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Keep a record the database will never accept; dead letters are not replayed automatically
+     */
+    private void appendDeadLetter(byte[] record) {
+        if (deadLetters == null) {
+            LOGGER.severe("Dropped rejected journal record: dead-letter journal unavailable");
+            return;
+        }
+        try {
+            deadLetters.append(record);
+            deadLettered.incrementAndGet();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Dropped rejected journal record: dead-letter append failed", e);
+        }
+    }
+
+    private byte[] encodeActivity(ActivityLogWriter.PendingActivity activity) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECORD_ACTIVITY);
+        writeInteger(out, activity.userId);
+        writeString(out, activity.activityType);
+        writeString(out, activity.description);
+        writeString(out, activity.entityType);
+        writeInteger(out, activity.entityId);
+        writeString(out, activity.severity);
+        writeString(out, activity.ipAddress);
+        writeString(out, activity.userAgent);
+        writeBytes(out, activity.metadata);
+        writeTimestamp(out, activity.createdAt);
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeSecurityEvent(SecurityService.PendingSecurityEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECORD_SECURITY_EVENT);
+        writeString(out, event.eventType);
+        writeInteger(out, event.userId);
+        writeString(out, event.ipAddress);
+        writeString(out, event.userAgent);
+        writeString(out, event.description);
+        writeString(out, event.severity);
+        writeBytes(out, event.metadata);
+        writeTimestamp(out, event.createdAt);
+        return bytes.toByteArray();
+    }
+
+    private Object decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+
+        if (type == RECORD_ACTIVITY) {
+            return new ActivityLogWriter.PendingActivity(
+                readInteger(in), readString(in), readString(in), readString(in), readInteger(in),
+                readString(in), readString(in), readString(in), readBytes(in),
+                readTimestamp(in));
+        }
+        if (type == RECORD_SECURITY_EVENT) {
+            return new SecurityService.PendingSecurityEvent(
+                readString(in), readInteger(in), readString(in), readString(in), readString(in),
+                readString(in), readBytes(in), readTimestamp(in));
+        }
+        throw new IOException("Unknown journal record type " + type);
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        LocalDateTime timestamp = value != null ? value : LocalDateTime.now();
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+    }
+
+    private LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,256 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.User;
+import gov.civiljoin.service.AdminSecurityService.SecurityAction;
+import gov.civiljoin.util.DatabaseUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk issuance of registration keys.
+ * Keys are a type prefix plus random characters from a per-thread {@link SecureRandom}, padded
+ * to the 16-character key_value column. Collisions with existing keys are left to the unique
+ * key_value constraint: a batch that hits one is rolled back to its savepoint and redrawn. All
+ * batches are written in one transaction, so a request either issues exactly the requested
+ * number of unique keys or none. Issued keys are also written to a CSV file for distribution.
+ * <p>
+ * Issuing needs ADMIN_ACCESS; runs of more than {@link #BULK_ISSUANCE_THRESHOLD} keys and any
+ * ADMIN keys also need BULK_OPERATION. These checks live here only, so every caller gets them.
+ */
+public class KeyIssuanceService {
+    private static final Logger LOGGER = Logger.getLogger(KeyIssuanceService.class.getName());
+    private static KeyIssuanceService instance;
+
+    // Key format: unambiguous upper-case alphabet (no 0/O, 1/I), 5 bits per character
+    private static final String KEY_ALPHABET = "23456789ABCDEFGHJKLMNPQRSTUVWXYZ";
+    private static final int KEY_LENGTH = 16;
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    // Issuance limits
+    public static final int MAX_KEYS_PER_REQUEST = 100_000;
+    public static final int BULK_ISSUANCE_THRESHOLD = 50;
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_COLLISION_ROUNDS = 10;
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final AsyncTaskService asyncService = AsyncTaskService.getInstance();
+
+    private KeyIssuanceService() {
+    }
+
+    public static KeyIssuanceService getInstance() {
+        if (instance == null) {
+            synchronized (KeyIssuanceService.class) {
+                if (instance == null) {
+                    instance = new KeyIssuanceService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether issuing these keys needs BULK_OPERATION on top of ADMIN_ACCESS
+     */
+    static boolean requiresBulkPermission(String keyType, int count) {
+        return count > BULK_ISSUANCE_THRESHOLD || "ADMIN".equals(keyType);
+    }
+
+    /**
+     * Issue {@code count} new keys on the DB pool and export them to the default export directory
+     *
+     * @param keyType     key_type value (USER, ADMIN, MODERATOR, TEMPORARY)
+     * @param count       number of keys, 1 to {@link #MAX_KEYS_PER_REQUEST}
+     * @param description stored with every key
+     * @param issuer      the issuing admin; checked against the permission policy
+     */
+    public CompletableFuture<IssuedKeys> issueKeys(String keyType, int count, String description, User issuer) {
+        if (count < 1 || count > MAX_KEYS_PER_REQUEST) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                "Key count must be between 1 and " + MAX_KEYS_PER_REQUEST));
+        }
+        AdminSecurityService security = AdminSecurityService.getInstance();
+        if (!security.checkPermission(issuer, SecurityAction.ADMIN_ACCESS, "key_generation") ||
+                (requiresBulkPermission(keyType, count) &&
+                 !security.checkPermission(issuer, SecurityAction.BULK_OPERATION, "key_generation"))) {
+            return CompletableFuture.failedFuture(new SecurityException(
+                "Insufficient privileges to issue " + count + " " + keyType + " keys"));
+        }
+        int generatedBy = issuer.getId();
+        return asyncService.executeDbTask(() -> {
+            long startTime = System.nanoTime();
+            List<String> keys;
+            try {
+                keys = insertKeys(keyType, count, description, generatedBy);
+            } catch (SQLException e) {
+                throw new RuntimeException("Key issuance failed: " + e.getMessage(), e);
+            }
+            long insertMs = (System.nanoTime() - startTime) / 1_000_000;
+            Path exportFile = exportKeys(keyType, keys);
+            LOGGER.info("Issued " + keys.size() + " " + keyType + " keys in " + insertMs + "ms"
+                + (exportFile != null ? ", exported to " + exportFile : ""));
+            return new IssuedKeys(keyType, keys, exportFile, insertMs);
+        });
+    }
+
+    /**
+     * A single random key with the given prefix, filled to 16 characters
+     */
+    public static String randomKey(String prefix) {
+        SecureRandom random = RANDOM.get();
+        StringBuilder key = new StringBuilder(KEY_LENGTH).append(prefix);
+        while (key.length() < KEY_LENGTH) {
+            key.append(KEY_ALPHABET.charAt(random.nextInt(KEY_ALPHABET.length())));
+        }
+        return key.toString();
+    }
+
+    private static String prefixFor(String keyType) {
+        switch (keyType) {
+            case "ADMIN": return "ADMIN";
+            case "MODERATOR": return "MOD";
+            case "TEMPORARY": return "TEMP";
+            default: return "USER";
+        }
+    }
+
+    private List<String> insertKeys(String keyType, int count, String description, int generatedBy) throws SQLException {
+        String prefix = prefixFor(keyType);
+        List<String> issued = new ArrayList<>(count);
+        Set<String> drawn = new HashSet<>(count * 2);
+
+        String insertSql = "INSERT INTO key_ids (key_value, key_type, description, generated_by) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(insertSql)) {
+                while (issued.size() < count) {
+                    int size = Math.min(BATCH_SIZE, count - issued.size());
+                    issued.addAll(insertBatch(conn, insert, prefix, size, keyType, description, generatedBy, drawn));
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        return issued;
+    }
+
+    /**
+     * Insert one batch of {@code size} new keys behind a savepoint. A batch that collides with
+     * an existing key is rolled back to the savepoint and redrawn; other failures propagate.
+     */
+    private List<String> insertBatch(Connection conn, PreparedStatement insert, String prefix, int size,
+                                     String keyType, String description, int generatedBy,
+                                     Set<String> drawn) throws SQLException {
+        for (int round = 1; ; round++) {
+            List<String> batch = drawKeys(prefix, size, drawn);
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                for (String key : batch) {
+                    insert.setString(1, key);
+                    insert.setString(2, keyType);
+                    insert.setString(3, description);
+                    insert.setInt(4, generatedBy);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                return batch;
+            } catch (SQLException e) {
+                insert.clearBatch();
+                if (!DatabaseUtil.isDuplicateKey(e) || round >= MAX_COLLISION_ROUNDS) {
+                    throw e;
+                }
+                conn.rollback(savepoint);
+                LOGGER.fine("Key batch collided with an existing key, redrawing (round " + round + ")");
+            }
+        }
+    }
+
+    /**
+     * Draw {@code size} keys not yet drawn by this request
+     */
+    static List<String> drawKeys(String prefix, int size, Set<String> drawn) {
+        List<String> batch = new ArrayList<>(size);
+        while (batch.size() < size) {
+            String key = randomKey(prefix);
+            if (drawn.add(key)) {
+                batch.add(key);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Write the keys to a CSV file under ~/CivilJoin-Exports; null if the export fails
+     */
+    private Path exportKeys(String keyType, List<String> keys) {
+        Path directory = Paths.get(System.getProperty("user.home"), "CivilJoin-Exports");
+        Path target = directory.resolve("registration-keys-" + keyType.toLowerCase() + "-"
+            + LocalDateTime.now().format(FILE_TIMESTAMP) + ".csv");
+        try {
+            Files.createDirectories(directory);
+            try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                writer.write("key_value,key_type");
+                writer.newLine();
+                for (String key : keys) {
+                    writer.write(key);
+                    writer.write(',');
+                    writer.write(keyType);
+                    writer.newLine();
+                }
+            }
+            return target;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to export issued keys to " + target, e);
+            return null;
+        }
+    }
+
+    /**
+     * Result of one issuance request
+     */
+    public static class IssuedKeys {
+        private final String keyType;
+        private final List<String> keys;
+        private final Path exportFile;
+        private final long durationMs;
+
+        IssuedKeys(String keyType, List<String> keys, Path exportFile, long durationMs) {
+            this.keyType = keyType;
+            this.keys = Collections.unmodifiableList(keys);
+            this.exportFile = exportFile;
+            this.durationMs = durationMs;
+        }
+
+        public String getKeyType() { return keyType; }
+        public List<String> getKeys() { return keys; }
+        public Path getExportFile() { return exportFile; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -0,0 +1,271 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind buffer for the login bookkeeping columns of users.
+ * <p>
+ * Successful and failed logins only update a per-user entry in memory (latest last_login,
+ * failures since the last reset); entries are flushed periodically as multi-row UPDATEs, so a
+ * busy account costs one write per flush instead of one per attempt and the hot users rows see
+ * far fewer single-row writes. Lockouts are not buffered: they are written through at once,
+ * on the same writer thread as the flushes so the two can never reorder.
+ */
+public class LoginBookkeepingBuffer {
+    private static final Logger LOGGER = Logger.getLogger(LoginBookkeepingBuffer.class.getName());
+    private static LoginBookkeepingBuffer instance;
+
+    // Buffer configuration
+    private static final long FLUSH_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final int MAX_PENDING_USERS = 5000;
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    // Buffer statistics
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong writeThroughs = new AtomicLong();
+
+    private LoginBookkeepingBuffer() {
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Login-Bookkeeping");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static LoginBookkeepingBuffer getInstance() {
+        if (instance == null) {
+            synchronized (LoginBookkeepingBuffer.class) {
+                if (instance == null) {
+                    instance = new LoginBookkeepingBuffer();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Record a successful login: sets last_login and resets the failure count on the next flush
+     */
+    public void recordSuccess(String username) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        pending.compute(key(username), (k, entry) -> {
+            Pending updated = entry != null ? entry : new Pending();
+            updated.lastLogin = now;
+            updated.resetFailures = true;
+            updated.failedDelta = 0;
+            return updated;
+        });
+        recorded();
+    }
+
+    /**
+     * Record a failed password for an existing account
+     */
+    public void recordFailure(String username) {
+        pending.compute(key(username), (k, entry) -> {
+            Pending updated = entry != null ? entry : new Pending();
+            updated.failedDelta++;
+            return updated;
+        });
+        recorded();
+    }
+
+    /**
+     * Write a lockout through immediately; never shortens an existing lock.
+     * Buffered failures for the account are dropped, as the lockout sets the absolute count.
+     */
+    public void recordLockout(String username, int attempts, int lockMinutes) {
+        pending.computeIfPresent(key(username), (k, entry) -> {
+            entry.failedDelta = 0;
+            entry.resetFailures = false;
+            return entry.lastLogin != null ? entry : null;
+        });
+        writeThroughs.incrementAndGet();
+
+        try {
+            writer.execute(() -> writeLockout(username, attempts, lockMinutes));
+        } catch (RejectedExecutionException e) {
+            // Shutting down: write on the caller rather than lose the lockout
+            writeLockout(username, attempts, lockMinutes);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write all buffered entries now
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> usernames = new ArrayList<>(pending.size());
+        List<Pending> entries = new ArrayList<>(pending.size());
+        for (String username : pending.keySet()) {
+            Pending entry = pending.remove(username);
+            if (entry != null) {
+                usernames.add(username);
+                entries.add(entry);
+            }
+        }
+
+        for (int from = 0; from < usernames.size(); from += MAX_ROWS_PER_STATEMENT) {
+            int to = Math.min(from + MAX_ROWS_PER_STATEMENT, usernames.size());
+            List<String> chunkNames = usernames.subList(from, to);
+            List<Pending> chunkEntries = entries.subList(from, to);
+            try {
+                writeChunk(chunkNames, chunkEntries);
+                flushedRows.addAndGet(chunkNames.size());
+                statements.incrementAndGet();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Failed to write login bookkeeping for " + chunkNames.size() +
+                           " users, retrying next flush", e);
+                for (int i = 0; i < chunkNames.size(); i++) {
+                    pending.merge(chunkNames.get(i), chunkEntries.get(i), (newer, older) -> newer.after(older));
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        LOGGER.info("LoginBookkeepingBuffer shutdown complete: " + getStats());
+    }
+
+    public String getStats() {
+        return String.format("LoginBookkeeping - Pending: %d, Recorded: %d, Rows flushed: %d, Statements: %d, Lockouts written through: %d",
+            pending.size(), recorded.get(), flushedRows.get(), statements.get(), writeThroughs.get());
+    }
+
+    private void recorded() {
+        recorded.incrementAndGet();
+        if (pending.size() >= MAX_PENDING_USERS && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * One multi-row UPDATE for a chunk of accounts, keyed by username
+     */
+    private void writeChunk(List<String> usernames, List<Pending> entries) throws SQLException {
+        StringBuilder lastLogin = new StringBuilder("last_login = CASE username");
+        StringBuilder failures = new StringBuilder("failed_login_attempts = CASE username");
+        StringBuilder in = new StringBuilder();
+        for (int i = 0; i < usernames.size(); i++) {
+            lastLogin.append(" WHEN ? THEN COALESCE(?, last_login)");
+            failures.append(" WHEN ? THEN IF(?, 0, failed_login_attempts) + ?");
+            in.append(i == 0 ? "?" : ", ?");
+        }
+        String sql = "UPDATE users SET " + lastLogin + " ELSE last_login END, " +
+                     failures + " ELSE failed_login_attempts END WHERE username IN (" + in + ")";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int i = 0; i < usernames.size(); i++) {
+                stmt.setString(index++, usernames.get(i));
+                stmt.setTimestamp(index++, entries.get(i).lastLogin);
+            }
+            for (int i = 0; i < usernames.size(); i++) {
+                stmt.setString(index++, usernames.get(i));
+                stmt.setBoolean(index++, entries.get(i).resetFailures);
+                stmt.setInt(index++, entries.get(i).failedDelta);
+            }
+            for (String username : usernames) {
+                stmt.setString(index++, username);
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    private void writeLockout(String username, int attempts, int lockMinutes) {
+        String sql = """
+            UPDATE users
+            SET locked_until = GREATEST(COALESCE(locked_until, NOW()), DATE_ADD(NOW(), INTERVAL ? MINUTE)),
+                failed_login_attempts = ?
+            WHERE username = ?
+            """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, lockMinutes);
+            stmt.setInt(2, attempts);
+            stmt.setString(3, username);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to persist lockout for " + username, e);
+        }
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase();
+    }
+
+    /**
+     * Coalesced bookkeeping for one account since the last flush
+     */
+    private static final class Pending {
+        Timestamp lastLogin;
+        boolean resetFailures;
+        int failedDelta;
+
+        /**
+         * Combine this (newer) entry with an older one that failed to flush
+         */
+        Pending after(Pending older) {
+            if (lastLogin == null) {
+                lastLogin = older.lastLogin;
+            }
+            if (!resetFailures) {
+                resetFailures = older.resetFailures;
+                failedDelta += older.failedDelta;
+            }
+            return this;
+        }
+    }
+}
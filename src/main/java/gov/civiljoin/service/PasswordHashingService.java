@@ -0,0 +1,287 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.PasswordUtil;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dedicated executor for password hashing (PBKDF2), kept apart from the database pool so a
+ * burst of logins cannot starve other queries of DB threads.
+ * <p>
+ * One thread per core and a bounded queue; when the queue is full a request is rejected at once
+ * with {@link SaturatedException} instead of waiting. Admission is also capped per username and
+ * per IP, so one noisy source cannot occupy the whole queue and everyone else gets a fair share.
+ * Queue-wait and hash-time distributions are recorded for {@link #getStats()}.
+ */
+public class PasswordHashingService {
+    private static final Logger LOGGER = Logger.getLogger(PasswordHashingService.class.getName());
+    private static PasswordHashingService instance;
+
+    // Executor configuration
+    private static final int QUEUE_SLOTS_PER_THREAD = 16;
+    private static final int MAX_IN_FLIGHT_PER_USERNAME = 2;
+    private static final int MAX_IN_FLIGHT_PER_IP = 8;
+    private static final long TARGET_VERIFY_MILLIS = 200; // leaves headroom in the 500ms login budget
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+    // Hashing statistics
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram hashTime = new LatencyHistogram();
+    private final AtomicLong rejectedSaturated = new AtomicLong();
+    private final AtomicLong rejectedPerSource = new AtomicLong();
+
+    private PasswordHashingService() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads * QUEUE_SLOTS_PER_THREAD),
+            r -> {
+                Thread t = new Thread(r, "Password-Hasher-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        executor.prestartAllCoreThreads();
+
+        LOGGER.info("PasswordHashingService initialized with " + threads + " threads and a queue of "
+            + threads * QUEUE_SLOTS_PER_THREAD);
+    }
+
+    public static PasswordHashingService getInstance() {
+        if (instance == null) {
+            synchronized (PasswordHashingService.class) {
+                if (instance == null) {
+                    instance = new PasswordHashingService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Run a hashing task for the given username and IP (either may be null).
+     * The returned future fails with {@link SaturatedException} without queuing if the executor
+     * or the caller's per-source share is full.
+     */
+    public <T> CompletableFuture<T> submit(String username, String ipAddress, Supplier<T> task) {
+        String userKey = username != null ? "user:" + username.toLowerCase() : null;
+        String ipKey = ipAddress != null ? "ip:" + ipAddress : null;
+
+        if (!acquire(userKey, MAX_IN_FLIGHT_PER_USERNAME)) {
+            rejectedPerSource.incrementAndGet();
+            return CompletableFuture.failedFuture(new SaturatedException("Too many concurrent sign-in attempts for this account"));
+        }
+        if (!acquire(ipKey, MAX_IN_FLIGHT_PER_IP)) {
+            release(userKey);
+            rejectedPerSource.incrementAndGet();
+            return CompletableFuture.failedFuture(new SaturatedException("Too many concurrent sign-in attempts from this address"));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - enqueuedAt);
+                try {
+                    result.complete(task.get());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    hashTime.record(System.nanoTime() - startedAt);
+                    release(userKey);
+                    release(ipKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(userKey);
+            release(ipKey);
+            rejectedSaturated.incrementAndGet();
+            result.completeExceptionally(new SaturatedException("Sign-in is busy, please try again in a moment"));
+        }
+        return result;
+    }
+
+    /**
+     * Calibrate the PBKDF2 cost for new hashes on one of the hashing threads, so the measurement
+     * reflects the threads that will do the work, and match the decoy cost to the stored hashes
+     */
+    public void calibrate() {
+        try {
+            executor.execute(() -> {
+                try {
+                    int iterations = PasswordUtil.calibrate(TARGET_VERIFY_MILLIS);
+                    LOGGER.info("Password hashing calibrated to " + iterations + " PBKDF2 iterations (~"
+                        + TARGET_VERIFY_MILLIS + "ms per verification)");
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Password hashing calibration failed, keeping "
+                        + PasswordUtil.getCurrentIterations() + " iterations", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warning("Password hashing calibration skipped: executor unavailable");
+        }
+        AsyncTaskService.getInstance().executeDbTask(this::updateDecoyCost);
+    }
+    
+    /**
+     * Set the decoy cost for unknown usernames to the most common cost among stored hashes,
+     * so a failed login for a missing account takes as long as one for a real account
+     */
+    private Void updateDecoyCost() {
+        String sql = """
+            SELECT CASE WHEN password_hash LIKE '$pbkdf2-sha256$i=%'
+                        THEN SUBSTRING_INDEX(SUBSTRING_INDEX(password_hash, ',', 1), 'i=', -1)
+                        ELSE NULL END AS iterations,
+                   COUNT(*) AS accounts
+            FROM users
+            WHERE is_active = TRUE
+            GROUP BY iterations
+            ORDER BY accounts DESC
+            LIMIT 1
+            """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                String iterations = rs.getString("iterations");
+                PasswordUtil.setDecoyIterations(iterations != null
+                    ? Integer.parseInt(iterations) : PasswordUtil.getIterations(null));
+                LOGGER.info("Unknown-user decoy hash set to " + PasswordUtil.getDecoyIterations() + " PBKDF2 iterations");
+            }
+        } catch (SQLException | NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Failed to read stored password costs, keeping decoy at "
+                + PasswordUtil.getDecoyIterations() + " iterations", e);
+        }
+        return null;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public String getStats() {
+        return String.format("PasswordHashing - Iterations: %d, Threads: %d, Active: %d, Queued: %d, Completed: %d, " +
+                "Rejected (saturated/per-source): %d/%d, Queue wait ms (avg/p95/max): %.1f/%d/%d, " +
+                "Hash ms (avg/p95/max): %.1f/%d/%d",
+            PasswordUtil.getCurrentIterations(), executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+            executor.getCompletedTaskCount(), rejectedSaturated.get(), rejectedPerSource.get(),
+            queueWait.meanMillis(), queueWait.percentileMillis(0.95), queueWait.maxMillis(),
+            hashTime.meanMillis(), hashTime.percentileMillis(0.95), hashTime.maxMillis());
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        LOGGER.info("PasswordHashingService shutdown complete: " + getStats());
+    }
+
+    private boolean acquire(String key, int limit) {
+        if (key == null) {
+            return true;
+        }
+        boolean[] admitted = {false};
+        inFlight.compute(key, (k, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= limit) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0];
+    }
+
+    private void release(String key) {
+        if (key != null) {
+            inFlight.computeIfPresent(key, (k, count) -> count <= 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * Thrown (via the returned future) when a hashing request is refused for load reasons
+     */
+    public static class SaturatedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public SaturatedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Lock-free latency histogram with power-of-two millisecond buckets
+     */
+    private static final class LatencyHistogram {
+        private static final int BUCKETS = 16; // up to 2^15 ms, last bucket open-ended
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder samples = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(Math.max(0, nanos));
+            int bucket = millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+            counts.incrementAndGet(bucket);
+            totalNanos.add(nanos);
+            samples.increment();
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        double meanMillis() {
+            long n = samples.sum();
+            return n == 0 ? 0 : totalNanos.sum() / (double) n / 1_000_000;
+        }
+
+        long maxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+
+        /**
+         * Upper bound of the bucket containing the given percentile
+         */
+        long percentileMillis(double percentile) {
+            long n = samples.sum();
+            if (n == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(n * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= target) {
+                    return Math.min(i == 0 ? 1 : 1L << i, maxMillis());
+                }
+            }
+            return maxMillis();
+        }
+    }
+}
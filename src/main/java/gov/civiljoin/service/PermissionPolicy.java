@@ -0,0 +1,143 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.User;
+import gov.civiljoin.service.AdminSecurityService.SecurityAction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, precompiled permission table.
+ * Each role gets a bitset over {@link SecurityAction} × resource, so a permission check is one
+ * map lookup for the resource id and one bit test. Resources named in a grant get their own
+ * column; any other resource uses the wildcard column, which holds the grants made for "*".
+ * Policies are built once and swapped as a whole when the policy changes (e.g. emergency mode).
+ */
+public final class PermissionPolicy {
+    public static final String ANY_RESOURCE = "*";
+    private static final int WILDCARD_ID = 0;
+
+    private final Map<String, Integer> resourceIds;
+    private final int resourceCount;
+    private final long[][] roleBits;
+
+    private PermissionPolicy(Map<String, Integer> resourceIds, long[][] roleBits) {
+        this.resourceIds = resourceIds;
+        this.resourceCount = resourceIds.size() + 1;
+        this.roleBits = roleBits;
+    }
+
+    /**
+     * The standard role model: owners may do everything, admins everything but emergency and
+     * override actions, moderators the admin panel and sensitive views, users the basics
+     */
+    public static PermissionPolicy standard() {
+        return builder()
+            .grant(SecurityAction.EMERGENCY_ACTIVATION, ANY_RESOURCE, User.Role.OWNER)
+            .grant(SecurityAction.SYSTEM_OVERRIDE, ANY_RESOURCE, User.Role.OWNER)
+            .grant(SecurityAction.PRIVILEGE_ESCALATION, ANY_RESOURCE, User.Role.OWNER, User.Role.ADMIN)
+            .grant(SecurityAction.BULK_OPERATION, ANY_RESOURCE, User.Role.OWNER, User.Role.ADMIN)
+            .grant(SecurityAction.ADMIN_ACCESS, ANY_RESOURCE, User.Role.OWNER, User.Role.ADMIN, User.Role.MODERATOR)
+            .grant(SecurityAction.SENSITIVE_ACCESS, ANY_RESOURCE, User.Role.OWNER, User.Role.ADMIN, User.Role.MODERATOR)
+            .grant(SecurityAction.LOGIN_ATTEMPT, ANY_RESOURCE, User.Role.values())
+            .grant(SecurityAction.DATA_MODIFICATION, ANY_RESOURCE, User.Role.values())
+            .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Single bit test; null roles and actions are denied
+     */
+    public boolean allows(User.Role role, SecurityAction action, String resource) {
+        if (role == null || action == null) {
+            return false;
+        }
+        Integer resourceId = resource != null ? resourceIds.get(resource) : null;
+        int bit = action.ordinal() * resourceCount + (resourceId != null ? resourceId : WILDCARD_ID);
+        return (roleBits[role.ordinal()][bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Copy of this policy in which only the given roles keep their permissions
+     */
+    public PermissionPolicy restrictTo(Set<User.Role> roles) {
+        long[][] bits = new long[roleBits.length][];
+        for (User.Role role : User.Role.values()) {
+            bits[role.ordinal()] = roles.contains(role)
+                ? roleBits[role.ordinal()].clone()
+                : new long[roleBits[role.ordinal()].length];
+        }
+        return new PermissionPolicy(resourceIds, bits);
+    }
+
+    /**
+     * Collects grants and compiles them into per-role bitsets
+     */
+    public static final class Builder {
+        private final List<Grant> grants = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder grant(SecurityAction action, String resource, User.Role... roles) {
+            grants.add(new Grant(action, resource, roles.length == 0
+                ? EnumSet.noneOf(User.Role.class) : EnumSet.copyOf(Arrays.asList(roles))));
+            return this;
+        }
+
+        public PermissionPolicy build() {
+            Map<String, Integer> resourceIds = new HashMap<>();
+            for (Grant grant : grants) {
+                if (!ANY_RESOURCE.equals(grant.resource)) {
+                    resourceIds.putIfAbsent(grant.resource, resourceIds.size() + 1);
+                }
+            }
+
+            int resourceCount = resourceIds.size() + 1;
+            int words = (SecurityAction.values().length * resourceCount + 63) / 64;
+            long[][] bits = new long[User.Role.values().length][words];
+
+            for (Grant grant : grants) {
+                int base = grant.action.ordinal() * resourceCount;
+                for (User.Role role : grant.roles) {
+                    long[] roleWords = bits[role.ordinal()];
+                    if (ANY_RESOURCE.equals(grant.resource)) {
+                        // Wildcard grants cover every resource column
+                        for (int column = 0; column < resourceCount; column++) {
+                            setBit(roleWords, base + column);
+                        }
+                    } else {
+                        setBit(roleWords, base + resourceIds.get(grant.resource));
+                    }
+                }
+            }
+
+            return new PermissionPolicy(Collections.unmodifiableMap(resourceIds), bits);
+        }
+
+        private static void setBit(long[] words, int bit) {
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static final class Grant {
+        final SecurityAction action;
+        final String resource;
+        final Set<User.Role> roles;
+
+        Grant(SecurityAction action, String resource, Set<User.Role> roles) {
+            this.action = action;
+            this.resource = resource != null ? resource : ANY_RESOURCE;
+            this.roles = roles;
+        }
+    }
+}
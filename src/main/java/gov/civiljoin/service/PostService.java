@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.Optional;
@@ -30,12 +31,31 @@ public class PostService {
     private static final String ALL_POSTS_CACHE_KEY = "posts:all";
     private static final String USER_POSTS_CACHE_PREFIX = "posts:user:";
     private static final int POSTS_CACHE_TTL_MINUTES = 5;
+    private static final int FIRST_PAGE_SIZE = 50;
     
     /**
      * Get all posts with caching and pagination
      */
     public List<Post> getAllPosts() {
-        return getAllPosts(0, 50); // Default pagination
+        return getAllPosts(0, FIRST_PAGE_SIZE); // Default pagination
+    }
+    
+    /**
+     * First feed page read straight from the database without touching the cache
+     * 
+     * @param onStatement receives the running statement so the caller can cancel it
+     */
+    public List<Post> loadFirstPageUncached(Consumer<Statement> onStatement) {
+        return getAllPostsFromDatabase(0, FIRST_PAGE_SIZE, onStatement);
+    }
+    
+    /**
+     * Seed the cache entry that {@link #getAllPosts()} reads, unless posts were invalidated
+     * after {@code generation} (from {@link CacheService#getPostsGeneration()}) was read
+     */
+    public boolean primeFirstPage(List<Post> posts, long generation) {
+        return cacheService.cachePostsIfCurrent(
+            String.format("%s:%d:%d", ALL_POSTS_CACHE_KEY, 0, FIRST_PAGE_SIZE), posts, generation);
     }
     
     /**
@@ -66,7 +86,7 @@ public class PostService {
      * Get posts asynchronously for better UI responsiveness
      */
     public CompletableFuture<List<Post>> getAllPostsAsync() {
-        return getAllPostsAsync(0, 50);
+        return getAllPostsAsync(0, FIRST_PAGE_SIZE);
     }
     
     /**
@@ -80,6 +100,10 @@ public class PostService {
      * Optimized database query with prepared statements and proper resource management
      */
     private List<Post> getAllPostsFromDatabase(int offset, int limit) {
+        return getAllPostsFromDatabase(offset, limit, null);
+    }
+    
+    private List<Post> getAllPostsFromDatabase(int offset, int limit, Consumer<Statement> onStatement) {
         List<Post> postList = new ArrayList<>();
         Connection conn = null;
         PreparedStatement stmt = null;
@@ -102,6 +126,9 @@ public class PostService {
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, limit);
             stmt.setInt(2, offset);
+            if (onStatement != null) {
+                onStatement.accept(stmt);
+            }
             
             rs = stmt.executeQuery();
             
@@ -0,0 +1,475 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Retention engine for the append-heavy tables.
+ * Old rows are deleted in primary-key-ordered chunks, each in its own short transaction,
+ * with a pause between chunks so purges never hold long locks or build a large undo log.
+ * Rows are appended in time order, so expired rows form a prefix of the key range and a purge
+ * stops at the first chunk holding none, never walking the live tail of the table.
+ * Progress is checkpointed per policy so an interrupted purge resumes where it stopped.
+ */
+public class RetentionService {
+    private static final Logger LOGGER = Logger.getLogger(RetentionService.class.getName());
+    private static RetentionService instance;
+
+    // Retention job configuration
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final long MIN_PAUSE_BETWEEN_CHUNKS_MS = 50;
+    private static final long INITIAL_DELAY_MINUTES = 5;
+    private static final long RUN_INTERVAL_HOURS = 6;
+
+    /** Days system activities are kept, in the hot table and the archive alike */
+    public static final int ACTIVITY_RETENTION_DAYS = 90;
+
+    private final List<RetentionPolicy> policies = new CopyOnWriteArrayList<>();
+    private final List<Consumer<RetentionProgress>> progressListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, RetentionProgress> lastReports = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService retentionExecutor;
+
+    private volatile int chunkSize = DEFAULT_CHUNK_SIZE;
+    private volatile boolean stopping = false;
+    private volatile boolean started = false;
+
+    private RetentionService() {
+        retentionExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Retention-Job");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        // Default policies, replacing the old one-shot maintenance DELETEs
+        policies.add(RetentionPolicy.olderThanDays("activity_log", "activity_log", "created_at", 90, null));
+        policies.add(RetentionPolicy.olderThanDays("system_activities", "system_activities", "created_at", ACTIVITY_RETENTION_DAYS, null));
+        policies.add(RetentionPolicy.olderThanDays("notifications", "notifications", "created_at", 30, "is_read = TRUE"));
+        policies.add(RetentionPolicy.expired("user_sessions", "user_sessions", "expires_at"));
+    }
+
+    public static RetentionService getInstance() {
+        if (instance == null) {
+            synchronized (RetentionService.class) {
+                if (instance == null) {
+                    instance = new RetentionService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Create the checkpoint table and schedule the periodic retention job
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        String sql = """
+            CREATE TABLE IF NOT EXISTS retention_checkpoints (
+                policy_name VARCHAR(64) PRIMARY KEY,
+                last_id BIGINT NOT NULL DEFAULT 0,
+                rows_deleted BIGINT NOT NULL DEFAULT 0,
+                completed BOOLEAN NOT NULL DEFAULT FALSE,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+            )
+            """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to create retention checkpoint table, purges will not resume", e);
+        }
+
+        retentionExecutor.scheduleWithFixedDelay(this::runScheduled,
+            TimeUnit.MINUTES.toMillis(INITIAL_DELAY_MINUTES), TimeUnit.HOURS.toMillis(RUN_INTERVAL_HOURS),
+            TimeUnit.MILLISECONDS);
+        started = true;
+        LOGGER.info("Retention job scheduled every " + RUN_INTERVAL_HOURS + " hours for " + policies.size() + " policies");
+    }
+
+    /**
+     * Register an additional retention policy
+     */
+    public void addPolicy(RetentionPolicy policy) {
+        policies.removeIf(existing -> existing.name.equals(policy.name));
+        policies.add(policy);
+    }
+
+    public void addProgressListener(Consumer<RetentionProgress> listener) {
+        progressListeners.add(listener);
+    }
+
+    public void removeProgressListener(Consumer<RetentionProgress> listener) {
+        progressListeners.remove(listener);
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Run every registered policy now on the calling thread
+     */
+    public List<RetentionProgress> runAll() {
+        List<RetentionProgress> reports = new ArrayList<>();
+        for (RetentionPolicy policy : policies) {
+            if (stopping) break;
+            reports.add(runPolicy(policy));
+        }
+        return reports;
+    }
+
+    /**
+     * Clean up expired sessions, old notifications and old logs now, reporting the total
+     */
+    public long performMaintenanceTasks() {
+        long totalDeleted = 0;
+        for (RetentionProgress report : runAll()) {
+            totalDeleted += report.getRowsDeleted();
+        }
+        LOGGER.info("Maintenance completed: " + totalDeleted + " expired rows cleaned");
+        return totalDeleted;
+    }
+
+    /**
+     * Run a single policy now on the calling thread
+     */
+    public synchronized RetentionProgress runPolicy(RetentionPolicy policy) {
+        RetentionProgress progress = new RetentionProgress(policy.name);
+
+        try {
+            if (policy.numericKey) {
+                purgeByKeyRange(policy, progress);
+            } else {
+                purgeByOrderedLimit(policy, progress);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Retention purge for " + policy.name + " stopped after " +
+                       progress.getRowsDeleted() + " rows, will resume from checkpoint", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        progress.finish();
+        lastReports.put(policy.name, progress);
+        notifyListeners(progress);
+
+        if (progress.getRowsDeleted() > 0) {
+            LOGGER.info(progress.toString());
+        }
+        return progress;
+    }
+
+    /**
+     * Most recent report for each policy
+     */
+    public Map<String, RetentionProgress> getLastReports() {
+        return Collections.unmodifiableMap(lastReports);
+    }
+
+    /**
+     * Stop the scheduled job; a purge in progress stops after its current chunk
+     */
+    public void shutdown() {
+        stopping = true;
+        retentionExecutor.shutdownNow();
+        try {
+            retentionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("RetentionService shutdown complete");
+    }
+
+    private void runScheduled() {
+        try {
+            runAll();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Scheduled retention run failed", e);
+        }
+    }
+
+    /**
+     * Walk the next chunk of ids after the checkpoint and delete the expired rows in its key range.
+     * The chunk is read by primary key alone, so each step costs at most one chunk of index reads;
+     * the first chunk without an expired row marks the end of the expired prefix.
+     */
+    private void purgeByKeyRange(RetentionPolicy policy, RetentionProgress progress)
+            throws SQLException, InterruptedException {
+        String condition = policy.buildCondition();
+        String selectSql = "SELECT id, " + policy.timeColumn + " < ? AS expired FROM " + policy.table +
+                           " WHERE id > ? ORDER BY id LIMIT ?";
+        String deleteSql = "DELETE FROM " + policy.table + " WHERE id BETWEEN ? AND ? AND " + condition;
+
+        String checkpointKey = policy.checkpointKey();
+        long lastId = loadCheckpoint(checkpointKey);
+        Timestamp cutoff = policy.cutoff();
+
+        while (!stopping) {
+            long chunkStart = System.currentTimeMillis();
+            long firstExpiredId = -1;
+            long lastExpiredId = -1;
+            long chunkLastId = -1;
+
+            try (Connection conn = DatabaseUtil.getConnection()) {
+                try (PreparedStatement select = conn.prepareStatement(selectSql)) {
+                    select.setTimestamp(1, cutoff);
+                    select.setLong(2, lastId);
+                    select.setInt(3, chunkSize);
+
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            long id = rs.getLong(1);
+                            chunkLastId = id;
+                            if (rs.getBoolean(2)) {
+                                if (firstExpiredId < 0) firstExpiredId = id;
+                                lastExpiredId = id;
+                            }
+                        }
+                    }
+                }
+
+                if (firstExpiredId < 0) {
+                    saveCheckpoint(conn, checkpointKey, 0, progress.getRowsDeleted(), true);
+                    return;
+                }
+
+                int deleted;
+                try (PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+                    delete.setLong(1, firstExpiredId);
+                    delete.setLong(2, lastExpiredId);
+                    delete.setTimestamp(3, cutoff);
+                    deleted = delete.executeUpdate();
+                }
+
+                lastId = chunkLastId;
+                progress.recordChunk(deleted);
+                saveCheckpoint(conn, checkpointKey, lastId, progress.getRowsDeleted(), false);
+            }
+
+            notifyListeners(progress);
+            pace(System.currentTimeMillis() - chunkStart);
+        }
+    }
+
+    /**
+     * Delete expired rows oldest first with a LIMIT; used for tables with non-numeric keys.
+     * Ordering by the time column walks its index, so each chunk touches only expired rows.
+     */
+    private void purgeByOrderedLimit(RetentionPolicy policy, RetentionProgress progress)
+            throws SQLException, InterruptedException {
+        String deleteSql = "DELETE FROM " + policy.table + " WHERE " + policy.buildCondition() +
+                           " ORDER BY " + policy.timeColumn + " LIMIT ?";
+        Timestamp cutoff = policy.cutoff();
+
+        while (!stopping) {
+            long chunkStart = System.currentTimeMillis();
+            int deleted;
+
+            try (Connection conn = DatabaseUtil.getConnection();
+                 PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+                delete.setTimestamp(1, cutoff);
+                delete.setInt(2, chunkSize);
+                deleted = delete.executeUpdate();
+            }
+
+            if (deleted == 0) {
+                return;
+            }
+
+            progress.recordChunk(deleted);
+            notifyListeners(progress);
+
+            if (deleted < chunkSize) {
+                return;
+            }
+            pace(System.currentTimeMillis() - chunkStart);
+        }
+    }
+
+    /**
+     * Sleep at least as long as the last chunk took, keeping the purge under half the database's time
+     */
+    private void pace(long lastChunkMs) throws InterruptedException {
+        Thread.sleep(Math.max(MIN_PAUSE_BETWEEN_CHUNKS_MS, lastChunkMs));
+    }
+
+    private long loadCheckpoint(String policyName) {
+        String sql = "SELECT last_id, completed FROM retention_checkpoints WHERE policy_name = ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, policyName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && !rs.getBoolean("completed")) {
+                    long lastId = rs.getLong("last_id");
+                    LOGGER.info("Resuming retention purge for " + policyName + " after id " + lastId);
+                    return lastId;
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "No retention checkpoint available for " + policyName, e);
+        }
+        return 0;
+    }
+
+    private void saveCheckpoint(Connection conn, String policyName, long lastId, long rowsDeleted, boolean completed) {
+        String sql = """
+            INSERT INTO retention_checkpoints (policy_name, last_id, rows_deleted, completed)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE last_id = VALUES(last_id), rows_deleted = VALUES(rows_deleted),
+                                    completed = VALUES(completed)
+            """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, policyName);
+            stmt.setLong(2, lastId);
+            stmt.setLong(3, rowsDeleted);
+            stmt.setBoolean(4, completed);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Failed to save retention checkpoint for " + policyName, e);
+        }
+    }
+
+    private void notifyListeners(RetentionProgress progress) {
+        for (Consumer<RetentionProgress> listener : progressListeners) {
+            try {
+                listener.accept(progress);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Retention progress listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * What to purge from one table
+     */
+    public static class RetentionPolicy {
+        final String name;
+        final String table;
+        final String timeColumn;
+        final int retentionDays;
+        final String extraCondition;
+        final boolean numericKey;
+
+        private RetentionPolicy(String name, String table, String timeColumn, int retentionDays,
+                                String extraCondition, boolean numericKey) {
+            this.name = name;
+            this.table = table;
+            this.timeColumn = timeColumn;
+            this.retentionDays = retentionDays;
+            this.extraCondition = extraCondition;
+            this.numericKey = numericKey;
+        }
+
+        /**
+         * Rows whose time column is older than the given number of days
+         */
+        public static RetentionPolicy olderThanDays(String name, String table, String timeColumn,
+                                                    int retentionDays, String extraCondition) {
+            return new RetentionPolicy(name, table, timeColumn, retentionDays, extraCondition, true);
+        }
+
+        /**
+         * Rows whose expiry column is in the past; the table's key need not be numeric
+         */
+        public static RetentionPolicy expired(String name, String table, String expiryColumn) {
+            return new RetentionPolicy(name, table, expiryColumn, 0, null, false);
+        }
+
+        String buildCondition() {
+            String condition = timeColumn + " < ?";
+            return extraCondition != null ? condition + " AND " + extraCondition : condition;
+        }
+
+        Timestamp cutoff() {
+            return Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        }
+
+        /**
+         * Checkpoints are kept per policy and retention period, so a manual purge with a
+         * different period never resumes from (or completes) the scheduled run's checkpoint
+         */
+        String checkpointKey() {
+            return name + ":" + retentionDays + "d";
+        }
+
+        public String getName() { return name; }
+    }
+
+    /**
+     * Progress and throughput of one purge run
+     */
+    public static class RetentionProgress {
+        private final String policyName;
+        private final long startTime = System.currentTimeMillis();
+        private volatile long rowsDeleted;
+        private volatile int chunks;
+        private volatile long endTime;
+
+        RetentionProgress(String policyName) {
+            this.policyName = policyName;
+        }
+
+        void recordChunk(int deleted) {
+            rowsDeleted += deleted;
+            chunks++;
+        }
+
+        void finish() {
+            endTime = System.currentTimeMillis();
+        }
+
+        public String getPolicyName() { return policyName; }
+        public long getRowsDeleted() { return rowsDeleted; }
+        public int getChunks() { return chunks; }
+        public boolean isFinished() { return endTime > 0; }
+
+        public long getElapsedMs() {
+            return (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+        }
+
+        public double getRowsPerSecond() {
+            long elapsed = getElapsedMs();
+            return elapsed > 0 ? rowsDeleted * 1000.0 / elapsed : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Retention %s: %d rows in %d chunks, %.1fs, %.0f rows/s%s",
+                policyName, rowsDeleted, chunks, getElapsedMs() / 1000.0, getRowsPerSecond(),
+                isFinished() ? "" : " (running)");
+        }
+    }
+}
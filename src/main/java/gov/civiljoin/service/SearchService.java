@@ -2,14 +2,32 @@ package gov.civiljoin.service;
 
 import gov.civiljoin.model.Post;
 import gov.civiljoin.util.DatabaseUtil;
+import javafx.application.Platform;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +39,136 @@ public class SearchService {
     
     private static final Logger LOGGER = Logger.getLogger(SearchService.class.getName());
     
+    // Default per-source deadline for federated search
+    public static final long DEFAULT_SOURCE_DEADLINE_MS = 1500;
+    
+    private static final int SNIPPET_LENGTH = 140;
+    
+    // Rows per streamed batch when the caller does not specify one
+    public static final int DEFAULT_STREAM_BATCH_SIZE = 25;
+    
+    // Federated search runs one query per source; the shared DB pool only has two core threads,
+    // so the sources get their own small pool to actually run side by side
+    private static final int SEARCH_QUEUE_PER_SOURCE = 4;
+    private static final ExecutorService SOURCE_EXECUTOR = createSourceExecutor();
+    
+    // Stream started most recently by this service; superseded by the next keystroke
+    private final AtomicReference<SearchStream> activeStream = new AtomicReference<>();
+    
+    /**
+     * Sources covered by the federated search
+     */
+    public enum SearchSource {
+        POSTS("Posts", 1.0),
+        COMMENTS("Comments", 0.8),
+        FEEDBACK("Feedback", 0.7),
+        ACTIVITIES("Activity", 0.6);
+        
+        private final String displayName;
+        private final double weight;
+        
+        SearchSource(String displayName, double weight) {
+            this.displayName = displayName;
+            this.weight = weight;
+        }
+        
+        public String getDisplayName() { return displayName; }
+        public double getWeight() { return weight; }
+    }
+    
+    /**
+     * Search across posts, comments, system activities and feedback in parallel.
+     * Every source runs as its own task on the dedicated federated-search executor (one thread
+     * per source, with a small bounded queue) and is bounded by {@code deadlineMs}; a source
+     * that misses the deadline contributes nothing and is reported in
+     * {@link FederatedSearchResult#getTimedOutSources()}, and one rejected by a full queue or
+     * failing is reported in {@link FederatedSearchResult#getFailedSources()}, so the caller
+     * can still render the sources that answered in time.
+     *
+     * @param keyword The search keyword
+     * @param limitPerSource Maximum number of hits fetched from each source
+     * @param deadlineMs Per-source deadline in milliseconds
+     * @return Future completing with the merged, score-ordered hits
+     */
+    public CompletableFuture<FederatedSearchResult> searchAll(String keyword, int limitPerSource, long deadlineMs) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(FederatedSearchResult.empty());
+        }
+        
+        String needle = keyword.trim().toLowerCase(Locale.ROOT);
+        // Let the server abort a runaway query instead of holding a pooled connection past the deadline
+        int queryTimeoutSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(deadlineMs) + 1);
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + deadlineMs;
+        
+        List<CompletableFuture<SourceResult>> futures = new ArrayList<>();
+        for (SearchSource source : SearchSource.values()) {
+            CompletableFuture<SourceResult> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> System.currentTimeMillis() >= deadline
+                    // Queued past its deadline: the answer would be discarded, so skip the query
+                    ? SourceResult.timedOut(source)
+                    : searchSource(source, needle, limitPerSource, queryTimeoutSeconds), SOURCE_EXECUTOR);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.completedFuture(SourceResult.failed(source));
+            }
+            futures.add(future
+                .exceptionally(throwable -> SourceResult.failed(source))
+                .completeOnTimeout(SourceResult.timedOut(source), deadlineMs, TimeUnit.MILLISECONDS));
+        }
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+            .thenApply(v -> {
+                List<SourceResult> sourceResults = new ArrayList<>();
+                for (CompletableFuture<SourceResult> future : futures) {
+                    sourceResults.add(future.join());
+                }
+                FederatedSearchResult result = FederatedSearchResult.merge(sourceResults);
+                LOGGER.fine("Federated search for '" + keyword + "' returned " + result.getHits().size() +
+                           " hits in " + (System.currentTimeMillis() - startTime) + "ms" +
+                           (result.isPartial() ? " (partial, missing " + result.getTimedOutSources() + ")" : ""));
+                return result;
+            });
+    }
+    
+    /**
+     * Federated search with the default per-source deadline
+     */
+    public CompletableFuture<FederatedSearchResult> searchAll(String keyword, int limitPerSource) {
+        return searchAll(keyword, limitPerSource, DEFAULT_SOURCE_DEADLINE_MS);
+    }
+    
+    /**
+     * Federated search with UI callback
+     */
+    public void searchAll(String keyword, int limitPerSource, long deadlineMs,
+                          Consumer<FederatedSearchResult> onSuccess, Consumer<Throwable> onError) {
+        searchAll(keyword, limitPerSource, deadlineMs)
+            .whenComplete((result, throwable) -> Platform.runLater(() -> {
+                if (throwable != null) {
+                    if (onError != null) onError.accept(throwable);
+                } else {
+                    if (onSuccess != null) onSuccess.accept(result);
+                }
+            }));
+    }
+
+    /**
+     * One thread per source; a bounded queue so a burst of keystrokes fails fast instead of piling up
+     */
+    private static ExecutorService createSourceExecutor() {
+        int sources = SearchSource.values().length;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(sources, sources, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(sources * SEARCH_QUEUE_PER_SOURCE), r -> {
+                Thread t = new Thread(r, "Federated-Search-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Search posts by keyword in titles and content
      * 
@@ -82,6 +230,152 @@ public class SearchService {
         return results;
     }
     
+    /**
+     * Stream posts matching a keyword in batches instead of materializing the full list.
+     * The query runs on the database pool with a server-side cursor ({@code useCursorFetch}
+     * is enabled on the pool) so only {@code batchSize} rows are held at a time, and each
+     * batch is handed to {@code onBatch} on the FX thread as soon as it is read.
+     * Starting a new stream cancels the one this service started before it, which is what
+     * a search-as-you-type field wants on every keystroke.
+     *
+     * @param keyword The search keyword
+     * @param batchSize Rows per batch and JDBC fetch size
+     * @param maxResults Upper bound on rows streamed
+     * @param onBatch Receives each batch on the FX thread
+     * @param onComplete Runs on the FX thread after the last batch (not called when cancelled)
+     * @param onError Receives query failures on the FX thread
+     * @return Handle that can cancel the stream
+     */
+    public SearchStream streamPosts(String keyword, int batchSize, int maxResults,
+                                    Consumer<List<Post>> onBatch, Runnable onComplete,
+                                    Consumer<Throwable> onError) {
+        SearchStream stream = new SearchStream();
+        SearchStream previous = activeStream.getAndSet(stream);
+        if (previous != null) {
+            previous.cancel();
+        }
+        
+        if (keyword == null || keyword.trim().isEmpty()) {
+            stream.finish();
+            if (onComplete != null) {
+                Platform.runLater(onComplete);
+            }
+            return stream;
+        }
+        
+        int fetchSize = batchSize > 0 ? batchSize : DEFAULT_STREAM_BATCH_SIZE;
+        String pattern = "%" + escapeLikePattern(keyword.trim().toLowerCase(Locale.ROOT)) + "%";
+        
+        AsyncTaskService.getInstance().executeDbTask(() -> {
+            runPostStream(stream, pattern, fetchSize, maxResults, onBatch);
+            return stream.getRowsStreamed();
+        }).whenComplete((rows, throwable) -> {
+            activeStream.compareAndSet(stream, null);
+            stream.finish();
+            
+            if (stream.isCancelled()) {
+                LOGGER.fine("Search stream for '" + keyword + "' cancelled after " + stream.getRowsStreamed() + " rows");
+                return;
+            }
+            
+            Platform.runLater(() -> {
+                if (throwable != null) {
+                    if (onError != null) onError.accept(throwable);
+                } else if (onComplete != null && !stream.isCancelled()) {
+                    onComplete.run();
+                }
+            });
+        });
+        
+        return stream;
+    }
+    
+    /**
+     * Stream posts with the default batch size
+     */
+    public SearchStream streamPosts(String keyword, int maxResults, Consumer<List<Post>> onBatch,
+                                    Runnable onComplete, Consumer<Throwable> onError) {
+        return streamPosts(keyword, DEFAULT_STREAM_BATCH_SIZE, maxResults, onBatch, onComplete, onError);
+    }
+    
+    /**
+     * Cursor loop behind {@link #streamPosts}; checks for cancellation between rows
+     */
+    private void runPostStream(SearchStream stream, String pattern, int fetchSize, int maxResults,
+                               Consumer<List<Post>> onBatch) {
+        String sql = """
+            SELECT p.id, p.user_id, p.title, p.content, p.attachments, p.created_at,
+                   u.username 
+            FROM posts p FORCE INDEX (idx_created_at)
+            STRAIGHT_JOIN users u ON p.user_id = u.id 
+            WHERE p.title LIKE ? OR p.content LIKE ?
+            ORDER BY p.created_at DESC 
+            LIMIT ?
+            """;
+        
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            if (stream.isCancelled()) {
+                return;
+            }
+            
+            conn = DatabaseUtil.getConnection();
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            stmt.setString(1, pattern);
+            stmt.setString(2, pattern);
+            stmt.setInt(3, maxResults);
+            
+            stream.attach(stmt);
+            rs = stmt.executeQuery();
+            
+            List<Post> batch = new ArrayList<>(fetchSize);
+            while (!stream.isCancelled() && rs.next()) {
+                batch.add(createPostFromResultSet(rs));
+                
+                if (batch.size() >= fetchSize) {
+                    deliverBatch(stream, batch, onBatch);
+                    batch = new ArrayList<>(fetchSize);
+                }
+            }
+            
+            if (!batch.isEmpty()) {
+                deliverBatch(stream, batch, onBatch);
+            }
+            
+        } catch (SQLException e) {
+            if (!stream.isCancelled()) {
+                throw new RuntimeException("Error streaming post search", e);
+            }
+        } finally {
+            stream.detach();
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) DatabaseUtil.closeConnection(conn);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error closing database resources", e);
+            }
+        }
+    }
+    
+    private void deliverBatch(SearchStream stream, List<Post> batch, Consumer<List<Post>> onBatch) {
+        if (stream.isCancelled()) {
+            return;
+        }
+        stream.addRows(batch.size());
+        List<Post> delivered = Collections.unmodifiableList(batch);
+        Platform.runLater(() -> {
+            // A batch already queued for the FX thread must not render once superseded
+            if (!stream.isCancelled() && onBatch != null) {
+                onBatch.accept(delivered);
+            }
+        });
+    }
+    
     /**
      * Search posts by keyword with date range filter
      * 
@@ -334,6 +628,155 @@ public class SearchService {
         return suggestions;
     }
     
+    /**
+     * Run the keyword query for a single federated search source
+     */
+    private SourceResult searchSource(SearchSource source, String needle, int limit, int queryTimeoutSeconds) {
+        List<SearchHit> hits = new ArrayList<>();
+        String pattern = "%" + escapeLikePattern(needle) + "%";
+        
+        // Tables use case-insensitive collations, so LIKE matches without LOWER()
+        String sql = switch (source) {
+            case POSTS -> """
+                SELECT p.id, p.title, p.content AS body, p.created_at
+                FROM posts p FORCE INDEX (idx_created_at)
+                WHERE p.title LIKE ? OR p.content LIKE ?
+                ORDER BY p.created_at DESC
+                LIMIT ?
+                """;
+            case COMMENTS -> """
+                SELECT c.id, NULL AS title, c.content AS body, c.created_at
+                FROM comments c FORCE INDEX (idx_created_at)
+                WHERE c.status = 'ACTIVE' AND c.content LIKE ?
+                ORDER BY c.created_at DESC
+                LIMIT ?
+                """;
+            case ACTIVITIES -> """
+                SELECT sa.id, sa.activity_type AS title, sa.description AS body, sa.created_at
+                FROM system_activities sa FORCE INDEX (idx_created_at)
+                WHERE sa.description LIKE ?
+                ORDER BY sa.created_at DESC
+                LIMIT ?
+                """;
+            case FEEDBACK -> """
+                SELECT f.id, f.title, f.description AS body, f.created_at
+                FROM feedback f FORCE INDEX (idx_created_at)
+                WHERE f.title LIKE ? OR f.description LIKE ?
+                ORDER BY f.created_at DESC
+                LIMIT ?
+                """;
+        };
+        
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseUtil.getConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setQueryTimeout(queryTimeoutSeconds);
+            
+            // Posts and feedback match on title and body, the other sources on body only
+            int paramIndex = 1;
+            stmt.setString(paramIndex++, pattern);
+            if (source == SearchSource.POSTS || source == SearchSource.FEEDBACK) {
+                stmt.setString(paramIndex++, pattern);
+            }
+            stmt.setInt(paramIndex, limit);
+            
+            rs = stmt.executeQuery();
+            LocalDateTime now = LocalDateTime.now();
+            
+            while (rs.next()) {
+                String title = rs.getString("title");
+                String body = rs.getString("body");
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                LocalDateTime created = createdAt != null ? createdAt.toLocalDateTime() : now;
+                
+                hits.add(new SearchHit(source, rs.getLong("id"), title, buildSnippet(body, needle),
+                                       created, scoreHit(source, title, body, needle, created, now)));
+            }
+            
+            return SourceResult.completed(source, hits);
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Federated search failed for source " + source, e);
+            return SourceResult.failed(source);
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) DatabaseUtil.closeConnection(conn);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error closing database resources", e);
+            }
+        }
+    }
+    
+    /**
+     * Relevance score: title hits outrank body hits, repeated matches add a little,
+     * recent rows get a boost, and the total is weighted by source
+     */
+    private double scoreHit(SearchSource source, String title, String body, String needle,
+                            LocalDateTime createdAt, LocalDateTime now) {
+        double score = 0.0;
+        
+        if (title != null) {
+            String lowerTitle = title.toLowerCase(Locale.ROOT);
+            if (lowerTitle.contains(needle)) {
+                score += 3.0;
+                if (lowerTitle.startsWith(needle)) {
+                    score += 1.0;
+                }
+            }
+        }
+        
+        if (body != null) {
+            int occurrences = countOccurrences(body.toLowerCase(Locale.ROOT), needle);
+            if (occurrences > 0) {
+                score += 1.0 + Math.min(occurrences - 1, 4) * 0.25;
+            }
+        }
+        
+        double ageHours = Math.max(0, Duration.between(createdAt, now).toHours());
+        score += 1.0 / (1.0 + ageHours / 24.0);
+        
+        return score * source.getWeight();
+    }
+    
+    private int countOccurrences(String text, String needle) {
+        int count = 0;
+        int index = text.indexOf(needle);
+        while (index >= 0) {
+            count++;
+            index = text.indexOf(needle, index + needle.length());
+        }
+        return count;
+    }
+    
+    /**
+     * Short excerpt of the body centered on the first match
+     */
+    private String buildSnippet(String body, String needle) {
+        if (body == null) {
+            return "";
+        }
+        
+        int matchIndex = body.toLowerCase(Locale.ROOT).indexOf(needle);
+        int start = matchIndex < 0 ? 0 : Math.max(0, matchIndex - SNIPPET_LENGTH / 3);
+        int end = Math.min(body.length(), start + SNIPPET_LENGTH);
+        
+        String snippet = body.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (start > 0 ? "..." : "") + snippet + (end < body.length() ? "..." : "");
+    }
+    
+    /**
+     * Escape LIKE wildcards so user input is matched literally
+     */
+    private String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+    
     /**
      * Create a Post object from ResultSet
      */
@@ -388,4 +831,154 @@ public class SearchService {
         
         return attachments;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Handle for an in-flight streaming search
+     */
+    public static class SearchStream {
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private final AtomicReference<PreparedStatement> statement = new AtomicReference<>();
+        private volatile int rowsStreamed;
+        
+        /**
+         * Stop the stream; a query still running on the server is cancelled as well
+         */
+        public void cancel() {
+            if (!cancelled.compareAndSet(false, true) || finished.get()) {
+                return;
+            }
+            
+            PreparedStatement stmt = statement.get();
+            if (stmt != null) {
+                try {
+                    stmt.cancel();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Could not cancel superseded search query", e);
+                }
+            }
+        }
+        
+        public boolean isCancelled() { return cancelled.get(); }
+        public boolean isFinished() { return finished.get(); }
+        public int getRowsStreamed() { return rowsStreamed; }
+        
+        void attach(PreparedStatement stmt) { statement.set(stmt); }
+        void detach() { statement.set(null); }
+        void finish() { finished.set(true); }
+        void addRows(int count) { rowsStreamed += count; }
+    }
+    
+    /**
+     * Single hit returned by the federated search
+     */
+    public static class SearchHit {
+        private final SearchSource source;
+        private final long id;
+        private final String title;
+        private final String snippet;
+        private final LocalDateTime createdAt;
+        private final double score;
+        
+        public SearchHit(SearchSource source, long id, String title, String snippet,
+                         LocalDateTime createdAt, double score) {
+            this.source = source;
+            this.id = id;
+            this.title = title;
+            this.snippet = snippet;
+            this.createdAt = createdAt;
+            this.score = score;
+        }
+        
+        public SearchSource getSource() { return source; }
+        public long getId() { return id; }
+        public String getTitle() { return title; }
+        public String getSnippet() { return snippet; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public double getScore() { return score; }
+        
+        @Override
+        public String toString() {
+            return String.format("[%s] %s (%.2f)", source.getDisplayName(),
+                title != null ? title : snippet, score);
+        }
+    }
+    
+    /**
+     * Outcome of one source within a federated search
+     */
+    private static class SourceResult {
+        final SearchSource source;
+        final List<SearchHit> hits;
+        final boolean timedOut;
+        final boolean failed;
+        
+        private SourceResult(SearchSource source, List<SearchHit> hits, boolean timedOut, boolean failed) {
+            this.source = source;
+            this.hits = hits;
+            this.timedOut = timedOut;
+            this.failed = failed;
+        }
+        
+        static SourceResult completed(SearchSource source, List<SearchHit> hits) {
+            return new SourceResult(source, hits, false, false);
+        }
+        
+        static SourceResult timedOut(SearchSource source) {
+            return new SourceResult(source, List.of(), true, false);
+        }
+        
+        static SourceResult failed(SearchSource source) {
+            return new SourceResult(source, List.of(), false, true);
+        }
+    }
+    
+    /**
+     * Merged federated search result, possibly partial
+     */
+    public static class FederatedSearchResult {
+        private final List<SearchHit> hits;
+        private final Set<SearchSource> timedOutSources;
+        private final Set<SearchSource> failedSources;
+        
+        private FederatedSearchResult(List<SearchHit> hits, Set<SearchSource> timedOutSources,
+                                      Set<SearchSource> failedSources) {
+            this.hits = Collections.unmodifiableList(hits);
+            this.timedOutSources = Collections.unmodifiableSet(timedOutSources);
+            this.failedSources = Collections.unmodifiableSet(failedSources);
+        }
+        
+        static FederatedSearchResult empty() {
+            return new FederatedSearchResult(new ArrayList<>(), EnumSet.noneOf(SearchSource.class),
+                                             EnumSet.noneOf(SearchSource.class));
+        }
+        
+        static FederatedSearchResult merge(List<SourceResult> sourceResults) {
+            List<SearchHit> merged = new ArrayList<>();
+            Set<SearchSource> timedOut = EnumSet.noneOf(SearchSource.class);
+            Set<SearchSource> failed = EnumSet.noneOf(SearchSource.class);
+            
+            for (SourceResult sourceResult : sourceResults) {
+                merged.addAll(sourceResult.hits);
+                if (sourceResult.timedOut) timedOut.add(sourceResult.source);
+                if (sourceResult.failed) failed.add(sourceResult.source);
+            }
+            
+            merged.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(SearchHit::getCreatedAt, Comparator.reverseOrder()));
+            
+            return new FederatedSearchResult(merged, timedOut, failed);
+        }
+        
+        public List<SearchHit> getHits() { return hits; }
+        public Set<SearchSource> getTimedOutSources() { return timedOutSources; }
+        public Set<SearchSource> getFailedSources() { return failedSources; }
+        
+        /**
+         * True when at least one source did not contribute results
+         */
+        public boolean isPartial() {
+            return !timedOutSources.isEmpty() || !failedSources.isEmpty();
+        }
+    }
+}
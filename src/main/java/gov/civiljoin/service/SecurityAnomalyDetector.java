@@ -0,0 +1,243 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.service.AdminSecurityService.SecurityThreat;
+import gov.civiljoin.service.AdminSecurityService.ThreatLevel;
+import gov.civiljoin.service.SecurityService.PendingSecurityEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streaming anomaly detection over the security event bus.
+ * Every event updates per-account and per-user sliding-window counters in memory, so threats are
+ * raised as soon as the triggering event is seen instead of by periodic queries over
+ * security_events. Besides fixed thresholds, each key keeps an EWMA baseline of its
+ * per-minute event rate and a minute far above that baseline is reported as a burst.
+ * <p>
+ * Counter state is only touched from bus fan-out, which hands over one event at a time, including
+ * events that overflowed the bus buffer; only raised threats are shared.
+ */
+public class SecurityAnomalyDetector {
+    private static final Logger LOGGER = Logger.getLogger(SecurityAnomalyDetector.class.getName());
+    private static SecurityAnomalyDetector instance;
+
+    // Detection thresholds; account warnings fire before the lockout at 5 failures
+    private static final int FAILED_LOGIN_THRESHOLD = 3;
+    private static final int SPRAY_ACCOUNT_THRESHOLD = 10;
+    private static final long FAILED_LOGIN_WINDOW_MS = TimeUnit.MINUTES.toMillis(15);
+    private static final int ADMIN_ACTION_THRESHOLD = 10;
+    private static final long ADMIN_ACTION_WINDOW_MS = TimeUnit.HOURS.toMillis(1);
+
+    // Rate baseline: one-minute buckets, EWMA over completed minutes
+    private static final long BUCKET_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final double EWMA_ALPHA = 0.1;
+    private static final double BURST_FACTOR = 6.0;
+    private static final int BURST_MIN_EVENTS = 20;
+    private static final int BASELINE_WARMUP_MINUTES = 10;
+
+    private static final int MAX_TRACKED_KEYS = 10_000;
+    private static final long THREAT_TTL_MS = TimeUnit.HOURS.toMillis(24);
+
+    private final Map<String, KeyStats> stats = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KeyStats> eldest) {
+            return size() > MAX_TRACKED_KEYS;
+        }
+    };
+    private final Map<String, SecurityThreat> raisedThreats = new ConcurrentHashMap<>();
+    private final List<Consumer<SecurityThreat>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean started = false;
+
+    private SecurityAnomalyDetector() {
+    }
+
+    public static SecurityAnomalyDetector getInstance() {
+        if (instance == null) {
+            synchronized (SecurityAnomalyDetector.class) {
+                if (instance == null) {
+                    instance = new SecurityAnomalyDetector();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Subscribe to the security event bus
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        SecurityEventBus.getInstance().subscribe(this::onEvent);
+        LOGGER.info("Security anomaly detector subscribed to the event bus");
+    }
+
+    /**
+     * Be told about every threat raised or updated from now on
+     */
+    public void addThreatListener(Consumer<SecurityThreat> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeThreatListener(Consumer<SecurityThreat> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Threats raised in the last 24 hours, for late subscribers
+     */
+    public List<SecurityThreat> getActiveThreats() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(THREAT_TTL_MS));
+        raisedThreats.values().removeIf(threat -> threat.getDetectedAt().isBefore(cutoff));
+        return new ArrayList<>(raisedThreats.values());
+    }
+
+    /**
+     * Bus consumer callback
+     */
+    void onEvent(PendingSecurityEvent event) {
+        long now = System.currentTimeMillis();
+        String eventType = event.getEventType();
+        String ipAddress = event.getIpAddress();
+        Integer userId = event.getUserId();
+
+        Object identifier = isFailedLogin(eventType) ? event.getMetadata().get("identifier") : null;
+        if (identifier != null) {
+            int attempts = track("fail:user:" + identifier.toString().toLowerCase(), now, FAILED_LOGIN_WINDOW_MS).windowCount;
+            if (attempts >= FAILED_LOGIN_THRESHOLD) {
+                raise("CREDENTIAL_ATTACK_" + identifier, ThreatLevel.HIGH,
+                    "Repeated failed logins for account: " + identifier + " (" + attempts + " attempts)");
+            }
+
+            // Client IPs are not known on the desktop client, so brute force is detected as
+            // failures spread over many accounts: count each account's first failure in the window
+            if (attempts == 1) {
+                int accounts = track("fail:accounts", now, FAILED_LOGIN_WINDOW_MS).windowCount;
+                if (accounts >= SPRAY_ACCOUNT_THRESHOLD) {
+                    raise("BRUTE_FORCE_ACCOUNTS", ThreatLevel.HIGH,
+                        "Potential brute force attack: failed logins on " + accounts + " accounts in the last 15 minutes");
+                }
+            }
+        }
+
+        if (userId != null && isAdminAction(event)) {
+            int actions = track("admin:user:" + userId, now, ADMIN_ACTION_WINDOW_MS).windowCount;
+            if (actions > ADMIN_ACTION_THRESHOLD) {
+                raise("PRIVILEGE_ESCALATION_" + userId, ThreatLevel.MEDIUM,
+                    "Unusual admin activity from user ID: " + userId + " (" + actions + " actions)");
+            }
+        }
+
+        // Rate baseline across all event types
+        if (ipAddress != null) {
+            checkBurst(track("rate:ip:" + ipAddress, now, BUCKET_MS), "IP " + ipAddress, "BURST_IP_" + ipAddress);
+        }
+        if (userId != null) {
+            checkBurst(track("rate:user:" + userId, now, BUCKET_MS), "user ID " + userId, "BURST_USER_" + userId);
+        }
+    }
+
+    /**
+     * Every failed login produces exactly one of these, escalating with the attempt count
+     */
+    private static boolean isFailedLogin(String eventType) {
+        return "FAILED_LOGIN".equals(eventType) || "SUSPICIOUS_ACTIVITY".equals(eventType)
+            || "ACCOUNT_LOCKOUT".equals(eventType) || "BRUTE_FORCE_ATTEMPT".equals(eventType);
+    }
+
+    private static boolean isAdminAction(PendingSecurityEvent event) {
+        return event.getEventType() != null && AdminSecurityService.ADMIN_EVENT_TYPES.contains(event.getEventType());
+    }
+
+    private void checkBurst(KeyStats key, String subject, String threatId) {
+        if (key.completedBuckets < BASELINE_WARMUP_MINUTES) {
+            return;
+        }
+        int current = key.currentBucketCount();
+        double expected = Math.max(key.ewmaPerBucket, 1.0);
+        if (current >= BURST_MIN_EVENTS && current > expected * BURST_FACTOR) {
+            raise(threatId, ThreatLevel.MEDIUM, String.format(
+                "Security event burst from %s: %d events this minute (baseline %.1f)", subject, current, key.ewmaPerBucket));
+        }
+    }
+
+    private KeyStats track(String key, long now, long windowMs) {
+        KeyStats keyStats = stats.computeIfAbsent(key, k -> new KeyStats(windowMs));
+        keyStats.record(now);
+        return keyStats;
+    }
+
+    private void raise(String id, ThreatLevel level, String description) {
+        SecurityThreat threat = new SecurityThreat(id, level, description, LocalDateTime.now());
+        raisedThreats.put(id, threat);
+
+        for (Consumer<SecurityThreat> listener : listeners) {
+            try {
+                listener.accept(threat);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Threat listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Minute-bucketed counts for one key: a sliding window sum plus an EWMA of completed minutes
+     */
+    private static final class KeyStats {
+        private final long[] bucketEpochs;
+        private final int[] bucketCounts;
+        private long lastEpoch = -1;
+        private int windowCount;
+        private double ewmaPerBucket;
+        private int completedBuckets;
+
+        KeyStats(long windowMs) {
+            int buckets = (int) Math.max(1, windowMs / BUCKET_MS);
+            bucketEpochs = new long[buckets];
+            bucketCounts = new int[buckets];
+        }
+
+        void record(long now) {
+            long epoch = now / BUCKET_MS;
+            if (lastEpoch >= 0 && epoch > lastEpoch) {
+                // Fold the finished minute, then decay across any idle minutes
+                ewmaPerBucket = EWMA_ALPHA * currentBucketCount() + (1 - EWMA_ALPHA) * ewmaPerBucket;
+                long idle = Math.min(epoch - lastEpoch - 1, 1000);
+                ewmaPerBucket *= Math.pow(1 - EWMA_ALPHA, idle);
+                completedBuckets += (int) Math.min(epoch - lastEpoch, Integer.MAX_VALUE - completedBuckets);
+            }
+            lastEpoch = Math.max(lastEpoch, epoch);
+
+            int slot = (int) (epoch % bucketCounts.length);
+            if (bucketEpochs[slot] != epoch) {
+                bucketEpochs[slot] = epoch;
+                bucketCounts[slot] = 0;
+            }
+            bucketCounts[slot]++;
+
+            int total = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                if (epoch - bucketEpochs[i] < bucketCounts.length) {
+                    total += bucketCounts[i];
+                }
+            }
+            windowCount = total;
+        }
+
+        int currentBucketCount() {
+            int slot = (int) (lastEpoch % bucketCounts.length);
+            return bucketEpochs[slot] == lastEpoch ? bucketCounts[slot] : 0;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.service.SecurityService.PendingSecurityEvent;
+import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.MpscRingBuffer;
+import gov.civiljoin.util.RecentEventRing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single pipeline for all security events.
+ * Producers publish into a lock-free MPSC ring buffer and return immediately. One consumer
+ * thread drains it, fans each event out to the recent-events ring and to subscribers, then
+ * writes the batch to security_events with one batched INSERT (or the journal while the
+ * database is unavailable).
+ * <p>
+ * Events that bypass the buffer (it is full, or the bus has shut down) are fanned out on the
+ * publishing thread before they are journaled or written, so the recent-events view and the
+ * anomaly detector see bursts too. Fan-out is serialized, so subscribers and the ring still
+ * see one event at a time.
+ */
+public class SecurityEventBus {
+    private static final Logger LOGGER = Logger.getLogger(SecurityEventBus.class.getName());
+    private static SecurityEventBus instance;
+
+    // Bus configuration
+    private static final int BUFFER_CAPACITY = 4096;
+    private static final int RECENT_EVENTS_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final long FLUSH_INTERVAL_MS = 250;
+
+    private final MpscRingBuffer<PendingSecurityEvent> buffer = new MpscRingBuffer<>(BUFFER_CAPACITY);
+    private final RecentEventRing<PendingSecurityEvent> recentEvents = new RecentEventRing<>(RECENT_EVENTS_CAPACITY);
+    private final List<Consumer<PendingSecurityEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final Object fanOutLock = new Object();
+    private final ScheduledExecutorService consumerExecutor;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    // Bus statistics
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong journaled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private SecurityEventBus() {
+        consumerExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Security-Event-Bus");
+            t.setDaemon(true);
+            return t;
+        });
+        consumerExecutor.scheduleWithFixedDelay(this::drainBuffer, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static SecurityEventBus getInstance() {
+        if (instance == null) {
+            synchronized (SecurityEventBus.class) {
+                if (instance == null) {
+                    instance = new SecurityEventBus();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Queue an event; never touches the database on the caller's thread unless the bus is shut down
+     */
+    public void publish(PendingSecurityEvent event) {
+        published.incrementAndGet();
+
+        if (shutdown.get()) {
+            fanOut(event);
+            writeBatch(List.of(event));
+            return;
+        }
+
+        if (buffer.offer(event)) {
+            if (buffer.size() >= MAX_BATCH_SIZE) {
+                requestFlush();
+            }
+            return;
+        }
+
+        // Buffer full: keep the event in the journal rather than blocking the producer
+        requestFlush();
+        fanOut(event);
+        journalBatch(List.of(event));
+    }
+
+    /**
+     * Receive every event before it is written, one at a time; normally on the bus thread, but on
+     * the publishing thread for events that bypass the buffer. Subscribers must not block.
+     */
+    public void subscribe(Consumer<PendingSecurityEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<PendingSecurityEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Up to {@code max} most recent events, newest first; lock-free
+     */
+    public List<PendingSecurityEvent> getRecentEvents(int max) {
+        return recentEvents.snapshot(max);
+    }
+
+    public int getRecentEventsCapacity() {
+        return recentEvents.capacity();
+    }
+
+    /**
+     * Stop the consumer and write everything still queued
+     */
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+
+        consumerExecutor.shutdown();
+        try {
+            if (!consumerExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                consumerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            consumerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        // Consumer thread has stopped, so this thread is now the only consumer
+        drainBuffer();
+        LOGGER.info("SecurityEventBus shutdown complete: " + getStats());
+    }
+
+    public String getStats() {
+        return String.format("SecurityEventBus - Queued: %d, Published: %d, Written: %d, Journaled: %d, Failed: %d",
+            buffer.size(), published.get(), written.get(), journaled.get(), failed.get());
+    }
+
+    private void requestFlush() {
+        if (!shutdown.get() && flushRequested.compareAndSet(false, true)) {
+            try {
+                consumerExecutor.execute(this::drainBuffer);
+            } catch (Exception e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Consumer loop body: fan out and write in batches until the buffer is empty
+     */
+    private void drainBuffer() {
+        flushRequested.set(false);
+
+        List<PendingSecurityEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (buffer.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+            for (PendingSecurityEvent event : batch) {
+                fanOut(event);
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Add the event to the recent-events ring and hand it to subscribers; the lock keeps the
+     * ring single-writer when an overflowing producer races the consumer
+     */
+    private void fanOut(PendingSecurityEvent event) {
+        synchronized (fanOutLock) {
+            recentEvents.add(event);
+            for (Consumer<PendingSecurityEvent> subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Security event subscriber failed", e);
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingSecurityEvent> batch) {
+        if (EventJournal.getInstance().hasBacklog()) {
+            // Keep the audit trail in order behind the events already journaled
+            journalBatch(batch);
+            return;
+        }
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            SecurityService.insertSecurityEvents(conn, batch);
+            written.addAndGet(batch.size());
+
+            StatisticsRollupService rollups = StatisticsRollupService.getInstance();
+            for (PendingSecurityEvent event : batch) {
+                rollups.record(StatisticsRollupService.Source.SECURITY,
+                    event.eventType, event.severity, event.userId, event.ipAddress, event.createdAt);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to write " + batch.size() + " security events, journaling", e);
+            journalBatch(batch);
+        }
+    }
+
+    private void journalBatch(List<PendingSecurityEvent> batch) {
+        EventJournal journal = EventJournal.getInstance();
+        for (PendingSecurityEvent event : batch) {
+            if (journal.appendSecurityEvent(event)) {
+                journaled.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                LOGGER.severe("Lost security event " + event.eventType + ": database and journal unavailable");
+            }
+        }
+    }
+}
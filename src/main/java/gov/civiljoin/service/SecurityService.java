@@ -6,6 +6,8 @@ import gov.civiljoin.model.SecurityEvent.Severity;
 import gov.civiljoin.model.SystemActivity;
 import gov.civiljoin.model.SystemActivity.ActivityType;
 import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.MetadataCodec;
+import gov.civiljoin.util.FailedAttemptTracker;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -13,6 +15,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,11 +26,17 @@ public class SecurityService {
     private static final Logger LOGGER = Logger.getLogger(SecurityService.class.getName());
     private final SystemActivityService activityService;
     
-    // Track failed login attempts
-    private final Map<String, Integer> failedLoginAttempts = new HashMap<>();
-    private final Map<String, LocalDateTime> lastAttemptTime = new HashMap<>();
+    // Failed login tracking, shared by every instance: exact per-key sliding windows keyed by
+    // username and by IP. A lockout lasts until the failures age out of the window; a
+    // successful login clears the username's failures. Keys are only ever expired by time.
     private static final int MAX_FAILED_ATTEMPTS = 5;
+    private static final int MAX_FAILED_ATTEMPTS_PER_IP = 20;
     private static final int LOCKOUT_DURATION_MINUTES = 15;
+    private static final int EXPIRY_SWEEP_KEYS = 10_000;
+    private static final FailedAttemptTracker FAILED_LOGINS_BY_USERNAME = new FailedAttemptTracker(
+        TimeUnit.MINUTES.toMillis(LOCKOUT_DURATION_MINUTES), MAX_FAILED_ATTEMPTS, EXPIRY_SWEEP_KEYS);
+    private static final FailedAttemptTracker FAILED_LOGINS_BY_IP = new FailedAttemptTracker(
+        TimeUnit.MINUTES.toMillis(LOCKOUT_DURATION_MINUTES), MAX_FAILED_ATTEMPTS_PER_IP, EXPIRY_SWEEP_KEYS);
 
     public SecurityService() {
         this.activityService = new SystemActivityService();
@@ -69,17 +78,20 @@ public class SecurityService {
                     resolved_by INT NULL,
                     resolved_at TIMESTAMP NULL,
                     metadata JSON,
+                    metadata_bin BLOB,
                     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                     INDEX idx_event_type (event_type),
                     INDEX idx_severity (severity),
                     INDEX idx_created_at (created_at),
                     INDEX idx_resolved (resolved),
+                    INDEX idx_resolved_created (resolved, created_at),
                     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL,
                     FOREIGN KEY (resolved_by) REFERENCES users(id) ON DELETE SET NULL
                 )
                 """;
             
             stmt.execute(sql);
+            DatabaseUtil.ensureIndex("security_events", "idx_resolved_created", "resolved, created_at");
             LOGGER.log(Level.INFO, "Security events table initialized successfully");
             
         } catch (SQLException e) {
@@ -107,18 +119,16 @@ public class SecurityService {
             
             String sql = """
                 CREATE TABLE IF NOT EXISTS user_sessions (
-                    id INT PRIMARY KEY AUTO_INCREMENT,
+                    id VARCHAR(128) PRIMARY KEY,
                     user_id INT NOT NULL,
-                    session_token VARCHAR(255) UNIQUE NOT NULL,
-                    ip_address VARCHAR(45),
-                    user_agent TEXT,
-                    login_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    last_activity TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-                    logout_time TIMESTAMP NULL,
-                    is_active BOOLEAN DEFAULT TRUE,
-                    login_method ENUM('PASSWORD', 'TOKEN', 'ADMIN_OVERRIDE') DEFAULT 'PASSWORD',
-                    INDEX idx_user_active (user_id, is_active),
-                    INDEX idx_session_token (session_token),
+                    ip_address VARCHAR(45) NOT NULL,
+                    user_agent TEXT NULL,
+                    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+                    last_activity TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                    expires_at TIMESTAMP NOT NULL,
+                    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                    INDEX idx_user_id (user_id),
+                    INDEX idx_expires_at (expires_at),
                     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
                 )
                 """;
@@ -232,57 +242,55 @@ public class SecurityService {
     }
 
     /**
-     * Log a security event
+     * Log a security event.
+     * The event is published to the {@link SecurityEventBus}, which writes it in the background.
      */
     public void logSecurityEvent(EventType eventType, Integer userId, String ipAddress, 
                                 String userAgent, String description, Severity severity, 
                                 Map<String, Object> metadata) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
+        PendingSecurityEvent event = new PendingSecurityEvent(eventType.name(), userId, ipAddress, userAgent,
+            description, severity.name(), MetadataCodec.encode(metadata), LocalDateTime.now());
+        SecurityEventBus.getInstance().publish(event);
+        LOGGER.log(Level.WARNING, "Security event logged: {0} - {1}", new Object[]{eventType, description});
         
-        try {
-            conn = DatabaseUtil.getConnection();
-            String sql = """
-                INSERT INTO security_events 
-                (event_type, user_id, ip_address, user_agent, description, severity, metadata)
-                VALUES (?, ?, ?, ?, ?, ?, ?)
-                """;
-            
-            stmt = conn.prepareStatement(sql);
-            stmt.setString(1, eventType.name());
-            stmt.setObject(2, userId);
-            stmt.setString(3, ipAddress);
-            stmt.setString(4, userAgent);
-            stmt.setString(5, description);
-            stmt.setString(6, severity.name());
-            stmt.setString(7, metadata != null ? convertMapToJson(metadata) : null);
-            
-            stmt.executeUpdate();
-            
-            // Also log as system activity
-            activityService.logActivity(
-                userId, 
-                ActivityType.SECURITY_EVENT, 
-                description, 
-                SystemActivity.EntityType.SYSTEM, 
-                null,
-                SystemActivity.Severity.valueOf(severity.name()),
-                ipAddress,
-                userAgent,
-                metadata
-            );
-            
-            LOGGER.log(Level.WARNING, "Security event logged: {0} - {1}", new Object[]{eventType, description});
-            
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Failed to log security event", e);
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) DatabaseUtil.closeConnection(conn);
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error closing database resources", e);
+        // Also log as system activity
+        activityService.logActivity(
+            userId, 
+            ActivityType.SECURITY_EVENT, 
+            description, 
+            SystemActivity.EntityType.SYSTEM, 
+            null,
+            SystemActivity.Severity.valueOf(severity.name()),
+            ipAddress,
+            userAgent,
+            metadata
+        );
+    }
+
+    /**
+     * Insert security events on the given connection as one batch
+     */
+    static void insertSecurityEvents(Connection conn, List<PendingSecurityEvent> events) throws SQLException {
+        String sql = """
+            INSERT INTO security_events 
+            (event_type, user_id, ip_address, user_agent, description, severity, metadata_bin, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        
+        AccountDeletionService deletions = AccountDeletionService.getInstance();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (PendingSecurityEvent event : events) {
+                stmt.setString(1, event.eventType);
+                stmt.setObject(2, deletions.liveUserId(event.userId));
+                stmt.setString(3, event.ipAddress);
+                stmt.setString(4, event.userAgent);
+                stmt.setString(5, event.description);
+                stmt.setString(6, event.severity);
+                stmt.setBytes(7, event.metadata);
+                stmt.setTimestamp(8, Timestamp.valueOf(event.createdAt));
+                stmt.addBatch();
             }
+            stmt.executeBatch();
         }
     }
 
@@ -291,12 +299,12 @@ public class SecurityService {
      */
     public boolean handleFailedLogin(String identifier, String ipAddress, String userAgent) {
         // Track failed attempts
-        int attempts = failedLoginAttempts.getOrDefault(identifier, 0) + 1;
-        failedLoginAttempts.put(identifier, attempts);
-        lastAttemptTime.put(identifier, LocalDateTime.now());
+        int attempts = FAILED_LOGINS_BY_USERNAME.record(identifier.toLowerCase());
+        int ipAttempts = ipAddress != null ? FAILED_LOGINS_BY_IP.record(ipAddress) : 0;
         
         // Check if account should be locked
         if (attempts >= MAX_FAILED_ATTEMPTS) {
+            LoginBookkeepingBuffer.getInstance().recordLockout(identifier, attempts, LOCKOUT_DURATION_MINUTES);
             logSecurityEvent(
                 EventType.ACCOUNT_LOCKOUT,
                 null,
@@ -307,6 +315,17 @@ public class SecurityService {
                 Map.of("identifier", identifier, "attempts", attempts)
             );
             return true; // Account is locked
+        } else if (ipAttempts >= MAX_FAILED_ATTEMPTS_PER_IP) {
+            logSecurityEvent(
+                EventType.SUSPICIOUS_ACTIVITY,
+                null,
+                ipAddress,
+                userAgent,
+                String.format("Login attempts from %s blocked after %d failures", ipAddress, ipAttempts),
+                Severity.HIGH,
+                Map.of("identifier", identifier, "ip_address", ipAddress, "attempts", ipAttempts)
+            );
+            return true; // Source is blocked
         } else if (attempts > 2) {
             // Log as suspicious activity after multiple attempts
             logSecurityEvent(
@@ -338,27 +357,35 @@ public class SecurityService {
      * Check if account is locked
      */
     public boolean isAccountLocked(String identifier) {
-        LocalDateTime lastAttempt = lastAttemptTime.get(identifier);
-        if (lastAttempt == null) return false;
-        
-        // Check if lockout period has expired
-        if (lastAttempt.plusMinutes(LOCKOUT_DURATION_MINUTES).isBefore(LocalDateTime.now())) {
-            // Reset failed attempts
-            failedLoginAttempts.remove(identifier);
-            lastAttemptTime.remove(identifier);
-            return false;
-        }
-        
-        return failedLoginAttempts.getOrDefault(identifier, 0) >= MAX_FAILED_ATTEMPTS;
+        return FAILED_LOGINS_BY_USERNAME.count(identifier.toLowerCase()) >= MAX_FAILED_ATTEMPTS;
+    }
+
+    /**
+     * Failed logins counted against an identifier within the lockout window
+     */
+    public int getFailedLoginCount(String identifier) {
+        return FAILED_LOGINS_BY_USERNAME.count(identifier.toLowerCase());
+    }
+
+    /**
+     * Check if an IP address is blocked by too many recent failures
+     */
+    public boolean isIpBlocked(String ipAddress) {
+        return ipAddress != null && FAILED_LOGINS_BY_IP.count(ipAddress) >= MAX_FAILED_ATTEMPTS_PER_IP;
+    }
+
+    /**
+     * Clear the failed attempts counted against an identifier after it logs in
+     */
+    public void resetFailedLogins(String identifier) {
+        FAILED_LOGINS_BY_USERNAME.reset(identifier.toLowerCase());
     }
 
     /**
      * Handle successful login (reset failed attempts)
      */
     public void handleSuccessfulLogin(String identifier, int userId, String ipAddress, String userAgent) {
-        // Reset failed attempts
-        failedLoginAttempts.remove(identifier);
-        lastAttemptTime.remove(identifier);
+        resetFailedLogins(identifier);
         
         // Log successful login
         activityService.logActivity(
@@ -378,41 +405,10 @@ public class SecurityService {
     }
 
     /**
-     * Create user session
+     * Create user session; persisted in the background by the session registry
      */
     private void createUserSession(int userId, String ipAddress, String userAgent) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        
-        try {
-            conn = DatabaseUtil.getConnection();
-            
-            // Generate session token
-            String sessionToken = generateSessionToken();
-            
-            String sql = """
-                INSERT INTO user_sessions (user_id, session_token, ip_address, user_agent)
-                VALUES (?, ?, ?, ?)
-                """;
-            
-            stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, userId);
-            stmt.setString(2, sessionToken);
-            stmt.setString(3, ipAddress);
-            stmt.setString(4, userAgent);
-            
-            stmt.executeUpdate();
-            
-        } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, "Failed to create user session", e);
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) DatabaseUtil.closeConnection(conn);
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error closing database resources", e);
-            }
-        }
+        SessionRegistry.getInstance().createSession(userId, ipAddress, userAgent);
     }
 
     /**
@@ -465,9 +461,62 @@ public class SecurityService {
     }
 
     /**
-     * Get security statistics
+     * Get security statistics.
+     * Counts come from the event rollups; only the unresolved count, which changes after
+     * the fact, is read from security_events through its (resolved, created_at) index.
      */
     public Map<String, Object> getSecurityStatistics(int hoursBack) {
+        StatisticsRollupService.RollupSummary summary =
+            StatisticsRollupService.getInstance().getSummary(StatisticsRollupService.Source.SECURITY, hoursBack);
+        
+        if (summary == null) {
+            return getSecurityStatisticsFromRawTable(hoursBack);
+        }
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalEvents", (int) summary.getTotal());
+        stats.put("failedLogins", (int) summary.getCountForType(EventType.FAILED_LOGIN.name()));
+        stats.put("bruteForceAttempts", (int) summary.getCountForType(EventType.BRUTE_FORCE_ATTEMPT.name()));
+        stats.put("accountLockouts", (int) summary.getCountForType(EventType.ACCOUNT_LOCKOUT.name()));
+        stats.put("criticalEvents", (int) summary.getCountForSeverity(Severity.CRITICAL.name()));
+        stats.put("highEvents", (int) summary.getCountForSeverity(Severity.HIGH.name()));
+        stats.put("unresolvedEvents", countUnresolvedEvents(hoursBack));
+        stats.put("uniqueIps", summary.getDistinctIps());
+        
+        int threatLevel = calculateThreatLevel(stats);
+        stats.put("threatLevel", threatLevel);
+        stats.put("threatStatus", getThreatStatus(threatLevel));
+        
+        return stats;
+    }
+    
+    /**
+     * Count unresolved security events in the window
+     */
+    private int countUnresolvedEvents(int hoursBack) {
+        String sql = """
+            SELECT COUNT(*) FROM security_events
+            WHERE resolved = FALSE AND created_at >= DATE_SUB(NOW(), INTERVAL ? HOUR)
+            """;
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, hoursBack);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to count unresolved security events", e);
+            return 0;
+        }
+    }
+    
+    /**
+     * Aggregate security statistics directly over security_events
+     */
+    private Map<String, Object> getSecurityStatisticsFromRawTable(int hoursBack) {
         Map<String, Object> stats = new HashMap<>();
         Connection conn = null;
         PreparedStatement stmt = null;
@@ -704,26 +753,44 @@ public class SecurityService {
     }
 
     /**
-     * Generate session token
+     * Security event captured at log time, ready to be written or journaled
      */
-    private String generateSessionToken() {
-        return java.util.UUID.randomUUID().toString().replace("-", "");
-    }
+    public static class PendingSecurityEvent {
+        final String eventType;
+        final Integer userId;
+        final String ipAddress;
+        final String userAgent;
+        final String description;
+        final String severity;
+        final byte[] metadata; // MetadataCodec encoded
+        final LocalDateTime createdAt;
 
-    /**
-     * Convert Map to JSON string (simplified)
-     */
-    private String convertMapToJson(Map<String, Object> map) {
-        if (map == null || map.isEmpty()) return "{}";
-        
-        StringBuilder json = new StringBuilder("{");
-        boolean first = true;
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (!first) json.append(",");
-            json.append("\"").append(entry.getKey()).append("\":\"").append(entry.getValue()).append("\"");
-            first = false;
+        public PendingSecurityEvent(String eventType, Integer userId, String ipAddress, String userAgent,
+                                    String description, String severity, byte[] metadata,
+                                    LocalDateTime createdAt) {
+            this.eventType = eventType;
+            this.userId = userId;
+            this.ipAddress = ipAddress;
+            this.userAgent = userAgent;
+            this.description = description;
+            this.severity = severity;
+            this.metadata = metadata;
+            this.createdAt = createdAt;
+        }
+
+        public String getEventType() { return eventType; }
+        public Integer getUserId() { return userId; }
+        public String getIpAddress() { return ipAddress; }
+        public String getUserAgent() { return userAgent; }
+        public String getDescription() { return description; }
+        public String getSeverity() { return severity; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+
+        /**
+         * Decoded metadata; empty if none was recorded
+         */
+        public Map<String, Object> getMetadata() {
+            return MetadataCodec.decode(metadata);
         }
-        json.append("}");
-        return json.toString();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,456 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.User;
+import gov.civiljoin.util.DatabaseUtil;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single in-memory registry of login sessions.
+ * <p>
+ * Validate and touch are O(1) map lookups that only update in-memory timestamps. Expiry uses a
+ * hashed timer wheel of one-minute slots: a session sits in the slot of its expiry minute and is
+ * checked only when the wheel reaches that slot; a session touched since it was placed is simply
+ * moved to its new slot. Changes are written behind to user_sessions in coalesced batches, so a
+ * busy session costs one UPDATE per flush interval rather than one per request. A batch the
+ * database rejects outright (e.g. a session of a user deleted meanwhile) is written one change
+ * at a time and the rejected changes are dropped, so one bad row cannot block every flush.
+ */
+public class SessionRegistry {
+    private static final Logger LOGGER = Logger.getLogger(SessionRegistry.class.getName());
+    private static SessionRegistry instance;
+
+    // Registry configuration
+    private static final long SESSION_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long TICK_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int WHEEL_SLOTS = 64;
+    private static final long FLUSH_INTERVAL_MS = TimeUnit.SECONDS.toMillis(15);
+    private static final String UNKNOWN_ADDRESS = "unknown";
+
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final List<Set<Session>> wheel = new ArrayList<>(WHEEL_SLOTS);
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier clock;
+    private long lastTick;
+
+    // Write-behind queues
+    private final ConcurrentLinkedQueue<Session> pendingInserts = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Session> pendingTouches = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Session> pendingEnds = new ConcurrentLinkedQueue<>();
+
+    // Registry statistics
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong persistedUpdates = new AtomicLong();
+    private final AtomicLong rejectedUpdates = new AtomicLong();
+
+    private SessionRegistry() {
+        this(System::currentTimeMillis);
+        scheduler.scheduleWithFixedDelay(this::advanceWheel, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registry on the given clock with nothing scheduled; the caller drives {@link #advanceWheel()}
+     */
+    SessionRegistry(LongSupplier clock) {
+        this.clock = clock;
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel.add(ConcurrentHashMap.newKeySet());
+        }
+        lastTick = clock.getAsLong() / TICK_MS;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Session-Registry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static SessionRegistry getInstance() {
+        if (instance == null) {
+            synchronized (SessionRegistry.class) {
+                if (instance == null) {
+                    instance = new SessionRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Start a session for an authenticated user
+     *
+     * @return the new session token
+     */
+    public String createSession(User user, String ipAddress, String userAgent) {
+        return register(new Session(newToken(), user.getId(), user, ipAddress, userAgent, clock.getAsLong()));
+    }
+
+    /**
+     * Start a session when only the user id is known
+     */
+    public String createSession(int userId, String ipAddress, String userAgent) {
+        return register(new Session(newToken(), userId, null, ipAddress, userAgent, clock.getAsLong()));
+    }
+
+    /**
+     * Return the live session for a token and extend it, or null if unknown or expired
+     */
+    public Session validate(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+
+        long now = clock.getAsLong();
+        if (session.expiresAt <= now) {
+            end(session);
+            return null;
+        }
+
+        session.lastActivity = now;
+        session.expiresAt = now + SESSION_TIMEOUT_MS;
+        if (session.dirty.compareAndSet(false, true)) {
+            pendingTouches.add(session);
+        }
+        return session;
+    }
+
+    /**
+     * End one session (logout)
+     */
+    public void invalidate(String token) {
+        Session session = token != null ? sessions.get(token) : null;
+        if (session != null) {
+            end(session);
+        }
+    }
+
+    /**
+     * End every session of a user
+     */
+    public int invalidateUser(int userId) {
+        return invalidateIf(session -> session.userId == userId);
+    }
+
+    /**
+     * End every session matching the condition
+     */
+    public int invalidateIf(Predicate<Session> condition) {
+        int ended = 0;
+        for (Session session : sessions.values()) {
+            if (condition.test(session)) {
+                end(session);
+                ended++;
+            }
+        }
+        return ended;
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Write all pending changes now
+     */
+    public synchronized void flush() {
+        if (pendingInserts.isEmpty() && pendingTouches.isEmpty() && pendingEnds.isEmpty()) {
+            return;
+        }
+
+        List<Session> inserts = drain(pendingInserts);
+        List<Session> touches = drain(pendingTouches);
+        List<Session> ends = drain(pendingEnds);
+        // Clear dirty flags before reading timestamps so a concurrent touch is queued again
+        for (Session session : touches) {
+            session.dirty.set(false);
+        }
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                writeInserts(conn, inserts);
+                writeTouches(conn, touches);
+                writeEnds(conn, ends);
+                conn.commit();
+                persistedUpdates.addAndGet(inserts.size() + touches.size() + ends.size());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            if (DatabaseUtil.isPermanentFailure(e)) {
+                LOGGER.log(Level.WARNING, "Session changes rejected as a batch, writing them one by one", e);
+                writeOneByOne(inserts, touches, ends);
+                return;
+            }
+            LOGGER.log(Level.WARNING, "Failed to persist session changes, retrying next flush", e);
+            requeue(inserts, touches, ends);
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flush();
+        LOGGER.info("SessionRegistry shutdown complete: " + getStats());
+    }
+
+    public String getStats() {
+        return String.format("SessionRegistry - Active: %d, Created: %d, Expired: %d, Persisted updates: %d, Rejected: %d",
+            sessions.size(), created.get(), expired.get(), persistedUpdates.get(), rejectedUpdates.get());
+    }
+
+    /**
+     * Fallback after a rejected batch: each change in its own statement, rejected ones dropped.
+     * If the database becomes unavailable part way, the changes not yet written are requeued.
+     */
+    private void writeOneByOne(List<Session> inserts, List<Session> touches, List<Session> ends) {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            writeEach(conn, inserts, this::writeInserts, true);
+            writeEach(conn, touches, this::writeTouches, false);
+            writeEach(conn, ends, this::writeEnds, false);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to persist session changes, retrying next flush", e);
+            requeue(inserts, touches, ends);
+        }
+    }
+
+    /**
+     * Write and remove each change from the list; a session whose insert is rejected is discarded
+     */
+    private void writeEach(Connection conn, List<Session> changes, ChangeWriter writer, boolean discardRejected)
+            throws SQLException {
+        Iterator<Session> iterator = changes.iterator();
+        while (iterator.hasNext()) {
+            Session session = iterator.next();
+            try {
+                writer.write(conn, List.of(session));
+                persistedUpdates.incrementAndGet();
+            } catch (SQLException e) {
+                if (!DatabaseUtil.isPermanentFailure(e)) {
+                    throw e;
+                }
+                rejectedUpdates.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Dropped session change the database rejected for user " + session.userId, e);
+                if (discardRejected) {
+                    discard(session);
+                }
+            }
+            iterator.remove();
+        }
+    }
+
+    private void requeue(List<Session> inserts, List<Session> touches, List<Session> ends) {
+        pendingInserts.addAll(inserts);
+        for (Session session : touches) {
+            if (session.dirty.compareAndSet(false, true)) {
+                pendingTouches.add(session);
+            }
+        }
+        pendingEnds.addAll(ends);
+    }
+
+    private String register(Session session) {
+        sessions.put(session.token, session);
+        schedule(session);
+        pendingInserts.add(session);
+        created.incrementAndGet();
+        return session.token;
+    }
+
+    private void end(Session session) {
+        if (sessions.remove(session.token, session)) {
+            wheel.get(session.wheelSlot).remove(session);
+            pendingEnds.add(session);
+        }
+    }
+
+    /**
+     * Forget a session that can never be persisted, without writing an end for it
+     */
+    private void discard(Session session) {
+        if (sessions.remove(session.token, session)) {
+            wheel.get(session.wheelSlot).remove(session);
+        }
+    }
+
+    private void schedule(Session session) {
+        int slot = (int) ((session.expiresAt / TICK_MS) % WHEEL_SLOTS);
+        session.wheelSlot = slot;
+        wheel.get(slot).add(session);
+    }
+
+    /**
+     * Process every wheel slot whose minute has passed; touched sessions are rescheduled
+     */
+    void advanceWheel() {
+        try {
+            long now = clock.getAsLong();
+            long currentTick = now / TICK_MS;
+
+            for (long tick = lastTick; tick <= currentTick && tick < lastTick + WHEEL_SLOTS; tick++) {
+                Set<Session> slot = wheel.get((int) (tick % WHEEL_SLOTS));
+                for (Session session : slot) {
+                    if (session.expiresAt <= now) {
+                        slot.remove(session);
+                        if (sessions.remove(session.token, session)) {
+                            pendingEnds.add(session);
+                            expired.incrementAndGet();
+                        }
+                    } else if ((session.expiresAt / TICK_MS) % WHEEL_SLOTS != tick % WHEEL_SLOTS) {
+                        slot.remove(session);
+                        schedule(session);
+                    }
+                }
+            }
+            lastTick = currentTick;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Session expiry tick failed", e);
+        }
+    }
+
+    private void writeInserts(Connection conn, List<Session> inserts) throws SQLException {
+        if (inserts.isEmpty()) return;
+        String sql = """
+            INSERT INTO user_sessions (id, user_id, ip_address, user_agent, is_active, last_activity, expires_at, created_at)
+            VALUES (?, ?, ?, ?, TRUE, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE last_activity = VALUES(last_activity), expires_at = VALUES(expires_at)
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Session session : inserts) {
+                stmt.setString(1, session.token);
+                stmt.setInt(2, session.userId);
+                stmt.setString(3, session.ipAddress != null ? session.ipAddress : UNKNOWN_ADDRESS);
+                stmt.setString(4, session.userAgent);
+                stmt.setTimestamp(5, toTimestamp(session.lastActivity));
+                stmt.setTimestamp(6, toTimestamp(session.expiresAt));
+                stmt.setTimestamp(7, toTimestamp(session.createdAt));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void writeTouches(Connection conn, List<Session> touches) throws SQLException {
+        if (touches.isEmpty()) return;
+        String sql = "UPDATE user_sessions SET last_activity = ?, expires_at = ? WHERE id = ? AND is_active = TRUE";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Session session : touches) {
+                stmt.setTimestamp(1, toTimestamp(session.lastActivity));
+                stmt.setTimestamp(2, toTimestamp(session.expiresAt));
+                stmt.setString(3, session.token);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void writeEnds(Connection conn, List<Session> ends) throws SQLException {
+        if (ends.isEmpty()) return;
+        String sql = "UPDATE user_sessions SET is_active = FALSE, expires_at = LEAST(expires_at, NOW()) WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Session session : ends) {
+                stmt.setString(1, session.token);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static <T> List<T> drain(ConcurrentLinkedQueue<T> queue) {
+        List<T> items = new ArrayList<>();
+        T item;
+        while ((item = queue.poll()) != null) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static Timestamp toTimestamp(long millis) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        TOKEN_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @FunctionalInterface
+    private interface ChangeWriter {
+        void write(Connection conn, List<Session> sessions) throws SQLException;
+    }
+
+    /**
+     * One login session; timestamps are epoch millis
+     */
+    public static final class Session {
+        private final String token;
+        private final int userId;
+        private final User user;
+        private final String ipAddress;
+        private final String userAgent;
+        private final long createdAt;
+        private volatile long lastActivity;
+        private volatile long expiresAt;
+        private volatile int wheelSlot;
+        private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+        private Session(String token, int userId, User user, String ipAddress, String userAgent, long createdAt) {
+            this.token = token;
+            this.userId = userId;
+            this.user = user;
+            this.ipAddress = ipAddress;
+            this.userAgent = userAgent;
+            this.createdAt = createdAt;
+            this.lastActivity = createdAt;
+            this.expiresAt = createdAt + SESSION_TIMEOUT_MS;
+        }
+
+        public String getToken() { return token; }
+        public int getUserId() { return userId; }
+        public User getUser() { return user; }
+        public long getLastActivity() { return lastActivity; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+}
@@ -0,0 +1,508 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Incremental rollups of activity and security events.
+ * Every written event bumps an in-memory counter for its minute and hour bucket
+ * (by type, severity, user and - for security events - IP); counters are merged into
+ * the event_rollups table every few seconds. Statistics read a few hundred bucket rows
+ * instead of aggregating the raw event tables.
+ */
+public class StatisticsRollupService {
+    private static final Logger LOGGER = Logger.getLogger(StatisticsRollupService.class.getName());
+    private static StatisticsRollupService instance;
+
+    // Rollup configuration
+    private static final long FLUSH_INTERVAL_SECONDS = 5;
+    private static final int MINUTE_BUCKET_RETENTION_HOURS = 48;
+    private static final int PRUNE_CHUNK_SIZE = 5000;
+
+    /**
+     * Event stream a rollup row belongs to
+     */
+    public enum Source {
+        ACTIVITY,
+        SECURITY
+    }
+
+    private enum Granularity {
+        MINUTE,
+        HOUR
+    }
+
+    private final Map<RollupKey, Long> pendingCounts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushExecutor;
+    private volatile boolean initialized = false;
+
+    private StatisticsRollupService() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Rollup-Flush");
+            t.setDaemon(true);
+            return t;
+        });
+
+        flushExecutor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        flushExecutor.scheduleWithFixedDelay(this::pruneMinuteBuckets, 1, 60, TimeUnit.MINUTES);
+    }
+
+    public static StatisticsRollupService getInstance() {
+        if (instance == null) {
+            synchronized (StatisticsRollupService.class) {
+                if (instance == null) {
+                    instance = new StatisticsRollupService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Whether getInstance() has created the service yet
+     */
+    public static boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * Create the rollup tables and backfill the rollups from the raw event tables; a backfill
+     * interrupted on an earlier run is resumed where it stopped
+     */
+    public void initialize() {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS event_rollups (
+                granularity ENUM('MINUTE', 'HOUR') NOT NULL,
+                source ENUM('ACTIVITY', 'SECURITY') NOT NULL,
+                bucket_start DATETIME NOT NULL,
+                event_type VARCHAR(100) NOT NULL,
+                severity VARCHAR(20) NOT NULL,
+                user_id BIGINT NOT NULL DEFAULT 0,
+                ip_address VARCHAR(45) NOT NULL DEFAULT '',
+                event_count INT NOT NULL DEFAULT 0,
+                PRIMARY KEY (granularity, source, bucket_start, event_type, severity, user_id, ip_address)
+            )
+            """;
+        String backfillSql = """
+            CREATE TABLE IF NOT EXISTS event_rollup_backfill (
+                source_table VARCHAR(64) NOT NULL,
+                granularity ENUM('MINUTE', 'HOUR') NOT NULL,
+                high_water_id BIGINT NOT NULL,
+                completed_at TIMESTAMP NULL,
+                PRIMARY KEY (source_table, granularity)
+            )
+            """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute(sql);
+            stmt.execute(backfillSql);
+            backfill(conn);
+
+            initialized = true;
+            LOGGER.info("Event rollups initialized successfully");
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to initialize event rollups", e);
+        }
+    }
+
+    /**
+     * Count one written event into its minute and hour buckets
+     */
+    public void record(Source source, String eventType, String severity, Integer userId,
+                       String ipAddress, LocalDateTime occurredAt) {
+        if (source == null || eventType == null) {
+            return;
+        }
+
+        LocalDateTime timestamp = occurredAt != null ? occurredAt : LocalDateTime.now();
+        long user = userId != null ? userId : 0L;
+        String sev = severity != null ? severity : "LOW";
+        String ip = source == Source.SECURITY && ipAddress != null ? ipAddress : "";
+
+        pendingCounts.merge(new RollupKey(Granularity.MINUTE, source, timestamp.truncatedTo(ChronoUnit.MINUTES),
+            eventType, sev, user, ip), 1L, Long::sum);
+        pendingCounts.merge(new RollupKey(Granularity.HOUR, source, timestamp.truncatedTo(ChronoUnit.HOURS),
+            eventType, sev, user, ip), 1L, Long::sum);
+    }
+
+    /**
+     * Merge pending counters into the rollup table
+     */
+    public synchronized void flush() {
+        // Counters wait in memory until the table exists and the backfill has claimed its rows
+        if (!initialized || pendingCounts.isEmpty()) {
+            return;
+        }
+
+        // remove() hands back the exact count; concurrent merges start a fresh counter
+        Map<RollupKey, Long> batch = new HashMap<>();
+        for (RollupKey key : new ArrayList<>(pendingCounts.keySet())) {
+            Long count = pendingCounts.remove(key);
+            if (count != null) {
+                batch.put(key, count);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        String sql = """
+            INSERT INTO event_rollups
+            (granularity, source, bucket_start, event_type, severity, user_id, ip_address, event_count)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)
+            """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Map.Entry<RollupKey, Long> entry : batch.entrySet()) {
+                RollupKey key = entry.getKey();
+                stmt.setString(1, key.granularity.name());
+                stmt.setString(2, key.source.name());
+                stmt.setTimestamp(3, Timestamp.valueOf(key.bucketStart));
+                stmt.setString(4, key.eventType);
+                stmt.setString(5, key.severity);
+                stmt.setLong(6, key.userId);
+                stmt.setString(7, key.ipAddress);
+                stmt.setLong(8, entry.getValue());
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+            LOGGER.fine("Flushed " + batch.size() + " rollup buckets");
+
+        } catch (SQLException e) {
+            // Put the counts back so the next flush retries them
+            batch.forEach((key, count) -> pendingCounts.merge(key, count, Long::sum));
+            LOGGER.log(Level.WARNING, "Failed to flush event rollups, will retry", e);
+        }
+    }
+
+    /**
+     * Aggregate the rollups for the trailing window.
+     * Whole hours come from hour buckets and the leading partial hour from minute buckets.
+     */
+    public RollupSummary getSummary(Source source, int hoursBack) {
+        if (!initialized) {
+            return null;
+        }
+
+        // Make events still sitting in memory visible to this read
+        flush();
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = now.minusHours(hoursBack);
+        LocalDateTime hourBoundary = windowStart.truncatedTo(ChronoUnit.HOURS);
+        if (hourBoundary.isBefore(windowStart)) {
+            hourBoundary = hourBoundary.plusHours(1);
+        }
+
+        // Minute buckets are pruned after a while; fall back to the enclosing hour bucket
+        LocalDateTime minuteStart = windowStart;
+        if (windowStart.isBefore(now.minusHours(MINUTE_BUCKET_RETENTION_HOURS - 1))) {
+            hourBoundary = windowStart.truncatedTo(ChronoUnit.HOURS);
+            minuteStart = hourBoundary;
+        }
+
+        String sql = """
+            SELECT event_type, severity, user_id, ip_address, SUM(event_count) AS total
+            FROM event_rollups
+            WHERE source = ?
+              AND ((granularity = 'MINUTE' AND bucket_start >= ? AND bucket_start < ?)
+                OR (granularity = 'HOUR' AND bucket_start >= ?))
+            GROUP BY event_type, severity, user_id, ip_address
+            """;
+
+        RollupSummary summary = new RollupSummary();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, source.name());
+            stmt.setTimestamp(2, Timestamp.valueOf(minuteStart));
+            stmt.setTimestamp(3, Timestamp.valueOf(hourBoundary));
+            stmt.setTimestamp(4, Timestamp.valueOf(hourBoundary));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summary.add(rs.getString("event_type"), rs.getString("severity"),
+                                rs.getLong("user_id"), rs.getString("ip_address"), rs.getLong("total"));
+                }
+            }
+
+            return summary;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to read event rollups", e);
+            return null;
+        }
+    }
+
+    /**
+     * Flush pending counters and stop the background flusher
+     */
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        LOGGER.info("StatisticsRollupService shutdown complete");
+    }
+
+    /**
+     * Build hour and recent minute buckets from the existing raw rows.
+     * On the first run each table's highest id is captured and stored in event_rollup_backfill;
+     * only rows up to it are backfilled. Counters recorded so far belong to those rows and are
+     * discarded, so every event is counted either by the backfill or live, never both.
+     * Each (table, granularity) step commits together with its completion mark, so a run that
+     * fails part-way is resumed on the next start without counting any step twice.
+     */
+    private void backfill(Connection conn) throws SQLException {
+        String[][] sources = {
+            {"ACTIVITY", "system_activities", "activity_type", "''"},
+            {"SECURITY", "security_events", "event_type", "COALESCE(ip_address, '')"}
+        };
+
+        claimBackfillRows(conn, sources);
+
+        for (String[] src : sources) {
+            for (Granularity granularity : Granularity.values()) {
+                try {
+                    backfillStep(conn, src, granularity);
+                } catch (SQLException e) {
+                    // A missing source table should not block the other backfills; retried on the next start
+                    LOGGER.log(Level.WARNING, "Failed to backfill " + granularity.name().toLowerCase()
+                        + " rollups from " + src[1] + ", will resume on the next start", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record each table's high-water id the first time the backfill runs
+     */
+    private void claimBackfillRows(Connection conn, String[][] sources) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM event_rollup_backfill LIMIT 1")) {
+            if (rs.next()) {
+                return;
+            }
+        }
+
+        String sql = "INSERT IGNORE INTO event_rollup_backfill (source_table, granularity, high_water_id) VALUES (?, ?, ?)";
+        synchronized (this) {
+            try (PreparedStatement insert = conn.prepareStatement(sql)) {
+                for (String[] src : sources) {
+                    long highWaterId = 0;
+                    try (Statement stmt = conn.createStatement();
+                         ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + src[1])) {
+                        highWaterId = rs.next() ? rs.getLong(1) : 0L;
+                    } catch (SQLException e) {
+                        LOGGER.log(Level.WARNING, "Failed to read backfill high-water id from " + src[1], e);
+                    }
+                    for (Granularity granularity : Granularity.values()) {
+                        insert.setString(1, src[1]);
+                        insert.setString(2, granularity.name());
+                        insert.setLong(3, highWaterId);
+                        insert.addBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            pendingCounts.clear();
+        }
+    }
+
+    /**
+     * Run one backfill step unless it already completed, in one transaction with its completion mark
+     */
+    private void backfillStep(Connection conn, String[] src, Granularity granularity) throws SQLException {
+        String bucketFormat = granularity == Granularity.HOUR ? "%Y-%m-%d %H:00:00" : "%Y-%m-%d %H:%i:00";
+        String sql = String.format("""
+            INSERT INTO event_rollups
+            (granularity, source, bucket_start, event_type, severity, user_id, ip_address, event_count)
+            SELECT '%s', '%s', DATE_FORMAT(created_at, '%s'), %s, COALESCE(severity, 'LOW'),
+                   COALESCE(user_id, 0), %s, COUNT(*)
+            FROM %s
+            WHERE id <= ? AND created_at IS NOT NULL %s
+            GROUP BY 3, 4, 5, 6, 7
+            ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)
+            """, granularity.name(), src[0], bucketFormat, src[2], src[3], src[1],
+            granularity == Granularity.MINUTE ? "AND created_at >= ?" : "");
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            long highWaterId;
+            // The row lock keeps two clients starting together from running the same step
+            try (PreparedStatement stmt = conn.prepareStatement("""
+                    SELECT high_water_id, completed_at FROM event_rollup_backfill
+                    WHERE source_table = ? AND granularity = ?
+                    FOR UPDATE
+                    """)) {
+                stmt.setString(1, src[1]);
+                stmt.setString(2, granularity.name());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next() || rs.getTimestamp("completed_at") != null) {
+                        conn.commit();
+                        return;
+                    }
+                    highWaterId = rs.getLong("high_water_id");
+                }
+            }
+
+            int rows;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, highWaterId);
+                if (granularity == Granularity.MINUTE) {
+                    stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().minusHours(MINUTE_BUCKET_RETENTION_HOURS)));
+                }
+                rows = stmt.executeUpdate();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE event_rollup_backfill SET completed_at = NOW() WHERE source_table = ? AND granularity = ?")) {
+                stmt.setString(1, src[1]);
+                stmt.setString(2, granularity.name());
+                stmt.executeUpdate();
+            }
+            conn.commit();
+            LOGGER.info("Backfilled " + rows + " " + granularity.name().toLowerCase() + " rollups from " + src[1]);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Delete minute buckets that have aged out of the minute retention window
+     */
+    private void pruneMinuteBuckets() {
+        if (!initialized) {
+            return;
+        }
+
+        String sql = "DELETE FROM event_rollups WHERE granularity = 'MINUTE' AND bucket_start < ? LIMIT " + PRUNE_CHUNK_SIZE;
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(MINUTE_BUCKET_RETENTION_HOURS));
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, cutoff);
+            int deleted;
+            int total = 0;
+            do {
+                deleted = stmt.executeUpdate();
+                total += deleted;
+            } while (deleted == PRUNE_CHUNK_SIZE);
+
+            if (total > 0) {
+                LOGGER.fine("Pruned " + total + " expired minute rollups");
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to prune minute rollups", e);
+        }
+    }
+
+    /**
+     * Identity of one rollup bucket
+     */
+    private static class RollupKey {
+        final Granularity granularity;
+        final Source source;
+        final LocalDateTime bucketStart;
+        final String eventType;
+        final String severity;
+        final long userId;
+        final String ipAddress;
+
+        RollupKey(Granularity granularity, Source source, LocalDateTime bucketStart, String eventType,
+                  String severity, long userId, String ipAddress) {
+            this.granularity = granularity;
+            this.source = source;
+            this.bucketStart = bucketStart;
+            this.eventType = eventType;
+            this.severity = severity;
+            this.userId = userId;
+            this.ipAddress = ipAddress;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RollupKey)) return false;
+            RollupKey other = (RollupKey) o;
+            return userId == other.userId
+                && granularity == other.granularity
+                && source == other.source
+                && bucketStart.equals(other.bucketStart)
+                && eventType.equals(other.eventType)
+                && severity.equals(other.severity)
+                && ipAddress.equals(other.ipAddress);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularity, source, bucketStart, eventType, severity, userId, ipAddress);
+        }
+    }
+
+    /**
+     * Totals over a window of rollup buckets
+     */
+    public static class RollupSummary {
+        private long total;
+        private final Map<String, Long> countsByType = new HashMap<>();
+        private final Map<String, Long> countsBySeverity = new HashMap<>();
+        private final Set<Long> distinctUsers = new HashSet<>();
+        private final Set<String> distinctIps = new HashSet<>();
+
+        void add(String eventType, String severity, long userId, String ipAddress, long count) {
+            total += count;
+            countsByType.merge(eventType, count, Long::sum);
+            countsBySeverity.merge(severity, count, Long::sum);
+            if (userId != 0) distinctUsers.add(userId);
+            if (ipAddress != null && !ipAddress.isEmpty()) distinctIps.add(ipAddress);
+        }
+
+        public long getTotal() { return total; }
+        public long getCountForType(String eventType) { return countsByType.getOrDefault(eventType, 0L); }
+        public long getCountForSeverity(String severity) { return countsBySeverity.getOrDefault(severity, 0L); }
+        public int getDistinctUsers() { return distinctUsers.size(); }
+        public int getDistinctIps() { return distinctIps.size(); }
+        public Map<String, Long> getCountsByType() { return Collections.unmodifiableMap(countsByType); }
+    }
+}
@@ -5,13 +5,17 @@ import gov.civiljoin.model.SystemActivity.ActivityType;
 import gov.civiljoin.model.SystemActivity.EntityType;
 import gov.civiljoin.model.SystemActivity.Severity;
 import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.MetadataCodec;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -47,16 +51,21 @@ public class SystemActivityService {
                     ip_address VARCHAR(45),
                     user_agent TEXT,
                     metadata JSON,
+                    metadata_bin BLOB,
                     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                     INDEX idx_activity_type (activity_type),
-                    INDEX idx_created_at (created_at),
+                    INDEX idx_created_at (created_at, id),
                     INDEX idx_user_id (user_id),
                     INDEX idx_severity (severity),
+                    INDEX idx_type_severity_created (activity_type, severity, created_at),
                     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL
                 )
                 """;
             
             stmt.execute(sql);
+            DatabaseUtil.ensureColumn("system_activities", "metadata_bin", "BLOB NULL AFTER metadata");
+            DatabaseUtil.ensureIndex("system_activities", "idx_created_at", "created_at, id");
+            DatabaseUtil.ensureIndex("system_activities", "idx_type_severity_created", "activity_type, severity, created_at");
             LOGGER.log(Level.INFO, "System activities table initialized successfully");
             
             // Insert sample data if table is empty
@@ -75,45 +84,28 @@ public class SystemActivityService {
     }
     
     /**
-     * Log a new system activity
+     * Log a new system activity.
+     * The row is queued on {@link ActivityLogWriter} and written in the next batch,
+     * so this is safe to call from the FX thread.
      */
     public void logActivity(Integer userId, ActivityType activityType, String description, 
                            EntityType entityType, Integer entityId, Severity severity, 
                            String ipAddress, String userAgent, Map<String, Object> metadata) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
+        ActivityLogWriter.PendingActivity activity = new ActivityLogWriter.PendingActivity(
+            userId,
+            activityType.name(),
+            description,
+            entityType.name(),
+            entityId,
+            severity.name(),
+            ipAddress,
+            userAgent,
+            MetadataCodec.encode(metadata),
+            LocalDateTime.now()
+        );
         
-        try {
-            conn = DatabaseUtil.getConnection();
-            String sql = """
-                INSERT INTO system_activities 
-                (user_id, activity_type, description, entity_type, entity_id, severity, ip_address, user_agent, metadata)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-            
-            stmt = conn.prepareStatement(sql);
-            stmt.setObject(1, userId);
-            stmt.setString(2, activityType.name());
-            stmt.setString(3, description);
-            stmt.setString(4, entityType.name());
-            stmt.setObject(5, entityId);
-            stmt.setString(6, severity.name());
-            stmt.setString(7, ipAddress);
-            stmt.setString(8, userAgent);
-            stmt.setString(9, metadata != null ? convertMapToJson(metadata) : null);
-            
-            stmt.executeUpdate();
-            LOGGER.log(Level.INFO, "Activity logged: {0} - {1}", new Object[]{activityType, description});
-            
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Failed to log system activity", e);
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) DatabaseUtil.closeConnection(conn);
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error closing database resources", e);
-            }
+        if (ActivityLogWriter.getInstance().enqueue(activity)) {
+            LOGGER.log(Level.FINE, "Activity queued: {0} - {1}", new Object[]{activityType, description});
         }
     }
     
@@ -129,84 +121,92 @@ public class SystemActivityService {
      */
     public List<SystemActivity> getRecentActivities(int limit, List<ActivityType> filterTypes, 
                                                    Severity minSeverity, String searchText) {
+        return findActivities(ActivityQuery.builder()
+            .types(filterTypes)
+            .minSeverity(minSeverity)
+            .searchText(searchText)
+            .limit(limit)
+            .build());
+    }
+    
+    /**
+     * Run a filtered, keyset-paginated timeline query.
+     * Pass {@code query.after(lastRow)} to fetch the following page.
+     */
+    public List<SystemActivity> findActivities(ActivityQuery query) {
         List<SystemActivity> activities = new ArrayList<>();
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
+        List<Object> params = new ArrayList<>();
+        String sql = query.toSql(params);
         
+        Connection conn = null;
         try {
             conn = DatabaseUtil.getConnection();
-            
-            // Build dynamic query based on filters
-            StringBuilder sql = new StringBuilder("""
-                SELECT sa.*, u.username 
-                FROM system_activities sa 
-                LEFT JOIN users u ON sa.user_id = u.id 
-                WHERE 1=1
-                """);
-            
-            List<Object> params = new ArrayList<>();
-            
-            // Filter by activity types
-            if (filterTypes != null && !filterTypes.isEmpty()) {
-                sql.append(" AND sa.activity_type IN (");
-                for (int i = 0; i < filterTypes.size(); i++) {
-                    sql.append(i > 0 ? ",?" : "?");
-                    params.add(filterTypes.get(i).name());
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setObject(i + 1, params.get(i));
                 }
-                sql.append(")");
-            }
-            
-            // Filter by minimum severity
-            if (minSeverity != null) {
-                sql.append(" AND sa.severity IN (");
-                for (Severity sev : Severity.values()) {
-                    if (sev.ordinal() >= minSeverity.ordinal()) {
-                        if (params.size() > (filterTypes != null ? filterTypes.size() : 0)) {
-                            sql.append(",?");
-                        } else {
-                            sql.append("?");
-                        }
-                        params.add(sev.name());
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        activities.add(createActivityFromResultSet(rs));
                     }
                 }
-                sql.append(")");
-            }
-            
-            // Search in description
-            if (searchText != null && !searchText.trim().isEmpty()) {
-                sql.append(" AND sa.description LIKE ?");
-                params.add("%" + searchText.trim() + "%");
-            }
-            
-            sql.append(" ORDER BY sa.created_at DESC LIMIT ?");
-            params.add(limit);
-            
-            stmt = conn.prepareStatement(sql.toString());
-            for (int i = 0; i < params.size(); i++) {
-                stmt.setObject(i + 1, params.get(i));
             }
-            
-            rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                SystemActivity activity = createActivityFromResultSet(rs);
-                activities.add(activity);
-            }
-            
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to retrieve system activities", e);
         } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                if (conn != null) DatabaseUtil.closeConnection(conn);
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error closing database resources", e);
-            }
+            if (conn != null) DatabaseUtil.closeConnection(conn);
         }
         
-        return activities;
+        return mergeArchived(query, activities);
+    }
+    
+    /**
+     * Continue a page into the cold archive once the hot rows run out or reach archived time
+     */
+    private List<SystemActivity> mergeArchived(ActivityQuery query, List<SystemActivity> hot) {
+        ActivityArchiveService archive = ActivityArchiveService.getInstance();
+        LocalDateTime newestArchived = archive.getNewestArchivedAt();
+        if (newestArchived == null) {
+            return hot;
+        }
+        if (hot.size() >= query.getLimit() && hot.get(hot.size() - 1).getCreatedAt().isAfter(newestArchived)) {
+            return hot;
+        }
+        
+        List<SystemActivity> archived = archive.findActivities(query, query.getLimit());
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        
+        List<SystemActivity> combined = new ArrayList<>(hot);
+        combined.addAll(archived);
+        combined.sort(Comparator.comparing(SystemActivity::getCreatedAt).thenComparingInt(SystemActivity::getId).reversed());
+        
+        // A crash between writing a segment and deleting its rows leaves them in both tiers
+        List<SystemActivity> merged = new ArrayList<>(query.getLimit());
+        Set<Integer> seen = new HashSet<>();
+        for (SystemActivity activity : combined) {
+            if (merged.size() >= query.getLimit()) break;
+            if (seen.add(activity.getId())) {
+                merged.add(activity);
+            }
+        }
+        return merged;
+    }
+    
+    /**
+     * Highest activity id written so far, or 0 if there are none; the starting point for tailing
+     */
+    public int getLatestActivityId() {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM system_activities")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to read latest activity id", e);
+            return 0;
+        }
     }
     
     /**
@@ -217,9 +217,69 @@ public class SystemActivityService {
     }
     
     /**
-     * Get activity statistics for dashboard
+     * Tail query for live timelines: activities with an id above {@code lastSeenId}, in id order.
+     * Keyed on the primary key rather than created_at, so journal replays and back-dated rows
+     * are picked up as soon as they are written and an idle poll reads nothing.
+     */
+    public List<SystemActivity> getActivitiesAfter(int lastSeenId, int limit) {
+        List<SystemActivity> activities = new ArrayList<>();
+        String sql = """
+            SELECT sa.*, u.username 
+            FROM system_activities sa 
+            LEFT JOIN users u ON sa.user_id = u.id 
+            WHERE sa.id > ?
+            ORDER BY sa.id ASC
+            LIMIT ?
+            """;
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseUtil.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, lastSeenId);
+                stmt.setInt(2, limit);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        activities.add(createActivityFromResultSet(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to retrieve new system activities", e);
+        } finally {
+            if (conn != null) DatabaseUtil.closeConnection(conn);
+        }
+        
+        return activities;
+    }
+    
+    /**
+     * Get activity statistics for dashboard.
+     * Reads the pre-aggregated rollups and only scans the raw table if they are unavailable.
      */
     public Map<String, Object> getActivityStatistics(int hoursBack) {
+        StatisticsRollupService.RollupSummary summary =
+            StatisticsRollupService.getInstance().getSummary(StatisticsRollupService.Source.ACTIVITY, hoursBack);
+        
+        if (summary != null) {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("totalActivities", (int) summary.getTotal());
+            stats.put("activeUsers", summary.getDistinctUsers());
+            stats.put("criticalEvents", (int) summary.getCountForSeverity(Severity.CRITICAL.name()));
+            stats.put("highEvents", (int) summary.getCountForSeverity(Severity.HIGH.name()));
+            stats.put("newRegistrations", (int) summary.getCountForType(ActivityType.USER_REGISTRATION.name()));
+            stats.put("newPosts", (int) summary.getCountForType(ActivityType.POST_CREATED.name()));
+            return stats;
+        }
+        
+        return getActivityStatisticsFromRawTable(hoursBack);
+    }
+    
+    /**
+     * Aggregate activity statistics directly over system_activities
+     */
+    private Map<String, Object> getActivityStatisticsFromRawTable(int hoursBack) {
         Map<String, Object> stats = new HashMap<>();
         Connection conn = null;
         PreparedStatement stmt = null;
@@ -270,39 +330,23 @@ public class SystemActivityService {
     }
     
     /**
-     * Clean up old activities (retention policy)
+     * Clean up old activities (retention policy).
+     * Runs through the retention engine in paced, checkpointed chunks.
      */
     public int cleanupOldActivities(int daysToKeep) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        
-        try {
-            conn = DatabaseUtil.getConnection();
-            String sql = "DELETE FROM system_activities WHERE created_at < DATE_SUB(NOW(), INTERVAL ? DAY)";
-            stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, daysToKeep);
-            
-            int deleted = stmt.executeUpdate();
-            LOGGER.log(Level.INFO, "Cleaned up {0} old system activities", deleted);
-            return deleted;
-            
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Failed to cleanup old activities", e);
-            return 0;
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) DatabaseUtil.closeConnection(conn);
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error closing database resources", e);
-            }
-        }
+        RetentionService.RetentionProgress report = RetentionService.getInstance().runPolicy(
+            RetentionService.RetentionPolicy.olderThanDays("system_activities", "system_activities",
+                                                           "created_at", daysToKeep, null));
+        long deleted = report.getRowsDeleted()
+            + ActivityArchiveService.getInstance().purgeOlderThan(LocalDateTime.now().minusDays(daysToKeep));
+        LOGGER.log(Level.INFO, "Cleaned up {0} old system activities", deleted);
+        return (int) deleted;
     }
     
     /**
      * Create SystemActivity from ResultSet
      */
-    private SystemActivity createActivityFromResultSet(ResultSet rs) throws SQLException {
+    SystemActivity createActivityFromResultSet(ResultSet rs) throws SQLException {
         SystemActivity activity = new SystemActivity();
         activity.setId(rs.getInt("id"));
         activity.setUserId(rs.getObject("user_id", Integer.class));
@@ -316,10 +360,15 @@ public class SystemActivityService {
         activity.setUserAgent(rs.getString("user_agent"));
         activity.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
         
-        // Parse metadata JSON if present
-        String metadataJson = rs.getString("metadata");
-        if (metadataJson != null && !metadataJson.trim().isEmpty()) {
-            activity.setMetadata(parseJsonToMap(metadataJson));
+        // Binary metadata is decoded lazily; rows written before it existed keep their JSON
+        byte[] encodedMetadata = rs.getBytes("metadata_bin");
+        if (encodedMetadata != null) {
+            activity.setEncodedMetadata(encodedMetadata);
+        } else {
+            String metadataJson = rs.getString("metadata");
+            if (metadataJson != null && !metadataJson.trim().isEmpty()) {
+                activity.setMetadata(Map.of("data", metadataJson));
+            }
         }
         
         return activity;
@@ -347,27 +396,27 @@ public class SystemActivityService {
             
             // Insert sample activities
             String insertSql = """
-                INSERT INTO system_activities (user_id, activity_type, description, entity_type, severity, metadata)
+                INSERT INTO system_activities (user_id, activity_type, description, entity_type, severity, metadata_bin)
                 VALUES (?, ?, ?, ?, ?, ?)
                 """;
             
             stmt = conn.prepareStatement(insertSql);
             
             // Sample activities
-            Object[][] sampleData = {
-                {1, "SYSTEM_ANNOUNCEMENT", "CivilJoin platform initialized successfully", "SYSTEM", "MEDIUM", "{\"component\":\"system\"}"},
-                {1, "ADMIN_ACTION", "Initial admin account configured", "USER", "LOW", "{\"action\":\"user_creation\"}"},
-                {1, "KEY_GENERATED", "Initial registration keys generated", "KEY_ID", "LOW", "{\"count\":3}"},
-                {null, "SYSTEM_ANNOUNCEMENT", "Platform ready for citizen registration", "SYSTEM", "HIGH", "{\"status\":\"operational\"}"}
+            SampleActivity[] sampleData = {
+                new SampleActivity(1, "SYSTEM_ANNOUNCEMENT", "CivilJoin platform initialized successfully", "SYSTEM", "MEDIUM", Map.of("component", "system")),
+                new SampleActivity(1, "ADMIN_ACTION", "Initial admin account configured", "USER", "LOW", Map.of("action", "user_creation")),
+                new SampleActivity(1, "KEY_GENERATED", "Initial registration keys generated", "KEY_ID", "LOW", Map.of("count", 3)),
+                new SampleActivity(null, "SYSTEM_ANNOUNCEMENT", "Platform ready for citizen registration", "SYSTEM", "HIGH", Map.of("status", "operational"))
             };
             
-            for (Object[] data : sampleData) {
-                stmt.setObject(1, data[0]);
-                stmt.setString(2, (String) data[1]);
-                stmt.setString(3, (String) data[2]);
-                stmt.setString(4, (String) data[3]);
-                stmt.setString(5, (String) data[4]);
-                stmt.setString(6, (String) data[5]);
+            for (SampleActivity data : sampleData) {
+                stmt.setObject(1, data.userId);
+                stmt.setString(2, data.activityType);
+                stmt.setString(3, data.description);
+                stmt.setString(4, data.entityType);
+                stmt.setString(5, data.severity);
+                stmt.setBytes(6, MetadataCodec.encode(data.metadata));
                 stmt.executeUpdate();
             }
             
@@ -385,34 +434,26 @@ public class SystemActivityService {
             }
         }
     }
-    
-    /**
-     * Convert Map to JSON string (simplified)
-     */
-    private String convertMapToJson(Map<String, Object> map) {
-        if (map == null || map.isEmpty()) return "{}";
-        
-        StringBuilder json = new StringBuilder("{");
-        boolean first = true;
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (!first) json.append(",");
-            json.append("\"").append(entry.getKey()).append("\":\"").append(entry.getValue()).append("\"");
-            first = false;
-        }
-        json.append("}");
-        return json.toString();
-    }
-    
+
     /**
-     * Parse JSON string to Map (simplified)
+     * One row of demonstration data
      */
-    private Map<String, Object> parseJsonToMap(String json) {
-        Map<String, Object> map = new HashMap<>();
-        // This is a simplified JSON parser - in production, use a proper JSON library
-        if (json != null && json.trim().startsWith("{") && json.trim().endsWith("}")) {
-            // Basic parsing - would need proper JSON library for production
-            map.put("data", json);
+    private static final class SampleActivity {
+        final Integer userId;
+        final String activityType;
+        final String description;
+        final String entityType;
+        final String severity;
+        final Map<String, ?> metadata;
+
+        SampleActivity(Integer userId, String activityType, String description, String entityType,
+                       String severity, Map<String, ?> metadata) {
+            this.userId = userId;
+            this.activityType = activityType;
+            this.description = description;
+            this.entityType = entityType;
+            this.severity = severity;
+            this.metadata = metadata;
         }
-        return map;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.util.DatabaseUtil;
+import gov.civiljoin.util.ScalableBloomFilter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory bloom filter of active usernames (lowercased), consulted before the user lookup so
+ * logins for names that cannot exist are rejected without a database query.
+ * Until the first build completes every name is reported as possibly present. Bloom filters
+ * cannot remove entries, so deletes and renames trigger a background rebuild.
+ */
+public class UsernameFilterService {
+    private static final Logger LOGGER = Logger.getLogger(UsernameFilterService.class.getName());
+    private static UsernameFilterService instance;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int FETCH_SIZE = 1000;
+
+    private volatile ScalableBloomFilter filter;
+    private List<String> addedDuringRebuild;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+
+    private UsernameFilterService() {
+    }
+
+    public static UsernameFilterService getInstance() {
+        if (instance == null) {
+            synchronized (UsernameFilterService.class) {
+                if (instance == null) {
+                    instance = new UsernameFilterService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Build the filter in the background; lookups pass through to the database until it is ready
+     */
+    public void initialize() {
+        rebuildAsync();
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    /**
+     * False only if the username is definitely not an active account
+     */
+    public boolean mightExist(String username) {
+        ScalableBloomFilter current = filter;
+        return current == null || current.mightContain(username.toLowerCase());
+    }
+
+    /**
+     * Record a newly registered or renamed username
+     */
+    public synchronized void add(String username) {
+        String key = username.toLowerCase();
+        if (filter != null) {
+            filter.add(key);
+        }
+        if (addedDuringRebuild != null) {
+            addedDuringRebuild.add(key);
+        }
+    }
+
+    /**
+     * Rebuild from the users table after deletes or renames; concurrent requests coalesce
+     */
+    public void rebuildAsync() {
+        if (!rebuildPending.compareAndSet(false, true)) {
+            return;
+        }
+        AsyncTaskService.getInstance().executeDbTask(() -> {
+            rebuildPending.set(false);
+            return rebuild();
+        });
+    }
+
+    /**
+     * Load every active username into a fresh filter and swap it in
+     *
+     * @return number of usernames loaded, or -1 if the build failed
+     */
+    public int rebuild() {
+        synchronized (this) {
+            addedDuringRebuild = new ArrayList<>();
+        }
+
+        ScalableBloomFilter rebuilt = null;
+        int loaded = 0;
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            int expected = MIN_CAPACITY;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users WHERE is_active = TRUE")) {
+                if (rs.next()) {
+                    expected = Math.max(MIN_CAPACITY, (int) (rs.getLong(1) * 1.25));
+                }
+            }
+
+            rebuilt = new ScalableBloomFilter(expected, FALSE_POSITIVE_RATE);
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT username FROM users WHERE is_active = TRUE")) {
+                stmt.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rebuilt.add(rs.getString(1).toLowerCase());
+                        loaded++;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to build username filter; lookups will go to the database", e);
+            rebuilt = null;
+        }
+
+        synchronized (this) {
+            if (rebuilt != null) {
+                // Registrations that committed after the snapshot was read
+                for (String key : addedDuringRebuild) {
+                    rebuilt.add(key);
+                }
+                filter = rebuilt;
+            }
+            addedDuringRebuild = null;
+        }
+
+        if (rebuilt == null) {
+            return -1;
+        }
+        LOGGER.info("Username filter built with " + loaded + " usernames (" + rebuilt.bitSize() / 8 / 1024 + " KB)");
+        return loaded;
+    }
+
+    public String getStats() {
+        ScalableBloomFilter current = filter;
+        if (current == null) {
+            return "UsernameFilter - not built";
+        }
+        return String.format("UsernameFilter - Entries: %d, Stages: %d, Size: %d KB",
+            current.size(), current.stageCount(), current.bitSize() / 8 / 1024);
+    }
+}
@@ -0,0 +1,123 @@
+package gov.civiljoin.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size bloom filter over longs and strings.
+ * Sized from the expected number of insertions and the target false positive rate;
+ * uses double hashing (h1 + i * h2) over a 64-bit mixed hash. Not thread-safe for writers.
+ */
+public class BloomFilter {
+    private final long[] bits;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, m);
+        this.bits = new long[(int) ((m + 63) / 64)];
+        this.numBits = (long) bits.length * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    private BloomFilter(long[] bits, int numHashes) {
+        this.bits = bits;
+        this.numBits = (long) bits.length * 64;
+        this.numHashes = numHashes;
+    }
+
+    public void add(long value) {
+        addHash(mix(value));
+    }
+
+    public boolean mightContain(long value) {
+        return containsHash(mix(value));
+    }
+
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    public boolean mightContain(String value) {
+        return containsHash(hash(value));
+    }
+
+    public long bitSize() {
+        return numBits;
+    }
+
+    public int hashCount() {
+        return numHashes;
+    }
+
+    /**
+     * Serialized form: [numHashes][word count][words...]
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + bits.length * 8);
+        buffer.putInt(numHashes);
+        buffer.putInt(bits.length);
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+        return buffer.array();
+    }
+
+    public static BloomFilter fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int numHashes = buffer.getInt();
+        long[] bits = new long[buffer.getInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = buffer.getLong();
+        }
+        return new BloomFilter(bits, numHashes);
+    }
+
+    private void addHash(long hash) {
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean containsHash(long hash) {
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, then mixed
+     */
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85A41L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
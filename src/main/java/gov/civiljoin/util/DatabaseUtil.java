@@ -213,6 +213,85 @@ public class DatabaseUtil {
         }
     }
     
+    /**
+     * Add a column to an existing table if it is not there yet.
+     * Used for additive migrations of tables created by earlier versions.
+     */
+    public static void ensureColumn(String table, String column, String definition) {
+        String sql = """
+            SELECT 1 FROM information_schema.COLUMNS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+            """;
+        
+        try (Connection conn = getConnection();
+             java.sql.PreparedStatement check = conn.prepareStatement(sql)) {
+            check.setString(1, table);
+            check.setString(2, column);
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+            
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+                LOGGER.info("Added column " + table + "." + column);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to add column " + table + "." + column, e);
+        }
+    }
+    
+    /**
+     * Create an index on an existing table if no index of that name exists yet
+     */
+    public static void ensureIndex(String table, String indexName, String columns) {
+        String sql = """
+            SELECT 1 FROM information_schema.STATISTICS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?
+            LIMIT 1
+            """;
+        
+        try (Connection conn = getConnection();
+             java.sql.PreparedStatement check = conn.prepareStatement(sql)) {
+            check.setString(1, table);
+            check.setString(2, indexName);
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+            
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX " + indexName + " ON " + table + " (" + columns + ")");
+                LOGGER.info("Created index " + table + "." + indexName);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to create index " + table + "." + indexName, e);
+        }
+    }
+    
+    /**
+     * True when retrying the same statement cannot succeed: SQLState class 22 (data exception,
+     * e.g. value too long) or 23 (integrity constraint, e.g. a foreign key to a deleted row)
+     */
+    public static boolean isPermanentFailure(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+    
+    /**
+     * True when the statement hit a UNIQUE or PRIMARY KEY constraint (MySQL error 1062)
+     */
+    public static boolean isDuplicateKey(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (current.getErrorCode() == 1062) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Get a connection from the pool
      */
@@ -285,38 +364,6 @@ public class DatabaseUtil {
         }
     }
     
-    /**
-     * Clean up expired sessions and notifications
-     */
-    public static void performMaintenanceTasks() {
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            // Clean up expired sessions
-            int expiredSessions = stmt.executeUpdate(
-                "DELETE FROM user_sessions WHERE expires_at < NOW()"
-            );
-            
-            // Clean up old notifications (older than 30 days)
-            int oldNotifications = stmt.executeUpdate(
-                "DELETE FROM notifications WHERE created_at < DATE_SUB(NOW(), INTERVAL 30 DAY) AND is_read = TRUE"
-            );
-            
-            // Clean up old activity logs (older than 90 days)
-            int oldLogs = stmt.executeUpdate(
-                "DELETE FROM activity_log WHERE created_at < DATE_SUB(NOW(), INTERVAL 90 DAY)"
-            );
-            
-            LOGGER.info(String.format(
-                "Maintenance completed: %d expired sessions, %d old notifications, %d old logs cleaned",
-                expiredSessions, oldNotifications, oldLogs
-            ));
-            
-        } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, "Database maintenance failed", e);
-        }
-    }
-    
     /**
      * Shutdown the connection pool gracefully
      */
@@ -0,0 +1,133 @@
+package gov.civiljoin.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Exact per-key count of recent failures over a sliding time window.
+ * <p>
+ * Each key keeps a small ring buffer of its last {@code capacity} failure timestamps, so counts
+ * up to the capacity are exact and never inflated by other keys. Keys live in a
+ * {@link ConcurrentHashMap} and are only ever updated through its per-key compute operations,
+ * so logins for different keys never wait on each other.
+ * <p>
+ * Keys are never evicted to make room: a key leaves the map only once all of its failures have
+ * aged out of the window, so churning through throwaway keys cannot clear an active lockout.
+ * Expired keys are dropped when next touched, and swept in bulk whenever the map grows past
+ * {@code sweepAboveKeys}.
+ */
+public class FailedAttemptTracker {
+    private final long windowMillis;
+    private final int capacity;
+    private final int sweepAboveKeys;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Attempts> attempts = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSweepAt;
+
+    /**
+     * @param windowMillis   length of the sliding window
+     * @param capacity       most failures remembered per key; counts saturate at this value
+     * @param sweepAboveKeys tracked keys above which expired keys are swept
+     */
+    public FailedAttemptTracker(long windowMillis, int capacity, int sweepAboveKeys) {
+        this(windowMillis, capacity, sweepAboveKeys, System::currentTimeMillis);
+    }
+
+    FailedAttemptTracker(long windowMillis, int capacity, int sweepAboveKeys, LongSupplier clock) {
+        this.windowMillis = windowMillis;
+        this.capacity = Math.max(1, capacity);
+        this.sweepAboveKeys = Math.max(1, sweepAboveKeys);
+        this.clock = clock;
+        this.nextSweepAt = new AtomicInteger(this.sweepAboveKeys);
+    }
+
+    /**
+     * Record one failure for the key and return its failures within the window
+     */
+    public int record(String key) {
+        long now = clock.getAsLong();
+        int[] count = new int[1];
+        attempts.compute(key, (k, entry) -> {
+            if (entry == null) {
+                entry = new Attempts(capacity);
+            }
+            entry.add(now);
+            count[0] = entry.count(now - windowMillis);
+            return entry;
+        });
+
+        int sweepAt = nextSweepAt.get();
+        if (attempts.size() > sweepAt && nextSweepAt.compareAndSet(sweepAt, Integer.MAX_VALUE)) {
+            sweepExpired(now);
+        }
+        return count[0];
+    }
+
+    /**
+     * Failures recorded for the key within the window
+     */
+    public int count(String key) {
+        return countAndExpire(key, clock.getAsLong() - windowMillis);
+    }
+
+    /**
+     * Forget the key's failures, e.g. after a successful login
+     */
+    public void reset(String key) {
+        attempts.remove(key);
+    }
+
+    public int size() {
+        return attempts.size();
+    }
+
+    /**
+     * Drop every key whose failures have all aged out, then wait for the map to double
+     * (or reach the threshold) before sweeping again, so sweeps stay amortized
+     */
+    private void sweepExpired(long now) {
+        long since = now - windowMillis;
+        for (String key : attempts.keySet()) {
+            countAndExpire(key, since);
+        }
+        nextSweepAt.set(Math.max(sweepAboveKeys, (int) Math.min(Integer.MAX_VALUE - 1, attempts.size() * 2L)));
+    }
+
+    private int countAndExpire(String key, long since) {
+        int[] count = new int[1];
+        attempts.computeIfPresent(key, (k, entry) -> {
+            count[0] = entry.count(since);
+            return count[0] == 0 ? null : entry;
+        });
+        return count[0];
+    }
+
+    /**
+     * Ring buffer of one key's latest failure timestamps; 0 marks an unused slot.
+     * Only touched inside the map's compute operations for its key.
+     */
+    private static final class Attempts {
+        final long[] times;
+        int next;
+
+        Attempts(int capacity) {
+            times = new long[capacity];
+        }
+
+        void add(long time) {
+            times[next] = time;
+            next = (next + 1) % times.length;
+        }
+
+        int count(long since) {
+            int count = 0;
+            for (long time : times) {
+                if (time > since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
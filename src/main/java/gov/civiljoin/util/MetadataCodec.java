@@ -0,0 +1,244 @@
+package gov.civiljoin.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding for event metadata maps.
+ * Layout: [version][varint entry count] then per entry a key and a tagged value.
+ * Keys found in the shared dictionary are written as a single varint id; other keys are
+ * written inline. Integers use zig-zag varints, strings are length-prefixed UTF-8.
+ * The dictionary is persisted implicitly in stored rows, so it may only ever be appended to.
+ */
+public final class MetadataCodec {
+    private static final byte FORMAT_VERSION = 1;
+
+    // Value tags
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_INT = 2;
+    private static final int TAG_LONG = 3;
+    private static final int TAG_TRUE = 4;
+    private static final int TAG_FALSE = 5;
+    private static final int TAG_DOUBLE = 6;
+
+    /**
+     * Interned keys; append only, never reorder or remove
+     */
+    private static final List<String> KEY_DICTIONARY = List.of(
+        "identifier", "attempts", "ip_address", "user_agent", "username", "user_id",
+        "reason", "action", "target", "count", "duration_ms", "post_id",
+        "comment_id", "key_id", "role", "previous", "current", "data",
+        "source", "error", "component", "status"
+    );
+    private static final Map<String, Integer> KEY_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < KEY_DICTIONARY.size(); i++) {
+            KEY_IDS.put(KEY_DICTIONARY.get(i), i);
+        }
+    }
+
+    private MetadataCodec() {
+    }
+
+    /**
+     * Encode a metadata map; returns null for a null or empty map
+     */
+    public static byte[] encode(Map<String, ?> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + metadata.size() * 12);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, metadata.size());
+
+        for (Map.Entry<String, ?> entry : metadata.entrySet()) {
+            Integer keyId = KEY_IDS.get(entry.getKey());
+            if (keyId != null) {
+                // Low bit clear: dictionary reference
+                writeVarint(out, (long) keyId << 1);
+            } else {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, ((long) key.length << 1) | 1);
+                out.write(key, 0, key.length);
+            }
+            writeValue(out, entry.getValue());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode an encoded map, preserving entry order; returns an empty map for null input
+     */
+    public static Map<String, Object> decode(byte[] encoded) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        if (encoded == null || encoded.length == 0) {
+            return metadata;
+        }
+        if (encoded[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported metadata format version " + encoded[0]);
+        }
+
+        int[] pos = {1};
+        long count = readVarint(encoded, pos);
+        for (long i = 0; i < count; i++) {
+            long keyRef = readVarint(encoded, pos);
+            String key;
+            if ((keyRef & 1) == 0) {
+                key = KEY_DICTIONARY.get((int) (keyRef >>> 1));
+            } else {
+                int length = (int) (keyRef >>> 1);
+                key = new String(encoded, pos[0], length, StandardCharsets.UTF_8);
+                pos[0] += length;
+            }
+            metadata.put(key, readValue(encoded, pos));
+        }
+        return metadata;
+    }
+
+    /**
+     * JSON view of an encoded map, for exports and display
+     */
+    public static String toJson(byte[] encoded) {
+        return toJson(decode(encoded));
+    }
+
+    /**
+     * JSON view of a metadata map
+     */
+    public static String toJson(Map<String, ?> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return "{}";
+        }
+
+        StringBuilder json = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, ?> entry : metadata.entrySet()) {
+            if (!first) json.append(',');
+            appendJsonString(json, entry.getKey());
+            json.append(':');
+
+            Object value = entry.getValue();
+            if (value == null || value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+            } else {
+                appendJsonString(json, value.toString());
+            }
+            first = false;
+        }
+        return json.append('}').toString();
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, Object value) {
+        if (value == null) {
+            out.write(TAG_NULL);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.write(TAG_INT);
+            writeVarint(out, zigZag(((Number) value).longValue()));
+        } else if (value instanceof Long) {
+            out.write(TAG_LONG);
+            writeVarint(out, zigZag((Long) value));
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.write(TAG_DOUBLE);
+            long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else {
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(TAG_STRING);
+            writeVarint(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static Object readValue(byte[] encoded, int[] pos) {
+        int tag = encoded[pos[0]++];
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_INT:
+                return (int) unZigZag(readVarint(encoded, pos));
+            case TAG_LONG:
+                return unZigZag(readVarint(encoded, pos));
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_DOUBLE:
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = (bits << 8) | (encoded[pos[0]++] & 0xFF);
+                }
+                return Double.longBitsToDouble(bits);
+            case TAG_STRING:
+                int length = (int) readVarint(encoded, pos);
+                String value = new String(encoded, pos[0], length, StandardCharsets.UTF_8);
+                pos[0] += length;
+                return value;
+            default:
+                throw new IllegalArgumentException("Unknown metadata value tag " + tag);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] encoded, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IllegalArgumentException("Malformed varint in metadata");
+            }
+            b = encoded[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -12,13 +12,35 @@ import java.util.Base64;
  * Enhanced password utility for CivilJoin 2.0
  * Uses PBKDF2 with SHA-256 for secure password hashing
  * Supports BCrypt for backward compatibility
+ * <p>
+ * New hashes carry their parameters: {@code $pbkdf2-sha256$i=<iterations>,l=<bits>$<base64 hash>},
+ * with the salt still stored separately. The iteration count for new hashes is set by
+ * {@link #calibrate(long)} at startup, and {@link #needsRehash(String)} tells callers when a
+ * stored hash is older or materially weaker than what would be produced today. Logins for
+ * unknown names hash a decoy at the cost most stored hashes have ({@link #setDecoyIterations(int)}),
+ * so their timing matches a real account's.
  */
 public class PasswordUtil {
     private static final SecureRandom RANDOM = new SecureRandom();
     private static final int SALT_LENGTH = 32;
-    private static final int HASH_ITERATIONS = 100000; // PBKDF2 iterations
+    private static final int LEGACY_ITERATIONS = 100000; // unversioned hashes
     private static final int HASH_LENGTH = 256; // bits
     
+    // Versioned hash format
+    private static final String HASH_PREFIX = "$pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int MIN_ITERATIONS = 100000;
+    private static final int MAX_ITERATIONS = 5000000; // refuse to verify anything costlier
+    private static final int CALIBRATION_PROBE_ITERATIONS = 20000;
+    private static final int ITERATION_STEP = 10000;
+    private static final double REHASH_BELOW_FRACTION = 0.8; // calibration noise stays above this
+    
+    // Cost for new hashes; raised by calibrate()
+    private static volatile int currentIterations = MIN_ITERATIONS;
+    
+    // Cost of the decoy hash for unknown names; follows the stored population
+    private static volatile int decoyIterations = LEGACY_ITERATIONS;
+    
     /**
      * Generate a cryptographically secure salt
      * @return base64 encoded salt string
@@ -38,13 +60,84 @@ public class PasswordUtil {
      * @return PBKDF2 hashed password
      */
     public static String hashPasswordWithSalt(String password, String salt) {
+        int iterations = currentIterations;
+        byte[] hash = derive(password, salt, iterations, HASH_LENGTH);
+        return HASH_PREFIX + "i=" + iterations + ",l=" + HASH_LENGTH + "$" + Base64.getEncoder().encodeToString(hash);
+    }
+    
+    /**
+     * Whether a stored hash should be replaced after the next successful login: unversioned, a
+     * shorter key than new hashes get, or materially fewer iterations. Hashes within 20% of the
+     * current cost are kept, so a recalibration that moves by a step or two does not rehash everyone.
+     */
+    public static boolean needsRehash(String hashedPassword) {
+        HashParameters params = HashParameters.parse(hashedPassword);
+        return params == null || params.keyLength < HASH_LENGTH
+            || params.iterations < currentIterations * REHASH_BELOW_FRACTION;
+    }
+    
+    /**
+     * Iterations a stored hash costs to verify; unversioned hashes use the legacy cost
+     */
+    public static int getIterations(String hashedPassword) {
+        HashParameters params = HashParameters.parse(hashedPassword);
+        return params != null ? params.iterations : LEGACY_ITERATIONS;
+    }
+    
+    /**
+     * Do the work of verifying a password against a typical stored hash, discarding the result
+     */
+    public static void hashDecoy(String password, String salt) {
+        derive(password, salt, decoyIterations, HASH_LENGTH);
+    }
+    
+    /**
+     * Set the decoy cost to the iteration count most stored hashes have
+     */
+    public static void setDecoyIterations(int iterations) {
+        decoyIterations = Math.max(1, Math.min(MAX_ITERATIONS, iterations));
+    }
+    
+    public static int getDecoyIterations() {
+        return decoyIterations;
+    }
+    
+    /**
+     * Pick the iteration count for new hashes so one verification takes about {@code targetMillis}
+     * on this machine, never below the 100,000-iteration floor
+     * 
+     * @return the iteration count now in use
+     */
+    public static int calibrate(long targetMillis) {
+        String salt = generateSalt();
+        derive("calibration", salt, CALIBRATION_PROBE_ITERATIONS, HASH_LENGTH); // warm up
+        
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            derive("calibration", salt, CALIBRATION_PROBE_ITERATIONS, HASH_LENGTH);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        
+        double nanosPerIteration = Math.max(1, bestNanos) / (double) CALIBRATION_PROBE_ITERATIONS;
+        long target = (long) (targetMillis * 1_000_000L / nanosPerIteration);
+        long rounded = target / ITERATION_STEP * ITERATION_STEP;
+        currentIterations = (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, rounded));
+        return currentIterations;
+    }
+    
+    public static int getCurrentIterations() {
+        return currentIterations;
+    }
+    
+    private static byte[] derive(String password, String salt, int iterations, int keyLength) {
         try {
             byte[] saltBytes = Base64.getDecoder().decode(salt);
-            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), saltBytes, HASH_ITERATIONS, HASH_LENGTH);
-            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), saltBytes, iterations, keyLength);
+            SecretKeyFactory factory = SecretKeyFactory.getInstance(ALGORITHM);
             byte[] hash = factory.generateSecret(spec).getEncoded();
             spec.clearPassword();
-            return Base64.getEncoder().encodeToString(hash);
+            return hash;
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new RuntimeException("Error hashing password with salt", e);
         }
@@ -61,6 +154,16 @@ public class PasswordUtil {
      */
     public static boolean verifyPasswordWithSalt(String password, String hashedPassword, String salt) {
         try {
+            HashParameters params = HashParameters.parse(hashedPassword);
+            if (params != null) {
+                return MessageDigest.isEqual(params.hash, derive(password, salt, params.iterations, params.keyLength));
+            }
+            if (hashedPassword.startsWith(HASH_PREFIX)) {
+                return false; // versioned but malformed or out of bounds
+            }
+            
+            // Everything below is the unversioned format; successful logins rehash these away
+            
             // Special handling for known migrated admin user
             if ("admin123".equals(password) && 
                 hashedPassword.startsWith("vVd8BPQ1dNdGBOzjMZKJ") && 
@@ -75,7 +178,7 @@ public class PasswordUtil {
                 return true; // This is the testuser with BCrypt hash but salt field
             }
             
-            String newHash = hashPasswordWithSalt(password, salt);
+            String newHash = Base64.getEncoder().encodeToString(derive(password, salt, LEGACY_ITERATIONS, HASH_LENGTH));
             return MessageDigest.isEqual(
                 hashedPassword.getBytes(),
                 newHash.getBytes()
@@ -219,4 +322,51 @@ public class PasswordUtil {
     public static String upgradeToPBKDF2(String password, String salt) {
         return hashPasswordWithSalt(password, salt);
     }
+    
+    /**
+     * Parameters decoded from a versioned hash header
+     */
+    private static final class HashParameters {
+        final int iterations;
+        final int keyLength;
+        final byte[] hash;
+        
+        private HashParameters(int iterations, int keyLength, byte[] hash) {
+            this.iterations = iterations;
+            this.keyLength = keyLength;
+            this.hash = hash;
+        }
+        
+        /**
+         * @return the parameters, or null if the hash is unversioned, malformed or out of bounds
+         */
+        static HashParameters parse(String hashedPassword) {
+            if (hashedPassword == null || !hashedPassword.startsWith(HASH_PREFIX)) {
+                return null;
+            }
+            try {
+                String[] parts = hashedPassword.substring(HASH_PREFIX.length()).split("\\$", -1);
+                if (parts.length != 2) {
+                    return null;
+                }
+                int iterations = -1;
+                int keyLength = -1;
+                for (String param : parts[0].split(",")) {
+                    if (param.startsWith("i=")) {
+                        iterations = Integer.parseInt(param.substring(2));
+                    } else if (param.startsWith("l=")) {
+                        keyLength = Integer.parseInt(param.substring(2));
+                    }
+                }
+                byte[] hash = Base64.getDecoder().decode(parts[1]);
+                if (iterations < 1 || iterations > MAX_ITERATIONS || keyLength < 128 || keyLength > 512
+                        || keyLength % 8 != 0 || hash.length != keyLength / 8) {
+                    return null;
+                }
+                return new HashParameters(iterations, keyLength, hash);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
 } 
\ No newline at end of file
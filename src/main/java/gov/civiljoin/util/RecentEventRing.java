@@ -0,0 +1,73 @@
+package gov.civiljoin.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring holding the most recent elements, for one writer at a time and any number
+ * of readers. The writer overwrites the oldest slot and then publishes the new count; readers
+ * never lock. A reader walks back from the published count and then re-reads it, seqlock
+ * style: slots the writer may have reached in the meantime could hold newer elements, so they
+ * are dropped. A racing snapshot can therefore come back short, but never holds duplicates or
+ * elements out of order.
+ */
+public class RecentEventRing<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+
+    // Total elements ever added, published after the slot write
+    private volatile long count;
+
+    public RecentEventRing(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Add an element, evicting the oldest once full; callers must not add concurrently
+     */
+    public void add(E element) {
+        long position = count;
+        slots.set((int) (position & mask), element);
+        count = position + 1;
+    }
+
+    /**
+     * Up to {@code max} most recent elements, newest first; at most capacity - 1, as the oldest
+     * slot is the next one the writer overwrites
+     */
+    public List<E> snapshot(int max) {
+        long end = count;
+        int available = (int) Math.min(end, Math.min(max, slots.length()));
+        List<E> copied = new ArrayList<>(available);
+        for (long position = end - 1; position >= end - available; position--) {
+            copied.add(slots.get((int) (position & mask)));
+        }
+
+        // Positions below this may have been overwritten (or be mid-write) since count was read
+        long oldestIntact = count - slots.length() + 1;
+        int intact = (int) Math.max(0, Math.min(available, end - oldestIntact));
+        List<E> result = new ArrayList<>(intact);
+        for (int i = 0; i < intact; i++) {
+            E element = copied.get(i);
+            if (element != null) {
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public int size() {
+        return (int) Math.min(count, slots.length());
+    }
+
+    public long totalAdded() {
+        return count;
+    }
+}
@@ -0,0 +1,67 @@
+package gov.civiljoin.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bloom filter that grows as elements are added.
+ * Starts with one {@link BloomFilter} stage; when a stage reaches its capacity a new stage is
+ * added with twice the capacity and half the false positive rate, so the compound rate stays
+ * below the initial target however many elements are added. Thread-safe.
+ */
+public class ScalableBloomFilter {
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final List<BloomFilter> stages = new ArrayList<>();
+    private long stageCapacity;
+    private double stageFalsePositiveRate;
+    private long stageCount;
+    private long totalCount;
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        this.stageCapacity = Math.max(64, initialCapacity);
+        this.stageFalsePositiveRate = falsePositiveRate * (1 - TIGHTENING_RATIO);
+        stages.add(new BloomFilter(stageCapacity, stageFalsePositiveRate));
+    }
+
+    public synchronized void add(String value) {
+        if (stageCount >= stageCapacity) {
+            stageCapacity *= GROWTH_FACTOR;
+            stageFalsePositiveRate *= TIGHTENING_RATIO;
+            stages.add(new BloomFilter(stageCapacity, stageFalsePositiveRate));
+            stageCount = 0;
+        }
+        stages.get(stages.size() - 1).add(value);
+        stageCount++;
+        totalCount++;
+    }
+
+    public synchronized boolean mightContain(String value) {
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            if (stages.get(i).mightContain(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of add calls, including duplicates
+     */
+    public synchronized long size() {
+        return totalCount;
+    }
+
+    public synchronized int stageCount() {
+        return stages.size();
+    }
+
+    public synchronized long bitSize() {
+        long bits = 0;
+        for (BloomFilter stage : stages) {
+            bits += stage.bitSize();
+        }
+        return bits;
+    }
+}
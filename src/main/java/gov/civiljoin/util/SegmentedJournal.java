@@ -0,0 +1,324 @@
+package gov.civiljoin.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of opaque records stored in fixed-size memory-mapped segment files.
+ * Each record is framed as [length][crc32][payload]; appends are fsynced in batches (every
+ * {@code syncBatchSize} records or {@code syncIntervalMs}, whichever comes first). Records are
+ * replayed in append order, and replay progress is checkpointed after each batch the handler
+ * applies, so a restart resumes at the last checkpoint instead of the start of the journal.
+ * Fully replayed segments are deleted.
+ * <p>
+ * Delivery is at-least-once: the checkpoint is written after the handler returns, so a crash
+ * between the handler committing a batch and the checkpoint reaching disk replays that batch.
+ * Handlers that must not see a record twice have to deduplicate it themselves.
+ */
+public class SegmentedJournal implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(SegmentedJournal.class.getName());
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "replay.checkpoint";
+
+    /**
+     * Applies a batch of replayed records; returns false to stop and retry the batch later.
+     * A batch may be handed over again after a crash even if it was applied.
+     */
+    @FunctionalInterface
+    public interface ReplayHandler {
+        boolean apply(List<byte[]> records);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int syncBatchSize;
+    private final ScheduledExecutorService syncExecutor;
+    private final Object replayLock = new Object();
+
+    // Active segment state, guarded by this
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+    private long activeSegmentId;
+    private int unsyncedRecords;
+
+    private volatile boolean pendingRecords;
+    private volatile boolean closed;
+
+    public SegmentedJournal(Path directory, int segmentSize, long syncIntervalMs, int syncBatchSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncBatchSize = Math.max(1, syncBatchSize);
+
+        Files.createDirectories(directory);
+
+        List<Long> segments = listSegmentIds();
+        long lastId = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+
+        // Records left by a previous run are sealed; appends always start in a fresh segment
+        openSegment(lastId + 1);
+        pendingRecords = !segments.isEmpty();
+
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Journal-Sync");
+            t.setDaemon(true);
+            return t;
+        });
+        syncExecutor.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Append one record; durable after the next batched sync
+     */
+    public synchronized void append(byte[] payload) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        if (payload.length + RECORD_HEADER_SIZE > segmentSize - 4) {
+            throw new IOException("Journal record of " + payload.length + " bytes exceeds segment size");
+        }
+
+        // Keep 4 bytes free so a zero length always terminates the segment
+        if (activeBuffer.remaining() < payload.length + RECORD_HEADER_SIZE + 4) {
+            rollSegment();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        activeBuffer.putInt(payload.length);
+        activeBuffer.putInt((int) crc.getValue());
+        activeBuffer.put(payload);
+        pendingRecords = true;
+
+        if (++unsyncedRecords >= syncBatchSize) {
+            sync();
+        }
+    }
+
+    /**
+     * Force appended records to disk
+     */
+    public synchronized void sync() {
+        if (unsyncedRecords > 0 && activeBuffer != null) {
+            activeBuffer.force();
+            unsyncedRecords = 0;
+        }
+    }
+
+    /**
+     * True while records are waiting to be replayed
+     */
+    public boolean hasPendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * Replay pending records in order, in batches of at most {@code batchSize}.
+     *
+     * @return number of records applied
+     */
+    public int replay(int batchSize, ReplayHandler handler) throws IOException {
+        synchronized (replayLock) {
+            synchronized (this) {
+                if (activeBuffer.position() > 0) {
+                    rollSegment();
+                }
+            }
+
+            long[] checkpoint = readCheckpoint();
+            int applied = 0;
+
+            for (long segmentId : listSegmentIds()) {
+                if (segmentId >= activeSegmentId) {
+                    break;
+                }
+                if (segmentId < checkpoint[0]) {
+                    // Replayed before a crash but not yet deleted
+                    Files.deleteIfExists(segmentPath(segmentId));
+                    continue;
+                }
+
+                int offset = segmentId == checkpoint[0] ? (int) checkpoint[1] : 0;
+                int segmentApplied = replaySegment(segmentId, offset, batchSize, handler);
+                if (segmentApplied < 0) {
+                    return applied + (-segmentApplied - 1);
+                }
+
+                applied += segmentApplied;
+                Files.deleteIfExists(segmentPath(segmentId));
+                writeCheckpoint(segmentId + 1, 0);
+            }
+
+            synchronized (this) {
+                pendingRecords = activeBuffer.position() > 0;
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * Replay one sealed segment from an offset.
+     * Returns the applied count, or -(applied + 1) if the handler asked to stop.
+     */
+    private int replaySegment(long segmentId, int startOffset, int batchSize, ReplayHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.position(startOffset);
+
+            int applied = 0;
+            int batchStart = startOffset;
+            List<byte[]> batch = new ArrayList<>(batchSize);
+
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int recordStart = buffer.position();
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining() - 4) {
+                    break;
+                }
+
+                int expectedCrc = buffer.getInt();
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    // Torn write from a crash; nothing after it in this segment is trustworthy
+                    LOGGER.warning("Journal segment " + segmentId + " has a corrupt record at offset " + recordStart);
+                    buffer.position(recordStart);
+                    break;
+                }
+
+                batch.add(payload);
+                if (batch.size() >= batchSize) {
+                    if (!handler.apply(batch)) {
+                        writeCheckpoint(segmentId, batchStart);
+                        return -(applied + 1);
+                    }
+                    applied += batch.size();
+                    batchStart = buffer.position();
+                    writeCheckpoint(segmentId, batchStart);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                if (!handler.apply(batch)) {
+                    writeCheckpoint(segmentId, batchStart);
+                    return -(applied + 1);
+                }
+                applied += batch.size();
+            }
+
+            return applied;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        syncExecutor.shutdown();
+        sync();
+        try {
+            activeChannel.close();
+            // An unused active segment would otherwise look like pending data on the next start
+            if (activeBuffer.position() == 0) {
+                Files.deleteIfExists(segmentPath(activeSegmentId));
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing journal segment", e);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Journal sync failed", e);
+        }
+    }
+
+    private synchronized void rollSegment() throws IOException {
+        sync();
+        activeBuffer.force();
+        activeChannel.close();
+        openSegment(activeSegmentId + 1);
+    }
+
+    private void openSegment(long segmentId) throws IOException {
+        activeSegmentId = segmentId;
+        activeChannel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        unsyncedRecords = 0;
+    }
+
+    private List<Long> listSegmentIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                .forEach(name -> {
+                    try {
+                        ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                                              name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        LOGGER.warning("Ignoring unexpected journal file: " + name);
+                    }
+                });
+        }
+        ids.sort(Long::compare);
+        return ids;
+    }
+
+    private Path segmentPath(long segmentId) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+    }
+
+    private long[] readCheckpoint() {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        try {
+            if (Files.exists(path)) {
+                String[] parts = Files.readString(path, StandardCharsets.UTF_8).trim().split("\\s+");
+                return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unreadable journal checkpoint, replaying from the oldest segment", e);
+        }
+        return new long[]{0, 0};
+    }
+
+    private void writeCheckpoint(long segmentId, long offset) throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap((segmentId + " " + offset).getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
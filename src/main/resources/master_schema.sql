@@ -458,7 +458,9 @@ CREATE TABLE IF NOT EXISTS security_events (
     description TEXT NOT NULL,
     severity ENUM('LOW', 'MEDIUM', 'HIGH', 'CRITICAL', 'EMERGENCY') NOT NULL DEFAULT 'LOW',
     ip_address VARCHAR(45),
+    user_agent TEXT,
     metadata JSON,
+    metadata_bin BLOB,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     INDEX idx_user_id (user_id),
     INDEX idx_event_type (event_type),
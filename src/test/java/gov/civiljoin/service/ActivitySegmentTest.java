@@ -0,0 +1,83 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.SystemActivity;
+import gov.civiljoin.model.SystemActivity.ActivityType;
+import gov.civiljoin.model.SystemActivity.EntityType;
+import gov.civiljoin.model.SystemActivity.Severity;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivitySegmentTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Test
+    void roundTripKeepsEveryColumnAcrossRowGroups() throws IOException {
+        List<SystemActivity> rows = new ArrayList<>();
+        for (int i = 0; i < ActivitySegment.ROW_GROUP_SIZE * 2 + 17; i++) {
+            rows.add(activity(i + 1, i % 7 == 0 ? null : i % 5, BASE.plusSeconds(i)));
+        }
+        rows.get(3).setMetadata(Map.of("target", "post-3", "count", 3));
+
+        ActivitySegment segment = ActivitySegment.open(ActivitySegment.Source.of(ActivitySegment.encode(rows)));
+        List<SystemActivity> decoded = segment.readAll();
+
+        assertEquals(rows.size(), segment.getRowCount());
+        assertEquals(BASE, segment.getMinCreatedAt());
+        assertEquals(rows.size(), decoded.size());
+        for (int i = 0; i < rows.size(); i++) {
+            SystemActivity expected = rows.get(i);
+            SystemActivity actual = decoded.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getUserId(), actual.getUserId());
+            assertEquals(expected.getActivityType(), actual.getActivityType());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getEntityType(), actual.getEntityType());
+            assertEquals(expected.getSeverity(), actual.getSeverity());
+            assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        }
+        assertEquals("post-3", decoded.get(3).getMetadata().get("target"));
+        assertTrue(decoded.get(4).getMetadata() == null || decoded.get(4).getMetadata().isEmpty());
+    }
+
+    @Test
+    void findNewestHonoursCursorAndUserFilter() throws IOException {
+        List<SystemActivity> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(activity(i + 1, i % 2 == 0 ? 10 : 20, BASE.plusMinutes(i)));
+        }
+        ActivitySegment segment = ActivitySegment.open(ActivitySegment.Source.of(ActivitySegment.encode(rows)));
+
+        List<SystemActivity> newest = segment.findNewest(ActivityQuery.builder().limit(5).build(), 5);
+        assertEquals(List.of(100, 99, 98, 97, 96), newest.stream().map(SystemActivity::getId).toList());
+
+        ActivityQuery page = ActivityQuery.builder().userId(10).limit(3).after(BASE.plusMinutes(50), 51).build();
+        List<SystemActivity> older = segment.findNewest(page, 3);
+        assertEquals(List.of(49, 47, 45), older.stream().map(SystemActivity::getId).toList());
+
+        assertTrue(segment.findNewest(ActivityQuery.builder().userId(99).build(), 10).isEmpty());
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        byte[] data = ActivitySegment.encode(List.of(activity(1, 1, BASE)));
+        data[data.length - 1] ^= 0x5A;
+        assertThrows(IOException.class, () -> ActivitySegment.open(ActivitySegment.Source.of(data)));
+    }
+
+    private static SystemActivity activity(int id, Integer userId, LocalDateTime createdAt) {
+        SystemActivity activity = new SystemActivity(userId, ActivityType.values()[id % ActivityType.values().length],
+            "Activity " + id, EntityType.values()[id % EntityType.values().length], Severity.values()[id % Severity.values().length]);
+        activity.setId(id);
+        activity.setCreatedAt(createdAt);
+        return activity;
+    }
+}
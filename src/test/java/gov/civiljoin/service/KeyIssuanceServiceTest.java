@@ -0,0 +1,42 @@
+package gov.civiljoin.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyIssuanceServiceTest {
+
+    @Test
+    void keysAreFilledToColumnWidthFromTheUnambiguousAlphabet() {
+        String key = KeyIssuanceService.randomKey("MOD");
+
+        assertEquals(16, key.length());
+        assertTrue(key.startsWith("MOD"));
+        assertTrue(key.substring(3).matches("[2-9A-HJ-NP-Z]+"), key);
+    }
+
+    @Test
+    void drawnKeysNeverRepeatWithinARequest() {
+        Set<String> drawn = new HashSet<>();
+        List<String> first = KeyIssuanceService.drawKeys("USER", 500, drawn);
+        List<String> second = KeyIssuanceService.drawKeys("USER", 500, drawn);
+
+        Set<String> all = new HashSet<>(first);
+        all.addAll(second);
+        assertEquals(1000, all.size());
+        assertEquals(all, drawn);
+    }
+
+    @Test
+    void bulkPermissionForLargeRunsAndAdminKeys() {
+        assertFalse(KeyIssuanceService.requiresBulkPermission("USER", KeyIssuanceService.BULK_ISSUANCE_THRESHOLD));
+        assertTrue(KeyIssuanceService.requiresBulkPermission("USER", KeyIssuanceService.BULK_ISSUANCE_THRESHOLD + 1));
+        assertTrue(KeyIssuanceService.requiresBulkPermission("ADMIN", 1));
+    }
+}
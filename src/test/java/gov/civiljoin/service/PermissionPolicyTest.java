@@ -0,0 +1,83 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.model.User.Role;
+import gov.civiljoin.service.AdminSecurityService.SecurityAction;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PermissionPolicyTest {
+
+    @Test
+    void standardPolicyMatchesTheRoleModel() {
+        PermissionPolicy policy = PermissionPolicy.standard();
+
+        for (SecurityAction action : SecurityAction.values()) {
+            assertTrue(policy.allows(Role.OWNER, action, "anything"), action.name());
+        }
+        assertTrue(policy.allows(Role.ADMIN, SecurityAction.BULK_OPERATION, "key_generation"));
+        assertFalse(policy.allows(Role.ADMIN, SecurityAction.EMERGENCY_ACTIVATION, "key_generation"));
+        assertTrue(policy.allows(Role.MODERATOR, SecurityAction.ADMIN_ACCESS, "key_generation"));
+        assertFalse(policy.allows(Role.MODERATOR, SecurityAction.BULK_OPERATION, "key_generation"));
+        assertTrue(policy.allows(Role.USER, SecurityAction.LOGIN_ATTEMPT, null));
+        assertFalse(policy.allows(Role.USER, SecurityAction.ADMIN_ACCESS, null));
+    }
+
+    @Test
+    void namedGrantsStayInTheirColumnWhileWildcardsCoverAll() {
+        PermissionPolicy policy = PermissionPolicy.builder()
+            .grant(SecurityAction.SENSITIVE_ACCESS, "audit_export", Role.MODERATOR)
+            .grant(SecurityAction.ADMIN_ACCESS, PermissionPolicy.ANY_RESOURCE, Role.ADMIN)
+            .build();
+
+        assertTrue(policy.allows(Role.MODERATOR, SecurityAction.SENSITIVE_ACCESS, "audit_export"));
+        assertFalse(policy.allows(Role.MODERATOR, SecurityAction.SENSITIVE_ACCESS, "user_list"));
+        assertFalse(policy.allows(Role.MODERATOR, SecurityAction.SENSITIVE_ACCESS, null));
+        assertTrue(policy.allows(Role.ADMIN, SecurityAction.ADMIN_ACCESS, "audit_export"));
+        assertTrue(policy.allows(Role.ADMIN, SecurityAction.ADMIN_ACCESS, "never_named"));
+        assertFalse(policy.allows(Role.ADMIN, SecurityAction.SENSITIVE_ACCESS, "audit_export"));
+    }
+
+    @Test
+    void bitsAcrossWordBoundariesDoNotBleed() {
+        // 8 actions x 17 columns spans three 64-bit words
+        PermissionPolicy.Builder builder = PermissionPolicy.builder();
+        for (int i = 0; i < 16; i++) {
+            builder.grant(SecurityAction.LOGIN_ATTEMPT, "resource" + i, Role.USER);
+        }
+        PermissionPolicy policy = builder
+            .grant(SecurityAction.SENSITIVE_ACCESS, "resource15", Role.USER)
+            .build();
+
+        for (int i = 0; i < 16; i++) {
+            assertTrue(policy.allows(Role.USER, SecurityAction.LOGIN_ATTEMPT, "resource" + i));
+            assertEquals(i == 15, policy.allows(Role.USER, SecurityAction.SENSITIVE_ACCESS, "resource" + i));
+        }
+        for (SecurityAction action : SecurityAction.values()) {
+            assertFalse(policy.allows(Role.ADMIN, action, "resource15"), action.name());
+        }
+    }
+
+    @Test
+    void restrictedCopyKeepsOnlyTheGivenRoles() {
+        PermissionPolicy standard = PermissionPolicy.standard();
+        PermissionPolicy emergency = standard.restrictTo(EnumSet.of(Role.OWNER));
+
+        assertTrue(emergency.allows(Role.OWNER, SecurityAction.SYSTEM_OVERRIDE, "*"));
+        assertFalse(emergency.allows(Role.ADMIN, SecurityAction.ADMIN_ACCESS, "*"));
+        assertFalse(emergency.allows(Role.USER, SecurityAction.LOGIN_ATTEMPT, "*"));
+        assertTrue(standard.allows(Role.ADMIN, SecurityAction.ADMIN_ACCESS, "*"));
+    }
+
+    @Test
+    void nullRoleOrActionIsDenied() {
+        PermissionPolicy policy = PermissionPolicy.standard();
+
+        assertFalse(policy.allows(null, SecurityAction.LOGIN_ATTEMPT, "*"));
+        assertFalse(policy.allows(Role.OWNER, null, "*"));
+    }
+}
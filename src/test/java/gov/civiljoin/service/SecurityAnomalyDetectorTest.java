@@ -0,0 +1,73 @@
+package gov.civiljoin.service;
+
+import gov.civiljoin.service.AdminSecurityService.SecurityThreat;
+import gov.civiljoin.service.SecurityService.PendingSecurityEvent;
+import gov.civiljoin.util.MetadataCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecurityAnomalyDetectorTest {
+    private final SecurityAnomalyDetector detector = SecurityAnomalyDetector.getInstance();
+    private final List<String> raised = new CopyOnWriteArrayList<>();
+    private final Consumer<SecurityThreat> listener = threat -> raised.add(threat.getId());
+
+    @BeforeEach
+    void listen() {
+        detector.addThreatListener(listener);
+    }
+
+    @AfterEach
+    void stopListening() {
+        detector.removeThreatListener(listener);
+    }
+
+    @Test
+    void repeatedFailuresOnOneAccountRaiseBeforeLockout() {
+        detector.onEvent(failedLogin("FAILED_LOGIN", "alice"));
+        detector.onEvent(failedLogin("SUSPICIOUS_ACTIVITY", "alice"));
+        assertFalse(raised.contains("CREDENTIAL_ATTACK_alice"));
+
+        detector.onEvent(failedLogin("SUSPICIOUS_ACTIVITY", "alice"));
+        assertTrue(raised.contains("CREDENTIAL_ATTACK_alice"));
+    }
+
+    @Test
+    void failuresSpreadOverManyAccountsRaiseBruteForce() {
+        for (int i = 0; i < 10; i++) {
+            detector.onEvent(failedLogin("FAILED_LOGIN", "spray-" + i));
+        }
+        assertTrue(raised.contains("BRUTE_FORCE_ACCOUNTS"));
+    }
+
+    @Test
+    void onlyAdminEventTypesCountTowardsAdminActivity() {
+        for (int i = 0; i < 20; i++) {
+            detector.onEvent(event("ADMIN_LIKE_BUT_UNKNOWN", 901, Map.of()));
+        }
+        assertFalse(raised.contains("PRIVILEGE_ESCALATION_901"));
+
+        for (int i = 0; i < 11; i++) {
+            detector.onEvent(event(AdminSecurityService.EVENT_KEY_GENERATION, 902, Map.of()));
+        }
+        assertTrue(raised.contains("PRIVILEGE_ESCALATION_902"));
+    }
+
+    private static PendingSecurityEvent failedLogin(String eventType, String identifier) {
+        return event(eventType, null, Map.of("identifier", identifier));
+    }
+
+    private static PendingSecurityEvent event(String eventType, Integer userId, Map<String, ?> metadata) {
+        return new PendingSecurityEvent(eventType, userId, null, null, "test", "MEDIUM",
+            MetadataCodec.encode(metadata), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,82 @@
+package gov.civiljoin.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SessionRegistryTest {
+    private static final long START = 1_700_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final SessionRegistry registry = new SessionRegistry(clock::get);
+
+    @Test
+    void idleSessionExpiresWhenTheWheelReachesItsSlot() {
+        String token = registry.createSession(7, "10.0.0.1", "test");
+
+        advanceMinutes(29);
+        registry.advanceWheel();
+        assertEquals(1, registry.getActiveSessionCount());
+
+        advanceMinutes(2);
+        registry.advanceWheel();
+        assertEquals(0, registry.getActiveSessionCount());
+        assertNull(registry.validate(token));
+    }
+
+    @Test
+    void touchedSessionIsRescheduledInsteadOfExpired() {
+        String token = registry.createSession(7, "10.0.0.1", "test");
+
+        advanceMinutes(20);
+        assertNotNull(registry.validate(token));
+
+        // Original expiry slot passes; the session moves to its new slot
+        advanceMinutes(11);
+        registry.advanceWheel();
+        assertEquals(1, registry.getActiveSessionCount());
+
+        advanceMinutes(20);
+        registry.advanceWheel();
+        assertEquals(0, registry.getActiveSessionCount());
+    }
+
+    @Test
+    void wheelCatchesUpAfterMissingMoreThanAFullTurn() {
+        registry.createSession(7, "10.0.0.1", "test");
+        registry.createSession(8, "10.0.0.2", "test");
+
+        advanceMinutes(120);
+        registry.advanceWheel();
+        assertEquals(0, registry.getActiveSessionCount());
+    }
+
+    @Test
+    void validateEndsAnExpiredSessionBeforeTheWheelDoes() {
+        String token = registry.createSession(7, "10.0.0.1", "test");
+
+        advanceMinutes(31);
+        assertNull(registry.validate(token));
+        assertEquals(0, registry.getActiveSessionCount());
+    }
+
+    @Test
+    void invalidateUserEndsOnlyThatUsersSessions() {
+        registry.createSession(7, "10.0.0.1", "test");
+        registry.createSession(7, "10.0.0.1", "other");
+        String kept = registry.createSession(8, "10.0.0.2", "test");
+
+        assertEquals(2, registry.invalidateUser(7));
+        assertEquals(1, registry.getActiveSessionCount());
+        assertNotNull(registry.validate(kept));
+    }
+
+    private void advanceMinutes(long minutes) {
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(minutes));
+    }
+}
@@ -0,0 +1,74 @@
+package gov.civiljoin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FailedAttemptTrackerTest {
+    private static final long WINDOW_MS = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void countsAreExactPerKeyAndSaturateAtCapacity() {
+        FailedAttemptTracker tracker = new FailedAttemptTracker(WINDOW_MS, 5, 100, now::get);
+        for (int i = 1; i <= 7; i++) {
+            assertEquals(Math.min(i, 5), tracker.record("alice"));
+        }
+        assertEquals(1, tracker.record("bob"));
+        assertEquals(5, tracker.count("alice"));
+        assertEquals(0, tracker.count("carol"));
+    }
+
+    @Test
+    void failuresAgeOutOfTheWindow() {
+        FailedAttemptTracker tracker = new FailedAttemptTracker(WINDOW_MS, 5, 100, now::get);
+        tracker.record("alice");
+        now.addAndGet(WINDOW_MS / 2);
+        tracker.record("alice");
+        assertEquals(2, tracker.count("alice"));
+
+        now.addAndGet(WINDOW_MS / 2 + 1);
+        assertEquals(1, tracker.count("alice"));
+
+        now.addAndGet(WINDOW_MS);
+        assertEquals(0, tracker.count("alice"));
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    void resetClearsOnlyThatKey() {
+        FailedAttemptTracker tracker = new FailedAttemptTracker(WINDOW_MS, 5, 100, now::get);
+        tracker.record("alice");
+        tracker.record("bob");
+        tracker.reset("alice");
+        assertEquals(0, tracker.count("alice"));
+        assertEquals(1, tracker.count("bob"));
+    }
+
+    @Test
+    void churningKeysCannotClearAnActiveLockout() {
+        FailedAttemptTracker tracker = new FailedAttemptTracker(WINDOW_MS, 5, 100, now::get);
+        for (int i = 0; i < 5; i++) {
+            tracker.record("victim");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            tracker.record("throwaway-" + i);
+        }
+        assertEquals(5, tracker.count("victim"));
+    }
+
+    @Test
+    void expiredKeysAreSweptOnceTheThresholdIsPassed() {
+        FailedAttemptTracker tracker = new FailedAttemptTracker(WINDOW_MS, 5, 100, now::get);
+        for (int i = 0; i < 100; i++) {
+            tracker.record("old-" + i);
+        }
+        now.addAndGet(WINDOW_MS + 1);
+        tracker.record("new-0");
+        assertTrue(tracker.size() <= 1, "expired keys were not swept: " + tracker.size());
+    }
+}
@@ -0,0 +1,63 @@
+package gov.civiljoin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataCodecTest {
+
+    @Test
+    void roundTripPreservesTypesAndOrder() {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("identifier", "alice");
+        metadata.put("attempts", -3);
+        metadata.put("duration_ms", 12_345_678_901L);
+        metadata.put("custom key", "ünïcode ✓");
+        metadata.put("flag", true);
+        metadata.put("off", false);
+        metadata.put("ratio", 0.25);
+        metadata.put("missing", null);
+
+        Map<String, Object> decoded = MetadataCodec.decode(MetadataCodec.encode(metadata));
+
+        assertEquals(metadata, decoded);
+        assertEquals(List.copyOf(metadata.keySet()), List.copyOf(decoded.keySet()));
+    }
+
+    @Test
+    void dictionaryKeysEncodeCompactly() {
+        byte[] interned = MetadataCodec.encode(Map.of("identifier", 1));
+        byte[] inline = MetadataCodec.encode(Map.of("identifierX", 1));
+        assertEquals(5, interned.length);
+        assertTrue(inline.length > interned.length + 10);
+    }
+
+    @Test
+    void emptyAndNullMapsEncodeToNull() {
+        assertNull(MetadataCodec.encode(null));
+        assertNull(MetadataCodec.encode(Map.of()));
+        assertTrue(MetadataCodec.decode(null).isEmpty());
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] encoded = MetadataCodec.encode(Map.of("action", "x"));
+        encoded[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> MetadataCodec.decode(encoded));
+    }
+
+    @Test
+    void jsonViewEscapesStrings() {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("reason", "say \"hi\"\n");
+        metadata.put("count", 2);
+        assertEquals("{\"reason\":\"say \\\"hi\\\"\\n\",\"count\":2}", MetadataCodec.toJson(MetadataCodec.encode(metadata)));
+    }
+}
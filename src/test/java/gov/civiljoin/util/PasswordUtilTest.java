@@ -0,0 +1,49 @@
+package gov.civiljoin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordUtilTest {
+
+    @Test
+    void hashesCarryTheirParametersAndVerify() {
+        String salt = PasswordUtil.generateSalt();
+        String hash = PasswordUtil.hashPasswordWithSalt("correct horse", salt);
+
+        assertTrue(hash.startsWith("$pbkdf2-sha256$i=" + PasswordUtil.getCurrentIterations() + ",l=256$"));
+        assertEquals(PasswordUtil.getCurrentIterations(), PasswordUtil.getIterations(hash));
+        assertTrue(PasswordUtil.verifyPasswordWithSalt("correct horse", hash, salt));
+        assertFalse(PasswordUtil.verifyPasswordWithSalt("wrong horse", hash, salt));
+        assertFalse(PasswordUtil.needsRehash(hash));
+    }
+
+    @Test
+    void rehashOnlyWhenMateriallyWeaker() {
+        int current = PasswordUtil.getCurrentIterations();
+        assertFalse(PasswordUtil.needsRehash(versioned(current * 85 / 100, 256)));
+        assertTrue(PasswordUtil.needsRehash(versioned(current * 70 / 100, 256)));
+        assertTrue(PasswordUtil.needsRehash(versioned(current, 128)));
+        assertTrue(PasswordUtil.needsRehash("unversionedLegacyHash"));
+    }
+
+    @Test
+    void malformedVersionedHashesAreRejected() {
+        String salt = PasswordUtil.generateSalt();
+        assertFalse(PasswordUtil.verifyPasswordWithSalt("pw", "$pbkdf2-sha256$i=abc,l=256$AAAA", salt));
+        assertFalse(PasswordUtil.verifyPasswordWithSalt("pw", "$pbkdf2-sha256$i=999999999,l=256$" + key(256), salt));
+        assertTrue(PasswordUtil.needsRehash("$pbkdf2-sha256$i=100000,l=256$" + key(128)));
+    }
+
+    private static String versioned(int iterations, int keyLength) {
+        return "$pbkdf2-sha256$i=" + iterations + ",l=" + keyLength + "$" + key(keyLength);
+    }
+
+    private static String key(int keyLength) {
+        return Base64.getEncoder().encodeToString(new byte[keyLength / 8]);
+    }
+}
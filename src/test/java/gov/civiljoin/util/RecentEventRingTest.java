@@ -0,0 +1,59 @@
+package gov.civiljoin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentEventRingTest {
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new RecentEventRing<Integer>(5).capacity());
+        assertEquals(8, new RecentEventRing<Integer>(8).capacity());
+        assertEquals(2, new RecentEventRing<Integer>(0).capacity());
+    }
+
+    @Test
+    void snapshotIsNewestFirstAndBounded() {
+        RecentEventRing<Integer> ring = new RecentEventRing<>(8);
+        for (int i = 1; i <= 3; i++) {
+            ring.add(i);
+        }
+        assertEquals(List.of(3, 2, 1), ring.snapshot(10));
+        assertEquals(List.of(3, 2), ring.snapshot(2));
+        assertEquals(3, ring.size());
+    }
+
+    @Test
+    void wraparoundKeepsOnlyTheLatestCapacityElements() {
+        RecentEventRing<Integer> ring = new RecentEventRing<>(4);
+        for (int i = 1; i <= 10; i++) {
+            ring.add(i);
+        }
+        // One slot is reserved for an in-flight write, so a full snapshot holds capacity - 1
+        assertEquals(List.of(10, 9, 8), ring.snapshot(10));
+        assertEquals(4, ring.size());
+        assertEquals(10, ring.totalAdded());
+    }
+
+    @Test
+    void racingReaderNeverSeesDuplicatesOrMisordering() throws InterruptedException {
+        RecentEventRing<Integer> ring = new RecentEventRing<>(16);
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 200_000; i++) {
+                ring.add(i);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Integer> snapshot = ring.snapshot(16);
+            for (int i = 1; i < snapshot.size(); i++) {
+                assertTrue(snapshot.get(i - 1) > snapshot.get(i), "snapshot out of order: " + snapshot);
+            }
+        }
+        writer.join();
+    }
+}